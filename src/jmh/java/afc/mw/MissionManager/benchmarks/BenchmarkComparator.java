@@ -0,0 +1,150 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.benchmarks;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Compares two JMH result files (JSON, as written by the {@code jmh} profile) and prints, as CSV, the
+ * change of each benchmark present in both. A benchmark regresses when it is worse than the baseline by
+ * more than the threshold and by more than the sum of both score errors. Exits with status 1 if any
+ * benchmark regressed.
+ * 
+ * Usage: {@code BenchmarkComparator <baseline.json> <current.json> [threshold_percent]}
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class BenchmarkComparator {
+	private static final double DEFAULT_THRESHOLD = 10.0;
+
+	/**
+	 * Score of a benchmark, with the given parameters.
+	 */
+	private static class Score {
+		String mode;
+		String unit;
+		double score;
+		double error;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparator <baseline.json> <current.json> [threshold_percent]");
+			System.exit(2);
+		}
+		double threshold = (args.length > 2) ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+		Map<String, Score> baseline = read(args[0]);
+		Map<String, Score> current = read(args[1]);
+
+		int regressions = 0;
+		System.out.println("benchmark,mode,unit,baseline,current,change_percent,status");
+		for (Map.Entry<String, Score> entry : current.entrySet()) {
+			Score before = baseline.get(entry.getKey());
+			Score after = entry.getValue();
+			if (before == null || !before.unit.equals(after.unit) || before.score == 0) {
+				continue;
+			}
+
+			// Throughput-like modes are better when higher; time modes when lower
+			boolean higherIsBetter = after.mode.equals("thrpt");
+			double change = (after.score - before.score) / before.score * 100;
+			double worse = higherIsBetter ? before.score - after.score : after.score - before.score;
+			String status = "ok";
+			if (worse > 0 && Math.abs(change) > threshold && worse > before.error + after.error) {
+				status = "regression";
+				regressions++;
+			} else if (worse < 0 && Math.abs(change) > threshold && -worse > before.error + after.error) {
+				status = "improvement";
+			}
+
+			System.out.println(entry.getKey() + "," + after.mode + "," + after.unit + ","
+					+ String.format(Locale.ROOT, "%.3f,%.3f,%.1f", before.score, after.score, change) + "," + status);
+		}
+
+		System.exit((regressions > 0) ? 1 : 0);
+	}
+
+	/**
+	 * Reads a JMH result file.
+	 * 
+	 * @param path	The file path
+	 * @return		The scores, by benchmark name and parameters ({@code name[param=value;...]})
+	 */
+	private static Map<String, Score> read(String path) throws IOException {
+		Map<String, Score> scores = new LinkedHashMap<String, Score>();
+		try (Reader file = new FileReader(path); JsonReader reader = Json.createReader(file)) {
+			JsonArray results = reader.readArray();
+			for (JsonValue value : results) {
+				JsonObject result = (JsonObject) value;
+				StringBuilder key = new StringBuilder(result.getString("benchmark"));
+				if (result.containsKey("params")) {
+					key.append('[');
+					boolean first = true;
+					for (Map.Entry<String, JsonValue> param : new TreeMap<>(result.getJsonObject("params")).entrySet()) {
+						key.append(first ? "" : ";").append(param.getKey()).append('=')
+								.append(((JsonString) param.getValue()).getString());
+						first = false;
+					}
+					key.append(']');
+				}
+
+				JsonObject metric = result.getJsonObject("primaryMetric");
+				Score score = new Score();
+				score.mode = result.getString("mode");
+				score.unit = metric.getString("scoreUnit");
+				score.score = metric.getJsonNumber("score").doubleValue();
+				score.error = metric.isNull("scoreError") ? 0 : readDouble(metric.get("scoreError"));
+				scores.put(key.toString(), score);
+			}
+		}
+		return scores;
+	}
+
+	/**
+	 * Reads a JMH number, which may be written as a string ("NaN") when it is not defined.
+	 */
+	private static double readDouble(JsonValue value) {
+		if (value.getValueType() == JsonValue.ValueType.NUMBER) {
+			return ((JsonNumber) value).doubleValue();
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,279 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.Vehicle;
+
+import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.types.VehiclePlan;
+import afc.mw.MissionManager.types.VehiclePlanException;
+import afc.mw.MissionManager.utils.AsyncLogHandler;
+import afc.mw.MissionManager.utils.IntHashMap;
+import afc.mw.MissionManager.utils.MissionManagerLogFormatter;
+import afc.mw.MissionManager.utils.MissionParser;
+import afc.mw.MissionManager.utils.SciLogFormatter;
+import afc.mw.MissionManager.utils.VehiclePlanWriter;
+
+/**
+ * Share of the log records in the time spent by the mission processing thread starting a mission: the
+ * vehicle plans are extracted from a synthetic mission and serialized, as {@code startMission} does,
+ * while issuing its log records (about 5 Mission Manager log and 6 tracking log records, plus 1 and 4
+ * per vehicle). The records are written by synchronous handlers with the former {@code String.format}
+ * formatters ({@code legacy}), by the asynchronous handlers ({@code async}), or discarded by the loggers
+ * ({@code off}); the difference with {@code off} is the cost of logging.
+ * 
+ * The asynchronous handlers are drained before each invocation, as missions are started far apart.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+	private static final int BUFFER_SIZE = 8192;
+	private static final int COMMANDS_PER_VEHICLE = 100;
+
+	@Param({ "off", "legacy", "async" })
+	public String mode;
+
+	@Param({ "10", "100" })
+	public int vehicles;
+
+	private File dir;
+	private Logger mmLog;
+	private Logger sciLog;
+	private AsyncLogHandler mmHandler;
+	private AsyncLogHandler sciHandler;
+	private MissionParser parser;
+	private Mission mission;
+
+	/**
+	 * The Mission Manager log formatter before the asynchronous handlers
+	 */
+	private static final class LegacyFormatter extends SimpleFormatter {
+		private static final String formatNormal = "[%1$tF %1$tT] [%2$-7s] [%3$s:%4$s (%5$s)] %6$s %n";
+
+		@Override
+		public synchronized String format(LogRecord lr) {
+			return String.format(formatNormal,
+					new Date(lr.getMillis()),
+					lr.getLevel().getLocalizedName(),
+					lr.getSourceClassName().substring(lr.getSourceClassName().lastIndexOf('.') + 1),
+					lr.getSourceMethodName(),
+					lr.getThreadID(),
+					lr.getMessage());
+		}
+	}
+
+	/**
+	 * The tracking log formatter before the asynchronous handlers
+	 */
+	private static final class LegacySciFormatter extends SimpleFormatter {
+		private static final String format = "%1$tF,%1$tT,%2$-7s,%3$s,%4$s,%5$s,%6$s,%7$s,%8$s,%9$s %n";
+
+		@Override
+		public synchronized String format(LogRecord lr) {
+			return String.format(format,
+					new Date(lr.getMillis()),
+					lr.getLevel().getLocalizedName(),
+					lr.getSourceClassName().substring(lr.getSourceClassName().lastIndexOf('.') + 1),
+					lr.getSourceMethodName(),
+					lr.getThreadID(),
+					Runtime.getRuntime().maxMemory(),
+					Runtime.getRuntime().totalMemory(),
+					Runtime.getRuntime().freeMemory(),
+					lr.getMessage());
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		// Only the records of the benchmark are written; the parser logs to the Mission Manager loggers
+		MissionManagerContext context = MissionManagerContext.getInstance();
+		context.mmLog.setLevel(Level.SEVERE);
+		context.sciLog.setLevel(Level.SEVERE);
+		parser = new MissionParser();
+		mission = parser.replaceNaN(MissionGenerator.generate(vehicles, COMMANDS_PER_VEHICLE, 1));
+
+		dir = Files.createTempDirectory("mm-logging").toFile();
+
+		mmLog = Logger.getAnonymousLogger();
+		mmLog.setUseParentHandlers(false);
+		sciLog = Logger.getAnonymousLogger();
+		sciLog.setUseParentHandlers(false);
+
+		if (mode.equals("off")) {
+			mmLog.setLevel(Level.OFF);
+			sciLog.setLevel(Level.OFF);
+		}
+		else if (mode.equals("legacy")) {
+			FileHandler mmFile = new FileHandler(new File(dir, "MissionManager.log").getPath(), true);
+			FileHandler sciFile = new FileHandler(new File(dir, "SciTrack.log").getPath(), true);
+			mmFile.setFormatter(new LegacyFormatter());
+			sciFile.setFormatter(new LegacySciFormatter());
+			mmLog.addHandler(mmFile);
+			sciLog.addHandler(sciFile);
+		}
+		else {
+			StreamHandler mmFile = new StreamHandler(new FileOutputStream(new File(dir, "MissionManager.log"), true),
+					new MissionManagerLogFormatter());
+			StreamHandler sciFile = new StreamHandler(new FileOutputStream(new File(dir, "SciTrack.log"), true),
+					new SciLogFormatter());
+			mmHandler = new AsyncLogHandler("mm-log-writer", BUFFER_SIZE, mmFile);
+			sciHandler = new AsyncLogHandler("mm-scilog-writer", BUFFER_SIZE, sciFile);
+			mmLog.addHandler(mmHandler);
+			sciLog.addHandler(sciHandler);
+		}
+	}
+
+	@Setup(org.openjdk.jmh.annotations.Level.Invocation)
+	public void drain() throws InterruptedException {
+		while ((mmHandler != null && mmHandler.getPending() > 0) || (sciHandler != null && sciHandler.getPending() > 0)) {
+			Thread.sleep(0, 100000);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (Logger logger : new Logger[] { mmLog, sciLog }) {
+			for (Handler handler : logger.getHandlers()) {
+				logger.removeHandler(handler);
+				handler.close();
+			}
+		}
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+	@Benchmark
+	public int startMission() throws VehiclePlanException {
+		long tic = System.currentTimeMillis();
+		int missionId = mission.missionId;
+		int requestId = 2000;
+		boolean legacy = mode.equals("legacy");
+
+		if (legacy) {
+			mmLog.log(Level.INFO, "Received new mission from the MMT. Mission ID: " + missionId + " (request ID: " + requestId + ")");
+			mmLog.log(Level.INFO, "Checking mission " + missionId + " validity.");
+			sciLog.log(Level.INFO, "exit,valid,valid," + tic + "," + tic + "," + 0);
+			mmLog.log(Level.INFO, "Mission " + missionId + " is valid. Continue processing...");
+			sciLog.log(Level.INFO, "mission_registry,register," + missionId + "," + 1 + "," + vehicles);
+		}
+		else {
+			mmLog.log(Level.INFO, "Received new mission from the MMT. Mission ID: {0} (request ID: {1})", new Object[] { missionId, requestId });
+			mmLog.log(Level.INFO, "Checking mission {0} validity.", missionId);
+			sciLog.log(Level.INFO, "exit,valid,valid,{0},{1},{2}", new Object[] { tic, tic, 0 });
+			mmLog.log(Level.INFO, "Mission {0} is valid. Continue processing...", missionId);
+			sciLog.log(Level.INFO, "mission_registry,register,{0},{1},{2}", new Object[] { missionId, 1, vehicles });
+		}
+
+		// The vehicle plans are extracted in a single pass, and each one is serialized for publication
+		IntHashMap<VehiclePlan> plans = parser.parseMissionPlans(mission);
+		long parsed = System.currentTimeMillis();
+		if (legacy) {
+			sciLog.log(Level.INFO, "parse_mission_plans," + vehicles + "," + plans.size() + "," + plans.size() + "," + tic + "," + parsed + "," + (parsed - tic));
+		}
+		else {
+			sciLog.log(Level.INFO, "parse_mission_plans,{0},{1},{2},{3},{4},{5}", new Object[] { vehicles, plans.size(), plans.size(), tic, parsed, parsed - tic });
+		}
+
+		int bytes = 0;
+		for (Vehicle vehicle : mission.vehicles) {
+			VehiclePlan plan = plans.get(vehicle.id);
+			if (plan == null) {
+				continue;
+			}
+			long start = System.currentTimeMillis();
+			byte[] json = VehiclePlanWriter.getInstance().toJson(plan);
+			bytes += json.length;
+			long toc = System.currentTimeMillis();
+
+			int id = vehicle.id;
+			if (legacy) {
+				sciLog.log(Level.INFO, "save_vehicle_plan,success," + start + "," + toc + "," + (toc - start));
+				mmLog.log(Level.INFO, "Parsed vehicle plan for vehicle " + vehicle.name + "(" + id + ") and locally saved as missions/AFC-VP-" + id + ".json");
+				sciLog.log(Level.INFO, "mqtt_publish,afc/vehicles/" + id + "/mission," + json.length + "," + start + "," + toc + "," + (toc - start));
+				sciLog.log(Level.INFO, "publish_vehicle_plan,success," + start + "," + toc + "," + (toc - start));
+				sciLog.log(Level.INFO, "dispatch_vehicle," + id + "," + vehicle.type + "," + 0 + "," + start + "," + toc + "," + (toc - start));
+			}
+			else {
+				sciLog.log(Level.INFO, "save_vehicle_plan,success,{0},{1},{2}", new Object[] { start, toc, toc - start });
+				mmLog.log(Level.INFO, "Parsed vehicle plan for vehicle {0}({1}) and locally saved as {2}", new Object[] { vehicle.name, id, "missions/AFC-VP-" + id + ".json" });
+				sciLog.log(Level.INFO, "mqtt_publish,{0},{1},{2},{3},{4}", new Object[] { "afc/vehicles/" + id + "/mission", json.length, start, toc, toc - start });
+				sciLog.log(Level.INFO, "publish_vehicle_plan,success,{0},{1},{2}", new Object[] { start, toc, toc - start });
+				sciLog.log(Level.INFO, "dispatch_vehicle,{0},{1},{2},{3},{4},{5}", new Object[] { id, vehicle.type, 0, start, toc, toc - start });
+			}
+		}
+
+		long toc = System.currentTimeMillis();
+		if (legacy) {
+			mmLog.log(Level.INFO, "Mission " + missionId + ": dispatched " + plans.size() + " of " + vehicles + " vehicles in " + (toc - tic) + " ms.");
+			sciLog.log(Level.INFO, "dispatch_total," + vehicles + "," + plans.size() + "," + tic + "," + toc + "," + (toc - tic));
+			sciLog.log(Level.INFO, "time_to_first_publish," + missionId + "," + requestId + "," + 0 + "," + tic + "," + toc + "," + (toc - tic));
+			sciLog.log(Level.INFO, "exit,ok,," + (toc - tic));
+		}
+		else {
+			mmLog.log(Level.INFO, "Mission {0}: dispatched {1} of {2} vehicles in {3} ms.", new Object[] { missionId, plans.size(), vehicles, toc - tic });
+			sciLog.log(Level.INFO, "dispatch_total,{0},{1},{2},{3},{4}", new Object[] { vehicles, plans.size(), tic, toc, toc - tic });
+			sciLog.log(Level.INFO, "time_to_first_publish,{0},{1},0,{2},{3},{4}", new Object[] { missionId, requestId, tic, toc, toc - tic });
+			sciLog.log(Level.INFO, "exit,ok,,{0}", toc - tic);
+		}
+		return bytes;
+	}
+}
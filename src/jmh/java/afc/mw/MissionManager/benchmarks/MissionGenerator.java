@@ -0,0 +1,208 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import com.afarcloud.thrift.Command;
+import com.afarcloud.thrift.CommandType;
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.Orientation;
+import com.afarcloud.thrift.PartField;
+import com.afarcloud.thrift.Position;
+import com.afarcloud.thrift.Region;
+import com.afarcloud.thrift.Task;
+import com.afarcloud.thrift.TaskCommandStatus;
+import com.afarcloud.thrift.TaskRegionType;
+import com.afarcloud.thrift.TaskTemplate;
+import com.afarcloud.thrift.TaskType;
+import com.afarcloud.thrift.TreatmentGrid;
+import com.afarcloud.thrift.Vehicle;
+import com.afarcloud.thrift.VehicleType;
+
+/**
+ * Generator of synthetic, valid mission plans for the benchmarks. Every fourth vehicle is a tractor
+ * with a square treatment grid over its partfield; the rest are unmanned vehicles with their commands
+ * interleaved in time. The same parameters and seed always generate the same mission.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class MissionGenerator {
+	public static final int MISSION_ID = 1000;
+	public static final long SEED = 42L;
+
+	/** Types of the unmanned vehicles, in order. */
+	private static final VehicleType[] UNMANNED_TYPES = { VehicleType.UAV, VehicleType.UGV, VehicleType.AUAV };
+	/** Application rates of the treatment grids (a few distinct values, as in real prescription maps). */
+	private static final double[] RATES = { 0, 50, 75, 100, 125, 150 };
+	/** Params of each command (as the MMT sends them: position, altitude, speed, bearing...). */
+	private static final int PARAMS = 7;
+	/** One command out of this many has a NaN param, to be replaced before the plan is stored. */
+	private static final int NAN_EVERY = 97;
+
+	private static final double LONGITUDE = -3.6300;
+	private static final double LATITUDE = 40.3900;
+	private static final double FIELD_SIZE = 0.0050;
+
+	private MissionGenerator() { }
+
+	/**
+	 * Generates a mission plan with the default seed.
+	 * 
+	 * @param vehicles				Number of vehicles
+	 * @param commandsPerVehicle	Number of commands of each unmanned vehicle
+	 * @param gridSize				Number of rows (and columns) of the treatment grid of each tractor
+	 * @return The mission plan
+	 */
+	public static Mission generate(int vehicles, int commandsPerVehicle, int gridSize) {
+		return generate(vehicles, commandsPerVehicle, gridSize, SEED);
+	}
+
+	/**
+	 * Generates a mission plan.
+	 * 
+	 * @param vehicles				Number of vehicles
+	 * @param commandsPerVehicle	Number of commands of each unmanned vehicle
+	 * @param gridSize				Number of rows (and columns) of the treatment grid of each tractor
+	 * @param seed					Seed of the random values
+	 * @return The mission plan
+	 */
+	public static Mission generate(int vehicles, int commandsPerVehicle, int gridSize, long seed) {
+		Random random = new Random(seed);
+		CommandType[] commandTypes = CommandType.values();
+		long start = 1609459200000L;
+
+		Mission mission = new Mission();
+		mission.missionId = MISSION_ID;
+		mission.name = "benchmark-" + vehicles + "-" + commandsPerVehicle + "-" + gridSize;
+		mission.navigationArea = rectangle(LONGITUDE, LATITUDE, FIELD_SIZE * 4, FIELD_SIZE * 4);
+		mission.forbiddenArea = new ArrayList<Region>();
+		mission.forbiddenArea.add(rectangle(LONGITUDE + FIELD_SIZE, LATITUDE + FIELD_SIZE, FIELD_SIZE / 4,
+				FIELD_SIZE / 4));
+		mission.homeLocation = new ArrayList<Position>();
+		mission.homeLocation.add(new Position(LONGITUDE, LATITUDE, 0));
+		mission.tasks = new ArrayList<Task>();
+		mission.vehicles = new ArrayList<Vehicle>();
+		mission.commands = new ArrayList<Command>();
+
+		ArrayList<Task> unmannedTasks = new ArrayList<Task>();
+		for (int i = 0; i < vehicles; i++) {
+			boolean tractor = (i % 4 == 3);
+
+			Vehicle vehicle = new Vehicle();
+			vehicle.id = 100 + i;
+			vehicle.name = (tractor ? "tractor-" : "uv-") + vehicle.id;
+			vehicle.type = tractor ? VehicleType.Tractor : UNMANNED_TYPES[i % UNMANNED_TYPES.length];
+			vehicle.maxSpeed = 5 + random.nextInt(10);
+			vehicle.maxRunningTime = 3600;
+			vehicle.safetyDistance = 2;
+			mission.vehicles.add(vehicle);
+
+			Task task = new Task();
+			task.id = 1 + i;
+			task.missionId = MISSION_ID;
+			task.assignedVehicleId = vehicle.id;
+			task.setAssignedVehicleIdIsSet(true);
+			task.speed = vehicle.maxSpeed / 2;
+			task.altitude = tractor ? 0 : 20;
+			task.range = 10;
+			task.bearing = new Orientation();
+			task.startTime = start;
+			task.endTime = start + commandsPerVehicle * 1000L;
+			task.taskStatus = TaskCommandStatus.NotStarted;
+			task.taskTemplate = new TaskTemplate();
+			task.taskTemplate.taskType = TaskType.values()[0];
+			task.taskTemplate.description = "benchmark";
+			task.taskTemplate.regionType = TaskRegionType.values()[0];
+			task.taskTemplate.requiredTypes = new ArrayList<>();
+			task.taskTemplate.maxSpeed = vehicle.maxSpeed;
+
+			double longitude = LONGITUDE + (i % 4) * FIELD_SIZE;
+			double latitude = LATITUDE + (i / 4 % 4) * FIELD_SIZE;
+			task.area = rectangle(longitude, latitude, FIELD_SIZE, FIELD_SIZE);
+			if (tractor) {
+				PartField partfield = new PartField();
+				partfield.partfieldId = task.id;
+				partfield.isoId = "PFD" + task.id;
+				partfield.name = "Partfield " + task.id;
+				partfield.borderPoints = task.area;
+				task.partfields = new ArrayList<PartField>();
+				task.partfields.add(partfield);
+
+				TreatmentGrid grid = new TreatmentGrid();
+				grid.Id = task.id;
+				grid.partfieldId = partfield.partfieldId;
+				grid.taskId = task.id;
+				grid.numRows = gridSize;
+				grid.numCols = gridSize;
+				grid.treatmentValue = new ArrayList<Double>(gridSize * gridSize);
+				for (int cell = 0; cell < gridSize * gridSize; cell++) {
+					grid.treatmentValue.add(RATES[random.nextInt(RATES.length)]);
+				}
+				task.treatmentGrids = new ArrayList<TreatmentGrid>();
+				task.treatmentGrids.add(grid);
+			} else {
+				unmannedTasks.add(task);
+			}
+			mission.tasks.add(task);
+		}
+
+		// Commands of the unmanned vehicles, interleaved in time as in the plans sent by the MMT
+		int id = 1;
+		for (int c = 0; c < commandsPerVehicle; c++) {
+			for (Task task : unmannedTasks) {
+				Command command = new Command();
+				command.id = id++;
+				command.relatedTask = task;
+				command.commandType = commandTypes[c % commandTypes.length];
+				command.commandStatus = TaskCommandStatus.NotStarted;
+				command.startTime = start + c * 1000L + random.nextInt(1000);
+				command.endTime = command.startTime + 1000L;
+				command.params = new ArrayList<Double>(PARAMS);
+				command.params.add(task.area.area.get(0).latitude + random.nextDouble() * FIELD_SIZE);
+				command.params.add(task.area.area.get(0).longitude + random.nextDouble() * FIELD_SIZE);
+				command.params.add(task.altitude);
+				command.params.add(task.speed);
+				command.params.add(random.nextDouble() * 360);
+				command.params.add(0.0);
+				command.params.add((command.id % NAN_EVERY == 0) ? Double.NaN : 1.0);
+				mission.commands.add(command);
+			}
+		}
+
+		return mission;
+	}
+
+	private static Region rectangle(double longitude, double latitude, double width, double height) {
+		Region region = new Region(new ArrayList<Position>());
+		region.area.add(new Position(longitude, latitude, 0));
+		region.area.add(new Position(longitude + width, latitude, 0));
+		region.area.add(new Position(longitude + width, latitude + height, 0));
+		region.area.add(new Position(longitude, latitude + height, 0));
+		return region;
+	}
+}
@@ -0,0 +1,156 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.apache.thrift.TDeserializer;
+import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.Vehicle;
+
+import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.types.VehiclePlan;
+import afc.mw.MissionManager.types.VehiclePlanException;
+import afc.mw.MissionManager.utils.IntHashMap;
+import afc.mw.MissionManager.utils.MissionParser;
+import afc.mw.MissionManager.utils.MissionValidator;
+import afc.mw.MissionManager.utils.ValidationResult;
+
+/**
+ * Cost of the mission plan processing steps that depend on the size of the whole mission: validation,
+ * vehicle plan extraction, NaN replacement, CSV export and Thrift (binary protocol) round-trips.
+ * Only SEVERE records are logged, so logging does not distort the results (see {@link LoggingBenchmark}).
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MissionParsingBenchmark {
+	@Param({ "10", "100" })
+	public int vehicles;
+
+	@Param({ "10", "100" })
+	public int commandsPerVehicle;
+
+	@Param({ "32" })
+	public int gridSize;
+
+	private MissionManagerContext context;
+	private MissionParser parser;
+	private Mission mission;
+	private Vehicle unmannedVehicle;
+	private byte[] serialized;
+	private File missionDir;
+
+	@Setup
+	public void setup() throws IOException, TException {
+		context = MissionManagerContext.getInstance();
+		context.mmLog.setLevel(Level.SEVERE);
+		context.sciLog.setLevel(Level.SEVERE);
+		missionDir = Files.createTempDirectory("mm-benchmark").toFile();
+		context.current_mission_dir = missionDir.getPath();
+
+		parser = new MissionParser();
+		mission = MissionGenerator.generate(vehicles, commandsPerVehicle, gridSize);
+		unmannedVehicle = mission.vehicles.get(0);
+		serialized = new TSerializer(new TBinaryProtocol.Factory()).serialize(mission);
+	}
+
+	@TearDown
+	public void tearDown() {
+		File[] files = missionDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		missionDir.delete();
+	}
+
+	@Benchmark
+	public ValidationResult validate() {
+		return MissionValidator.getInstance().validate(mission);
+	}
+
+	@Benchmark
+	public VehiclePlan parseMission() throws VehiclePlanException {
+		return parser.parseMission(unmannedVehicle, mission);
+	}
+
+	@Benchmark
+	public IntHashMap<VehiclePlan> parseMissionPlans() throws VehiclePlanException {
+		return parser.parseMissionPlans(mission);
+	}
+
+	/**
+	 * NaN replacement on a private copy of the mission, as done for every received plan.
+	 */
+	@Benchmark
+	public Mission replaceNaN() {
+		return parser.replaceNaN(new Mission(mission));
+	}
+
+	@Benchmark
+	public void exportToCSV() {
+		parser.exportToCSV(1, mission);
+	}
+
+	@Benchmark
+	public byte[] thriftSerialize() throws TException {
+		return new TSerializer(new TBinaryProtocol.Factory()).serialize(mission);
+	}
+
+	@Benchmark
+	public Mission thriftDeserialize() throws TException {
+		Mission received = new Mission();
+		new TDeserializer(new TBinaryProtocol.Factory()).deserialize(received, serialized);
+		return received;
+	}
+}
@@ -0,0 +1,200 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyNamingStrategy;
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.Task;
+import com.afarcloud.thrift.Vehicle;
+
+import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.types.VehiclePlanException;
+import afc.mw.MissionManager.types.isobus.PrescriptionMap;
+import afc.mw.MissionManager.utils.ExecutorManager;
+import afc.mw.MissionManager.utils.GridResampler;
+import afc.mw.MissionManager.utils.MissionParser;
+import afc.mw.MissionManager.utils.PolygonRasterizer;
+import afc.mw.MissionManager.utils.TaskDataWriter;
+import afc.mw.MissionManager.utils.TreatmentZoneQuantizer;
+import afc.mw.MissionManager.utils.TreatmentZoneQuantizer.Quantization;
+
+/**
+ * Cost of preparing the prescription map of one tractor for the ISOBUS Converter, by treatment grid
+ * size: extraction from the mission plan (including the rasterization of the partfield into the
+ * in-field mask and the quantization of the treatment grid into treatment zones, also measured alone)
+ * JSON-B serialization (with the configuration used by the Mission Manager) and local generation of the
+ * ISO 11783-10 task data (into a temporary directory). The rasterization
+ * alone is measured on an irregular field of {@value #FIELD_VERTICES} vertices, and the resampling
+ * onto cells {@value #RESAMPLE_RATIO} times larger than those of the treatment grid.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrescriptionMapBenchmark {
+	private static final int FIELD_VERTICES = 256;
+	private static final double RESAMPLE_RATIO = 1.7;
+
+	private static final Jsonb jsonbPrescriptionMap = JsonbBuilder.create(new JsonbConfig().withNullValues(false)
+			.withFormatting(true).withPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE));
+
+	@Param({ "32", "128", "512", "1000" })
+	public int gridSize;
+
+	private MissionParser parser;
+	private Mission mission;
+	private Vehicle tractor;
+	private PrescriptionMap prescriptionMap;
+	private double[] treatmentValues;
+	private TreatmentZoneQuantizer quantizer;
+	private int zones;
+	private PolygonRasterizer rasterizer;
+	private GridResampler resampler;
+	private double[] fieldXs;
+	private double[] fieldYs;
+	private File taskDataDirectory;
+
+	@Setup
+	public void setup() throws VehiclePlanException, IOException {
+		MissionManagerContext context = MissionManagerContext.getInstance();
+		context.mmLog.setLevel(Level.SEVERE);
+		context.sciLog.setLevel(Level.SEVERE);
+
+		parser = new MissionParser();
+		mission = MissionGenerator.generate(4, 1, gridSize);
+		tractor = mission.vehicles.get(3);
+		prescriptionMap = parser.parsePrescriptionMap(tractor, mission);
+
+		for (Task task : mission.tasks) {
+			if (task.assignedVehicleId == tractor.id && task.isSetTreatmentGrids()) {
+				List<Double> values = task.treatmentGrids.get(0).treatmentValue;
+				treatmentValues = new double[values.size()];
+				for (int i = 0; i < treatmentValues.length; i++) {
+					treatmentValues[i] = values.get(i);
+				}
+			}
+		}
+		zones = context.isobusConverterTreatmentZones;
+		quantizer = new TreatmentZoneQuantizer(ExecutorManager.getInstance().getGridPool());
+
+		// Star-shaped field inscribed in the unit square
+		rasterizer = new PolygonRasterizer(ExecutorManager.getInstance().getGridPool());
+		resampler = new GridResampler(ExecutorManager.getInstance().getGridPool());
+		fieldXs = new double[FIELD_VERTICES];
+		fieldYs = new double[FIELD_VERTICES];
+		for (int i = 0; i < FIELD_VERTICES; i++) {
+			double angle = 2 * Math.PI * i / FIELD_VERTICES;
+			double radius = 0.25 + 0.25 * Math.abs(Math.sin(5 * angle));
+			fieldXs[i] = 0.5 + radius * Math.cos(angle);
+			fieldYs[i] = 0.5 + radius * Math.sin(angle);
+		}
+
+		taskDataDirectory = Files.createTempDirectory("TASKDATA").toFile();
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (File file : taskDataDirectory.listFiles()) {
+			file.delete();
+		}
+		taskDataDirectory.delete();
+	}
+
+	@Benchmark
+	public PrescriptionMap parsePrescriptionMap() throws VehiclePlanException {
+		return parser.parsePrescriptionMap(tractor, mission);
+	}
+
+	@Benchmark
+	public boolean[] rasterize() {
+		return rasterizer.rasterize(fieldXs, fieldYs, 0, 0, 1.0 / gridSize, 1.0 / gridSize, gridSize, gridSize);
+	}
+
+	@Benchmark
+	public double[] resampleNearest() {
+		return resample(GridResampler.Mode.NEAREST);
+	}
+
+	@Benchmark
+	public double[] resampleBilinear() {
+		return resample(GridResampler.Mode.BILINEAR);
+	}
+
+	@Benchmark
+	public double[] resampleArea() {
+		return resample(GridResampler.Mode.AREA);
+	}
+
+	private double[] resample(GridResampler.Mode mode) {
+		int cells = (int) Math.ceil(gridSize / RESAMPLE_RATIO);
+		return resampler.resample(treatmentValues, gridSize, gridSize, 1, 1, RESAMPLE_RATIO, RESAMPLE_RATIO, cells, cells,
+				mode);
+	}
+
+	@Benchmark
+	public Quantization quantize() {
+		return quantizer.quantize(treatmentValues, zones);
+	}
+
+	@Benchmark
+	public String toJson() {
+		return jsonbPrescriptionMap.toJson(prescriptionMap);
+	}
+
+	@Benchmark
+	public File writeTaskData() throws XMLStreamException, IOException {
+		return TaskDataWriter.getInstance().write(prescriptionMap, taskDataDirectory);
+	}
+}
@@ -0,0 +1,121 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.Vehicle;
+import com.afarcloud.thrift.VehicleType;
+
+import afc.mw.MissionManager.types.MissionReport;
+import afc.mw.MissionManager.utils.MissionRegistry;
+
+/**
+ * Mission report validation throughput (reports/s) for fleets of different sizes: vehicle index
+ * lookup versus the former linear scan of the mission vehicles.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportValidationBenchmark {
+	private static final int MISSION_ID = 1000;
+	private static final int REPORTS = 4096;
+
+	@Param({ "10", "100", "1000" })
+	public int vehicles;
+
+	private MissionRegistry registry;
+	private Mission mission;
+	private int[] reportVehicleIds;
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		VehicleType[] types = VehicleType.values();
+		mission = new Mission();
+		mission.missionId = MISSION_ID;
+		mission.name = "benchmark";
+		mission.vehicles = new ArrayList<Vehicle>();
+		for (int i = 0; i < vehicles; i++) {
+			Vehicle vehicle = new Vehicle();
+			vehicle.id = 1 + i * 7;
+			vehicle.type = types[i % types.length];
+			mission.vehicles.add(vehicle);
+		}
+
+		registry = new MissionRegistry();
+		registry.start(registry.register(mission));
+
+		// Reports from every vehicle of the fleet, in a scattered order
+		reportVehicleIds = new int[REPORTS];
+		for (int i = 0; i < REPORTS; i++) {
+			reportVehicleIds[i] = mission.vehicles.get((int) ((i * 2654435761L) % vehicles)).id;
+		}
+	}
+
+	private int nextVehicleId() {
+		next = (next + 1) & (REPORTS - 1);
+		return reportVehicleIds[next];
+	}
+
+	@Benchmark
+	public byte indexedLookup() {
+		return registry.validate(MISSION_ID, nextVehicleId());
+	}
+
+	@Benchmark
+	public byte linearScan() {
+		int vehicleId = nextVehicleId();
+		if (mission.missionId != MISSION_ID) {
+			return MissionReport.MISSION_REPORT_INVALID_MISSION_ID;
+		}
+		for (Vehicle vehicle : mission.vehicles) {
+			if (vehicle.id == vehicleId) {
+				return MissionReport.MISSION_REPORT_VALID;
+			}
+		}
+		return MissionReport.MISSION_REPORT_INVALID_VEHICLE_ID;
+	}
+}
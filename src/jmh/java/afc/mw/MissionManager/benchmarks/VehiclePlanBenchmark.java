@@ -0,0 +1,193 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+
+import org.apache.thrift.TException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.afarcloud.thrift.Mission;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.MACSigner;
+
+import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.types.VehiclePlan;
+import afc.mw.MissionManager.types.VehiclePlanException;
+import afc.mw.MissionManager.utils.MissionParser;
+import afc.mw.MissionManager.utils.VehiclePlanEncoder;
+import afc.mw.MissionManager.utils.VehiclePlanSigner;
+import afc.mw.MissionManager.utils.VehiclePlanWriter;
+
+/**
+ * Cost of preparing the vehicle plan of one unmanned vehicle for publication: JSON serialization,
+ * compact binary encoding and HS256 JWS signing. The plan is serialized once into bytes by
+ * {@link VehiclePlanWriter} and signed with the signer prepared by {@link VehiclePlanSigner}; the
+ * benchmarks with JSON-B (with the configuration used before by the Mission Manager) and a new signer
+ * per plan measure the previous approaches. The compact encoding is checked to decode back into the
+ * same plan, and its round-trip is measured too. Run with {@code -prof gc} to get the allocation per
+ * plan ({@code gc.alloc.rate.norm}).
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VehiclePlanBenchmark {
+	private static final Jsonb jsonb = JsonbBuilder
+			.create(new JsonbConfig().withNullValues(false).withFormatting(true));
+
+	@Param({ "10", "100", "1000" })
+	public int commandsPerVehicle;
+
+	private VehiclePlan vehiclePlan;
+	private String json;
+	private byte[] jsonBytes;
+	private String secret;
+
+	@Setup
+	public void setup() throws VehiclePlanException, TException {
+		MissionManagerContext context = MissionManagerContext.getInstance();
+		context.mmLog.setLevel(Level.SEVERE);
+		context.sciLog.setLevel(Level.SEVERE);
+		secret = context.mm2ddsSecret;
+
+		// As received by the Mission Manager, NaN values are replaced before the plan is serialized
+		MissionParser parser = new MissionParser();
+		Mission mission = parser.replaceNaN(MissionGenerator.generate(1, commandsPerVehicle, 1));
+		vehiclePlan = parser.parseMission(mission.vehicles.get(0), mission);
+		json = jsonb.toJson(vehiclePlan);
+		jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+
+		// The compact encoding must not lose anything the JSON plan carries
+		VehiclePlan decoded = VehiclePlanEncoder.getInstance()
+				.decodeCompact(VehiclePlanEncoder.getInstance().encodeCompact(vehiclePlan));
+		if (!Arrays.equals(VehiclePlanWriter.getInstance().toJson(vehiclePlan),
+				VehiclePlanWriter.getInstance().toJson(decoded))) {
+			throw new IllegalStateException("The compact encoding does not decode into the same vehicle plan");
+		}
+	}
+
+	@Benchmark
+	public String toJson() {
+		return jsonb.toJson(vehiclePlan);
+	}
+
+	/**
+	 * Signing of an already serialized plan, creating the signer for each plan.
+	 */
+	@Benchmark
+	public String sign() throws JOSEException {
+		JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload(json));
+		jwsObject.sign(new MACSigner(secret));
+		return jwsObject.serialize();
+	}
+
+	/**
+	 * Serialization and signing with a new signer, serializing the plan again for the payload.
+	 */
+	@Benchmark
+	public String toJsonAndSign() throws JOSEException {
+		JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload(jsonb.toJson(vehiclePlan)));
+		jwsObject.sign(new MACSigner(secret));
+		return jwsObject.serialize();
+	}
+
+	/**
+	 * JSON-B serialization into bytes.
+	 */
+	@Benchmark
+	public byte[] toJsonBytes() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream(16384);
+		jsonb.toJson(vehiclePlan, output);
+		return output.toByteArray();
+	}
+
+	/**
+	 * Serialization into the bytes that are saved, signed and published.
+	 */
+	@Benchmark
+	public byte[] toJsonWriter() {
+		return VehiclePlanWriter.getInstance().toJson(vehiclePlan);
+	}
+
+	/**
+	 * Compact binary encoding, for the vehicle types set in {@code mqtt.compact_types}.
+	 */
+	@Benchmark
+	public byte[] toCompact() throws TException {
+		return VehiclePlanEncoder.getInstance().encodeCompact(vehiclePlan);
+	}
+
+	/**
+	 * Compact binary encoding and decoding, as done by the Mission Manager and the vehicle.
+	 */
+	@Benchmark
+	public VehiclePlan compactRoundTrip() throws TException {
+		return VehiclePlanEncoder.getInstance().decodeCompact(VehiclePlanEncoder.getInstance().encodeCompact(vehiclePlan));
+	}
+
+	/**
+	 * Signing of an already serialized plan with the prepared signer.
+	 */
+	@Benchmark
+	public byte[] signPrepared() throws JOSEException {
+		return VehiclePlanSigner.getInstance().sign(jsonBytes);
+	}
+
+	/**
+	 * Serialization and signing, as done for each vehicle when signing is enabled.
+	 */
+	@Benchmark
+	public byte[] toJsonBytesAndSignPrepared() throws JOSEException {
+		return VehiclePlanSigner.getInstance().sign(toJsonWriter());
+	}
+}
@@ -0,0 +1,707 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TMultiplexedProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+
+import com.afarcloud.thrift.Command;
+import com.afarcloud.thrift.CommandType;
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.MissionManagerService;
+import com.afarcloud.thrift.Orientation;
+import com.afarcloud.thrift.PartField;
+import com.afarcloud.thrift.Position;
+import com.afarcloud.thrift.Region;
+import com.afarcloud.thrift.Task;
+import com.afarcloud.thrift.TaskCommandStatus;
+import com.afarcloud.thrift.TaskRegionType;
+import com.afarcloud.thrift.TaskTemplate;
+import com.afarcloud.thrift.TaskType;
+import com.afarcloud.thrift.TreatmentGrid;
+import com.afarcloud.thrift.Vehicle;
+import com.afarcloud.thrift.VehicleType;
+
+import afc.mw.MissionManager.utils.LatencyHistogram;
+
+/**
+ * End-to-end load test: sends mission plans, aborts and mission reports to a running Mission
+ * Manager at fixed rates, with its MQTT broker, Data Query, ISOBUS Converter and MMT replaced by
+ * local stand-ins, and measures the time from each request to the resulting publications.
+ *
+ * Usage: EndToEndLoadTest [-host h] [-port p] [-style simplex|multiplex] [-rest uri]
+ * [-rate plans/s] [-aborts aborts/s] [-reports reports/s] [-duration s] [-drain s] [-threads n]
+ * [-vehicles n] [-tractors n] [-commands n] [-grid n] [-firstid id] [-stubhost h] [-mqttport p]
+ * [-httpsport p] [-mmtport p] [-ackdelay ms] [-configure true|false]
+ *
+ * Unless {@code -configure false} is given, the MQTT, DQ, ISOBUS Converter and MMT settings of the
+ * Mission Manager are pointed to the stand-ins through the configuration service, and restored
+ * when the test ends. Requests are issued at the given rates whatever the response times (open
+ * loop); requests that cannot be issued because all the threads are busy are reported as missed.
+ *
+ * Every plan gets a new mission ID and new vehicle IDs, and its name ({@code lt-<mission ID>})
+ * identifies it in the published topics. The latency of the publications is grouped by topic,
+ * with the mission level replaced by {@code +}.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class EndToEndLoadTest {
+	private static final String MISSION_MANAGER_SERVICE_NAME = "MissionManagerService";
+	private static final String MISSION_NAME_PREFIX = "lt-";
+	private static final int TIMEOUT = 60000;
+	private static final int MAX_FRAME_SIZE = 16384000;
+	private static final int COMMAND_PARAMS = 7;
+
+	private static final String[] STUB_SETTINGS = { "mqtt.protocol", "mqtt.server", "mqtt.port", "dq.server",
+			"dq.port", "isobusconverter.server", "isobusconverter.port", "mmt.ip", "mmt.port" };
+
+	private String host = "localhost";
+	private int port = 9225;
+	private boolean multiplex = true;
+	private String rest = "http://localhost:9226/afarcloud";
+	private double planRate = 1;
+	private double abortRate = 0.2;
+	private double reportRate = 5;
+	private int duration = 30;
+	private int drain = 10;
+	private int threads = 8;
+	private int vehicles = 4;
+	private int tractors = 1;
+	private int commands = 50;
+	private int gridSize = 16;
+	private int firstId = (int) (System.currentTimeMillis() / 1000 % 100000) * 1000;
+	private String stubHost = "localhost";
+	private int mqttPort = 1883;
+	private int httpsPort = 8443;
+	private int mmtPort = 9096;
+	private long ackDelay = 0;
+	private boolean configure = true;
+
+	/**
+	 * A mission plan sent during the test, and what has been received for it so far.
+	 */
+	private static final class SentMission {
+		final int missionId;
+		final int[] vehicleIds;
+		final int[][] commandIds;
+		final int unmanned;
+		final int tractors;
+		final long sentAt;
+		volatile long abortedAt;
+		final AtomicInteger published = new AtomicInteger();
+		final AtomicInteger converted = new AtomicInteger();
+		final AtomicInteger abortEvents = new AtomicInteger();
+
+		SentMission(int missionId, int[] vehicleIds, int[][] commandIds, int unmanned, int tractors, long sentAt) {
+			this.missionId = missionId;
+			this.vehicleIds = vehicleIds;
+			this.commandIds = commandIds;
+			this.unmanned = unmanned;
+			this.tractors = tractors;
+			this.sentAt = sentAt;
+		}
+	}
+
+	private final ConcurrentHashMap<Integer, SentMission> sent = new ConcurrentHashMap<Integer, SentMission>();
+	// Missions that can still be aborted or reported (guarded by itself)
+	private final List<SentMission> live = new ArrayList<SentMission>();
+
+	private final AtomicInteger requestId = new AtomicInteger(1000000);
+	private final AtomicInteger missionId = new AtomicInteger();
+	private final AtomicInteger vehicleId = new AtomicInteger();
+	private final AtomicInteger sequenceNumber = new AtomicInteger();
+
+	private final LatencyHistogram sendPlan = new LatencyHistogram("thrift_send_plan");
+	private final LatencyHistogram abort = new LatencyHistogram("thrift_abort_mission");
+	private final LatencyHistogram report = new LatencyHistogram("rest_put_report");
+	private final LatencyHistogram planPublish = new LatencyHistogram("publish_plan");
+	private final LatencyHistogram abortPublish = new LatencyHistogram("publish_abort");
+	private final LatencyHistogram convert = new LatencyHistogram("isobus_convert");
+	private final ConcurrentHashMap<String, LatencyHistogram> topics = new ConcurrentHashMap<String, LatencyHistogram>();
+
+	private final AtomicLong missedPlans = new AtomicLong();
+	private final AtomicLong missedAborts = new AtomicLong();
+	private final AtomicLong missedReports = new AtomicLong();
+	private final AtomicLong unexpected = new AtomicLong();
+
+	private ThreadLocal<TTransport> transports = new ThreadLocal<TTransport>();
+	private ThreadLocal<MissionManagerService.Client> clients = new ThreadLocal<MissionManagerService.Client>();
+
+	public static void main(String[] args) throws Exception {
+		EndToEndLoadTest test = new EndToEndLoadTest();
+		test.parse(args);
+		test.run();
+		System.exit(0);
+	}
+
+	private void parse(String[] args) {
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "-host": host = value; break;
+			case "-port": port = Integer.parseInt(value); break;
+			case "-style": multiplex = value.equalsIgnoreCase("multiplex"); break;
+			case "-rest": rest = value; break;
+			case "-rate": planRate = Double.parseDouble(value); break;
+			case "-aborts": abortRate = Double.parseDouble(value); break;
+			case "-reports": reportRate = Double.parseDouble(value); break;
+			case "-duration": duration = Integer.parseInt(value); break;
+			case "-drain": drain = Integer.parseInt(value); break;
+			case "-threads": threads = Integer.parseInt(value); break;
+			case "-vehicles": vehicles = Integer.parseInt(value); break;
+			case "-tractors": tractors = Integer.parseInt(value); break;
+			case "-commands": commands = Integer.parseInt(value); break;
+			case "-grid": gridSize = Integer.parseInt(value); break;
+			case "-firstid": firstId = Integer.parseInt(value); break;
+			case "-stubhost": stubHost = value; break;
+			case "-mqttport": mqttPort = Integer.parseInt(value); break;
+			case "-httpsport": httpsPort = Integer.parseInt(value); break;
+			case "-mmtport": mmtPort = Integer.parseInt(value); break;
+			case "-ackdelay": ackDelay = Long.parseLong(value); break;
+			case "-configure": configure = Boolean.parseBoolean(value); break;
+			default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		tractors = Math.max(0, Math.min(tractors, vehicles));
+		missionId.set(firstId);
+		vehicleId.set(firstId);
+	}
+
+	private void run() throws Exception {
+		MqttBrokerStub broker = new MqttBrokerStub(this::published, ackDelay);
+		HttpsServiceStub services = new HttpsServiceStub(this::converted);
+		MmtServiceStub mmt = new MmtServiceStub();
+		broker.start(mqttPort);
+		services.start(httpsPort, threads);
+		mmt.start(mmtPort);
+
+		try {
+			Map<String, String> previous = null;
+			if (configure) {
+				previous = getConfiguration(STUB_SETTINGS);
+				Map<String, String> stubs = new LinkedHashMap<String, String>();
+				stubs.put("mqtt.protocol", "tcp");
+				stubs.put("mqtt.server", stubHost);
+				stubs.put("mqtt.port", Integer.toString(mqttPort));
+				stubs.put("dq.server", stubHost);
+				stubs.put("dq.port", Integer.toString(httpsPort));
+				stubs.put("isobusconverter.server", stubHost);
+				stubs.put("isobusconverter.port", Integer.toString(httpsPort));
+				stubs.put("mmt.ip", stubHost);
+				stubs.put("mmt.port", Integer.toString(mmtPort));
+				putConfiguration(stubs);
+			}
+
+			System.out.println("Sending " + planRate + " plans/s (" + vehicles + " vehicles, " + tractors + " tractors, "
+					+ commands + " commands per vehicle), " + abortRate + " aborts/s and " + reportRate
+					+ " reports/s to " + host + ":" + port + " and " + rest + " during " + duration + " s");
+
+			ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<Runnable>(threads));
+			ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+			schedule(scheduler, workers, planRate, this::sendPlan, missedPlans);
+			schedule(scheduler, workers, abortRate, this::abortMission, missedAborts);
+			schedule(scheduler, workers, reportRate, this::putReport, missedReports);
+
+			long start = System.nanoTime();
+			Thread.sleep(duration * 1000L);
+			scheduler.shutdownNow();
+			workers.shutdown();
+			workers.awaitTermination(TIMEOUT, TimeUnit.MILLISECONDS);
+			long elapsed = System.nanoTime() - start;
+
+			// Let the last publications arrive
+			long deadline = System.currentTimeMillis() + drain * 1000L;
+			while (System.currentTimeMillis() < deadline && countMissing() > 0)
+				Thread.sleep(100);
+
+			if (previous != null)
+				putConfiguration(previous);
+
+			printResults(elapsed, broker, services, mmt);
+		} finally {
+			broker.stop();
+			services.stop();
+			mmt.stop();
+		}
+	}
+
+	/**
+	 * Issues a request at a fixed rate, on the worker threads.
+	 */
+	private static void schedule(ScheduledExecutorService scheduler, ThreadPoolExecutor workers, double rate,
+			Runnable request, AtomicLong missed) {
+		if (rate <= 0)
+			return;
+		long period = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+		scheduler.scheduleAtFixedRate(() -> {
+			try {
+				workers.execute(request);
+			} catch (RejectedExecutionException e) {
+				missed.incrementAndGet();
+			}
+		}, period, period, TimeUnit.NANOSECONDS);
+	}
+
+	private void sendPlan() {
+		int id = missionId.incrementAndGet();
+		Mission plan = createPlan(id);
+
+		int[] vehicleIds = new int[plan.vehicles.size()];
+		int[][] commandIds = new int[vehicleIds.length][];
+		for (int i = 0; i < vehicleIds.length; i++) {
+			vehicleIds[i] = plan.vehicles.get(i).id;
+			commandIds[i] = new int[] { (i < vehicles - tractors) ? i + 1 : 0 };
+		}
+		SentMission mission = new SentMission(id, vehicleIds, commandIds, vehicles - tractors, tractors,
+				System.nanoTime());
+		sent.put(id, mission);
+
+		boolean success = false;
+		try {
+			getClient().sendPlan(requestId.incrementAndGet(), plan);
+			success = true;
+			synchronized (live) {
+				live.add(mission);
+			}
+		} catch (TException e) {
+			sent.remove(id);
+			closeClient(e);
+		} finally {
+			sendPlan.record(System.nanoTime() - mission.sentAt, success);
+		}
+	}
+
+	/**
+	 * Aborts the oldest live mission.
+	 */
+	private void abortMission() {
+		SentMission mission;
+		synchronized (live) {
+			if (live.isEmpty())
+				return;
+			mission = live.remove(0);
+		}
+
+		long tic = System.nanoTime();
+		mission.abortedAt = tic;
+		boolean success = false;
+		try {
+			success = "OK".equals(getClient().abortMissionPlan(requestId.incrementAndGet(), mission.missionId));
+		} catch (TException e) {
+			closeClient(e);
+		} finally {
+			abort.record(System.nanoTime() - tic, success);
+		}
+	}
+
+	/**
+	 * Puts a report for a random unmanned vehicle of a random live mission. Missions whose plans
+	 * have not been published yet are skipped, as the Mission Manager may not know them yet.
+	 */
+	private void putReport() {
+		SentMission mission;
+		synchronized (live) {
+			if (live.isEmpty())
+				return;
+			mission = live.get(ThreadLocalRandom.current().nextInt(live.size()));
+		}
+		if (mission.unmanned == 0 || mission.published.get() < mission.unmanned)
+			return;
+		int vehicle = ThreadLocalRandom.current().nextInt(mission.unmanned);
+
+		JsonArrayBuilder commandReports = Json.createArrayBuilder();
+		for (int commandId : mission.commandIds[vehicle])
+			commandReports.add(Json.createObjectBuilder()
+					.add("command_id", commandId)
+					.add("command_status_id", TaskCommandStatus.Running.getValue()));
+		String body = Json.createObjectBuilder()
+				.add("sequence_number", sequenceNumber.incrementAndGet())
+				.add("mission_id", mission.missionId)
+				.add("vehicle_id", mission.vehicleIds[vehicle])
+				.add("mission_status_id", TaskCommandStatus.Running.getValue())
+				.add("command_report_array", commandReports)
+				.add("last_update", System.currentTimeMillis())
+				.build().toString();
+
+		long tic = System.nanoTime();
+		boolean success = false;
+		try {
+			success = request("PUT", rest + "/MissionManager/reports", "application/json", body) == 200;
+		} catch (IOException e) {
+			System.err.println(Thread.currentThread().getName() + ": " + e.getMessage());
+		} finally {
+			report.record(System.nanoTime() - tic, success);
+		}
+	}
+
+	/**
+	 * Receives the publications of the broker stand-in. The mission is identified by the mission
+	 * level of the topic; the latency is measured from the plan (mission topics) or from the abort
+	 * (event topics).
+	 */
+	private void published(String topic, byte[] payload, long arrival) {
+		String[] levels = topic.split("/");
+		SentMission mission = (levels.length >= 6 && levels[2].startsWith(MISSION_NAME_PREFIX))
+				? sent.get(parseId(levels[2].substring(MISSION_NAME_PREFIX.length())))
+				: null;
+		if (mission == null) {
+			unexpected.incrementAndGet();
+			return;
+		}
+
+		long latency;
+		if (levels[5].equals("event") && mission.abortedAt != 0) {
+			latency = arrival - mission.abortedAt;
+			mission.abortEvents.incrementAndGet();
+			abortPublish.record(latency, true);
+		} else {
+			latency = arrival - mission.sentAt;
+			mission.published.incrementAndGet();
+			planPublish.record(latency, true);
+		}
+
+		levels[2] = "+";
+		topics.computeIfAbsent(String.join("/", levels), LatencyHistogram::new).record(latency, true);
+	}
+
+	/**
+	 * Receives the prescription maps of the ISOBUS Converter stand-in.
+	 */
+	private void converted(String missionId, long arrival) {
+		SentMission mission = sent.get(parseId(missionId));
+		if (mission == null) {
+			unexpected.incrementAndGet();
+			return;
+		}
+		mission.converted.incrementAndGet();
+		convert.record(arrival - mission.sentAt, true);
+	}
+
+	private static int parseId(String id) {
+		try {
+			return Integer.parseInt(id);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Counts the publications still expected for the missions sent: the plan of every unmanned
+	 * vehicle, the prescription map of every tractor and, for the aborted missions, an abort event
+	 * for every unmanned vehicle.
+	 */
+	private long countMissing() {
+		long missing = 0;
+		for (SentMission mission : sent.values()) {
+			missing += Math.max(0, mission.unmanned - mission.published.get());
+			missing += Math.max(0, mission.tractors - mission.converted.get());
+			if (mission.abortedAt != 0)
+				missing += Math.max(0, mission.unmanned - mission.abortEvents.get());
+		}
+		return missing;
+	}
+
+	private void printResults(long elapsed, MqttBrokerStub broker, HttpsServiceStub services, MmtServiceStub mmt) {
+		double seconds = elapsed / 1e9;
+
+		System.out.println();
+		System.out.println("name,count,errors,mean_ms,p50_ms,p90_ms,p99_ms,max_ms");
+		System.out.println(sendPlan.getStatistics());
+		System.out.println(abort.getStatistics());
+		System.out.println(report.getStatistics());
+		System.out.println(planPublish.getStatistics());
+		System.out.println(abortPublish.getStatistics());
+		System.out.println(convert.getStatistics());
+		for (LatencyHistogram histogram : new TreeMap<String, LatencyHistogram>(topics).values())
+			System.out.println(histogram.getStatistics());
+
+		System.out.println();
+		System.out.println("metric,value");
+		System.out.println(String.format("plans_per_s,%.2f", sendPlan.getCount() / seconds));
+		System.out.println(String.format("aborts_per_s,%.2f", abort.getCount() / seconds));
+		System.out.println(String.format("reports_per_s,%.2f", report.getCount() / seconds));
+		System.out.println(String.format("publications_per_s,%.2f", broker.getPublications() / seconds));
+		System.out.println(String.format("plan_error_rate,%.4f", errorRate(sendPlan)));
+		System.out.println(String.format("abort_error_rate,%.4f", errorRate(abort)));
+		System.out.println(String.format("report_error_rate,%.4f", errorRate(report)));
+		System.out.println("missed_plans," + missedPlans.get());
+		System.out.println("missed_aborts," + missedAborts.get());
+		System.out.println("missed_reports," + missedReports.get());
+		System.out.println("missing_publications," + countMissing());
+		System.out.println("unexpected_publications," + unexpected.get());
+		System.out.println("broker_connections," + broker.getConnections());
+		System.out.println("dq_stored_missions," + services.getStoredMissions());
+		System.out.println("dq_other_requests," + services.getOtherRequests());
+		System.out.println("mmt_notifications," + mmt.getNotifications());
+	}
+
+	private static double errorRate(LatencyHistogram histogram) {
+		return (histogram.getCount() > 0) ? (double) histogram.getErrors() / histogram.getCount() : 0;
+	}
+
+	/**
+	 * Gets the Thrift client of the current worker thread, opening its connection if required.
+	 */
+	private MissionManagerService.Client getClient() throws TException {
+		MissionManagerService.Client client = clients.get();
+		if (client == null) {
+			TTransport transport = new TSocket(host, port, TIMEOUT);
+			if (multiplex)
+				transport = new TFramedTransport(transport, MAX_FRAME_SIZE);
+			transport.open();
+
+			TProtocol protocol = new TBinaryProtocol(transport);
+			if (multiplex)
+				protocol = new TMultiplexedProtocol(protocol, MISSION_MANAGER_SERVICE_NAME);
+			client = new MissionManagerService.Client(protocol);
+			transports.set(transport);
+			clients.set(client);
+		}
+		return client;
+	}
+
+	/**
+	 * Closes the Thrift connection of the current worker thread after an error, to open a new
+	 * one for the next request.
+	 */
+	private void closeClient(TException e) {
+		System.err.println(Thread.currentThread().getName() + ": " + e.getMessage());
+		TTransport transport = transports.get();
+		if (transport != null)
+			transport.close();
+		transports.remove();
+		clients.remove();
+	}
+
+	/**
+	 * Reads the current value of some settings from the configuration service.
+	 *
+	 * @param names	The names of the settings
+	 * @return		The settings found, by name
+	 */
+	private Map<String, String> getConfiguration(String[] names) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(rest + "/MissionManager/conf").openConnection();
+		Map<String, String> all = new LinkedHashMap<String, String>();
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int separator = line.indexOf(" = ");
+				if (separator > 0)
+					all.put(line.substring(0, separator), line.substring(separator + 3));
+			}
+		}
+
+		Map<String, String> settings = new LinkedHashMap<String, String>();
+		for (String name : names) {
+			if (all.containsKey(name))
+				settings.put(name, all.get(name));
+		}
+		return settings;
+	}
+
+	/**
+	 * Updates some settings through the configuration service.
+	 *
+	 * @param settings	The new values, by name
+	 */
+	private void putConfiguration(Map<String, String> settings) throws IOException {
+		StringBuilder form = new StringBuilder();
+		for (Map.Entry<String, String> setting : settings.entrySet()) {
+			if (form.length() > 0)
+				form.append('&');
+			form.append(URLEncoder.encode(setting.getKey(), "UTF-8")).append('=')
+					.append(URLEncoder.encode(setting.getValue(), "UTF-8"));
+		}
+
+		int status = request("PUT", rest + "/MissionManager/conf", "application/x-www-form-urlencoded",
+				form.toString());
+		if (status != 200)
+			throw new IOException("Configuration update failed with status " + status);
+	}
+
+	private static int request(String method, String uri, String contentType, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(uri).openConnection();
+		connection.setRequestMethod(method);
+		connection.setConnectTimeout(TIMEOUT);
+		connection.setReadTimeout(TIMEOUT);
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", contentType);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+
+		int status = connection.getResponseCode();
+		InputStream in = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+		if (in != null) {
+			try (InputStream response = in) {
+				byte[] buffer = new byte[1024];
+				while (response.read(buffer) >= 0) {
+					// Read the whole response, so the connection can be reused
+				}
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Creates a plan with new vehicle IDs. The first vehicles are unmanned vehicles with the
+	 * configured number of commands; the last ones are tractors with a square treatment grid.
+	 *
+	 * @param id	The mission ID
+	 * @return The plan.
+	 */
+	private Mission createPlan(int id) {
+		VehicleType[] unmannedTypes = { VehicleType.UAV, VehicleType.UGV, VehicleType.AUAV };
+		CommandType[] commandTypes = CommandType.values();
+		Random random = new Random(id);
+		long start = System.currentTimeMillis();
+
+		Mission mission = new Mission();
+		mission.missionId = id;
+		mission.name = MISSION_NAME_PREFIX + id;
+		mission.navigationArea = rectangle(-3.63, 40.39, 0.02);
+		mission.forbiddenArea = new ArrayList<Region>();
+		mission.homeLocation = new ArrayList<Position>();
+		mission.homeLocation.add(new Position(-3.63, 40.39, 0));
+		mission.tasks = new ArrayList<Task>();
+		mission.vehicles = new ArrayList<Vehicle>();
+		mission.commands = new ArrayList<Command>();
+
+		for (int i = 0; i < vehicles; i++) {
+			boolean tractor = i >= vehicles - tractors;
+
+			Vehicle vehicle = new Vehicle();
+			vehicle.id = vehicleId.incrementAndGet();
+			vehicle.name = (tractor ? "tractor-" : "vehicle-") + i;
+			vehicle.type = tractor ? VehicleType.Tractor : unmannedTypes[i % unmannedTypes.length];
+			vehicle.maxSpeed = 10;
+			mission.vehicles.add(vehicle);
+
+			Task task = new Task();
+			task.id = i + 1;
+			task.missionId = id;
+			task.assignedVehicleId = vehicle.id;
+			task.setAssignedVehicleIdIsSet(true);
+			task.speed = 5;
+			task.altitude = tractor ? 0 : 20;
+			task.area = rectangle(-3.63 + (i % 4) * 0.005, 40.39 + (i / 4 % 4) * 0.005, 0.005);
+			task.bearing = new Orientation();
+			task.taskStatus = TaskCommandStatus.NotStarted;
+			task.taskTemplate = new TaskTemplate();
+			task.taskTemplate.description = "loadtest";
+			task.taskTemplate.taskType = TaskType.values()[0];
+			task.taskTemplate.regionType = TaskRegionType.values()[0];
+			task.taskTemplate.requiredTypes = new ArrayList<>();
+			mission.tasks.add(task);
+
+			if (tractor) {
+				PartField partfield = new PartField();
+				partfield.partfieldId = task.id;
+				partfield.isoId = "PFD" + task.id;
+				partfield.name = "Partfield " + task.id;
+				partfield.borderPoints = task.area;
+				task.partfields = new ArrayList<PartField>();
+				task.partfields.add(partfield);
+
+				TreatmentGrid grid = new TreatmentGrid();
+				grid.Id = task.id;
+				grid.partfieldId = partfield.partfieldId;
+				grid.taskId = task.id;
+				grid.numRows = gridSize;
+				grid.numCols = gridSize;
+				grid.treatmentValue = new ArrayList<Double>(gridSize * gridSize);
+				for (int cell = 0; cell < gridSize * gridSize; cell++)
+					grid.treatmentValue.add(25.0 * random.nextInt(7));
+				task.treatmentGrids = new ArrayList<TreatmentGrid>();
+				task.treatmentGrids.add(grid);
+				continue;
+			}
+
+			for (int c = 0; c < commands; c++) {
+				Command command = new Command();
+				command.id = c * vehicles + i + 1;
+				command.relatedTask = task;
+				command.commandType = commandTypes[c % commandTypes.length];
+				command.commandStatus = TaskCommandStatus.NotStarted;
+				command.startTime = start + c * 1000L;
+				command.endTime = command.startTime + 1000L;
+				command.params = new ArrayList<Double>(COMMAND_PARAMS);
+				command.params.add(task.area.area.get(0).latitude + random.nextDouble() * 0.005);
+				command.params.add(task.area.area.get(0).longitude + random.nextDouble() * 0.005);
+				for (int p = 2; p < COMMAND_PARAMS; p++)
+					command.params.add((double) p);
+				mission.commands.add(command);
+			}
+		}
+
+		return mission;
+	}
+
+	private static Region rectangle(double longitude, double latitude, double size) {
+		Region region = new Region(new ArrayList<Position>());
+		region.area.add(new Position(longitude, latitude, 0));
+		region.area.add(new Position(longitude + size, latitude, 0));
+		region.area.add(new Position(longitude + size, latitude + size, 0));
+		region.area.add(new Position(longitude, latitude + size, 0));
+		return region;
+	}
+}
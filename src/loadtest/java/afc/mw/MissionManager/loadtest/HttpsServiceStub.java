@@ -0,0 +1,194 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.loadtest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * HTTPS stand-in for the Data Query and the ISOBUS Converter in the end-to-end load test. It
+ * accepts the requests sent by the Mission Manager, reading the whole body, and answers them as
+ * the real services would. The received prescription maps are handed to a listener with their
+ * arrival time.
+ *
+ * The server uses a self-signed certificate generated with {@code keytool} on start, as the
+ * Mission Manager only talks HTTPS to these services (and accepts self-signed certificates).
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class HttpsServiceStub {
+	private static final String STORE_PASSWORD = "loadtest";
+	private static final String CONVERTED_PRESCRIPTION_MAP = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><ISO11783_TaskData/>";
+
+	/**
+	 * Receiver of the prescription maps arriving at the ISOBUS Converter stand-in.
+	 */
+	public interface Listener {
+		/**
+		 * Called from the server threads for every prescription map received.
+		 *
+		 * @param missionId	The mission ID, as sent in the query
+		 * @param arrival	The arrival time, as given by {@link System#nanoTime()}
+		 */
+		void converted(String missionId, long arrival);
+	}
+
+	private final Listener listener;
+	private HttpsServer server;
+	private ExecutorService executor;
+
+	private final AtomicLong storedMissions = new AtomicLong();
+	private final AtomicLong prescriptionMaps = new AtomicLong();
+	private final AtomicLong otherRequests = new AtomicLong();
+
+	/**
+	 * Creates the stand-in.
+	 *
+	 * @param listener	The receiver of the prescription maps
+	 */
+	public HttpsServiceStub(Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Starts the server.
+	 *
+	 * @param port		The TCP port
+	 * @param threads	Number of threads serving the requests
+	 * @throws IOException	If the port cannot be opened or the certificate cannot be generated
+	 * @throws GeneralSecurityException	If the SSL context cannot be initialized
+	 * @throws InterruptedException	If interrupted while generating the certificate
+	 */
+	public void start(int port, int threads) throws IOException, GeneralSecurityException, InterruptedException {
+		server = HttpsServer.create(new InetSocketAddress(port), 0);
+		server.setHttpsConfigurator(new HttpsConfigurator(createSslContext()));
+		server.createContext("/storage/rest/dq/addMission", exchange -> {
+			storedMissions.incrementAndGet();
+			respond(exchange, "Mission stored");
+		});
+		server.createContext("/storage/rest/dq/getAllVehicleTypes", exchange -> respond(exchange, "[]"));
+		server.createContext("/convert", exchange -> {
+			long arrival = System.nanoTime();
+			String query = exchange.getRequestURI().getQuery();
+			String missionId = (query != null && query.startsWith("missionID=")) ? query.substring(10) : "";
+			prescriptionMaps.incrementAndGet();
+			listener.converted(missionId, arrival);
+			respond(exchange, CONVERTED_PRESCRIPTION_MAP);
+		});
+		server.createContext("/", exchange -> {
+			otherRequests.incrementAndGet();
+			respond(exchange, "");
+		});
+
+		executor = Executors.newFixedThreadPool(threads);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	public long getStoredMissions() {
+		return storedMissions.get();
+	}
+
+	public long getPrescriptionMaps() {
+		return prescriptionMaps.get();
+	}
+
+	public long getOtherRequests() {
+		return otherRequests.get();
+	}
+
+	private static void respond(HttpExchange exchange, String body) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			byte[] buffer = new byte[8192];
+			while (in.read(buffer) >= 0) {
+				// Read the whole request, as a real service would
+			}
+		}
+
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(200, bytes.length > 0 ? bytes.length : -1);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Creates the SSL context with a new self-signed certificate.
+	 *
+	 * @return The SSL context
+	 */
+	private static SSLContext createSslContext() throws IOException, GeneralSecurityException, InterruptedException {
+		File keystoreFile = File.createTempFile("mm-loadtest", ".p12");
+		keystoreFile.delete();
+		keystoreFile.deleteOnExit();
+
+		String keytool = System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool";
+		Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "stub", "-keyalg", "RSA",
+				"-keysize", "2048", "-validity", "2", "-dname", "CN=localhost", "-storetype", "PKCS12",
+				"-keystore", keystoreFile.getPath(), "-storepass", STORE_PASSWORD, "-keypass", STORE_PASSWORD)
+				.redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.INHERIT)
+				.start();
+		if (process.waitFor() != 0)
+			throw new IOException("keytool failed to generate the stand-in certificate");
+
+		KeyStore keystore = KeyStore.getInstance("PKCS12");
+		try (InputStream in = new FileInputStream(keystoreFile)) {
+			keystore.load(in, STORE_PASSWORD.toCharArray());
+		}
+		KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagers.init(keystore, STORE_PASSWORD.toCharArray());
+
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(keyManagers.getKeyManagers(), null, null);
+		return sslContext;
+	}
+}
@@ -0,0 +1,83 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.loadtest;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.transport.TServerSocket;
+import org.apache.thrift.transport.TTransportException;
+
+import com.afarcloud.thrift.MmtService;
+
+/**
+ * Thrift stand-in for the MMT in the end-to-end load test. It accepts and counts the notifications
+ * sent by the Mission Manager, without doing anything else with them.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class MmtServiceStub {
+	private final AtomicLong notifications = new AtomicLong();
+	private TServer server;
+
+	/**
+	 * Starts the server in a background thread.
+	 *
+	 * @param port	The TCP port
+	 * @throws TTransportException	If the port cannot be opened
+	 */
+	public void start(int port) throws TTransportException {
+		MmtService.Iface handler = (MmtService.Iface) Proxy.newProxyInstance(MmtService.Iface.class.getClassLoader(),
+				new Class<?>[] { MmtService.Iface.class }, (proxy, method, args) -> {
+					if (method.getName().equals("ping"))
+						return "Pong from the MMT stand-in";
+					notifications.incrementAndGet();
+					return null;
+				});
+
+		server = new TThreadPoolServer(new TThreadPoolServer.Args(new TServerSocket(port))
+				.processor(new MmtService.Processor<MmtService.Iface>(handler))
+				.protocolFactory(new TBinaryProtocol.Factory()));
+
+		Thread thread = new Thread(server::serve, "mmt-stub");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	public void stop() {
+		server.stop();
+	}
+
+	public long getNotifications() {
+		return notifications.get();
+	}
+}
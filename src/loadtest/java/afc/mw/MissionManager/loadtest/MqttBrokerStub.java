@@ -0,0 +1,251 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal MQTT 3.1.1 broker stand-in for the end-to-end load test. It accepts any connection,
+ * acknowledges every publication (QoS 0, 1 and 2) and subscription, and hands each received
+ * publication to a listener with its arrival time. Publications are never forwarded to the
+ * subscribers: the Mission Manager only needs its publications to be acknowledged.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class MqttBrokerStub {
+	private static final int CONNECT = 1;
+	private static final int PUBLISH = 3;
+	private static final int PUBACK = 4;
+	private static final int PUBREC = 5;
+	private static final int PUBREL = 6;
+	private static final int PUBCOMP = 7;
+	private static final int SUBSCRIBE = 8;
+	private static final int UNSUBSCRIBE = 10;
+	private static final int PINGREQ = 12;
+	private static final int DISCONNECT = 14;
+
+	/**
+	 * Receiver of the publications arriving at the broker.
+	 */
+	public interface Listener {
+		/**
+		 * Called from the connection thread for every publication received.
+		 *
+		 * @param topic		The topic
+		 * @param payload	The payload
+		 * @param arrival	The arrival time, as given by {@link System#nanoTime()}
+		 */
+		void published(String topic, byte[] payload, long arrival);
+	}
+
+	private final Listener listener;
+	private final long ackDelay;
+	private ServerSocket serverSocket;
+
+	private final AtomicLong connections = new AtomicLong();
+	private final AtomicLong publications = new AtomicLong();
+
+	/**
+	 * Creates the broker stand-in.
+	 *
+	 * @param listener	The receiver of the publications
+	 * @param ackDelay	Time to wait before acknowledging each publication, in ms (0 for none)
+	 */
+	public MqttBrokerStub(Listener listener, long ackDelay) {
+		this.listener = listener;
+		this.ackDelay = ackDelay;
+	}
+
+	/**
+	 * Starts listening for connections.
+	 *
+	 * @param port	The TCP port
+	 * @throws IOException	If the port cannot be opened
+	 */
+	public void start(int port) throws IOException {
+		serverSocket = new ServerSocket();
+		serverSocket.setReuseAddress(true);
+		serverSocket.bind(new InetSocketAddress(port));
+
+		Thread acceptor = new Thread(this::accept, "mqtt-stub-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Stops listening for connections. Open connections are closed by their clients.
+	 */
+	public void stop() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			System.err.println("mqtt-stub: " + e.getMessage());
+		}
+	}
+
+	public long getConnections() {
+		return connections.get();
+	}
+
+	public long getPublications() {
+		return publications.get();
+	}
+
+	private void accept() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				Thread connection = new Thread(() -> serve(socket), "mqtt-stub-" + connections.incrementAndGet());
+				connection.setDaemon(true);
+				connection.start();
+			} catch (IOException e) {
+				if (!serverSocket.isClosed())
+					System.err.println("mqtt-stub: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Serves one client connection until it is closed.
+	 *
+	 * @param socket	The client socket
+	 */
+	private void serve(Socket socket) {
+		try (Socket s = socket) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+			OutputStream out = new BufferedOutputStream(s.getOutputStream());
+
+			while (true) {
+				int header = in.read();
+				if (header < 0)
+					return;
+				byte[] body = new byte[readRemainingLength(in)];
+				in.readFully(body);
+				long arrival = System.nanoTime();
+
+				switch (header >> 4) {
+				case CONNECT:
+					write(out, 0x20, 0, 0);
+					break;
+				case PUBLISH:
+					publish(out, header, body, arrival);
+					break;
+				case PUBREL:
+					write(out, PUBCOMP << 4, body[0], body[1]);
+					break;
+				case SUBSCRIBE:
+					// Grants QoS 0 for every topic filter: nothing is ever forwarded
+					int filters = 0;
+					for (int i = 2; i < body.length; i += 3 + readShort(body, i))
+						filters++;
+					byte[] suback = new byte[2 + filters];
+					suback[0] = body[0];
+					suback[1] = body[1];
+					write(out, 0x90, suback);
+					break;
+				case UNSUBSCRIBE:
+					write(out, 0xb0, body[0], body[1]);
+					break;
+				case PINGREQ:
+					write(out, 0xd0);
+					break;
+				case DISCONNECT:
+					return;
+				default:
+					// PUBACK, PUBREC, PUBCOMP: the stand-in never publishes, so they are unexpected
+					break;
+				}
+			}
+		} catch (EOFException | SocketException e) {
+			// Connection closed by the client
+		} catch (IOException | InterruptedException e) {
+			System.err.println("mqtt-stub: " + e.getMessage());
+		}
+	}
+
+	private void publish(OutputStream out, int header, byte[] body, long arrival)
+			throws IOException, InterruptedException {
+		int qos = (header >> 1) & 0x03;
+		int topicLength = readShort(body, 0);
+		String topic = new String(body, 2, topicLength, StandardCharsets.UTF_8);
+		int offset = 2 + topicLength + (qos > 0 ? 2 : 0);
+		byte[] payload = new byte[body.length - offset];
+		System.arraycopy(body, offset, payload, 0, payload.length);
+
+		publications.incrementAndGet();
+		listener.published(topic, payload, arrival);
+
+		if (qos == 0)
+			return;
+		if (ackDelay > 0)
+			Thread.sleep(ackDelay);
+		byte idMsb = body[2 + topicLength];
+		byte idLsb = body[3 + topicLength];
+		write(out, (qos == 1 ? PUBACK : PUBREC) << 4, idMsb, idLsb);
+	}
+
+	private static int readRemainingLength(DataInputStream in) throws IOException {
+		int length = 0;
+		int multiplier = 1;
+		int digit;
+		do {
+			digit = in.readUnsignedByte();
+			length += (digit & 0x7f) * multiplier;
+			multiplier *= 128;
+		} while ((digit & 0x80) != 0);
+		return length;
+	}
+
+	private static int readShort(byte[] buffer, int offset) {
+		return ((buffer[offset] & 0xff) << 8) | (buffer[offset + 1] & 0xff);
+	}
+
+	private static void write(OutputStream out, int header, int... body) throws IOException {
+		byte[] bytes = new byte[body.length];
+		for (int i = 0; i < body.length; i++)
+			bytes[i] = (byte) body[i];
+		write(out, header, bytes);
+	}
+
+	private static void write(OutputStream out, int header, byte[] body) throws IOException {
+		out.write(header);
+		out.write(body.length);
+		out.write(body);
+		out.flush();
+	}
+}
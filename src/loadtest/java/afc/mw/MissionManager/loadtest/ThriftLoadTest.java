@@ -0,0 +1,295 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TMultiplexedProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+
+import com.afarcloud.thrift.Command;
+import com.afarcloud.thrift.CommandType;
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.MissionManagerService;
+import com.afarcloud.thrift.Orientation;
+import com.afarcloud.thrift.Position;
+import com.afarcloud.thrift.Region;
+import com.afarcloud.thrift.Task;
+import com.afarcloud.thrift.TaskCommandStatus;
+import com.afarcloud.thrift.TaskRegionType;
+import com.afarcloud.thrift.TaskTemplate;
+import com.afarcloud.thrift.TaskType;
+import com.afarcloud.thrift.Vehicle;
+import com.afarcloud.thrift.VehicleType;
+
+import afc.mw.MissionManager.utils.LatencyHistogram;
+
+/**
+ * Thrift load test: keeps several connections busy sending large mission plans while a
+ * separate connection measures the latency of ping and abort calls.
+ * 
+ * Usage: ThriftLoadTest [-host h] [-port p] [-style simplex|multiplex] [-senders n]
+ * [-commands n] [-vehicles n] [-duration s] [-interval ms] [-frame bytes]
+ * 
+ * The aborts target a mission id that is never sent, so they do not change the state of
+ * the Mission Manager. The sent plans are processed as real missions: run it against a
+ * test instance.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class ThriftLoadTest {
+	private static final String MISSION_MANAGER_SERVICE_NAME = "MissionManagerService";
+	private static final int ABORT_MISSION_ID = -1;
+	private static final int TIMEOUT = 60000;
+
+	private String host = "localhost";
+	private int port = 9090;
+	private boolean multiplex = true;
+	private int senders = 4;
+	private int commands = 20000;
+	private int vehicles = 10;
+	private int duration = 30;
+	private int interval = 50;
+	private int maxFrameSize = 16384000;
+
+	private final AtomicBoolean running = new AtomicBoolean(true);
+	private final AtomicInteger requestId = new AtomicInteger(1000000);
+
+	private final LatencyHistogram sendPlan = new LatencyHistogram("send_plan");
+	private final LatencyHistogram ping = new LatencyHistogram("ping");
+	private final LatencyHistogram abort = new LatencyHistogram("abort");
+
+	public static void main(String[] args) throws Exception {
+		ThriftLoadTest test = new ThriftLoadTest();
+		test.parse(args);
+		test.run();
+	}
+
+	private void parse(String[] args) {
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "-host": host = value; break;
+			case "-port": port = Integer.parseInt(value); break;
+			case "-style": multiplex = value.equalsIgnoreCase("multiplex"); break;
+			case "-senders": senders = Integer.parseInt(value); break;
+			case "-commands": commands = Integer.parseInt(value); break;
+			case "-vehicles": vehicles = Integer.parseInt(value); break;
+			case "-duration": duration = Integer.parseInt(value); break;
+			case "-interval": interval = Integer.parseInt(value); break;
+			case "-frame": maxFrameSize = Integer.parseInt(value); break;
+			default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+	}
+
+	private void run() throws Exception {
+		Mission plan = createPlan();
+		System.out.println("Sending plans with " + commands + " commands for " + vehicles + " vehicles from "
+				+ senders + " connections to " + host + ":" + port + " (" + (multiplex ? "multiplex" : "simplex")
+				+ ") during " + duration + " s");
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < senders; i++)
+			threads.add(new Thread(() -> send(plan), "loadtest-sender-" + i));
+		threads.add(new Thread(this::probe, "loadtest-probe"));
+
+		for (Thread thread : threads)
+			thread.start();
+
+		Thread.sleep(duration * 1000L);
+		running.set(false);
+
+		for (Thread thread : threads)
+			thread.join();
+
+		System.out.println("name,count,errors,mean_ms,p50_ms,p90_ms,p99_ms,max_ms");
+		System.out.println(sendPlan.getStatistics());
+		System.out.println(ping.getStatistics());
+		System.out.println(abort.getStatistics());
+	}
+
+	/**
+	 * Sends copies of the plan, back to back, over a single connection.
+	 * 
+	 * @param plan	The plan to send.
+	 */
+	private void send(Mission plan) {
+		TTransport transport = null;
+		try {
+			transport = open();
+			MissionManagerService.Client client = createClient(transport);
+			Mission mission = new Mission(plan);
+
+			while (running.get()) {
+				int id = requestId.incrementAndGet();
+				mission.missionId = id;
+				long tic = System.nanoTime();
+				boolean success = false;
+				try {
+					client.sendPlan(id, mission);
+					success = true;
+				}
+				finally {
+					sendPlan.record(System.nanoTime() - tic, success);
+				}
+			}
+		}
+		catch (TException e) {
+			System.err.println(Thread.currentThread().getName() + ": " + e.getMessage());
+		}
+		finally {
+			if (transport != null)
+				transport.close();
+		}
+	}
+
+	/**
+	 * Alternates ping and abort calls over a dedicated connection.
+	 */
+	private void probe() {
+		TTransport transport = null;
+		try {
+			transport = open();
+			MissionManagerService.Client client = createClient(transport);
+
+			while (running.get()) {
+				long tic = System.nanoTime();
+				boolean success = false;
+				try {
+					client.ping();
+					success = true;
+				}
+				finally {
+					ping.record(System.nanoTime() - tic, success);
+				}
+
+				tic = System.nanoTime();
+				success = false;
+				try {
+					client.abortMissionPlan(requestId.incrementAndGet(), ABORT_MISSION_ID);
+					success = true;
+				}
+				finally {
+					abort.record(System.nanoTime() - tic, success);
+				}
+
+				Thread.sleep(interval);
+			}
+		}
+		catch (TException | InterruptedException e) {
+			System.err.println(Thread.currentThread().getName() + ": " + e.getMessage());
+		}
+		finally {
+			if (transport != null)
+				transport.close();
+		}
+	}
+
+	private TTransport open() throws TException {
+		TTransport transport = new TSocket(host, port, TIMEOUT);
+		if (multiplex)
+			transport = new TFramedTransport(transport, maxFrameSize);
+		transport.open();
+		return transport;
+	}
+
+	private MissionManagerService.Client createClient(TTransport transport) {
+		TProtocol protocol = new TBinaryProtocol(transport);
+		if (multiplex)
+			protocol = new TMultiplexedProtocol(protocol, MISSION_MANAGER_SERVICE_NAME);
+		return new MissionManagerService.Client(protocol);
+	}
+
+	/**
+	 * Creates a plan with the configured number of vehicles and commands, the commands
+	 * evenly spread among the vehicles.
+	 * 
+	 * @return The plan.
+	 */
+	private Mission createPlan() {
+		VehicleType[] types = VehicleType.values();
+		CommandType[] commandTypes = CommandType.values();
+		long start = System.currentTimeMillis();
+
+		Mission mission = new Mission();
+		mission.name = "loadtest";
+		mission.navigationArea = new Region(new ArrayList<Position>());
+		mission.navigationArea.area.add(new Position(-3.63, 40.39, 0));
+		mission.navigationArea.area.add(new Position(-3.62, 40.39, 0));
+		mission.navigationArea.area.add(new Position(-3.62, 40.40, 0));
+		mission.forbiddenArea = new ArrayList<>();
+		mission.homeLocation = new ArrayList<Position>();
+		mission.tasks = new ArrayList<Task>();
+		mission.vehicles = new ArrayList<Vehicle>();
+		mission.commands = new ArrayList<Command>();
+
+		for (int i = 0; i < vehicles; i++) {
+			Vehicle vehicle = new Vehicle();
+			vehicle.id = i + 1;
+			vehicle.name = "vehicle-" + vehicle.id;
+			vehicle.type = types[i % types.length];
+			mission.vehicles.add(vehicle);
+
+			Task task = new Task();
+			task.id = i + 1;
+			task.assignedVehicleId = vehicle.id;
+			task.setAssignedVehicleIdIsSet(true);
+			task.area = mission.navigationArea;
+			task.bearing = new Orientation();
+			task.taskTemplate = new TaskTemplate();
+			task.taskTemplate.description = "loadtest";
+			task.taskTemplate.taskType = TaskType.values()[0];
+			task.taskTemplate.regionType = TaskRegionType.values()[0];
+			task.taskTemplate.requiredTypes = new ArrayList<>();
+			mission.tasks.add(task);
+		}
+
+		for (int i = 0; i < commands; i++) {
+			Command command = new Command();
+			command.id = i + 1;
+			command.relatedTask = mission.tasks.get(i % vehicles);
+			command.commandType = commandTypes[i % commandTypes.length];
+			command.commandStatus = TaskCommandStatus.NotStarted;
+			command.startTime = start + i * 1000L;
+			command.endTime = command.startTime + 1000L;
+			command.params = new ArrayList<Double>();
+			for (int p = 0; p < 7; p++)
+				command.params.add(40.0 + i * 1e-6 + p);
+			mission.commands.add(command);
+		}
+
+		return mission;
+	}
+}
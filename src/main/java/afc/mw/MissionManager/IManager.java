@@ -39,4 +39,5 @@ public interface IManager {
     public String abortVehiclePlanHard(int vehicleId);
     public String abortMissionPlanHard(int missionId);
     public Mission getCurrentMission();
+    public Mission getMission(int missionId);
 }
\ No newline at end of file
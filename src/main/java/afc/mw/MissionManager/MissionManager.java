@@ -32,40 +32,57 @@ import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.json.JsonException;
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 import javax.json.bind.JsonbConfig;
 import javax.json.bind.JsonbException;
 import javax.json.bind.config.PropertyNamingStrategy;
+import javax.xml.stream.XMLStreamException;
 
+import org.apache.thrift.TException;
 import org.eclipse.paho.client.mqttv3.MqttException;
 
 import com.afarcloud.thrift.Mission;
 import com.afarcloud.thrift.Position;
 import com.afarcloud.thrift.Region;
+import com.afarcloud.thrift.TaskCommandStatus;
 import com.afarcloud.thrift.Vehicle;
 import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSObject;
-import com.nimbusds.jose.JWSSigner;
 import com.nimbusds.jose.KeyLengthException;
-import com.nimbusds.jose.Payload;
-import com.nimbusds.jose.crypto.MACSigner;
 
+import afc.mw.MissionManager.types.CommandProgress;
+import afc.mw.MissionManager.types.MissionProgress;
 import afc.mw.MissionManager.types.MissionReport;
+import afc.mw.MissionManager.types.RegisteredMission;
+import afc.mw.MissionManager.types.VehicleDispatchResult;
 import afc.mw.MissionManager.types.VehiclePlan;
 import afc.mw.MissionManager.types.VehiclePlanException;
 import afc.mw.MissionManager.types.isobus.PrescriptionMap;
+import afc.mw.MissionManager.utils.DqOutbox;
+import afc.mw.MissionManager.utils.ExecutorManager;
+import afc.mw.MissionManager.utils.IntHashMap;
+import afc.mw.MissionManager.utils.MetricsRegistry;
 import afc.mw.MissionManager.utils.MissionParser;
+import afc.mw.MissionManager.utils.MissionRegistry;
+import afc.mw.MissionManager.utils.MissionReportReader;
 import afc.mw.MissionManager.utils.MissionValidator;
 import afc.mw.MissionManager.utils.MmtClient;
 import afc.mw.MissionManager.utils.MqttClientMission;
 import afc.mw.MissionManager.utils.RestClient;
+import afc.mw.MissionManager.utils.TaskDataWriter;
 import afc.mw.MissionManager.utils.ValidationResult;
+import afc.mw.MissionManager.utils.VehiclePlanEncoder;
+import afc.mw.MissionManager.utils.VehiclePlanSigner;
+import afc.mw.MissionManager.utils.VehiclePlanWriter;
 
 /**
  * Mission Manager (AFarCloud)
@@ -83,8 +100,11 @@ public class MissionManager implements IManager {
 	public static final int ABORT_SOFT = 2;
 	public static final int DRONE_SPEED = 3;
 
-	private static final Jsonb jsonb = JsonbBuilder
-			.create(new JsonbConfig().withNullValues(false).withFormatting(true));
+	public static final int MMT_ERROR_NOT_DELIVERED = 502;
+	public static final String MMT_ERROR_NOT_DELIVERED_DESCRIPTION = "The plans of some vehicles could not be delivered to the MQTT broker. Vehicles: ";
+
+	// Source of the stage lines written to the SCI log by the metrics registry
+	private static final String SOURCE = MissionManager.class.getName();
 
 	private static final Jsonb jsonbPrescriptionMap = JsonbBuilder.create(new JsonbConfig().withNullValues(false)
 			.withFormatting(true).withPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE));
@@ -92,28 +112,21 @@ public class MissionManager implements IManager {
 	private MissionManagerContext context = MissionManagerContext.getInstance();
 	private Logger mmLog = context.mmLog;
 	private Logger sciLog = context.sciLog;
+	private MetricsRegistry metrics = MetricsRegistry.getInstance();
 
-	private long tic1;
-	private long tic2;
-	private long toc1;
-	private long toc2;
-
-	private Mission currentMission = null;
 	private static MissionManager instance = null;
 	private MissionParser parser = null;
-
-	private JWSObject jwsObject;
-	private boolean vehiclePlanSigned = false;
-	private boolean missionActive = false;
+	private MissionRegistry registry = null;
 
 	/**
 	 * Mission Manager Constructor
 	 */
 	private MissionManager() {
 		parser = new MissionParser();
+		registry = new MissionRegistry();
 	}
 
-	public static MissionManager getInstance() {
+	public static synchronized MissionManager getInstance() {
 		if (instance == null)
 			instance = new MissionManager();
 
@@ -130,12 +143,25 @@ public class MissionManager implements IManager {
 	 * @throws InterruptedException
 	 */
 	public void startMission(int requestId, Mission missionPlan) throws InterruptedException {
-		tic1 = System.currentTimeMillis();
-		mmLog.log(Level.INFO, "Received new mission from the MMT. Mission ID: " + missionPlan.missionId
-				+ " (request ID: " + requestId + ")");
+		startMission(requestId, missionPlan, System.currentTimeMillis());
+	}
+
+	/**
+	 * A call to this method starts a new mission sent by the MMT through the Apache
+	 * Thrift interface.
+	 *
+	 * @param requestId		The request ID
+	 * @param missionPlan	The mission plan
+	 * @param receivedAt	The time the mission plan was received (for the time to first publish)
+	 * @throws InterruptedException
+	 */
+	public void startMission(int requestId, Mission missionPlan, long receivedAt) throws InterruptedException {
+		long start = metrics.start();
+		mmLog.log(Level.INFO, "Received new mission from the MMT. Mission ID: {0} (request ID: {1})",
+				new Object[] { missionPlan.missionId, requestId });
 
 		// STEP 1.1: Check missionPlan integrity
-		mmLog.log(Level.INFO, "Checking mission " + missionPlan.missionId + " validity.");
+		mmLog.log(Level.INFO, "Checking mission {0} validity.", missionPlan.missionId);
 		ValidationResult result = MissionValidator.getInstance().validate(missionPlan);
 		MmtClient.getInstance().sendValidationResult(result);
 
@@ -150,7 +176,8 @@ public class MissionManager implements IManager {
 			case NO_TASKS:
 			case NO_COMMANDS:
 			case NO_PRESCRIPTION_MAP:
-				mmLog.log(Level.SEVERE, "Mission " + missionPlan.getMissionId() + " is INVALID");
+				mmLog.log(Level.SEVERE, "Mission {0} is INVALID", missionPlan.getMissionId());
+				metrics.observe("start_mission", "invalid", start);
 				return;
 			// SOLVABLE ERRORS
 			case NO_MISSION_NAME:
@@ -191,345 +218,514 @@ public class MissionManager implements IManager {
 			}
 		}
 
-		currentMission = missionPlan;
-		missionActive = true;
-		mmLog.log(Level.INFO, "Mission " + missionPlan.getMissionId() + " is valid. Continue processing...");
+		RegisteredMission entry = registry.register(missionPlan);
+		registry.start(entry);
+		mmLog.log(Level.INFO, "Mission {0} is valid. Continue processing...", missionPlan.getMissionId());
 
 		// STEP 2: Store mission data through the Data Query
-		(new Thread() {
-			public void run() {
-				RestClient.getInstance().storeMission(missionPlan);
+		ExecutorManager.getInstance().executeIo(() -> DqOutbox.getInstance().storeMission(missionPlan));
+
+		// STEP 3.0: Extract the vehicle plans for all the unmanned vehicles in a single pass
+		long dispatchTic = System.currentTimeMillis();
+		IntHashMap<VehiclePlan> parsedPlans;
+		try {
+			parsedPlans = parser.parseMissionPlans(missionPlan);
+		} catch (VehiclePlanException e) {
+			mmLog.log(Level.SEVERE, "Mission {0} has no commands assigned.", missionPlan.missionId);
+			if (context.debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
 			}
-		}).start();
+			parsedPlans = new IntHashMap<VehiclePlan>();
+		}
+		IntHashMap<VehiclePlan> vehiclePlans = parsedPlans;
 
-		// STEP 3: For each vehicle, retrieve and dispatch vehicle plan
+		// STEP 3: For each vehicle, dispatch its vehicle plan or prescription map (concurrently). The CPU pool
+		// prepares each plan and hands its storage and publication to the I/O pool
+		ExecutorService executor = ExecutorManager.getInstance().getCpuExecutor();
+		ArrayList<Future<Future<VehicleDispatchResult>>> pending = new ArrayList<Future<Future<VehicleDispatchResult>>>();
 		for (Vehicle vehicle : missionPlan.vehicles) {
-			vehiclePlanSigned = false;
-			switch (vehicle.type) {
-			case AUAV:
-			case RUAV:
-			case UAV:
-			case AGV:
-			case UGV:
-				try {
-					// STEP 3.A.0: Set variables for the vehicle plan processing
-					String datetime = (new SimpleDateFormat("yyyyMMdd-HHmmss"))
-							.format(Calendar.getInstance().getTime());
-					String filename = context.current_mission_dir + File.separator + "AFC-VP-" + datetime + "-"
-							+ requestId + "-" + missionPlan.missionId + "-" + vehicle.id + ".json";
-
-					// STEP 3.A.1: Extract the vehicle plan from the mission plan
-					tic2 = System.currentTimeMillis();
-					VehiclePlan vehiclePlan = parser.parseMission(vehicle, missionPlan);
-					toc2 = System.currentTimeMillis();
-					sciLog.log(Level.INFO, "parse_auav_plan," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-
-					// STEP 3.A.2: Save the vehicle plan as a JSON file
-					tic2 = System.currentTimeMillis();
-					try {
-						jsonb.toJson(vehiclePlan, new FileWriter(filename));
-					} catch (JsonbException e) {
-						mmLog.log(Level.WARNING, "Error parsing vehicle plan as JSON (save as file).");
-						if (MissionManagerContext.getInstance().debug) {
-							mmLog.log(Level.SEVERE, e.getMessage(), e);
-						}
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO,
-								"save_vehicle_plan,jsonb_exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					} catch (IOException e) {
-						mmLog.log(Level.WARNING, "I/O error saving the vehicle plan.");
-						if (MissionManagerContext.getInstance().debug) {
-							mmLog.log(Level.SEVERE, e.getMessage(), e);
-						}
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO,
-								"save_vehicle_plan,io_exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					} catch (Exception e) {
-						mmLog.log(Level.WARNING, "Unexpected error saving the vehicle plan");
-						if (MissionManagerContext.getInstance().debug) {
-							mmLog.log(Level.SEVERE, e.getMessage(), e);
-						}
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO,
-								"save_vehicle_plan,unknown_exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					} finally {
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO, "save_vehicle_plan,success," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					}
-
-					mmLog.log(Level.INFO, "Parsed vehicle plan for vehicle " + vehicle.name + "(" + vehicle.id
-							+ ") and locally saved as " + filename);
-
-					// STEP 3.A.3-pre1: If enabled, generate signed vehicle plan
-					if (context.mm2ddsEnabled) {
-						tic2 = System.currentTimeMillis();
-
-						try {
-							JWSSigner signer = new MACSigner(context.mm2ddsSecret);
-							jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256),
-									new Payload(jsonb.toJson(vehiclePlan)));
-
-							jwsObject.sign(signer);
-							vehiclePlanSigned = true;
-						} catch (KeyLengthException e) {
-							mmLog.log(Level.SEVERE, "Error with shared secret between the MM and the DDS.");
-							if (MissionManagerContext.getInstance().debug) {
-								mmLog.log(Level.SEVERE, e.getMessage(), e);
-							}
-							toc2 = System.currentTimeMillis();
-							sciLog.log(Level.INFO, "sign_vehicle_plan,shared_secret_problem," + tic2 + "," + toc2 + ","
-									+ (toc2 - tic2));
-						} catch (JOSEException e) {
-							mmLog.log(Level.SEVERE, "Error signing the vehicle plan!");
-							if (MissionManagerContext.getInstance().debug) {
-								mmLog.log(Level.SEVERE, e.getMessage(), e);
-							}
-							toc2 = System.currentTimeMillis();
-							sciLog.log(Level.INFO,
-									"sign_vehicle_plan,signing_problem," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-						}
-
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO, "sign_vehicle_plan,success," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-
-						if (vehiclePlanSigned) {
-
-							// STEP 3.A.3-pre2: Save signed vehicle plan
-							tic2 = System.currentTimeMillis();
-
-							try {
-								Files.write(Paths.get(filename + ".signed"), jwsObject.serialize().getBytes());
-							} catch (IOException e) {
-								mmLog.log(Level.WARNING, "Error saving the signed vehicle plan!");
-								if (MissionManagerContext.getInstance().debug) {
-									mmLog.log(Level.WARNING, e.getMessage(), e);
-								}
-								toc2 = System.currentTimeMillis();
-								sciLog.log(Level.INFO, "save_signed_vehicle_plan,io_exception," + tic2 + "," + toc2
-										+ "," + (toc2 - tic2));
-							}
-
-							toc2 = System.currentTimeMillis();
-							sciLog.log(Level.INFO,
-									"save_signed_vehicle_plan,success," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-						}
-					}
-
-					// STEP 3.A.3: Publish the vehicle plan (signed)
-					try {
-						tic2 = System.currentTimeMillis();
-						if (context.mm2ddsEnabled) {
-							MqttClientMission.getInstance().publishMission(vehicle,
-									missionPlan.isSetName() ? missionPlan.name : "", jwsObject.serialize());
-						} else {
-							MqttClientMission.getInstance().publishMission(vehicle,
-									missionPlan.isSetName() ? missionPlan.name : "", jsonb.toJson(vehiclePlan));
-						}
-					} catch (MqttException e) {
-						mmLog.log(Level.SEVERE, "There was an error trying to publish the vehicle " + vehicle.id
-								+ " plan to the MQTT Broker");
-						if (context.debug) {
-							mmLog.log(Level.SEVERE, e.getMessage(), e);
-						}
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO,
-								"publish_vehicle_plan,mqtt_exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					} finally {
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO,
-								"publish_vehicle_plan,success," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					}
-				} catch (VehiclePlanException e) {
-					mmLog.log(Level.SEVERE, "Vehicle " + vehicle.name + "(" + vehicle.id
-							+ ") has bad formed commands or no commands assigned.");
-					if (context.debug) {
-						mmLog.log(Level.SEVERE, e.getMessage(), e);
-					}
+			pending.add(executor.submit(
+					() -> dispatchVehicle(requestId, missionPlan, vehicle, vehiclePlans.get(vehicle.id))));
+		}
+
+		// STEP 4: Collect the per-vehicle results. A vehicle plan is dispatched once the broker acknowledges it
+		ArrayList<VehicleDispatchResult> results = new ArrayList<VehicleDispatchResult>();
+		VehicleDispatchResult slowest = null;
+		VehicleDispatchResult first = null;
+		int dispatched = 0;
+		StringBuilder notDelivered = new StringBuilder();
+		for (int i = 0; i < pending.size(); i++) {
+			VehicleDispatchResult vehicleResult;
+			try {
+				vehicleResult = pending.get(i).get().get();
+			} catch (ExecutionException e) {
+				Vehicle vehicle = missionPlan.vehicles.get(i);
+				mmLog.log(Level.SEVERE, "Unexpected error dispatching vehicle {0}.", vehicle.id);
+				if (context.debug) {
+					mmLog.log(Level.SEVERE, e.getMessage(), e);
 				}
-				break;
-			case RGV:
-			case Tractor:
-				try {
-					// STEP 3.B.0: Generate the filename variables
-					String datetime = (new SimpleDateFormat("yyyyMMdd-HHmmss"))
-							.format(Calendar.getInstance().getTime());
-					String filename = context.current_mission_dir + File.separator + "AFC-PM-" + datetime + "-"
-							+ requestId + "-" + missionPlan.missionId + "-" + vehicle.id + ".json";
-
-					// STEP 3.B.1: Parse the mission to generate the prescription map
-					tic2 = System.currentTimeMillis();
-					PrescriptionMap prescriptionMap = parser.parsePrescriptionMap(vehicle, missionPlan);
-					toc2 = System.currentTimeMillis();
-					sciLog.log(Level.INFO, "parse_auav_plan," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-
-					// STEP 3.B.2: Store locally the generated prescription map in JSON format
-					tic2 = System.currentTimeMillis();
-					try {
-						jsonbPrescriptionMap.toJson(prescriptionMap, new FileWriter(filename));
-					} catch (JsonbException e) {
-						mmLog.log(Level.WARNING, "Error parsing prescription map as JSON (save as file).");
-						if (MissionManagerContext.getInstance().debug) {
-							mmLog.log(Level.SEVERE, e.getMessage(), e);
-						}
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO,
-								"save_prescription_map,jsonb_exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					} catch (IOException e) {
-						mmLog.log(Level.WARNING, "I/O error saving the prescription map.");
-						if (MissionManagerContext.getInstance().debug) {
-							mmLog.log(Level.SEVERE, e.getMessage(), e);
-						}
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO,
-								"save_prescription_map,io_exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					} catch (Exception e) {
-						mmLog.log(Level.WARNING, "Unexpected error saving the prescription map.");
-						if (MissionManagerContext.getInstance().debug) {
-							mmLog.log(Level.SEVERE, e.getMessage(), e);
-						}
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO,
-								"save_prescription_map,unknown_exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					} finally {
-						toc2 = System.currentTimeMillis();
-						sciLog.log(Level.INFO,
-								"save_prescription_map,success," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-					}
-
-					mmLog.log(Level.INFO, "Parsed prescription map for vehicle " + vehicle.name + "(" + vehicle.id
-							+ ") and locally saved as " + filename);
-
-					// STEP 3.B.3: Send the prescription map to the ISOBUS Converter
-					(new Thread() {
-						public void run() {
-							try {
-								tic2 = System.currentTimeMillis();
-								RestClient.getInstance().sendPrescriptionMap(Integer.toString(missionPlan.missionId),
-										prescriptionMap);
-							} catch (Exception e) {
-								mmLog.log(Level.SEVERE, "There was an error trying to send the prescription map for "
-										+ vehicle.id + ".");
-								if (context.debug) {
-									mmLog.log(Level.SEVERE, e.getMessage(), e);
-								}
-								toc2 = System.currentTimeMillis();
-								sciLog.log(Level.INFO,
-										"send_prescription_map,exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-							} finally {
-								toc2 = System.currentTimeMillis();
-								sciLog.log(Level.INFO,
-										"send_prescription_map,success," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-							}
-						}
-					}).start();
-				} catch (VehiclePlanException e) {
-					mmLog.log(Level.SEVERE,
-							"Vehicle " + vehicle.id + " has bad formed prescription map associated info.");
-					if (context.debug) {
-						mmLog.log(Level.SEVERE, e.getMessage(), e);
-					}
+				vehicleResult = new VehicleDispatchResult(vehicle.id, String.valueOf(vehicle.type));
+				vehicleResult.start_time = dispatchTic;
+				vehicleResult.end_time = System.currentTimeMillis();
+			}
+			results.add(vehicleResult);
+
+			if (vehicleResult.status == VehicleDispatchResult.DISPATCHED) {
+				dispatched++;
+				if (first == null || vehicleResult.end_time < first.end_time) {
+					first = vehicleResult;
 				}
-				break;
-			default:
-				mmLog.log(Level.WARNING, "Unknown vehicle type for vehicle id " + vehicle.id + ".");
-				break;
+			} else if (vehicleResult.status == VehicleDispatchResult.PUBLISH_ERROR) {
+				notDelivered.append(notDelivered.length() > 0 ? "," : "").append(vehicleResult.vehicle_id);
 			}
+			if (slowest == null || vehicleResult.getElapsed() > slowest.getElapsed()) {
+				slowest = vehicleResult;
+			}
+			sciLog.log(Level.INFO, "dispatch_vehicle,{0},{1},{2},{3},{4},{5}",
+					new Object[] { vehicleResult.vehicle_id, vehicleResult.vehicle_type, vehicleResult.status,
+						vehicleResult.start_time, vehicleResult.end_time, vehicleResult.getElapsed() });
+		}
+		long dispatchToc = System.currentTimeMillis();
+
+		// A mission with no vehicle dispatched can never be finished. The MMT is told of the undelivered plans
+		if (dispatched == 0 && registry.terminate(entry, STOPPED)) {
+			mmLog.log(Level.WARNING, "Mission {0} has no vehicle dispatched. Stopping it.", missionPlan.missionId);
+		}
+		if (notDelivered.length() > 0 && context.mmtEnabled) {
+			MmtClient.getInstance().sendError(MMT_ERROR_NOT_DELIVERED,
+					MMT_ERROR_NOT_DELIVERED_DESCRIPTION + notDelivered);
+		}
+
+		mmLog.log(Level.INFO, "Mission {0}: dispatched {1} of {2} vehicles in {3} ms{4}",
+				new Object[] { missionPlan.missionId, dispatched, results.size(), dispatchToc - dispatchTic,
+					(slowest != null ? " (slowest: vehicle " + slowest.vehicle_id + ", " + slowest.getElapsed() + " ms)." : ".") });
+		sciLog.log(Level.INFO, "dispatch_total,{0},{1},{2},{3},{4}",
+				new Object[] { results.size(), dispatched, dispatchTic, dispatchToc, dispatchToc - dispatchTic });
+		if (slowest != null) {
+			sciLog.log(Level.INFO, "dispatch_slowest,{0},{1},{2}",
+					new Object[] { slowest.vehicle_id, slowest.vehicle_type, slowest.getElapsed() });
+		}
+		if (first != null) {
+			sciLog.log(Level.INFO, "time_to_first_publish,{0},{1},{2},{3},{4},{5}",
+					new Object[] { missionPlan.missionId, requestId, first.vehicle_id, receivedAt, first.end_time,
+						first.end_time - receivedAt });
+		}
+
+		long elapsed = metrics.observe("start_mission", "ok", start);
+		if (context.metricsSciLog) {
+			sciLog.log(Level.INFO, "exit,ok,,{0}", TimeUnit.NANOSECONDS.toMillis(elapsed));
 		}
-		toc1 = System.currentTimeMillis() - tic1;
-		sciLog.log(Level.INFO, "exit,ok,," + toc1);
 	}
 
 	/**
-	 * Aborts the vehicle plan for the given vehicleId.
+	 * Extracts and dispatches the vehicle plan, or the prescription map, for one of the mission vehicles.
 	 * 
-	 * @param vehicleId The id of the vehicle that has to abort the mission.
-	 * @return "OK" if the abort message was correctly published to the vehicle, "NOK" otherwise.
+	 * All the state used here is local, so several vehicles can be dispatched concurrently. Runs in the CPU
+	 * pool; the storage and publication of a vehicle plan continue in the I/O pool.
+	 * 
+	 * @param requestId		The request ID
+	 * @param missionPlan	The mission plan
+	 * @param vehicle		The vehicle
+	 * @param vehiclePlan	The vehicle plan already extracted for the vehicle ({@code null} if none)
+	 * @return				The pending result of the dispatch
 	 */
-	public String abortVehiclePlan(int vehicleId) {
-		tic1 = System.currentTimeMillis();
-		
-		if (currentMission == null) {
-			mmLog.log(Level.WARNING, "Abort vehicle plan (soft) ignored, as there is no active mission");
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_vehicle_soft_exit,nok,no_active_mission," + toc1);
-			return "NOK: No active mission";
+	private Future<VehicleDispatchResult> dispatchVehicle(int requestId, Mission missionPlan, Vehicle vehicle,
+			VehiclePlan vehiclePlan) {
+		VehicleDispatchResult result = new VehicleDispatchResult(vehicle.id, String.valueOf(vehicle.type));
+		result.start_time = System.currentTimeMillis();
+
+		switch (vehicle.type) {
+		case AUAV:
+		case RUAV:
+		case UAV:
+		case AGV:
+		case UGV:
+			return dispatchVehiclePlan(requestId, missionPlan, vehicle, vehiclePlan, result);
+		case RGV:
+		case Tractor:
+			result.status = dispatchPrescriptionMap(requestId, missionPlan, vehicle);
+			break;
+		default:
+			mmLog.log(Level.WARNING, "Unknown vehicle type for vehicle id {0}.", vehicle.id);
+			result.status = VehicleDispatchResult.UNKNOWN_VEHICLE_TYPE;
+			break;
+		}
+
+		return complete(result, result.status);
+	}
+
+	/**
+	 * Sets the final status of a vehicle dispatch.
+	 * 
+	 * @param result	The result of the dispatch
+	 * @param status	The dispatch status
+	 * @return			The result
+	 */
+	private static VehicleDispatchResult finish(VehicleDispatchResult result, byte status) {
+		result.status = status;
+		result.end_time = System.currentTimeMillis();
+		return result;
+	}
+
+	/**
+	 * Sets the final status of a vehicle dispatch that has nothing left to do in the I/O pool.
+	 * 
+	 * @param result	The result of the dispatch
+	 * @param status	The dispatch status
+	 * @return			The result, already completed
+	 */
+	private static CompletableFuture<VehicleDispatchResult> complete(VehicleDispatchResult result, byte status) {
+		return CompletableFuture.completedFuture(finish(result, status));
+	}
+
+	/**
+	 * Serializes, encodes and signs (if enabled) the vehicle plan for an unmanned vehicle, and hands its
+	 * storage and publication to the I/O pool.
+	 * 
+	 * @param requestId		The request ID
+	 * @param missionPlan	The mission plan
+	 * @param vehicle		The vehicle
+	 * @param vehiclePlan	The vehicle plan extracted for the vehicle ({@code null} if it could not be extracted)
+	 * @param result		The result of the dispatch
+	 * @return				The pending result of the dispatch
+	 */
+	private Future<VehicleDispatchResult> dispatchVehiclePlan(int requestId, Mission missionPlan, Vehicle vehicle,
+			VehiclePlan vehiclePlan, VehicleDispatchResult result) {
+		long start;
+		String outcome;
+
+		// STEP 3.A.1: The vehicle plan has already been extracted from the mission plan
+		if (vehiclePlan == null) {
+			mmLog.log(Level.SEVERE, "Vehicle {0}({1}) has bad formed commands or no commands assigned.",
+					new Object[] { vehicle.name, vehicle.id });
+			return complete(result, VehicleDispatchResult.INVALID_PLAN);
 		}
 
+		// STEP 3.A.0: Set variables for the vehicle plan processing
+		String datetime = (new SimpleDateFormat("yyyyMMdd-HHmmss"))
+				.format(Calendar.getInstance().getTime());
+		String filename = context.current_mission_dir + File.separator + "AFC-VP-" + datetime + "-"
+				+ requestId + "-" + missionPlan.missionId + "-" + vehicle.id + ".json";
+
+		// STEP 3.A.2-pre: Serialize the vehicle plan once. The same bytes are saved, signed and published
+		start = metrics.start();
+		byte[] planJson;
 		try {
-			for (Vehicle vehicle : currentMission.vehicles) {
-				if (vehicle.id == vehicleId) {
-					mmLog.log(Level.INFO, "Sending soft abort event to vehicle " + vehicleId);
-					MqttClientMission.getInstance().publishAbort(vehicle, currentMission.name);
-					toc1 = System.currentTimeMillis() - tic1;
-					sciLog.log(Level.INFO, "abort_vehicle_soft_exit,ok,," + toc1);
-					return "OK";
+			planJson = VehiclePlanWriter.getInstance().toJson(vehiclePlan);
+		} catch (JsonException e) {
+			mmLog.log(Level.SEVERE, "Error parsing vehicle plan as JSON.");
+			if (context.debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			metrics.record(SOURCE, "dispatchVehiclePlan", "serialize_vehicle_plan", "json_exception", start);
+			return complete(result, VehicleDispatchResult.INVALID_PLAN);
+		}
+		metrics.record(SOURCE, "dispatchVehiclePlan", "serialize_vehicle_plan", MetricsRegistry.SUCCESS, start);
+
+		// STEP 3.A.2-post: If enabled for the vehicle type, encode the vehicle plan in the compact binary form
+		byte[] encodedPlan = planJson;
+		String encoding = VehiclePlanEncoder.JSON;
+		if (VehiclePlanEncoder.getInstance().isCompact(vehicle.type)) {
+			start = metrics.start();
+			try {
+				encodedPlan = VehiclePlanEncoder.getInstance().encodeCompact(vehiclePlan);
+				encoding = VehiclePlanEncoder.COMPACT_SUBTOPIC;
+			} catch (TException e) {
+				mmLog.log(Level.SEVERE, "Error encoding the vehicle plan in the compact form.");
+				if (context.debug) {
+					mmLog.log(Level.SEVERE, e.getMessage(), e);
 				}
+				metrics.record(SOURCE, "dispatchVehiclePlan", "encode_vehicle_plan", "thrift_exception", start);
+				return complete(result, VehicleDispatchResult.INVALID_PLAN);
 			}
-			mmLog.log(Level.WARNING, "Requested soft abort for vehicle " + vehicleId + " not in current mission.");
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_vehicle_soft_exit,nok,no_vehicle," + toc1);
-			return "NOK";
+			metrics.record(SOURCE, "dispatchVehiclePlan", "encode_vehicle_plan", MetricsRegistry.SUCCESS, start);
+		}
+
+		// STEP 3.A.3-pre1: If enabled, generate signed vehicle plan (over the encoded form)
+		byte[] payload = encodedPlan;
+		if (context.mm2ddsEnabled) {
+			start = metrics.start();
+			outcome = MetricsRegistry.SUCCESS;
+			payload = null;
+
+			try {
+				payload = VehiclePlanSigner.getInstance().sign(encodedPlan);
+			} catch (KeyLengthException e) {
+				mmLog.log(Level.SEVERE, "Error with shared secret between the MM and the DDS.");
+				if (MissionManagerContext.getInstance().debug) {
+					mmLog.log(Level.SEVERE, e.getMessage(), e);
+				}
+				outcome = "shared_secret_problem";
+			} catch (JOSEException e) {
+				mmLog.log(Level.SEVERE, "Error signing the vehicle plan!");
+				if (MissionManagerContext.getInstance().debug) {
+					mmLog.log(Level.SEVERE, e.getMessage(), e);
+				}
+				outcome = "signing_problem";
+			}
+			metrics.record(SOURCE, "dispatchVehiclePlan", "sign_vehicle_plan", outcome, start);
+
+			if (payload == null) {
+				return complete(result, VehicleDispatchResult.INVALID_PLAN);
+			}
+		}
+
+		// STEP 3.A.2: Save and publish the vehicle plan in the I/O pool, so a slow disk or broker never holds
+		// a CPU worker
+		byte[] encoded = encodedPlan;
+		byte[] signed = payload;
+		String subtopic = encoding;
+		return ExecutorManager.getInstance().supplyIo(
+				() -> publishVehiclePlan(missionPlan, vehicle, filename, planJson, encoded, signed, subtopic, result))
+				.thenCompose(delivery -> delivery);
+	}
+
+	/**
+	 * Stores and publishes the vehicle plan (signed, if enabled) for an unmanned vehicle. The vehicle is
+	 * dispatched when the broker acknowledges the plan, not when it is handed to the MQTT client, so the
+	 * I/O thread does not wait for the delivery.
+	 * 
+	 * @param missionPlan	The mission plan
+	 * @param vehicle		The vehicle
+	 * @param filename		The file to store the vehicle plan
+	 * @param planJson		The vehicle plan, as JSON
+	 * @param encodedPlan	The vehicle plan, in the encoding used to publish it
+	 * @param payload		The payload to publish (the encoded vehicle plan, signed if enabled)
+	 * @param encoding		The encoding of the vehicle plan
+	 * @param result		The result of the dispatch
+	 * @return				The pending result of the dispatch, completed on delivery
+	 */
+	private CompletableFuture<VehicleDispatchResult> publishVehiclePlan(Mission missionPlan, Vehicle vehicle, String filename,
+			byte[] planJson, byte[] encodedPlan, byte[] payload, String encoding, VehicleDispatchResult result) {
+		long start;
+		String outcome;
+
+		// STEP 3.A.2: Save the vehicle plan as a JSON file
+		start = metrics.start();
+		outcome = MetricsRegistry.SUCCESS;
+		try {
+			Files.write(Paths.get(filename), planJson);
+		} catch (IOException e) {
+			mmLog.log(Level.WARNING, "I/O error saving the vehicle plan.");
+			if (MissionManagerContext.getInstance().debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			outcome = "io_exception";
+		} catch (Exception e) {
+			mmLog.log(Level.WARNING, "Unexpected error saving the vehicle plan");
+			if (MissionManagerContext.getInstance().debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			outcome = "unknown_exception";
+		}
+		metrics.record(SOURCE, "publishVehiclePlan", "save_vehicle_plan", outcome, start);
+
+		mmLog.log(Level.INFO, "Parsed vehicle plan for vehicle {0}({1}) and locally saved as {2}",
+				new Object[] { vehicle.name, vehicle.id, filename });
+
+		// STEP 3.A.3-pre2: Save signed vehicle plan (if signed)
+		if (payload != encodedPlan) {
+			start = metrics.start();
+			outcome = MetricsRegistry.SUCCESS;
+
+			try {
+				Files.write(Paths.get(filename + ".signed"), payload);
+			} catch (IOException e) {
+				mmLog.log(Level.WARNING, "Error saving the signed vehicle plan!");
+				if (MissionManagerContext.getInstance().debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+				outcome = "io_exception";
+			}
+			metrics.record(SOURCE, "publishVehiclePlan", "save_signed_vehicle_plan", outcome, start);
+		}
+
+		// STEP 3.A.3: Publish the vehicle plan (signed, if enabled)
+		long publishStart = metrics.start();
+		CompletableFuture<Long> delivery;
+		try {
+			delivery = MqttClientMission.getInstance().publishMission(vehicle,
+					missionPlan.isSetName() ? missionPlan.name : "", payload,
+					encoding.equals(VehiclePlanEncoder.JSON) ? null : encoding);
 		} catch (MqttException e) {
-			mmLog.log(Level.SEVERE, "There was an error trying soft abort mission for vehicle " + vehicleId);
+			mmLog.log(Level.SEVERE, "There was an error trying to publish the vehicle {0} plan to the MQTT Broker",
+					vehicle.id);
 			if (context.debug) {
 				mmLog.log(Level.SEVERE, e.getMessage(), e);
 			}
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_vehicle_soft_exit,nok,mqtt_error," + toc1);
-			return "NOK";
+			metrics.record(SOURCE, "publishVehiclePlan", "publish_vehicle_plan", "mqtt_exception", publishStart);
+			return complete(result, VehicleDispatchResult.PUBLISH_ERROR);
 		}
+
+		// STEP 3.A.4: The vehicle is dispatched once the broker acknowledges its plan
+		return delivery.handle((delivered, exception) -> {
+			if (exception != null) {
+				mmLog.log(Level.SEVERE, "The vehicle {0} plan was not delivered to the MQTT Broker", vehicle.id);
+				metrics.record(SOURCE, "publishVehiclePlan", "publish_vehicle_plan", "not_delivered", publishStart);
+				return finish(result, VehicleDispatchResult.PUBLISH_ERROR);
+			}
+			metrics.record(SOURCE, "publishVehiclePlan", "publish_vehicle_plan", MetricsRegistry.SUCCESS, publishStart);
+			metrics.recordPayload(String.valueOf(vehicle.type), encoding, payload.length);
+			sciLog.log(Level.INFO, "vehicle_plan_payload,{0},{1},{2},{3},{4},{5},{6}",
+					new Object[] { missionPlan.missionId, vehicle.id, vehicle.type, encoding, planJson.length,
+						encodedPlan.length, payload.length });
+			return finish(result, VehicleDispatchResult.DISPATCHED);
+		});
 	}
 
 	/**
-	 * Aborts the mission plan for the given missionId.
+	 * Extracts, stores and sends to the ISOBUS Converter (or converts locally) the prescription map for a tractor.
 	 * 
-	 * @param missionId The id of the mission that has to be aborted.
-	 * @return "OK" if the abort message was correctly published, "NOK" otherwise.
+	 * @param requestId		The request ID
+	 * @param missionPlan	The mission plan
+	 * @param vehicle		The vehicle
+	 * @return				The dispatch status
 	 */
-	public String abortMissionPlan(int missionId) {
-		tic1 = System.currentTimeMillis();
-		
-		if (currentMission == null) {
-			mmLog.log(Level.WARNING, "Abort mission (soft) ignored, as there is no active mission");
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_mission_soft_exit,nok,no_active_mission," + toc1);
-			return "NOK: No active mission";
+	private byte dispatchPrescriptionMap(int requestId, Mission missionPlan, Vehicle vehicle) {
+		long start;
+
+		try {
+			// STEP 3.B.0: Generate the filename variables
+			String datetime = (new SimpleDateFormat("yyyyMMdd-HHmmss"))
+					.format(Calendar.getInstance().getTime());
+			String basename = context.current_mission_dir + File.separator + "AFC-PM-" + datetime + "-"
+					+ requestId + "-" + missionPlan.missionId + "-" + vehicle.id;
+
+			// STEP 3.B.1: Parse the mission to generate the prescription map
+			start = metrics.start();
+			PrescriptionMap prescriptionMap = parser.parsePrescriptionMap(vehicle, missionPlan);
+			metrics.record(SOURCE, "dispatchPrescriptionMap", "parse_prescription_map", MetricsRegistry.SUCCESS, start);
+
+			// STEP 3.B.2: Store and convert the prescription map in the I/O pool, so a slow disk or ISOBUS
+			// Converter never holds a CPU worker
+			ExecutorManager.getInstance().executeIo(
+					() -> exportPrescriptionMap(missionPlan, vehicle, basename, prescriptionMap));
+		} catch (VehiclePlanException e) {
+			mmLog.log(Level.SEVERE, "Vehicle {0} has bad formed prescription map associated info.", vehicle.id);
+			if (context.debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			return VehicleDispatchResult.INVALID_PLAN;
 		}
 
-		mmLog.log(Level.INFO, "Processing abort mission (soft) request.");
-		boolean error = false;
-		mmLog.log(Level.INFO, "Current mission to be aborted (soft) is missionId " + currentMission.missionId
-				+ " and has " + currentMission.vehicles.size() + " vehicles.");
-		for (Vehicle vehicle : currentMission.vehicles) {
-			switch (vehicle.type) {
-			case AUAV:
-			case RUAV:
-			case UAV:
-			case AGV:
-			case UGV:
-				mmLog.log(Level.INFO, "Sending abort mission (soft) to " + vehicle.type + " " + vehicle.name + " ("
-						+ vehicle.id + ").");
-				if (!abortVehiclePlanHard(vehicle.id).equals("OK")) {
-					error = true;
+		return VehicleDispatchResult.DISPATCHED;
+	}
+
+	/**
+	 * Stores and sends to the ISOBUS Converter (or converts locally) the prescription map for a tractor.
+	 * 
+	 * @param missionPlan		The mission plan
+	 * @param vehicle			The vehicle
+	 * @param basename			The base name of the prescription map files
+	 * @param prescriptionMap	The prescription map
+	 */
+	private void exportPrescriptionMap(Mission missionPlan, Vehicle vehicle, String basename,
+			PrescriptionMap prescriptionMap) {
+		long start;
+		String outcome;
+		String filename = basename + ".json";
+
+		// STEP 3.B.2: Store locally the generated prescription map in JSON format
+		start = metrics.start();
+		outcome = MetricsRegistry.SUCCESS;
+		try (FileWriter writer = new FileWriter(filename)) {
+			jsonbPrescriptionMap.toJson(prescriptionMap, writer);
+		} catch (JsonbException e) {
+			mmLog.log(Level.WARNING, "Error parsing prescription map as JSON (save as file).");
+			if (MissionManagerContext.getInstance().debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			outcome = "jsonb_exception";
+		} catch (IOException e) {
+			mmLog.log(Level.WARNING, "I/O error saving the prescription map.");
+			if (MissionManagerContext.getInstance().debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			outcome = "io_exception";
+		} catch (Exception e) {
+			mmLog.log(Level.WARNING, "Unexpected error saving the prescription map.");
+			if (MissionManagerContext.getInstance().debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			outcome = "unknown_exception";
+		}
+		metrics.record(SOURCE, "exportPrescriptionMap", "save_prescription_map", outcome, start);
+
+		mmLog.log(Level.INFO, "Parsed prescription map for vehicle {0}({1}) and locally saved as {2}",
+				new Object[] { vehicle.name, vehicle.id, filename });
+
+		// STEP 3.B.3: Generate locally the task data (ISO 11783-10), if set instead of the ISOBUS Converter
+		if (TaskDataWriter.LOCAL.equalsIgnoreCase(context.isobusConverterMode)) {
+			start = metrics.start();
+			outcome = MetricsRegistry.SUCCESS;
+			try {
+				File taskData = TaskDataWriter.getInstance().write(prescriptionMap, new File(basename, "TASKDATA"));
+				mmLog.log(Level.INFO, "Task data for vehicle {0}({1}) locally generated as {2}",
+						new Object[] { vehicle.name, vehicle.id, taskData });
+			} catch (XMLStreamException e) {
+				mmLog.log(Level.WARNING, "Error generating the task data of the prescription map for {0}.",
+						vehicle.id);
+				if (context.debug) {
+					mmLog.log(Level.SEVERE, e.getMessage(), e);
 				}
-				break;
-			default:
-				mmLog.log(Level.INFO, "Ignoring abort mission (soft) for " + vehicle.type + " " + vehicle.name + " ("
-						+ vehicle.id + ").");
-				break;
+				outcome = "xml_exception";
+			} catch (IOException e) {
+				mmLog.log(Level.WARNING, "I/O error saving the task data of the prescription map for {0}.",
+						vehicle.id);
+				if (context.debug) {
+					mmLog.log(Level.SEVERE, e.getMessage(), e);
+				}
+				outcome = "io_exception";
 			}
+			metrics.record(SOURCE, "exportPrescriptionMap", "generate_taskdata", outcome, start);
+			return;
 		}
 
-		if (!error) {
-			currentMission = null;
-			missionActive = false;
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_mission_soft_exit,ok,," + toc1);
-			return "OK";
-		} else
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_mission_soft_exit,nok,misc," + toc1);
-			return "NOK";
+		// STEP 3.B.3: Send the prescription map to the ISOBUS Converter
+		start = metrics.start();
+		try {
+			if (!RestClient.getInstance().sendPrescriptionMap(Integer.toString(missionPlan.missionId),
+					prescriptionMap, basename)) {
+				metrics.record(SOURCE, "exportPrescriptionMap", "send_prescription_map", "error", start);
+				return;
+			}
+		} catch (Exception e) {
+			mmLog.log(Level.SEVERE, "There was an error trying to send the prescription map for {0}.", vehicle.id);
+			if (context.debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			metrics.record(SOURCE, "exportPrescriptionMap", "send_prescription_map", "exception", start);
+			return;
+		}
+		metrics.record(SOURCE, "exportPrescriptionMap", "send_prescription_map", MetricsRegistry.SUCCESS, start);
+	}
+
+	/**
+	 * Aborts the vehicle plan for the given vehicleId.
+	 * 
+	 * @param vehicleId The id of the vehicle that has to abort the mission.
+	 * @return "OK" if the abort message was correctly published to the vehicle, "NOK" otherwise.
+	 */
+	public String abortVehiclePlan(int vehicleId) {
+		long start = metrics.start();
+		
+		if (!registry.hasLiveMissions()) {
+			mmLog.log(Level.WARNING, "Abort vehicle plan (soft) ignored, as there is no active mission");
+			metrics.recordExit(SOURCE, "abortVehiclePlan", "abort_vehicle_soft", "no_active_mission", start);
+			return "NOK: No active mission";
+		}
+
+		return abortVehicle(registry.getByVehicle(vehicleId), vehicleId, false, start);
+	}
+
+	/**
+	 * Aborts the mission plan for the given missionId.
+	 * 
+	 * @param missionId The id of the mission that has to be aborted.
+	 * @return "OK" if the abort message was correctly published, "NOK" otherwise.
+	 */
+	public String abortMissionPlan(int missionId) {
+		return abortMission(missionId, false);
 	}
 
 	/**
@@ -539,154 +735,311 @@ public class MissionManager implements IManager {
 	 * @return "OK" if the abort message was correctly published to the vehicle, "NOK" otherwise.
 	 */
 	public String abortVehiclePlanHard(int vehicleId) {
-		tic1 = System.currentTimeMillis();
+		long start = metrics.start();
 		
-		if (currentMission == null) {
+		if (!registry.hasLiveMissions()) {
 			mmLog.log(Level.WARNING, "Abort vehicle plan (hard) ignored, as there is no active mission");
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_vehicle_hard_exit,nok,no_active_mission," + toc1);
+			metrics.recordExit(SOURCE, "abortVehiclePlanHard", "abort_vehicle_hard", "no_active_mission", start);
 			return "NOK: No active mission";
 		}
 
+		return abortVehicle(registry.getByVehicle(vehicleId), vehicleId, true, start);
+	}
+
+	/**
+	 * Force aborts the mission plan for the given missionId.
+	 * 
+	 * @param missionId The id of the mission that has to be aborted.
+	 * @return "OK" if the abort message was correctly published, "NOK" otherwise.
+	 */
+	public String abortMissionPlanHard(int missionId) {
+		return abortMission(missionId, true);
+	}
+
+	/**
+	 * Publishes the abort event for one vehicle of a live mission.
+	 * 
+	 * @param entry		The live mission the vehicle belongs to ({@code null} if none).
+	 * @param vehicleId	The id of the vehicle that has to abort the mission.
+	 * @param hard		{@code true} for a hard abort; {@code false} for a soft one.
+	 * @param start		The time the abort request was received, as returned by {@link MetricsRegistry#start()}.
+	 * @return "OK" if the abort message was correctly published to the vehicle, "NOK" otherwise.
+	 */
+	private String abortVehicle(RegisteredMission entry, int vehicleId, boolean hard, long start) {
+		String mode = hard ? "hard" : "soft";
+		Vehicle vehicle = (entry != null) ? entry.getVehicle(vehicleId) : null;
+
+		if (vehicle == null) {
+			mmLog.log(Level.WARNING, "Requested {0} abort for vehicle {1} not in any active mission.",
+					new Object[] { mode, vehicleId });
+			metrics.recordExit(SOURCE, "abortVehicle", "abort_vehicle_" + mode, "no_vehicle", start);
+			return "NOK";
+		}
+
 		try {
-			for (Vehicle vehicle : currentMission.vehicles) {
-				if (vehicle.id == vehicleId) {
-					mmLog.log(Level.INFO, "Sending hard abort event to vehicle " + vehicleId);
-					MqttClientMission.getInstance().publishAbortHard(vehicle,
-							currentMission.isSetName() ? currentMission.name : "");
-					toc1 = System.currentTimeMillis() - tic1;
-					sciLog.log(Level.INFO, "abort_vehicle_hard_exit,ok,," + toc1);
-					return "OK";
-				}
+			mmLog.log(Level.INFO, "Sending {0} abort event to vehicle {1} (mission {2})",
+					new Object[] { mode, vehicleId, entry.mission_id });
+			if (hard) {
+				MqttClientMission.getInstance().publishAbortHard(vehicle, entry.name);
+			} else {
+				MqttClientMission.getInstance().publishAbort(vehicle, entry.name);
+			}
+			if (context.dqThriftPort > 0) {
+				long eventTime = System.currentTimeMillis();
+				int missionId = entry.mission_id;
+				ExecutorManager.getInstance().executeIo(() -> DqOutbox.getInstance().storeEvent(context.getNewSequenceNumber(),
+						missionId, vehicleId, hard ? ABORT_HARD : ABORT_SOFT,
+						"Mission " + mode + " abort sent to vehicle " + vehicleId, eventTime));
 			}
-			mmLog.log(Level.WARNING, "Requested hard abort for vehicle " + vehicleId + " not in current mission.");
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_vehicle_hard_exit,nok,no_vehicle," + toc1);			return "NOK";
+			metrics.recordExit(SOURCE, "abortVehicle", "abort_vehicle_" + mode, null, start);
+			return "OK";
 		} catch (MqttException e) {
-			mmLog.log(Level.SEVERE, "There was an error trying hard abort mission for vehicle " + vehicleId);
+			mmLog.log(Level.SEVERE, "There was an error trying {0} abort mission for vehicle {1}",
+					new Object[] { mode, vehicleId });
 			if (context.debug) {
 				mmLog.log(Level.SEVERE, e.getMessage(), e);
 			}
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_vehicle_hard_exit,nok,mqtt_error," + toc1);
+			metrics.recordExit(SOURCE, "abortVehicle", "abort_vehicle_" + mode, "mqtt_error", start);
 			return "NOK";
 		}
 	}
 
-
 	/**
-	 * Force aborts the mission plan for the given missionId.
+	 * Aborts all the unmanned vehicles of a live mission, and stops the mission if all of them were
+	 * notified.
 	 * 
-	 * @param missionId The id of the mission that has to be aborted.
-	 * @return "OK" if the abort message was correctly published, "NOK" otherwise.
+	 * @param missionId	The id of the mission that has to be aborted.
+	 * @param hard		{@code true} for a hard abort; {@code false} for a soft one.
+	 * @return "OK" if the abort messages were correctly published, "NOK" otherwise.
 	 */
-	public String abortMissionPlanHard(int missionId) {
-		tic1 = System.currentTimeMillis();
+	private String abortMission(int missionId, boolean hard) {
+		long start = metrics.start();
+		String mode = hard ? "hard" : "soft";
+		RegisteredMission entry = registry.get(missionId);
 
-		if (currentMission == null) {
-			mmLog.log(Level.WARNING, "Abort mission (hard) ignored, as there is no active mission");
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_mission_hard_exit,nok,no_active_mission," + toc1);
+		if (!registry.hasLiveMissions()) {
+			mmLog.log(Level.WARNING, "Abort mission ({0}) ignored, as there is no active mission", mode);
+			metrics.recordExit(SOURCE, "abortMission", "abort_mission_" + mode, "no_active_mission", start);
 			return "NOK: No active mission";
 		}
 
-		mmLog.log(Level.INFO, "Processing abort mission (hard) request.");
+		if (entry == null || (entry.getState() != RUNNING && entry.getState() != NOT_STARTED)) {
+			mmLog.log(Level.WARNING, "Abort mission ({0}) ignored, as mission {1} is not active",
+					new Object[] { mode, missionId });
+			metrics.recordExit(SOURCE, "abortMission", "abort_mission_" + mode, "mission_not_active", start);
+			return "NOK: Mission " + missionId + " is not active";
+		}
+
+		mmLog.log(Level.INFO, "Processing abort mission ({0}) request.", mode);
 		boolean error = false;
-		mmLog.log(Level.INFO, "Current mission to be aborted (hard) is missionId " + currentMission.missionId
-				+ " and has " + currentMission.vehicles.size() + " vehicles.");
-		for (Vehicle vehicle : currentMission.vehicles) {
+		mmLog.log(Level.INFO, "Mission to be aborted ({0}) is missionId {1} and has {2} vehicles.",
+				new Object[] { mode, entry.mission_id, entry.mission.vehicles.size() });
+		for (Vehicle vehicle : entry.mission.vehicles) {
 			switch (vehicle.type) {
 			case AUAV:
 			case RUAV:
 			case UAV:
 			case AGV:
 			case UGV:
-				mmLog.log(Level.INFO, "Sending abort mission (hard) to " + vehicle.type + " " + vehicle.name + " ("
-						+ vehicle.id + ").");
-				if (!abortVehiclePlanHard(vehicle.id).equals("OK")) {
+				if (registry.getByVehicle(vehicle.id) != entry) {
+					mmLog.log(Level.INFO, "Ignoring abort mission ({0}) for {1} {2} ({3}), as it has been assigned to another mission.",
+							new Object[] { mode, vehicle.type, vehicle.name, vehicle.id });
+					break;
+				}
+				mmLog.log(Level.INFO, "Sending abort mission ({0}) to {1} {2} ({3}).",
+						new Object[] { mode, vehicle.type, vehicle.name, vehicle.id });
+				if (!abortVehicle(entry, vehicle.id, hard, metrics.start()).equals("OK")) {
 					error = true;
 				}
 				break;
 			default:
-				mmLog.log(Level.INFO, "Ignoring abort mission (hard) for " + vehicle.type + " " + vehicle.name + " ("
-						+ vehicle.id + ").");
+				mmLog.log(Level.INFO, "Ignoring abort mission ({0}) for {1} {2} ({3}).",
+						new Object[] { mode, vehicle.type, vehicle.name, vehicle.id });
 				break;
 			}
 		}
 
 		if (!error) {
-			currentMission = null;
-			missionActive = false;
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_mission_hard_exit,ok,," + toc1);
+			registry.terminate(entry, STOPPED);
+			metrics.recordExit(SOURCE, "abortMission", "abort_mission_" + mode, null, start);
 			return "OK";
-		} else
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "abort_mission_hard_exit,nok,misc," + toc1);
+		} else {
+			metrics.recordExit(SOURCE, "abortMission", "abort_mission_" + mode, "misc", start);
 			return "NOK";
+		}
 	}
 	
 	/**
 	 * Gets the current mission.
 	 * 
-	 * @return Mission The current mission,
+	 * @return Mission The current (last started) mission, or {@code null} if no mission was ever started.
 	 */
 	public Mission getCurrentMission() {
-		return currentMission;
+		RegisteredMission entry = registry.getLast();
+		return (entry != null) ? entry.mission : null;
 	}
 
 	/**
-	 * Checks if the mission is active
+	 * Gets a mission known to the Mission Manager.
 	 * 
-	 * @return {@code true} if the mission is active; {@code false} otherwise.
+	 * @param missionId The mission id
+	 * @return The mission, or {@code null} if the mission is unknown.
+	 */
+	public Mission getMission(int missionId) {
+		RegisteredMission entry = registry.get(missionId);
+		return (entry != null) ? entry.mission : null;
+	}
+
+	/**
+	 * Gets the missions which are not started or running.
+	 * 
+	 * @return The active missions, with their state.
+	 */
+	public ArrayList<RegisteredMission> getActiveMissions() {
+		return registry.getLiveMissions();
+	}
+
+	/**
+	 * Checks if there is any active mission
+	 * 
+	 * @return {@code true} if there is at least one active mission; {@code false} otherwise.
 	 */
 	public boolean isMissionActive() {
-		return missionActive;
+		return registry.hasLiveMissions();
 	}
 
 	/**
-	 * Validates a mission report against the current mission.
+	 * Checks if a mission is active
+	 * 
+	 * @param missionId The mission id
+	 * @return {@code true} if the mission is active; {@code false} otherwise.
+	 */
+	public boolean isMissionActive(int missionId) {
+		RegisteredMission entry = registry.get(missionId);
+		return entry != null && entry.getState() == RUNNING;
+	}
+
+	/**
+	 * Validates a mission report against the missions known to the Mission Manager.
 	 * 
 	 * @param report The report to be validated.
 	 * @return {@code MISSION_REPORT_VALID} if the mission report is valid, or an error code otherwise. 
 	 */
 	public byte validateReport(MissionReport report) {
-		tic1 = System.currentTimeMillis();
+		long start = metrics.start();
+
+		mmLog.log(Level.INFO, "Validating mission report for mission id: {0}", report.mission_id);
+		byte result = registry.validate(report.mission_id, report.vehicle_id);
 
-		mmLog.log(Level.INFO, "Validating mission report for mission id: " + report.mission_id);
-		if (currentMission == null) {
+		switch (result) {
+		case MissionReport.MISSION_REPORT_VALID:
+			int changed = applyReport(report);
+			mmLog.log(Level.INFO, "Mission report is VALID ({0} command statuses changed)", changed);
+			metrics.recordExit(SOURCE, "validateReport", "validate_report", null, start);
+			break;
+		case MissionReport.MISSION_REPORT_INVALID_MISSION_NO_MISSION:
 			mmLog.log(Level.INFO, "Mission report is NOT VALID: No mission active");
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "validate_report_exit,nok,no_mission," + toc1);
-			return MissionReport.MISSION_REPORT_INVALID_MISSION_NO_MISSION;
+			metrics.recordExit(SOURCE, "validateReport", "validate_report", "no_mission", start);
+			break;
+		case MissionReport.MISSION_REPORT_INVALID_MISSION_ID:
+			mmLog.log(Level.INFO, "Mission report is NOT VALID: Unknown mission ID");
+			metrics.recordExit(SOURCE, "validateReport", "validate_report", "mission_id_mismatch", start);
+			break;
+		case MissionReport.MISSION_REPORT_INVALID_MISSION_NOT_ACTIVE:
+			mmLog.log(Level.INFO, "Mission report is NOT VALID: Inactive mission");
+			metrics.recordExit(SOURCE, "validateReport", "validate_report", "mission_not_active", start);
+			break;
+		default:
+			mmLog.log(Level.INFO, "Mission report is NOT VALID: Vehicle reporting is not in mission");
+			metrics.recordExit(SOURCE, "validateReport", "validate_report", "invalid_vehicle", start);
+			break;
 		}
 
-		if (report.mission_id != currentMission.missionId) {
-			mmLog.log(Level.INFO, "Mission report is NOT VALID: Mission ID mismatch");
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "validate_report_exit,nok,mission_id_mismatch," + toc1);
-			return MissionReport.MISSION_REPORT_INVALID_MISSION_ID;
+		return result;
+	}
+
+	/**
+	 * Validates a stream of mission reports against the missions known to the Mission Manager.
+	 * The whole stream is parsed before any report is applied, so a malformed stream applies none of
+	 * them. Only a summary of the whole batch is logged.
+	 * 
+	 * @param reports The reader of the mission reports.
+	 * @return The validation result of each report, in order: {@code MISSION_REPORT_VALID}, an error
+	 * 		   code, or {@code INTERNAL_ERROR} if the entry is not a valid mission report.
+	 * @throws JsonException If the stream of reports is malformed or cannot be read.
+	 */
+	public byte[] validateReports(MissionReportReader reports) {
+		long start = metrics.start();
+		ArrayList<MissionReport> batch = new ArrayList<MissionReport>();
+		while (reports.hasNext()) {
+			batch.add(reports.next());
 		}
 
-		if (!missionActive) {
-			mmLog.log(Level.INFO, "Mission report is NOT VALID: Inactive mission");
-			toc1 = System.currentTimeMillis() - tic1;
-			sciLog.log(Level.INFO, "validate_report_exit,nok,mission_not_active," + toc1);
-			return MissionReport.MISSION_REPORT_INVALID_MISSION_NOT_ACTIVE;
+		int total = batch.size();
+		byte[] results = new byte[total];
+		int valid = 0;
+		int changed = 0;
+		for (int i = 0; i < total; i++) {
+			MissionReport report = batch.get(i);
+			results[i] = (report != null) ? registry.validate(report.mission_id, report.vehicle_id)
+					: MissionReport.INTERNAL_ERROR;
+			if (results[i] == MissionReport.MISSION_REPORT_VALID) {
+				valid++;
+				changed += applyReport(report);
+			}
 		}
 
-		for (Vehicle vehicle : currentMission.vehicles) {
-			if (report.vehicle_id == vehicle.id) {
-				mmLog.log(Level.INFO, "Mission report is VALID");
-				toc1 = System.currentTimeMillis() - tic1;
-				sciLog.log(Level.INFO, "validate_report_exit,ok,," + toc1);
-				return MissionReport.MISSION_REPORT_VALID;
+		mmLog.log(Level.INFO, "Validated {0} mission reports: {1} valid, {2} not valid ({3} command statuses changed)",
+				new Object[] { total, valid, total - valid, changed });
+		long elapsed = metrics.observe("validate_reports", null, start);
+		sciLog.log(Level.INFO, "validate_reports_exit,{0},{1},{2},{3}",
+				new Object[] { total, valid, changed, TimeUnit.NANOSECONDS.toMillis(elapsed) });
+
+		return results;
+	}
+
+	/**
+	 * Gets the progress of a mission, built from the mission reports of its vehicles.
+	 * 
+	 * @param missionId The mission id.
+	 * @return The progress of the mission and its vehicles, or {@code null} if the mission is not known.
+	 */
+	public MissionProgress getMissionProgress(int missionId) {
+		RegisteredMission entry = registry.get(missionId);
+		return (entry != null) ? entry.getCommandStatus().getProgress() : null;
+	}
+
+	/**
+	 * Gets the current status of the commands of a mission, as reported by its vehicles.
+	 * 
+	 * @param missionId The mission id.
+	 * @return The status of each command, in mission order, or {@code null} if the mission is not known.
+	 */
+	public ArrayList<CommandProgress> getCommandProgress(int missionId) {
+		RegisteredMission entry = registry.get(missionId);
+		return (entry != null) ? entry.getCommandStatus().getCommands() : null;
+	}
+
+	/**
+	 * Applies the command statuses of a valid mission report to the status table of its mission, and
+	 * finishes the mission once it is complete.
+	 * 
+	 * @param report The mission report.
+	 * @return The number of commands whose status changed.
+	 */
+	private int applyReport(MissionReport report) {
+		RegisteredMission entry = registry.get(report.mission_id);
+		if (entry == null) {
+			return 0;
+		}
+
+		int changed = entry.getCommandStatus().update(report);
+		if (changed > 0 || report.mission_status_id == TaskCommandStatus.Finished.getValue()
+				|| report.mission_status_id == TaskCommandStatus.Stopped.getValue()) {
+			if (entry.getCommandStatus().isComplete() && registry.terminate(entry, FINISHED)) {
+				mmLog.log(Level.INFO, "Mission {0} finished.", entry.mission_id);
 			}
 		}
-		
-		mmLog.log(Level.INFO, "Mission report is NOT VALID: Vehicle reporting is not in mission");
-		toc1 = System.currentTimeMillis() - tic1;
-		sciLog.log(Level.INFO, "validate_report_exit,nok,invalid_vehicle," + toc1);
-		return MissionReport.MISSION_REPORT_INVALID_VEHICLE_ID;
+		return changed;
 	}
 }
@@ -25,14 +25,11 @@
 package afc.mw.MissionManager;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Date;
-import java.util.logging.ConsoleHandler;
-import java.util.logging.FileHandler;
 import java.util.logging.Level;
-import java.util.logging.LogRecord;
 import java.util.logging.Logger;
-import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
@@ -40,6 +37,10 @@ import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
 import org.apache.commons.configuration2.builder.fluent.Configurations;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 
+import afc.mw.MissionManager.utils.AsyncLogHandler;
+import afc.mw.MissionManager.utils.MissionManagerLogFormatter;
+import afc.mw.MissionManager.utils.SciLogFormatter;
+
 /**
  * Common context for the Mission Manager.
  * 
@@ -74,6 +75,8 @@ public class MissionManagerContext {
 	private static final String DEFAULT_MQTT_TOPIC_SC_REPORT = "mission/system_configuration/report";
 	private static final boolean DEFAULT_MQTT_RETAINED_MISSION = false;
 	private static final boolean DEFAULT_MQTT_RETAINED_SC = false;
+	private static final int DEFAULT_MQTT_MAX_INFLIGHT = 10;
+	private static final int DEFAULT_MQTT_TIMEOUT = 10;
 	private static final int DEFAULT_SC_REQUEST_TIMEOUT = 60;
 	private static final int DEFAULT_SC_MAX_VEHICLES= 10;
 	private static final String DEFAULT_DQ_SERVER = "dq.server";
@@ -84,6 +87,29 @@ public class MissionManagerContext {
     private static final String DEFAULT_MM2DDS_HMAC_SECRET = "hmac_secret";
     private static final boolean DEFAULT_MM2DDS_HMAC_ENABLED = true;
     private static final boolean DEFAULT_HTTPS_ENABLED = true;
+    private static final int DEFAULT_EXECUTOR_CPU_THREADS = 0;
+    private static final int DEFAULT_EXECUTOR_IO_THREADS = 8;
+    private static final int DEFAULT_EXECUTOR_MISSION_THREADS = 2;
+    private static final int DEFAULT_EXECUTOR_QUEUE_SIZE = 256;
+    private static final int DEFAULT_HTTP_POOL_MAX_TOTAL = 20;
+    private static final int DEFAULT_HTTP_POOL_MAX_PER_ROUTE = 10;
+    private static final boolean DEFAULT_DQ_GZIP = false;
+    private static final String DEFAULT_DQ_OUTBOX_DIR = "outbox";
+    private static final int DEFAULT_DQ_OUTBOX_BATCH_SIZE = 16;
+    private static final int DEFAULT_DQ_OUTBOX_FLUSH_INTERVAL = 1000;
+    private static final int DEFAULT_DQ_OUTBOX_MAX_RECORDS = 1000;
+    private static final int DEFAULT_DQ_THRIFT_PORT = 0;
+    private static final String DEFAULT_THRIFT_SERVER = "threadpool";
+    private static final int DEFAULT_THRIFT_SELECTOR_THREADS = 2;
+    private static final int DEFAULT_THRIFT_WORKER_THREADS = 16;
+    private static final int DEFAULT_THRIFT_MAX_FRAME_SIZE = 16384000;
+    private static final int DEFAULT_MMT_QUEUE_SIZE = 64;
+    private static final int DEFAULT_MMT_TIMEOUT = 10;
+    private static final boolean DEFAULT_METRICS_SCILOG = true;
+    private static final String DEFAULT_MQTT_COMPACT_TYPES = "";
+    private static final int DEFAULT_ISOBUSCONVERTER_TREATMENT_ZONES = 8;
+    private static final String DEFAULT_ISOBUSCONVERTER_RESAMPLE = "";
+    private static final String DEFAULT_ISOBUSCONVERTER_MODE = "remote";
 	
 	// Properties names
 	public static final String PROP_THRIFT_PORT = "thrift.port";
@@ -105,6 +131,8 @@ public class MissionManagerContext {
 	public static final String PROP_MQTT_TOPIC_SC_REPORT = "mqtt.topic.system_configuration_report";
 	public static final String PROP_MQTT_RETAINED_MISSION = "mqtt.retained.mission";
 	public static final String PROP_MQTT_RETAINED_SC = "mqtt.retained.system_configuration";	
+	public static final String PROP_MQTT_MAX_INFLIGHT = "mqtt.max_inflight";
+	public static final String PROP_MQTT_TIMEOUT = "mqtt.timeout";
 	public static final String PROP_SC_REQUEST_TIMEOUT = "sc.request.timeout";
 	public static final String PROP_SC_MAX_VEHICLES = "sc.max_vehicles";
 	public static final String PROP_DQ_SERVER = "dq.server";
@@ -115,15 +143,43 @@ public class MissionManagerContext {
     public static final String PROP_MM2DDS_HMAC_SECRET = "mm2dds.hmac.secret";
     public static final String PROP_MM2DDS_HMAC_ENABLED = "mm2dds.hmac.enabled";
     public static final String PROP_HTTPS_ENABLED = "https.enabled";
+    public static final String PROP_EXECUTOR_CPU_THREADS = "executor.cpu.threads";
+    public static final String PROP_EXECUTOR_IO_THREADS = "executor.io.threads";
+    public static final String PROP_EXECUTOR_MISSION_THREADS = "executor.mission.threads";
+    public static final String PROP_EXECUTOR_QUEUE_SIZE = "executor.queue_size";
+    public static final String PROP_HTTP_POOL_MAX_TOTAL = "http.pool.max_total";
+    public static final String PROP_HTTP_POOL_MAX_PER_ROUTE = "http.pool.max_per_route";
+    public static final String PROP_DQ_GZIP = "dq.gzip";
+    public static final String PROP_DQ_OUTBOX_DIR = "dq.outbox.dir";
+    public static final String PROP_DQ_OUTBOX_BATCH_SIZE = "dq.outbox.batch_size";
+    public static final String PROP_DQ_OUTBOX_FLUSH_INTERVAL = "dq.outbox.flush_interval";
+    public static final String PROP_DQ_OUTBOX_MAX_RECORDS = "dq.outbox.max_records";
+    public static final String PROP_DQ_THRIFT_PORT = "dq.thrift.port";
+    public static final String PROP_THRIFT_SERVER = "thrift.server";
+    public static final String PROP_THRIFT_SELECTOR_THREADS = "thrift.selector_threads";
+    public static final String PROP_THRIFT_WORKER_THREADS = "thrift.worker_threads";
+    public static final String PROP_THRIFT_MAX_FRAME_SIZE = "thrift.max_frame_size";
+    public static final String PROP_MMT_QUEUE_SIZE = "mmt.queue_size";
+    public static final String PROP_MMT_TIMEOUT = "mmt.timeout";
+    public static final String PROP_METRICS_SCILOG = "metrics.scilog";
+    public static final String PROP_MQTT_COMPACT_TYPES = "mqtt.compact_types";
+    public static final String PROP_ISOBUSCONVERTER_TREATMENT_ZONES = "isobusconverter.treatment_zones";
+    public static final String PROP_ISOBUSCONVERTER_RESAMPLE = "isobusconverter.resample";
+    public static final String PROP_ISOBUSCONVERTER_MODE = "isobusconverter.mode";
+
+	// Records buffered per log before the logging threads have to wait for the writer
+	private static final int LOG_BUFFER_SIZE = 8192;
 
 	// Context private attributes
-	private FileHandler fh;
-	private FileHandler fhsci;
+	private StreamHandler fh;
+	private StreamHandler fhsci;
     private static MissionManagerContext instance = null;    
 
     // Context public fields    
     public Logger mmLog = Logger.getLogger("MissionManagerLog");
     public Logger sciLog = Logger.getLogger("SciTechTrackingLog");
+    public AsyncLogHandler mmLogHandler;
+    public AsyncLogHandler sciLogHandler;
     public int thriftPort = DEFAULT_THRIFT_PORT;
     public String thriftStyle = DEFAULT_THRIFT_STYLE;
     public int restPort = DEFAULT_REST_PORT;
@@ -143,6 +199,8 @@ public class MissionManagerContext {
     public String mqttTopicSystemConfigurationReport = DEFAULT_MQTT_TOPIC_SC_REPORT;
     public boolean mqttRetainedMission = DEFAULT_MQTT_RETAINED_MISSION;
     public boolean mqttRetainedSystemConfiguration = DEFAULT_MQTT_RETAINED_SC;
+    public int mqttMaxInflight = DEFAULT_MQTT_MAX_INFLIGHT;
+    public int mqttTimeout = DEFAULT_MQTT_TIMEOUT;
     public int SCRequestTimeout = DEFAULT_SC_REQUEST_TIMEOUT;
     public int SCMaxVehicles = DEFAULT_SC_MAX_VEHICLES;
     public String dqServer = DEFAULT_DQ_SERVER;
@@ -153,6 +211,29 @@ public class MissionManagerContext {
     public String mm2ddsSecret = DEFAULT_MM2DDS_HMAC_SECRET;
     public boolean mm2ddsEnabled = DEFAULT_MM2DDS_HMAC_ENABLED;
     public boolean httpsEnabled = DEFAULT_HTTPS_ENABLED;
+    public int executorCpuThreads = DEFAULT_EXECUTOR_CPU_THREADS;
+    public int executorIoThreads = DEFAULT_EXECUTOR_IO_THREADS;
+    public int executorMissionThreads = DEFAULT_EXECUTOR_MISSION_THREADS;
+    public int executorQueueSize = DEFAULT_EXECUTOR_QUEUE_SIZE;
+    public int httpPoolMaxTotal = DEFAULT_HTTP_POOL_MAX_TOTAL;
+    public int httpPoolMaxPerRoute = DEFAULT_HTTP_POOL_MAX_PER_ROUTE;
+    public boolean dqGzip = DEFAULT_DQ_GZIP;
+    public String dqOutboxDir = DEFAULT_DQ_OUTBOX_DIR;
+    public int dqOutboxBatchSize = DEFAULT_DQ_OUTBOX_BATCH_SIZE;
+    public int dqOutboxFlushInterval = DEFAULT_DQ_OUTBOX_FLUSH_INTERVAL;
+    public int dqOutboxMaxRecords = DEFAULT_DQ_OUTBOX_MAX_RECORDS;
+    public int dqThriftPort = DEFAULT_DQ_THRIFT_PORT;
+    public String thriftServer = DEFAULT_THRIFT_SERVER;
+    public int thriftSelectorThreads = DEFAULT_THRIFT_SELECTOR_THREADS;
+    public int thriftWorkerThreads = DEFAULT_THRIFT_WORKER_THREADS;
+    public int thriftMaxFrameSize = DEFAULT_THRIFT_MAX_FRAME_SIZE;
+    public int mmtQueueSize = DEFAULT_MMT_QUEUE_SIZE;
+    public int mmtTimeout = DEFAULT_MMT_TIMEOUT;
+    public boolean metricsSciLog = DEFAULT_METRICS_SCILOG;
+    public String mqttCompactTypes = DEFAULT_MQTT_COMPACT_TYPES;
+    public int isobusConverterTreatmentZones = DEFAULT_ISOBUSCONVERTER_TREATMENT_ZONES;
+    public String isobusConverterResample = DEFAULT_ISOBUSCONVERTER_RESAMPLE;
+    public String isobusConverterMode = DEFAULT_ISOBUSCONVERTER_MODE;
     
     // Context public MM contextual variables
     public String logdir = "log";
@@ -184,94 +265,32 @@ public class MissionManagerContext {
                 directory.mkdir();
             }
         	
-        	// Create MissionManager logger   	
-            fh = new FileHandler(logdir + File.separator + "MissionManager.log", true);
-            mmLog.setUseParentHandlers(false);
-            mmLog.addHandler(fh);
-            fh.setFormatter(new SimpleFormatter() {
-                private static final String formatNormal = "[%1$tF %1$tT] [%2$-7s] [%3$s:%4$s (%5$s)] %6$s %n";
-                private static final String formatException = "[%1$tF %1$tT] [%2$-7s] [%3$s:%4$s (%5$s)] %6$s %7$s %n";
-
-                @Override
-                public synchronized String format(LogRecord lr) {
-                	if (lr.getThrown() != null ) {
-                		return String.format(formatException,
-                				new Date(lr.getMillis()),
-                				lr.getLevel().getLocalizedName(),
-                				lr.getSourceClassName().substring(lr.getSourceClassName().lastIndexOf('.') + 1),
-                				lr.getSourceMethodName(),
-                				lr.getThreadID(),
-                				lr.getMessage(),
-                				lr.getThrown());
-                	}
-                	else {
-                		return String.format(formatNormal,
-                				new Date(lr.getMillis()),
-                				lr.getLevel().getLocalizedName(),
-                				lr.getSourceClassName().substring(lr.getSourceClassName().lastIndexOf('.') + 1),
-                				lr.getSourceMethodName(),
-                				lr.getThreadID(),
-                				lr.getMessage());
-                	}
-                }
-            });
+        	// Create MissionManager logger. Records are written to the file and the console by a background
+            // thread, which flushes them once per batch.
+            fh = new StreamHandler(new FileOutputStream(logdir + File.separator + "MissionManager.log", true),
+            		new MissionManagerLogFormatter());
             
-            ConsoleHandler ch = new ConsoleHandler();
-            ch.setFormatter(new SimpleFormatter() {
-                private static final String formatNormal = "[%1$tF %1$tT] [%2$-7s] [%3$s:%4$s (%5$s)] %6$s %n";
-                private static final String formatException = "[%1$tF %1$tT] [%2$-7s] [%3$s:%4$s (%5$s)] %6$s %7$s %n";
-
-                @Override
-                public synchronized String format(LogRecord lr) {
-                	if (lr.getThrown() != null ) {
-                		return String.format(formatException,
-                				new Date(lr.getMillis()),
-                				lr.getLevel().getLocalizedName(),
-                				lr.getSourceClassName().substring(lr.getSourceClassName().lastIndexOf('.') + 1),
-                				lr.getSourceMethodName(),
-                				lr.getThreadID(),
-                				lr.getMessage(),
-                				lr.getThrown());
-                	}
-                	else {
-                		return String.format(formatNormal,
-                				new Date(lr.getMillis()),
-                				lr.getLevel().getLocalizedName(),
-                				lr.getSourceClassName().substring(lr.getSourceClassName().lastIndexOf('.') + 1),
-                				lr.getSourceMethodName(),
-                				lr.getThreadID(),
-                				lr.getMessage());
-                	}
-                }
-            });
-
-            mmLog.addHandler(ch);
+            StreamHandler ch = new StreamHandler(System.err, new MissionManagerLogFormatter()) {
+            	@Override
+            	public void close() {
+            		flush();
+            	}
+            };
+
+            mmLogHandler = new AsyncLogHandler("mm-log-writer", LOG_BUFFER_SIZE, fh, ch);
+            mmLog.setUseParentHandlers(false);
+            mmLog.addHandler(mmLogHandler);
 
             mmLog.log(Level.INFO, "@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@");
             mmLog.log(Level.INFO, "STARTING Mission Manager ----------------------------");
             
             // Create logger for technical/scientific characterization and tracking
-            fhsci = new FileHandler(logdir + File.separator + "SciTrack.log", true);
-            sciLog.addHandler(fhsci);
+            fhsci = new StreamHandler(new FileOutputStream(logdir + File.separator + "SciTrack.log", true),
+            		new SciLogFormatter());
+
+            sciLogHandler = new AsyncLogHandler("mm-scilog-writer", LOG_BUFFER_SIZE, fhsci);
             sciLog.setUseParentHandlers(false);
-            fhsci.setFormatter(new SimpleFormatter() {
-                private static final String format = "%1$tF,%1$tT,%2$-7s,%3$s,%4$s,%5$s,%6$s,%7$s,%8$s,%9$s %n";
-
-                @Override
-                public synchronized String format(LogRecord lr) {
-                    return String.format(format,
-                            new Date(lr.getMillis()),
-                            lr.getLevel().getLocalizedName(),
-                            lr.getSourceClassName().substring(lr.getSourceClassName().lastIndexOf('.') + 1),
-                            lr.getSourceMethodName(),
-                            lr.getThreadID(),
-                            Runtime.getRuntime().maxMemory(),
-                            Runtime.getRuntime().totalMemory(),
-                            Runtime.getRuntime().freeMemory(),
-                            lr.getMessage()
-                    );
-                }
-            });            
+            sciLog.addHandler(sciLogHandler);
             
             internalConfig = internalBuilder.getConfiguration();
 
@@ -371,6 +390,8 @@ public class MissionManagerContext {
 		mqttTopicSystemConfigurationReport = internalConfig.getString(PROP_MQTT_TOPIC_SC_REPORT, DEFAULT_MQTT_TOPIC_SC_REPORT);
 		mqttRetainedMission = internalConfig.getBoolean(PROP_MQTT_RETAINED_MISSION, DEFAULT_MQTT_RETAINED_MISSION);
 		mqttRetainedSystemConfiguration = internalConfig.getBoolean(PROP_MQTT_RETAINED_SC, DEFAULT_MQTT_RETAINED_SC);
+		mqttMaxInflight = internalConfig.getInt(PROP_MQTT_MAX_INFLIGHT, DEFAULT_MQTT_MAX_INFLIGHT);
+		mqttTimeout = internalConfig.getInt(PROP_MQTT_TIMEOUT, DEFAULT_MQTT_TIMEOUT);
 		SCRequestTimeout = internalConfig.getInt(PROP_SC_REQUEST_TIMEOUT, DEFAULT_SC_REQUEST_TIMEOUT);
 		SCMaxVehicles = internalConfig.getInt(PROP_SC_MAX_VEHICLES, DEFAULT_SC_MAX_VEHICLES);
 	    dqServer = internalConfig.getString(PROP_DQ_SERVER, DEFAULT_DQ_SERVER);
@@ -381,6 +402,29 @@ public class MissionManagerContext {
 	    mm2ddsSecret = internalConfig.getString(PROP_MM2DDS_HMAC_SECRET, DEFAULT_MM2DDS_HMAC_SECRET);
 		mm2ddsEnabled = internalConfig.getBoolean(PROP_MM2DDS_HMAC_ENABLED, DEFAULT_MM2DDS_HMAC_ENABLED);
 		httpsEnabled = internalConfig.getBoolean(PROP_HTTPS_ENABLED, DEFAULT_HTTPS_ENABLED);
+		executorCpuThreads = internalConfig.getInt(PROP_EXECUTOR_CPU_THREADS, DEFAULT_EXECUTOR_CPU_THREADS);
+		executorIoThreads = internalConfig.getInt(PROP_EXECUTOR_IO_THREADS, DEFAULT_EXECUTOR_IO_THREADS);
+		executorMissionThreads = internalConfig.getInt(PROP_EXECUTOR_MISSION_THREADS, DEFAULT_EXECUTOR_MISSION_THREADS);
+		executorQueueSize = internalConfig.getInt(PROP_EXECUTOR_QUEUE_SIZE, DEFAULT_EXECUTOR_QUEUE_SIZE);
+		httpPoolMaxTotal = internalConfig.getInt(PROP_HTTP_POOL_MAX_TOTAL, DEFAULT_HTTP_POOL_MAX_TOTAL);
+		httpPoolMaxPerRoute = internalConfig.getInt(PROP_HTTP_POOL_MAX_PER_ROUTE, DEFAULT_HTTP_POOL_MAX_PER_ROUTE);
+		dqGzip = internalConfig.getBoolean(PROP_DQ_GZIP, DEFAULT_DQ_GZIP);
+		dqOutboxDir = internalConfig.getString(PROP_DQ_OUTBOX_DIR, DEFAULT_DQ_OUTBOX_DIR);
+		dqOutboxBatchSize = internalConfig.getInt(PROP_DQ_OUTBOX_BATCH_SIZE, DEFAULT_DQ_OUTBOX_BATCH_SIZE);
+		dqOutboxFlushInterval = internalConfig.getInt(PROP_DQ_OUTBOX_FLUSH_INTERVAL, DEFAULT_DQ_OUTBOX_FLUSH_INTERVAL);
+		dqOutboxMaxRecords = internalConfig.getInt(PROP_DQ_OUTBOX_MAX_RECORDS, DEFAULT_DQ_OUTBOX_MAX_RECORDS);
+		dqThriftPort = internalConfig.getInt(PROP_DQ_THRIFT_PORT, DEFAULT_DQ_THRIFT_PORT);
+		thriftServer = internalConfig.getString(PROP_THRIFT_SERVER, DEFAULT_THRIFT_SERVER);
+		thriftSelectorThreads = internalConfig.getInt(PROP_THRIFT_SELECTOR_THREADS, DEFAULT_THRIFT_SELECTOR_THREADS);
+		thriftWorkerThreads = internalConfig.getInt(PROP_THRIFT_WORKER_THREADS, DEFAULT_THRIFT_WORKER_THREADS);
+		thriftMaxFrameSize = internalConfig.getInt(PROP_THRIFT_MAX_FRAME_SIZE, DEFAULT_THRIFT_MAX_FRAME_SIZE);
+		mmtQueueSize = internalConfig.getInt(PROP_MMT_QUEUE_SIZE, DEFAULT_MMT_QUEUE_SIZE);
+		mmtTimeout = internalConfig.getInt(PROP_MMT_TIMEOUT, DEFAULT_MMT_TIMEOUT);
+		metricsSciLog = internalConfig.getBoolean(PROP_METRICS_SCILOG, DEFAULT_METRICS_SCILOG);
+		mqttCompactTypes = internalConfig.getString(PROP_MQTT_COMPACT_TYPES, DEFAULT_MQTT_COMPACT_TYPES);
+		isobusConverterTreatmentZones = internalConfig.getInt(PROP_ISOBUSCONVERTER_TREATMENT_ZONES, DEFAULT_ISOBUSCONVERTER_TREATMENT_ZONES);
+		isobusConverterResample = internalConfig.getString(PROP_ISOBUSCONVERTER_RESAMPLE, DEFAULT_ISOBUSCONVERTER_RESAMPLE);
+		isobusConverterMode = internalConfig.getString(PROP_ISOBUSCONVERTER_MODE, DEFAULT_ISOBUSCONVERTER_MODE);
 	    
 		debug = internalConfig.getBoolean(PROP_DEBUG, DEFAULT_DEBUG);
     }
@@ -404,6 +448,8 @@ public class MissionManagerContext {
 		mqttTopicSystemConfigurationReport = config.getString(PROP_MQTT_TOPIC_SC_REPORT, mqttTopicSystemConfigurationReport);
 		mqttRetainedMission = config.getBoolean(PROP_MQTT_RETAINED_MISSION, mqttRetainedMission);
 		mqttRetainedSystemConfiguration = config.getBoolean(PROP_MQTT_RETAINED_SC, mqttRetainedSystemConfiguration);
+		mqttMaxInflight = config.getInt(PROP_MQTT_MAX_INFLIGHT, mqttMaxInflight);
+		mqttTimeout = config.getInt(PROP_MQTT_TIMEOUT, mqttTimeout);
 		SCRequestTimeout = config.getInt(PROP_SC_REQUEST_TIMEOUT, SCRequestTimeout);
 		SCMaxVehicles = config.getInt(PROP_SC_MAX_VEHICLES, SCMaxVehicles);
 	    dqServer = config.getString(PROP_DQ_SERVER, dqServer);
@@ -414,6 +460,29 @@ public class MissionManagerContext {
 	    mm2ddsSecret = config.getString(PROP_MM2DDS_HMAC_SECRET, mm2ddsSecret);
 		mm2ddsEnabled = config.getBoolean(PROP_MM2DDS_HMAC_ENABLED, mm2ddsEnabled);
 		httpsEnabled = config.getBoolean(PROP_HTTPS_ENABLED, DEFAULT_HTTPS_ENABLED);
+		executorCpuThreads = config.getInt(PROP_EXECUTOR_CPU_THREADS, executorCpuThreads);
+		executorIoThreads = config.getInt(PROP_EXECUTOR_IO_THREADS, executorIoThreads);
+		executorMissionThreads = config.getInt(PROP_EXECUTOR_MISSION_THREADS, executorMissionThreads);
+		executorQueueSize = config.getInt(PROP_EXECUTOR_QUEUE_SIZE, executorQueueSize);
+		httpPoolMaxTotal = config.getInt(PROP_HTTP_POOL_MAX_TOTAL, httpPoolMaxTotal);
+		httpPoolMaxPerRoute = config.getInt(PROP_HTTP_POOL_MAX_PER_ROUTE, httpPoolMaxPerRoute);
+		dqGzip = config.getBoolean(PROP_DQ_GZIP, dqGzip);
+		dqOutboxDir = config.getString(PROP_DQ_OUTBOX_DIR, dqOutboxDir);
+		dqOutboxBatchSize = config.getInt(PROP_DQ_OUTBOX_BATCH_SIZE, dqOutboxBatchSize);
+		dqOutboxFlushInterval = config.getInt(PROP_DQ_OUTBOX_FLUSH_INTERVAL, dqOutboxFlushInterval);
+		dqOutboxMaxRecords = config.getInt(PROP_DQ_OUTBOX_MAX_RECORDS, dqOutboxMaxRecords);
+		dqThriftPort = config.getInt(PROP_DQ_THRIFT_PORT, dqThriftPort);
+		thriftServer = config.getString(PROP_THRIFT_SERVER, thriftServer);
+		thriftSelectorThreads = config.getInt(PROP_THRIFT_SELECTOR_THREADS, thriftSelectorThreads);
+		thriftWorkerThreads = config.getInt(PROP_THRIFT_WORKER_THREADS, thriftWorkerThreads);
+		thriftMaxFrameSize = config.getInt(PROP_THRIFT_MAX_FRAME_SIZE, thriftMaxFrameSize);
+		mmtQueueSize = config.getInt(PROP_MMT_QUEUE_SIZE, mmtQueueSize);
+		mmtTimeout = config.getInt(PROP_MMT_TIMEOUT, mmtTimeout);
+		metricsSciLog = config.getBoolean(PROP_METRICS_SCILOG, metricsSciLog);
+		mqttCompactTypes = config.getString(PROP_MQTT_COMPACT_TYPES, mqttCompactTypes);
+		isobusConverterTreatmentZones = config.getInt(PROP_ISOBUSCONVERTER_TREATMENT_ZONES, isobusConverterTreatmentZones);
+		isobusConverterResample = config.getString(PROP_ISOBUSCONVERTER_RESAMPLE, isobusConverterResample);
+		isobusConverterMode = config.getString(PROP_ISOBUSCONVERTER_MODE, isobusConverterMode);
 
 		debug = config.getBoolean(PROP_DEBUG, debug);
     }
@@ -442,6 +511,8 @@ public class MissionManagerContext {
     	sb.append(PROP_MQTT_TOPIC_SC_REPORT + " = " + mqttTopicSystemConfigurationReport + System.getProperty("line.separator"));
     	sb.append(PROP_MQTT_RETAINED_MISSION + " = " + mqttRetainedMission + System.getProperty("line.separator"));
     	sb.append(PROP_MQTT_RETAINED_SC + " = " + mqttRetainedSystemConfiguration + System.getProperty("line.separator"));
+    	sb.append(PROP_MQTT_MAX_INFLIGHT + " = " + mqttMaxInflight + System.getProperty("line.separator"));
+    	sb.append(PROP_MQTT_TIMEOUT + " = " + mqttTimeout + System.getProperty("line.separator"));
     	sb.append(PROP_SC_REQUEST_TIMEOUT + " = " + SCRequestTimeout + System.getProperty("line.separator"));
     	sb.append(PROP_SC_MAX_VEHICLES + " = " + SCMaxVehicles + System.getProperty("line.separator"));
     	sb.append(PROP_DQ_SERVER + " = " + dqServer + System.getProperty("line.separator"));
@@ -451,6 +522,29 @@ public class MissionManagerContext {
     	sb.append(PROP_LAST_SEQUENCE_NUMBER + " = " + sequenceNumber + System.getProperty("line.separator"));
     	sb.append(PROP_MM2DDS_HMAC_ENABLED + " = " + mm2ddsEnabled + System.getProperty("line.separator"));
     	sb.append(PROP_HTTPS_ENABLED + " = " + httpsEnabled + System.getProperty("line.separator"));
+    	sb.append(PROP_EXECUTOR_CPU_THREADS + " = " + executorCpuThreads + System.getProperty("line.separator"));
+    	sb.append(PROP_EXECUTOR_IO_THREADS + " = " + executorIoThreads + System.getProperty("line.separator"));
+    	sb.append(PROP_EXECUTOR_MISSION_THREADS + " = " + executorMissionThreads + System.getProperty("line.separator"));
+    	sb.append(PROP_EXECUTOR_QUEUE_SIZE + " = " + executorQueueSize + System.getProperty("line.separator"));
+    	sb.append(PROP_HTTP_POOL_MAX_TOTAL + " = " + httpPoolMaxTotal + System.getProperty("line.separator"));
+    	sb.append(PROP_HTTP_POOL_MAX_PER_ROUTE + " = " + httpPoolMaxPerRoute + System.getProperty("line.separator"));
+    	sb.append(PROP_DQ_GZIP + " = " + dqGzip + System.getProperty("line.separator"));
+    	sb.append(PROP_DQ_OUTBOX_DIR + " = " + dqOutboxDir + System.getProperty("line.separator"));
+    	sb.append(PROP_DQ_OUTBOX_BATCH_SIZE + " = " + dqOutboxBatchSize + System.getProperty("line.separator"));
+    	sb.append(PROP_DQ_OUTBOX_FLUSH_INTERVAL + " = " + dqOutboxFlushInterval + System.getProperty("line.separator"));
+    	sb.append(PROP_DQ_OUTBOX_MAX_RECORDS + " = " + dqOutboxMaxRecords + System.getProperty("line.separator"));
+    	sb.append(PROP_DQ_THRIFT_PORT + " = " + dqThriftPort + System.getProperty("line.separator"));
+    	sb.append(PROP_THRIFT_SERVER + " = " + thriftServer + System.getProperty("line.separator"));
+    	sb.append(PROP_THRIFT_SELECTOR_THREADS + " = " + thriftSelectorThreads + System.getProperty("line.separator"));
+    	sb.append(PROP_THRIFT_WORKER_THREADS + " = " + thriftWorkerThreads + System.getProperty("line.separator"));
+    	sb.append(PROP_THRIFT_MAX_FRAME_SIZE + " = " + thriftMaxFrameSize + System.getProperty("line.separator"));
+    	sb.append(PROP_MMT_QUEUE_SIZE + " = " + mmtQueueSize + System.getProperty("line.separator"));
+    	sb.append(PROP_MMT_TIMEOUT + " = " + mmtTimeout + System.getProperty("line.separator"));
+    	sb.append(PROP_METRICS_SCILOG + " = " + metricsSciLog + System.getProperty("line.separator"));
+    	sb.append(PROP_MQTT_COMPACT_TYPES + " = " + mqttCompactTypes + System.getProperty("line.separator"));
+    	sb.append(PROP_ISOBUSCONVERTER_TREATMENT_ZONES + " = " + isobusConverterTreatmentZones + System.getProperty("line.separator"));
+    	sb.append(PROP_ISOBUSCONVERTER_RESAMPLE + " = " + isobusConverterResample + System.getProperty("line.separator"));
+    	sb.append(PROP_ISOBUSCONVERTER_MODE + " = " + isobusConverterMode + System.getProperty("line.separator"));
     	sb.append(PROP_DEBUG + " = " + debug + System.getProperty("line.separator"));
     	
     	return sb.toString();
@@ -1228,6 +1322,66 @@ public class MissionManagerContext {
 		}
 	}
 	
+	/**
+	 * Gets the maximum number of mission publications in flight on the MQTT connection.
+	 * 
+	 * @return The size of the in-flight window.
+	 */
+	public int getMqttMaxInflight() {
+		return mqttMaxInflight;
+	}
+
+	/**
+	 * Sets the maximum number of mission publications in flight on the MQTT connection.
+	 * 
+	 * @param mqttMaxInflight The size of the in-flight window.
+	 */
+	public void setMqttMaxInflight(int mqttMaxInflight) {
+		this.mqttMaxInflight = mqttMaxInflight;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_MQTT_MAX_INFLIGHT, mqttMaxInflight);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the time limit for MQTT connections and abort publications.
+	 * 
+	 * @return The time limit, in seconds.
+	 */
+	public int getMqttTimeout() {
+		return mqttTimeout;
+	}
+
+	/**
+	 * Sets the time limit for MQTT connections and abort publications.
+	 * 
+	 * @param mqttTimeout The time limit, in seconds.
+	 */
+	public void setMqttTimeout(int mqttTimeout) {
+		this.mqttTimeout = mqttTimeout;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_MQTT_TIMEOUT, mqttTimeout);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Gets the shared secret used between the MM and the DDS.
 	 * 
@@ -1317,5 +1471,696 @@ public class MissionManagerContext {
 			}
 		}
 	}
+
+	/**
+	 * Gets the number of threads for CPU-bound work (vehicle plan dispatch).
+	 * 
+	 * @return The number of CPU-bound worker threads (0 for one per available processor).
+	 */
+	public int getExecutorCpuThreads() {
+		return executorCpuThreads;
+	}
+
+	/**
+	 * Sets the number of threads for CPU-bound work (vehicle plan dispatch).
+	 * 
+	 * @param executorCpuThreads The number of CPU-bound worker threads (0 for one per available processor).
+	 */
+	public void setExecutorCpuThreads(int executorCpuThreads) {
+		this.executorCpuThreads = executorCpuThreads;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_EXECUTOR_CPU_THREADS, executorCpuThreads);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of threads for I/O-bound work (Data Query, ISOBUS Converter, System Configuration requests).
+	 * 
+	 * @return The number of I/O-bound worker threads.
+	 */
+	public int getExecutorIoThreads() {
+		return executorIoThreads;
+	}
+
+	/**
+	 * Sets the number of threads for I/O-bound work (Data Query, ISOBUS Converter, System Configuration requests).
+	 * 
+	 * @param executorIoThreads The number of I/O-bound worker threads.
+	 */
+	public void setExecutorIoThreads(int executorIoThreads) {
+		this.executorIoThreads = executorIoThreads;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_EXECUTOR_IO_THREADS, executorIoThreads);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of mission plans processed concurrently.
+	 * 
+	 * @return The number of mission processing threads.
+	 */
+	public int getExecutorMissionThreads() {
+		return executorMissionThreads;
+	}
+
+	/**
+	 * Sets the number of mission plans processed concurrently.
+	 * 
+	 * @param executorMissionThreads The number of mission processing threads.
+	 */
+	public void setExecutorMissionThreads(int executorMissionThreads) {
+		this.executorMissionThreads = executorMissionThreads;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_EXECUTOR_MISSION_THREADS, executorMissionThreads);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the maximum number of tasks waiting in each executor queue.
+	 * 
+	 * @return The executor queue size.
+	 */
+	public int getExecutorQueueSize() {
+		return executorQueueSize;
+	}
+
+	/**
+	 * Sets the maximum number of tasks waiting in each executor queue. The new size is applied
+	 * the next time the Mission Manager is started.
+	 * 
+	 * @param executorQueueSize The executor queue size.
+	 */
+	public void setExecutorQueueSize(int executorQueueSize) {
+		this.executorQueueSize = executorQueueSize;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_EXECUTOR_QUEUE_SIZE, executorQueueSize);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the maximum number of pooled HTTP connections shared by the REST clients.
+	 * 
+	 * @return The maximum number of pooled HTTP connections.
+	 */
+	public int getHttpPoolMaxTotal() {
+		return httpPoolMaxTotal;
+	}
+
+	/**
+	 * Sets the maximum number of pooled HTTP connections shared by the REST clients.
+	 * 
+	 * @param httpPoolMaxTotal The maximum number of pooled HTTP connections.
+	 */
+	public void setHttpPoolMaxTotal(int httpPoolMaxTotal) {
+		this.httpPoolMaxTotal = httpPoolMaxTotal;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_HTTP_POOL_MAX_TOTAL, httpPoolMaxTotal);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the maximum number of pooled HTTP connections per remote server.
+	 * 
+	 * @return The maximum number of pooled HTTP connections per remote server.
+	 */
+	public int getHttpPoolMaxPerRoute() {
+		return httpPoolMaxPerRoute;
+	}
+
+	/**
+	 * Sets the maximum number of pooled HTTP connections per remote server.
+	 * 
+	 * @param httpPoolMaxPerRoute The maximum number of pooled HTTP connections per remote server.
+	 */
+	public void setHttpPoolMaxPerRoute(int httpPoolMaxPerRoute) {
+		this.httpPoolMaxPerRoute = httpPoolMaxPerRoute;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_HTTP_POOL_MAX_PER_ROUTE, httpPoolMaxPerRoute);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the mission plans stored through the Data Query are sent gzip-compressed.
+	 * 
+	 * @return true if the mission plans are sent gzip-compressed.
+	 */
+	public boolean isDqGzip() {
+		return dqGzip;
+	}
+
+	/**
+	 * Enables or disables the gzip compression of the mission plans stored through the Data Query.
+	 * 
+	 * @param dqGzip true to send the mission plans gzip-compressed.
+	 */
+	public void setDqGzip(boolean dqGzip) {
+		this.dqGzip = dqGzip;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_DQ_GZIP, dqGzip);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the directory of the Data Query outbox journal.
+	 * 
+	 * @return The directory of the Data Query outbox journal.
+	 */
+	public String getDqOutboxDir() {
+		return dqOutboxDir;
+	}
+
+	/**
+	 * Sets the directory of the Data Query outbox journal (applied on restart).
+	 * 
+	 * @param dqOutboxDir The directory of the Data Query outbox journal.
+	 */
+	public void setDqOutboxDir(String dqOutboxDir) {
+		this.dqOutboxDir = dqOutboxDir;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_DQ_OUTBOX_DIR, dqOutboxDir);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the maximum number of records sent to the Data Query in each outbox flush.
+	 * 
+	 * @return The maximum number of records per flush.
+	 */
+	public int getDqOutboxBatchSize() {
+		return dqOutboxBatchSize;
+	}
+
+	/**
+	 * Sets the maximum number of records sent to the Data Query in each outbox flush.
+	 * 
+	 * @param dqOutboxBatchSize The maximum number of records per flush.
+	 */
+	public void setDqOutboxBatchSize(int dqOutboxBatchSize) {
+		this.dqOutboxBatchSize = dqOutboxBatchSize;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_DQ_OUTBOX_BATCH_SIZE, dqOutboxBatchSize);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the time between Data Query outbox flushes.
+	 * 
+	 * @return The time between outbox flushes, in milliseconds.
+	 */
+	public int getDqOutboxFlushInterval() {
+		return dqOutboxFlushInterval;
+	}
+
+	/**
+	 * Sets the time between Data Query outbox flushes.
+	 * 
+	 * @param dqOutboxFlushInterval The time between outbox flushes, in milliseconds.
+	 */
+	public void setDqOutboxFlushInterval(int dqOutboxFlushInterval) {
+		this.dqOutboxFlushInterval = dqOutboxFlushInterval;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_DQ_OUTBOX_FLUSH_INTERVAL, dqOutboxFlushInterval);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the maximum number of records pending in the Data Query outbox.
+	 * 
+	 * @return The maximum number of pending records.
+	 */
+	public int getDqOutboxMaxRecords() {
+		return dqOutboxMaxRecords;
+	}
+
+	/**
+	 * Sets the maximum number of records pending in the Data Query outbox. The oldest records are dropped beyond this limit.
+	 * 
+	 * @param dqOutboxMaxRecords The maximum number of pending records.
+	 */
+	public void setDqOutboxMaxRecords(int dqOutboxMaxRecords) {
+		this.dqOutboxMaxRecords = dqOutboxMaxRecords;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_DQ_OUTBOX_MAX_RECORDS, dqOutboxMaxRecords);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the port of the Data Query Thrift service used for storing events.
+	 * 
+	 * @return The port of the Data Query Thrift service (0 if disabled).
+	 */
+	public int getDqThriftPort() {
+		return dqThriftPort;
+	}
+
+	/**
+	 * Sets the port of the Data Query Thrift service used for storing events (0 disables the event storage).
+	 * 
+	 * @param dqThriftPort The port of the Data Query Thrift service (0 to disable it).
+	 */
+	public void setDqThriftPort(int dqThriftPort) {
+		this.dqThriftPort = dqThriftPort;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_DQ_THRIFT_PORT, dqThriftPort);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the type of Thrift server (simple, threadpool, hsha or threadedselector).
+	 * 
+	 * @return The type of Thrift server.
+	 */
+	public String getThriftServer() {
+		return thriftServer;
+	}
+
+	/**
+	 * Sets the type of Thrift server (simple, threadpool, hsha or threadedselector), applied on restart.
+	 * 
+	 * @param thriftServer The type of Thrift server.
+	 */
+	public void setThriftServer(String thriftServer) {
+		this.thriftServer = thriftServer;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_THRIFT_SERVER, thriftServer);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of selector threads of the threadedselector Thrift server.
+	 * 
+	 * @return The number of selector threads.
+	 */
+	public int getThriftSelectorThreads() {
+		return thriftSelectorThreads;
+	}
+
+	/**
+	 * Sets the number of selector threads of the threadedselector Thrift server, applied on restart.
+	 * 
+	 * @param thriftSelectorThreads The number of selector threads.
+	 */
+	public void setThriftSelectorThreads(int thriftSelectorThreads) {
+		this.thriftSelectorThreads = thriftSelectorThreads;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_THRIFT_SELECTOR_THREADS, thriftSelectorThreads);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of worker threads of the Thrift server.
+	 * 
+	 * @return The number of worker threads.
+	 */
+	public int getThriftWorkerThreads() {
+		return thriftWorkerThreads;
+	}
+
+	/**
+	 * Sets the number of worker threads of the Thrift server, applied on restart.
+	 * 
+	 * @param thriftWorkerThreads The number of worker threads.
+	 */
+	public void setThriftWorkerThreads(int thriftWorkerThreads) {
+		this.thriftWorkerThreads = thriftWorkerThreads;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_THRIFT_WORKER_THREADS, thriftWorkerThreads);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the maximum size of a framed Thrift request.
+	 * 
+	 * @return The maximum frame size, in bytes.
+	 */
+	public int getThriftMaxFrameSize() {
+		return thriftMaxFrameSize;
+	}
+
+	/**
+	 * Sets the maximum size of a framed Thrift request, applied on restart.
+	 * 
+	 * @param thriftMaxFrameSize The maximum frame size, in bytes.
+	 */
+	public void setThriftMaxFrameSize(int thriftMaxFrameSize) {
+		this.thriftMaxFrameSize = thriftMaxFrameSize;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_THRIFT_MAX_FRAME_SIZE, thriftMaxFrameSize);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the maximum number of notifications waiting to be sent to the MMT.
+	 * 
+	 * @return The maximum number of pending notifications.
+	 */
+	public int getMmtQueueSize() {
+		return mmtQueueSize;
+	}
+
+	/**
+	 * Sets the maximum number of notifications waiting to be sent to the MMT.
+	 * 
+	 * @param mmtQueueSize The maximum number of pending notifications.
+	 */
+	public void setMmtQueueSize(int mmtQueueSize) {
+		this.mmtQueueSize = mmtQueueSize;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_MMT_QUEUE_SIZE, mmtQueueSize);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the time limit for the connection and calls to the MMT Thrift service.
+	 * 
+	 * @return The time limit, in seconds.
+	 */
+	public int getMmtTimeout() {
+		return mmtTimeout;
+	}
+
+	/**
+	 * Sets the time limit for the connection and calls to the MMT Thrift service.
+	 * 
+	 * @param mmtTimeout The time limit, in seconds.
+	 */
+	public void setMmtTimeout(int mmtTimeout) {
+		this.mmtTimeout = mmtTimeout;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_MMT_TIMEOUT, mmtTimeout);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks if the stage timings are also written to the SCI log.
+	 * 
+	 * @return {@code true} if the stage timings are written to the SCI log; {@code false} otherwise.
+	 */
+	public boolean isMetricsSciLog() {
+		return metricsSciLog;
+	}
+
+	/**
+	 * Sets if the stage timings are also written to the SCI log.
+	 * 
+	 * @param metricsSciLog {@code true} to write the stage timings to the SCI log.
+	 */
+	public void setMetricsSciLog(boolean metricsSciLog) {
+		this.metricsSciLog = metricsSciLog;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_METRICS_SCILOG, metricsSciLog);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the vehicle types whose plans are published with the compact binary encoding.
+	 * 
+	 * @return The comma-separated list of vehicle types.
+	 */
+	public String getMqttCompactTypes() {
+		return mqttCompactTypes;
+	}
+
+	/**
+	 * Sets the vehicle types whose plans are published with the compact binary encoding.
+	 * 
+	 * @param mqttCompactTypes The comma-separated list of vehicle types (empty for none).
+	 */
+	public void setMqttCompactTypes(String mqttCompactTypes) {
+		this.mqttCompactTypes = mqttCompactTypes;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_MQTT_COMPACT_TYPES, mqttCompactTypes);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of treatment zones the treatment grids are quantized into.
+	 * 
+	 * @return The number of treatment zones.
+	 */
+	public int getIsobusConverterTreatmentZones() {
+		return isobusConverterTreatmentZones;
+	}
+
+	/**
+	 * Sets the number of treatment zones the treatment grids are quantized into.
+	 * 
+	 * @param isobusConverterTreatmentZones The number of treatment zones to be used.
+	 */
+	public void setIsobusConverterTreatmentZones(int isobusConverterTreatmentZones) {
+		this.isobusConverterTreatmentZones = isobusConverterTreatmentZones;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_ISOBUSCONVERTER_TREATMENT_ZONES, isobusConverterTreatmentZones);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the resampling rules of the treatment grids, by vehicle or equipment type.
+	 * 
+	 * @return The resampling rules, as a comma separated list of <type>:<cell size in metres>[:<mode>].
+	 */
+	public String getIsobusConverterResample() {
+		return isobusConverterResample;
+	}
+
+	/**
+	 * Sets the resampling rules of the treatment grids, by vehicle or equipment type.
+	 * 
+	 * @param isobusConverterResample The resampling rules to be used.
+	 */
+	public void setIsobusConverterResample(String isobusConverterResample) {
+		this.isobusConverterResample = isobusConverterResample;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_ISOBUSCONVERTER_RESAMPLE, isobusConverterResample);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets how the prescription maps are converted to ISO 11783-10 task data.
+	 * 
+	 * @return The conversion mode: remote (ISOBUS Converter) or local (in-process).
+	 */
+	public String getIsobusConverterMode() {
+		return isobusConverterMode;
+	}
+
+	/**
+	 * Sets how the prescription maps are converted to ISO 11783-10 task data.
+	 * 
+	 * @param isobusConverterMode The conversion mode to be used.
+	 */
+	public void setIsobusConverterMode(String isobusConverterMode) {
+		this.isobusConverterMode = isobusConverterMode;
+
+		if (storedConfigAvailable) {
+			storedConfig.setProperty(PROP_ISOBUSCONVERTER_MODE, isobusConverterMode);
+			try {
+				storedBuilder.save();
+			} catch (ConfigurationException e) {
+				mmLog.log(Level.WARNING, "Error saving updated configuration file.");
+				if (debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
 	
 }
@@ -35,6 +35,7 @@ import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 import org.glassfish.jersey.server.ResourceConfig;
 
+import afc.mw.MissionManager.utils.DqOutbox;
 import afc.mw.utils.servers.ThriftServer.ThriftServer;
 
 /**
@@ -101,6 +102,9 @@ public class MissionManagerMain {
 		context.mmLog.log(Level.INFO, "Starting Thrift Server");
 		ThriftServer.getInstance().startThriftServer(context.thriftStyle);
 
+		context.mmLog.log(Level.INFO, "Starting Data Query outbox");
+		DqOutbox.getInstance();
+
 		context.mmLog.log(Level.INFO, "Starting REST Server");
 		final HttpServer server = startServer();
 		server.start();
@@ -37,6 +37,7 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 
 import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.utils.ExecutorManager;
 
 /**
  * REST Service for the Mission Manager configuration.
@@ -234,6 +235,40 @@ public class MissionManagerConfRESTService {
 				response.append(
 						"MQTT retained value for sc updated to: " + context.mqttRetainedSystemConfiguration + "\n");
 				break;
+			case MissionManagerContext.PROP_MQTT_MAX_INFLIGHT:
+				updatedParams.append("mqtt_max_inflight,");
+				nValue = context.mqttMaxInflight;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_MQTT_MAX_INFLIGHT)));
+					updatedParams.append("valid,");
+					context.setMqttMaxInflight(nValue);
+					mmLog.log(Level.INFO, "MQTT in-flight window changed to " + context.mqttMaxInflight);
+					response.append("MQTT in-flight window changed to: " + context.mqttMaxInflight + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of MQTT in-flight window to "
+							+ params.getFirst(MissionManagerContext.PROP_MQTT_MAX_INFLIGHT));
+					response.append("MQTT in-flight window UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_MQTT_MAX_INFLIGHT) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_MQTT_TIMEOUT:
+				updatedParams.append("mqtt_timeout,");
+				nValue = context.mqttTimeout;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_MQTT_TIMEOUT)));
+					updatedParams.append("valid,");
+					context.setMqttTimeout(nValue);
+					mmLog.log(Level.INFO, "MQTT timeout changed to " + context.mqttTimeout);
+					response.append("MQTT timeout changed to: " + context.mqttTimeout + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of MQTT timeout to "
+							+ params.getFirst(MissionManagerContext.PROP_MQTT_TIMEOUT));
+					response.append("MQTT timeout UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_MQTT_TIMEOUT) + "\n");
+				}
+				break;
 			case MissionManagerContext.PROP_SC_REQUEST_TIMEOUT:
 				updatedParams.append("sc_request_timeout,");				
 				nValue = context.SCRequestTimeout;
@@ -357,6 +392,319 @@ public class MissionManagerConfRESTService {
 				response.append(
 						"MM2DDS HMAC usage updated to: " + context.mm2ddsEnabled + "\n");
 				break;
+			case MissionManagerContext.PROP_EXECUTOR_CPU_THREADS:
+				updatedParams.append("executor_cpu_threads,");
+				nValue = context.executorCpuThreads;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_EXECUTOR_CPU_THREADS)));
+					updatedParams.append("valid,");
+					context.setExecutorCpuThreads(nValue);
+					ExecutorManager.getInstance().reconfigure();
+					mmLog.log(Level.INFO, "Number of CPU-bound worker threads changed to " + context.executorCpuThreads);
+					response.append("Number of CPU-bound worker threads changed to: " + context.executorCpuThreads + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Number of CPU-bound worker threads to "
+							+ params.getFirst(MissionManagerContext.PROP_EXECUTOR_CPU_THREADS));
+					response.append("Number of CPU-bound worker threads UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_EXECUTOR_CPU_THREADS) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_EXECUTOR_IO_THREADS:
+				updatedParams.append("executor_io_threads,");
+				nValue = context.executorIoThreads;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_EXECUTOR_IO_THREADS)));
+					updatedParams.append("valid,");
+					context.setExecutorIoThreads(nValue);
+					ExecutorManager.getInstance().reconfigure();
+					mmLog.log(Level.INFO, "Number of I/O-bound worker threads changed to " + context.executorIoThreads);
+					response.append("Number of I/O-bound worker threads changed to: " + context.executorIoThreads + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Number of I/O-bound worker threads to "
+							+ params.getFirst(MissionManagerContext.PROP_EXECUTOR_IO_THREADS));
+					response.append("Number of I/O-bound worker threads UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_EXECUTOR_IO_THREADS) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_EXECUTOR_MISSION_THREADS:
+				updatedParams.append("executor_mission_threads,");
+				nValue = context.executorMissionThreads;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_EXECUTOR_MISSION_THREADS)));
+					updatedParams.append("valid,");
+					context.setExecutorMissionThreads(nValue);
+					ExecutorManager.getInstance().reconfigure();
+					mmLog.log(Level.INFO, "Number of mission processing threads changed to " + context.executorMissionThreads);
+					response.append("Number of mission processing threads changed to: " + context.executorMissionThreads + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Number of mission processing threads to "
+							+ params.getFirst(MissionManagerContext.PROP_EXECUTOR_MISSION_THREADS));
+					response.append("Number of mission processing threads UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_EXECUTOR_MISSION_THREADS) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_EXECUTOR_QUEUE_SIZE:
+				updatedParams.append("executor_queue_size,");
+				nValue = context.executorQueueSize;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_EXECUTOR_QUEUE_SIZE)));
+					updatedParams.append("valid,");
+					context.setExecutorQueueSize(nValue);
+					mmLog.log(Level.INFO, "Executor queue size changed to " + context.executorQueueSize);
+					response.append("Executor queue size changed to: " + context.executorQueueSize + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Executor queue size to "
+							+ params.getFirst(MissionManagerContext.PROP_EXECUTOR_QUEUE_SIZE));
+					response.append("Executor queue size UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_EXECUTOR_QUEUE_SIZE) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_HTTP_POOL_MAX_TOTAL:
+				updatedParams.append("http_pool_max_total,");
+				nValue = context.httpPoolMaxTotal;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_HTTP_POOL_MAX_TOTAL)));
+					updatedParams.append("valid,");
+					context.setHttpPoolMaxTotal(nValue);
+					mmLog.log(Level.INFO, "Maximum number of pooled HTTP connections changed to " + context.httpPoolMaxTotal);
+					response.append("Maximum number of pooled HTTP connections changed to: " + context.httpPoolMaxTotal + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Maximum number of pooled HTTP connections to "
+							+ params.getFirst(MissionManagerContext.PROP_HTTP_POOL_MAX_TOTAL));
+					response.append("Maximum number of pooled HTTP connections UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_HTTP_POOL_MAX_TOTAL) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_HTTP_POOL_MAX_PER_ROUTE:
+				updatedParams.append("http_pool_max_per_route,");
+				nValue = context.httpPoolMaxPerRoute;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_HTTP_POOL_MAX_PER_ROUTE)));
+					updatedParams.append("valid,");
+					context.setHttpPoolMaxPerRoute(nValue);
+					mmLog.log(Level.INFO, "Maximum number of pooled HTTP connections per server changed to " + context.httpPoolMaxPerRoute);
+					response.append("Maximum number of pooled HTTP connections per server changed to: " + context.httpPoolMaxPerRoute + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Maximum number of pooled HTTP connections per server to "
+							+ params.getFirst(MissionManagerContext.PROP_HTTP_POOL_MAX_PER_ROUTE));
+					response.append("Maximum number of pooled HTTP connections per server UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_HTTP_POOL_MAX_PER_ROUTE) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_DQ_GZIP:
+				updatedParams.append("dq_gzip,");
+				bValue = (Boolean.parseBoolean(params.getFirst(MissionManagerContext.PROP_DQ_GZIP)));
+				context.setDqGzip(bValue);
+				mmLog.log(Level.INFO, "Gzip compression of the mission plans sent to the Data Query changed to " + context.dqGzip);
+				response.append("Gzip compression of the mission plans sent to the Data Query updated to: " + context.dqGzip + "\n");
+				break;
+			case MissionManagerContext.PROP_DQ_OUTBOX_BATCH_SIZE:
+				updatedParams.append("dq_outbox_batch_size,");
+				nValue = context.dqOutboxBatchSize;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_DQ_OUTBOX_BATCH_SIZE)));
+					updatedParams.append("valid,");
+					context.setDqOutboxBatchSize(nValue);
+					mmLog.log(Level.INFO, "Data Query outbox batch size changed to " + context.dqOutboxBatchSize);
+					response.append("Data Query outbox batch size changed to: " + context.dqOutboxBatchSize + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Data Query outbox batch size to "
+							+ params.getFirst(MissionManagerContext.PROP_DQ_OUTBOX_BATCH_SIZE));
+					response.append("Data Query outbox batch size UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_DQ_OUTBOX_BATCH_SIZE) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_DQ_OUTBOX_FLUSH_INTERVAL:
+				updatedParams.append("dq_outbox_flush_interval,");
+				nValue = context.dqOutboxFlushInterval;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_DQ_OUTBOX_FLUSH_INTERVAL)));
+					updatedParams.append("valid,");
+					context.setDqOutboxFlushInterval(nValue);
+					mmLog.log(Level.INFO, "Data Query outbox flush interval changed to " + context.dqOutboxFlushInterval);
+					response.append("Data Query outbox flush interval changed to: " + context.dqOutboxFlushInterval + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Data Query outbox flush interval to "
+							+ params.getFirst(MissionManagerContext.PROP_DQ_OUTBOX_FLUSH_INTERVAL));
+					response.append("Data Query outbox flush interval UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_DQ_OUTBOX_FLUSH_INTERVAL) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_DQ_OUTBOX_MAX_RECORDS:
+				updatedParams.append("dq_outbox_max_records,");
+				nValue = context.dqOutboxMaxRecords;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_DQ_OUTBOX_MAX_RECORDS)));
+					updatedParams.append("valid,");
+					context.setDqOutboxMaxRecords(nValue);
+					mmLog.log(Level.INFO, "Maximum number of records pending in the Data Query outbox changed to " + context.dqOutboxMaxRecords);
+					response.append("Maximum number of records pending in the Data Query outbox changed to: " + context.dqOutboxMaxRecords + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Maximum number of records pending in the Data Query outbox to "
+							+ params.getFirst(MissionManagerContext.PROP_DQ_OUTBOX_MAX_RECORDS));
+					response.append("Maximum number of records pending in the Data Query outbox UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_DQ_OUTBOX_MAX_RECORDS) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_DQ_THRIFT_PORT:
+				updatedParams.append("dq_thrift_port,");
+				nValue = context.dqThriftPort;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_DQ_THRIFT_PORT)));
+					updatedParams.append("valid,");
+					context.setDqThriftPort(nValue);
+					mmLog.log(Level.INFO, "Data Query Thrift port changed to " + context.dqThriftPort);
+					response.append("Data Query Thrift port changed to: " + context.dqThriftPort + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Data Query Thrift port to "
+							+ params.getFirst(MissionManagerContext.PROP_DQ_THRIFT_PORT));
+					response.append("Data Query Thrift port UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_DQ_THRIFT_PORT) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_THRIFT_SERVER:
+				updatedParams.append("thrift_server_type,");
+				context.setThriftServer(params.getFirst(MissionManagerContext.PROP_THRIFT_SERVER));
+				mmLog.log(Level.INFO, "Thrift server type changed to " + context.thriftServer);
+				response.append("Thrift server type updated to: " + context.thriftServer + "\n");
+				break;
+			case MissionManagerContext.PROP_THRIFT_SELECTOR_THREADS:
+				updatedParams.append("thrift_selector_threads,");
+				nValue = context.thriftSelectorThreads;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_THRIFT_SELECTOR_THREADS)));
+					updatedParams.append("valid,");
+					context.setThriftSelectorThreads(nValue);
+					mmLog.log(Level.INFO, "Number of Thrift selector threads changed to " + context.thriftSelectorThreads);
+					response.append("Number of Thrift selector threads changed to: " + context.thriftSelectorThreads + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Number of Thrift selector threads to "
+							+ params.getFirst(MissionManagerContext.PROP_THRIFT_SELECTOR_THREADS));
+					response.append("Number of Thrift selector threads UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_THRIFT_SELECTOR_THREADS) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_THRIFT_WORKER_THREADS:
+				updatedParams.append("thrift_worker_threads,");
+				nValue = context.thriftWorkerThreads;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_THRIFT_WORKER_THREADS)));
+					updatedParams.append("valid,");
+					context.setThriftWorkerThreads(nValue);
+					mmLog.log(Level.INFO, "Number of Thrift worker threads changed to " + context.thriftWorkerThreads);
+					response.append("Number of Thrift worker threads changed to: " + context.thriftWorkerThreads + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Number of Thrift worker threads to "
+							+ params.getFirst(MissionManagerContext.PROP_THRIFT_WORKER_THREADS));
+					response.append("Number of Thrift worker threads UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_THRIFT_WORKER_THREADS) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_THRIFT_MAX_FRAME_SIZE:
+				updatedParams.append("thrift_max_frame_size,");
+				nValue = context.thriftMaxFrameSize;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_THRIFT_MAX_FRAME_SIZE)));
+					updatedParams.append("valid,");
+					context.setThriftMaxFrameSize(nValue);
+					mmLog.log(Level.INFO, "Maximum Thrift frame size changed to " + context.thriftMaxFrameSize);
+					response.append("Maximum Thrift frame size changed to: " + context.thriftMaxFrameSize + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Maximum Thrift frame size to "
+							+ params.getFirst(MissionManagerContext.PROP_THRIFT_MAX_FRAME_SIZE));
+					response.append("Maximum Thrift frame size UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_THRIFT_MAX_FRAME_SIZE) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_MMT_QUEUE_SIZE:
+				updatedParams.append("mmt_queue_size,");
+				nValue = context.mmtQueueSize;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_MMT_QUEUE_SIZE)));
+					updatedParams.append("valid,");
+					context.setMmtQueueSize(nValue);
+					mmLog.log(Level.INFO, "Size of the MMT notification queue changed to " + context.mmtQueueSize);
+					response.append("Size of the MMT notification queue changed to: " + context.mmtQueueSize + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Size of the MMT notification queue to "
+							+ params.getFirst(MissionManagerContext.PROP_MMT_QUEUE_SIZE));
+					response.append("Size of the MMT notification queue UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_MMT_QUEUE_SIZE) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_MMT_TIMEOUT:
+				updatedParams.append("mmt_timeout,");
+				nValue = context.mmtTimeout;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_MMT_TIMEOUT)));
+					updatedParams.append("valid,");
+					context.setMmtTimeout(nValue);
+					mmLog.log(Level.INFO, "MMT timeout changed to " + context.mmtTimeout);
+					response.append("MMT timeout changed to: " + context.mmtTimeout + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of MMT timeout to "
+							+ params.getFirst(MissionManagerContext.PROP_MMT_TIMEOUT));
+					response.append("MMT timeout UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_MMT_TIMEOUT) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_METRICS_SCILOG:
+				updatedParams.append("metrics_scilog,");
+				bValue = (Boolean.parseBoolean(params.getFirst(MissionManagerContext.PROP_METRICS_SCILOG)));
+				context.setMetricsSciLog(bValue);
+				mmLog.log(Level.INFO, "SCI log stage timings changed to " + context.metricsSciLog);
+				response.append("SCI log stage timings updated to: " + context.metricsSciLog + "\n");
+				break;
+			case MissionManagerContext.PROP_MQTT_COMPACT_TYPES:
+				updatedParams.append("mqtt_compact_types,");
+				context.setMqttCompactTypes(params.getFirst(MissionManagerContext.PROP_MQTT_COMPACT_TYPES));
+				mmLog.log(Level.INFO, "MQTT compact plan vehicle types changed to " + context.mqttCompactTypes);
+				response.append("MQTT compact plan vehicle types updated to: " + context.mqttCompactTypes + "\n");
+				break;
+			case MissionManagerContext.PROP_ISOBUSCONVERTER_TREATMENT_ZONES:
+				updatedParams.append("isobusconverter_treatment_zones,");
+				nValue = context.isobusConverterTreatmentZones;
+				try {
+					nValue = (Integer.parseInt(params.getFirst(MissionManagerContext.PROP_ISOBUSCONVERTER_TREATMENT_ZONES)));
+					updatedParams.append("valid,");
+					context.setIsobusConverterTreatmentZones(nValue);
+					mmLog.log(Level.INFO, "Number of treatment zones changed to " + context.isobusConverterTreatmentZones);
+					response.append("Number of treatment zones changed to: " + context.isobusConverterTreatmentZones + "\n");
+				} catch (NumberFormatException e) {
+					updatedParams.append("invalid,");
+					mmLog.log(Level.INFO, "Invalid change request of Number of treatment zones to "
+							+ params.getFirst(MissionManagerContext.PROP_ISOBUSCONVERTER_TREATMENT_ZONES));
+					response.append("Number of treatment zones UNCHANGED. Bad value: "
+							+ params.getFirst(MissionManagerContext.PROP_ISOBUSCONVERTER_TREATMENT_ZONES) + "\n");
+				}
+				break;
+			case MissionManagerContext.PROP_ISOBUSCONVERTER_RESAMPLE:
+				updatedParams.append("isobusconverter_resample,");
+				context.setIsobusConverterResample(params.getFirst(MissionManagerContext.PROP_ISOBUSCONVERTER_RESAMPLE));
+				mmLog.log(Level.INFO, "Treatment grid resampling rules changed to " + context.isobusConverterResample);
+				response.append("Treatment grid resampling rules updated to: " + context.isobusConverterResample + "\n");
+				break;
+			case MissionManagerContext.PROP_ISOBUSCONVERTER_MODE:
+				updatedParams.append("isobusconverter_mode,");
+				context.setIsobusConverterMode(params.getFirst(MissionManagerContext.PROP_ISOBUSCONVERTER_MODE));
+				mmLog.log(Level.INFO, "ISOBUS conversion mode changed to " + context.isobusConverterMode);
+				response.append("ISOBUS conversion mode updated to: " + context.isobusConverterMode + "\n");
+				break;
 			case MissionManagerContext.PROP_HTTPS_ENABLED:
 				updatedParams.append("https_enabled,");
 				bValue = (Boolean.parseBoolean(params.getFirst(MissionManagerContext.PROP_HTTPS_ENABLED)));
@@ -369,7 +717,7 @@ public class MissionManagerConfRESTService {
 		}
 
 		toc = System.currentTimeMillis() - tic;
-		sciLog.log(Level.INFO, "rest_conf_put," + updatedParams.toString() + toc);
+		sciLog.log(Level.INFO, "rest_conf_put,{0}{1}", new Object[] { updatedParams.toString(), toc });
 		return Response.ok(response.toString()).build();
 	}
 }
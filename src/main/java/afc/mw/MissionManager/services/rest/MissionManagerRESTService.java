@@ -26,20 +26,25 @@ package afc.mw.MissionManager.services.rest;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.json.JsonException;
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 import javax.json.bind.JsonbConfig;
 import javax.json.bind.JsonbException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
@@ -49,7 +54,16 @@ import com.afarcloud.thrift.Mission;
 
 import afc.mw.MissionManager.MissionManager;
 import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.types.CommandProgress;
+import afc.mw.MissionManager.types.MissionProgress;
 import afc.mw.MissionManager.types.MissionReport;
+import afc.mw.MissionManager.types.RegisteredMission;
+import afc.mw.MissionManager.utils.DqOutbox;
+import afc.mw.MissionManager.utils.ExecutorManager;
+import afc.mw.MissionManager.utils.MetricsRegistry;
+import afc.mw.MissionManager.utils.MissionReportReader;
+import afc.mw.MissionManager.utils.MmtClient;
+import afc.mw.MissionManager.utils.RestClient;
 
 /**
  * REST service for the Mission Manager
@@ -115,6 +129,185 @@ public class MissionManagerRESTService {
     	}
     }
     
+    /**
+     * Gets a mission known to the Mission Manager (active, or recently finished or stopped).
+     * 
+     * @param missionId	The mission id.
+     * @return			The mission in JSON format.
+     */
+    @Path("currentMission/{missionId}")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getMission(@PathParam("missionId") int missionId) {
+    	mmLog.log(Level.INFO, "Requested Mission " + missionId);
+
+    	Mission mission = MissionManager.getInstance().getMission(missionId);
+    	
+    	if (mission == null) {
+    		return Response
+    				.status(Status.NOT_FOUND.getStatusCode(), "Mission " + missionId + " is not known to the Mission Manager")
+    				.build();
+    	}
+    	else {    	
+    		try {
+        		return Response
+        				.ok(jsonb.toJson(mission))
+        				.build();
+    		}
+    		catch (Exception e) {
+    			mmLog.log(Level.WARNING, "There was an error trying to parse the mission into JSON format");
+    			if (context.debug) {
+    				mmLog.log(Level.WARNING, e.getMessage(), e);
+    			}
+    			
+    			return Response
+    					.status(Status.SEE_OTHER.getStatusCode(), "Error while processing the mission to be parsed into JSON format. Please contact support.")
+    					.build();
+    		}    		
+    	}
+    }
+    
+    /**
+     * Gets the progress of a mission (command statuses, late commands and completion of each vehicle),
+     * built from the mission reports received.
+     * 
+     * @param missionId	The mission id.
+     * @return			The progress of the mission in JSON format.
+     */
+    @Path("currentMission/{missionId}/progress")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getMissionProgress(@PathParam("missionId") int missionId) {
+    	mmLog.log(Level.INFO, "Requested progress of mission " + missionId);
+
+    	MissionProgress progress = MissionManager.getInstance().getMissionProgress(missionId);
+    	if (progress == null) {
+    		return Response
+    				.status(Status.NOT_FOUND.getStatusCode(), "Mission " + missionId + " is not known to the Mission Manager")
+    				.build();
+    	}
+    	return Response.ok(jsonb.toJson(progress)).build();
+    }
+    
+    /**
+     * Gets the current status of each command of a mission, as last reported by its vehicle.
+     * 
+     * @param missionId	The mission id.
+     * @return			The status of each command, in mission order, in JSON format.
+     */
+    @Path("currentMission/{missionId}/commands")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getMissionCommands(@PathParam("missionId") int missionId) {
+    	mmLog.log(Level.INFO, "Requested command statuses of mission " + missionId);
+
+    	ArrayList<CommandProgress> commands = MissionManager.getInstance().getCommandProgress(missionId);
+    	if (commands == null) {
+    		return Response
+    				.status(Status.NOT_FOUND.getStatusCode(), "Mission " + missionId + " is not known to the Mission Manager")
+    				.build();
+    	}
+    	return Response.ok(jsonb.toJson(commands)).build();
+    }
+    
+    /**
+     * Gets the active missions (not started or running).
+     * 
+     * @return The id, name, start time and state of each active mission, in JSON format.
+     */
+    @Path("activeMissions")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getActiveMissions() {
+    	mmLog.log(Level.INFO, "Requested active missions");
+
+    	ArrayList<RegisteredMission> missions = MissionManager.getInstance().getActiveMissions();
+    	return Response.ok(jsonb.toJson(missions)).build();
+    }
+    
+    /**
+     * Gets the statistics of the Mission Manager thread pools.
+     * 
+     * @return The statistics of the thread pools, as CSV.
+     */
+    @Path("executors")
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getExecutors() {
+    	mmLog.log(Level.INFO, "Requested executor statistics");
+    	return Response.ok(ExecutorManager.getInstance().getStatistics()).build();
+    }
+    
+    /**
+     * Gets the statistics of the shared HTTP client (connection pool and latency of each remote endpoint).
+     * 
+     * @return The statistics of the HTTP client, as CSV.
+     */
+    @Path("http")
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getHttpClient() {
+    	mmLog.log(Level.INFO, "Requested HTTP client statistics");
+    	return Response.ok(RestClient.getInstance().getStatistics()).build();
+    }
+    
+    /**
+     * Gets the state of the Data Query outbox (pending, delivered, failed and dropped records).
+     * 
+     * @return The state of the Data Query outbox, as CSV.
+     */
+    @Path("outbox")
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getOutbox() {
+    	mmLog.log(Level.INFO, "Requested Data Query outbox statistics");
+    	return Response.ok(DqOutbox.getInstance().getStatistics()).build();
+    }
+    
+    /**
+     * Gets the state of the MMT notification queue (pending, sent, coalesced, dropped and failed notifications).
+     * 
+     * @return The state of the MMT notification queue, as CSV.
+     */
+    @Path("mmt")
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getMmtNotifications() {
+    	mmLog.log(Level.INFO, "Requested MMT notification queue statistics");
+    	return Response.ok(MmtClient.getInstance().getStatistics()).build();
+    }
+    
+    /**
+     * Gets the metrics of the Mission Manager (latency histograms of the mission processing stages and of
+     * the remote services, and the state of the missions, queues and thread pools) in the Prometheus text
+     * format. Requests are logged with the FINE level, as they are expected to be periodic.
+     * 
+     * @return The metrics of the Mission Manager.
+     */
+    @Path("metrics")
+    @GET
+    @Produces("text/plain; version=0.0.4; charset=utf-8")
+    public Response getMetrics() {
+    	mmLog.log(Level.FINE, "Requested metrics");
+    	return Response.ok(MetricsRegistry.getInstance().getPrometheus()).build();
+    }
+    
+    /**
+     * Gets the state of the log buffers (pending records, capacity, published records and times a logging
+     * thread had to wait for room) of the Mission Manager and SCI logs.
+     * 
+     * @return The state of the log buffers, as CSV.
+     */
+    @Path("logging")
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getLogging() {
+    	mmLog.log(Level.INFO, "Requested log buffer statistics");
+    	return Response.ok("log,pending,capacity,published,waits\n"
+    			+ "MissionManager," + context.mmLogHandler.getStatistics()
+    			+ "SciTrack," + context.sciLogHandler.getStatistics()).build();
+    }
+    
     /**
      * Gets the list of logs generated by the Mission Manager.
      * 
@@ -363,4 +556,72 @@ public class MissionManagerRESTService {
     	return Response.status(Status.INTERNAL_SERVER_ERROR).build();
     }
     
+    /**
+     * Receives a batch of mission reports from the Mission Reporter, either as a JSON array of reports
+     * or as NDJSON (one report per line). The whole batch is parsed before any report is applied, so
+     * a malformed batch applies none of them.
+     * 
+     * @param reports		The stream of reports
+     * @param contentType	The content type of the stream ({@code application/json} or {@code application/x-ndjson})
+     * @return				200 with one status byte per report, in order (see {@link MissionReport}; 0xff if
+     * 						the entry is not a valid mission report).
+     * 						400 if the JSON array is malformed.
+     */
+    @Path("reports/bulk")
+    @PUT
+    @Consumes({MediaType.APPLICATION_JSON, MissionReportReader.APPLICATION_NDJSON})
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public Response putMissionReports(InputStream reports, @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType) {
+    	try {
+    		return Response.ok(validateReports(reports, contentType)).build();
+    	}
+    	catch (JsonException e) {
+    		return badReports(e);
+    	}
+    }
+    
+    /**
+     * Receives a batch of mission reports from the Mission Reporter (see {@link #putMissionReports}), and
+     * returns the status of each report as hexadecimal text.
+     * 
+     * @param reports		The stream of reports
+     * @param contentType	The content type of the stream ({@code application/json} or {@code application/x-ndjson})
+     * @return				200 with two hexadecimal digits per report, in order.
+     * 						400 if the JSON array is malformed.
+     */
+    @Path("reports/bulk")
+    @PUT
+    @Consumes({MediaType.APPLICATION_JSON, MissionReportReader.APPLICATION_NDJSON})
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response putMissionReportsText(InputStream reports, @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType) {
+    	try {
+    		byte[] results = validateReports(reports, contentType);
+    		StringBuilder sb = new StringBuilder(results.length * 2 + 1);
+    		for (byte result : results) {
+    			sb.append(Character.forDigit((result >> 4) & 0x0f, 16)).append(Character.forDigit(result & 0x0f, 16));
+    		}
+    		return Response.ok(sb.append('\n').toString()).build();
+    	}
+    	catch (JsonException e) {
+    		return badReports(e);
+    	}
+    }
+    
+    private byte[] validateReports(InputStream reports, String contentType) {
+    	boolean ndjson = contentType != null && contentType.startsWith(MissionReportReader.APPLICATION_NDJSON);
+    	mmLog.log(Level.INFO, "PUT request for mission reports (" + (ndjson ? "NDJSON" : "JSON array") + ")");
+    	
+    	try (MissionReportReader reader = new MissionReportReader(reports, ndjson)) {
+    		return MissionManager.getInstance().validateReports(reader);
+    	}
+    }
+    
+    private Response badReports(JsonException e) {
+		mmLog.log(Level.WARNING, "Mission reports error: INVALID FORMAT");
+		if (context.debug) {
+			mmLog.log(Level.WARNING, e.getMessage(), e);
+		}
+		return Response.status(Status.BAD_REQUEST).entity("Invalid mission reports: " + e.getMessage()).build();
+    }
+    
 }
@@ -70,7 +70,7 @@ public class SystemConfigurationRESTService {
     	int status = SCRequestManager.getInstance().requestVehiclesStatus(requestID);
     	toc = System.currentTimeMillis();
     	
-    	sciLog.log(Level.INFO, "vehicleStatusRequest," + requestID + "," + tic + "," + toc + "," + (toc-tic));
+    	sciLog.log(Level.INFO, "vehicleStatusRequest,{0},{1},{2},{3}", new Object[] { requestID, tic, toc, toc - tic });
     	return Response.status(status).build();
     }
 }
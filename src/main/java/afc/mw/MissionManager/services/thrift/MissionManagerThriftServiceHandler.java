@@ -48,6 +48,7 @@ import com.afarcloud.thrift.Region;
 
 import afc.mw.MissionManager.MissionManager;
 import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.utils.ExecutorManager;
 import afc.mw.MissionManager.utils.MissionParser;
 
 /**
@@ -61,146 +62,187 @@ public class MissionManagerThriftServiceHandler implements MissionManagerService
     private MissionManagerContext context = MissionManagerContext.getInstance();
 	private Logger mmLog = context.mmLog;
     private Logger sciLog = context.sciLog;
-    private long tic1;
-    private long tic2;
-    private long toc1;
-    private long toc2;
     
     private static final Jsonb jsonb = JsonbBuilder.create(new JsonbConfig().withNullValues(false).withFormatting(true));
 
     /**
      * Thrift handler for the reception of a mission plan from the MMT.
      * 
+     * The mission plan is normalized on a private copy and dispatched right away, while the
+     * archive files (serialized, CSV and JSON) are written concurrently from snapshots.
      */
     @Override
 	public void sendPlan(int requestId, Mission plan) {
+    	long receivedAt = System.currentTimeMillis();
     	
-    	(new Thread() {
-    		public void run() {
+    	// Missions are processed in a bounded pool. If it is saturated, the mission is discarded
+    	// and the MMT is notified.
+    	ExecutorManager.getInstance().submitMission(requestId, plan.missionId, () -> {
+    		long tic1 = System.currentTimeMillis();
+    		long tic2;
+    		long toc1;
+    		long toc2;
 
-    			tic1 = System.currentTimeMillis();
+    		mmLog.log(Level.INFO, "Received new mission plan with requestId: {0}, and missionId: {1}",
+    				new Object[] { requestId, plan.missionId });
 
-    			mmLog.log(Level.INFO, "Received new mission plan with requestId: " + requestId + ", and missionId: " + plan.missionId);
+    		// STEP -1: Workaround for bad formed missions with no forbidden areas and/or no mission names.
+    		if (!plan.isSetForbiddenArea()) {
+    			mmLog.log(Level.WARNING, "Received mission has not set a forbidden area. Setting an empty one.");
+    			plan.forbiddenArea = new ArrayList<Region>();
+    		}
+    		
+    		if (!plan.isSetName()) {
+    			mmLog.log(Level.WARNING, "Received mission has not set a mission name");
+    			plan.name = "unnamedMission";
+    		} 			
 
-    			// STEP -1: Workaround for bad formed missions with no forbidden areas and/or no mission names.
-    			if (!plan.isSetForbiddenArea()) {
-    				mmLog.log(Level.WARNING, "Received mission has not set a forbidden area. Setting an empty one.");
-    				plan.forbiddenArea = new ArrayList<Region>();
-    			}
-    			
-    			if (!plan.isSetName()) {
-    				mmLog.log(Level.WARNING, "Received mission has not set a mission name");
-    				plan.name = "unnamedMission";
-    			} 			
-
-    			String date  = (new SimpleDateFormat("yyyyMMdd")).format(Calendar.getInstance().getTime());
-    			String time = (new SimpleDateFormat("HHmmss")).format(Calendar.getInstance().getTime());
-    			context.current_mission_dir = context.mission_base_dir + File.separator + date;
-    			String filenamebase = context.current_mission_dir + File.separator
-    					+ "AFC-Mission-" + date + "-" + time + "-" + plan.missionId + "-" + requestId;
-
-    			// STEP 0: Check if missions directory exists, and create it if not
-    			File dirMissions = new File(context.mission_base_dir);
-    			if (! dirMissions.exists()){
-    				dirMissions.mkdir();
-    			}
+    		String date  = (new SimpleDateFormat("yyyyMMdd")).format(Calendar.getInstance().getTime());
+    		String time = (new SimpleDateFormat("HHmmss")).format(Calendar.getInstance().getTime());
+    		context.current_mission_dir = context.mission_base_dir + File.separator + date;
+    		String filenamebase = context.current_mission_dir + File.separator
+    				+ "AFC-Mission-" + date + "-" + time + "-" + plan.missionId + "-" + requestId;
 
-    			File dirCurrentMission = new File(context.current_mission_dir);
-    			if (! dirCurrentMission.exists()){
-    				dirCurrentMission.mkdir();
-    			}
-    			// STEP 1: Store the received mission as a serialized object
-    			tic2 = System.currentTimeMillis();
-    			try {
-    				FileOutputStream fos = new FileOutputStream(filenamebase + ".ser");
-    				ObjectOutputStream oos = new ObjectOutputStream(fos);
-
-    				oos.writeObject(plan);
-    				oos.close();
-
-    			} 
-    			catch (IOException e) {
-    				mmLog.log(Level.WARNING, "Error saving the mission received from the MMT as serialized data." );
-    				if (MissionManagerContext.getInstance().debug) {
-    					mmLog.log(Level.SEVERE, e.getMessage(), e);
-    				}
-    				toc2 = System.currentTimeMillis();
-    				sciLog.log(Level.INFO, "sendPlan,storePlan,serialized,exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-    			}
-    			finally {
-    				toc2 = System.currentTimeMillis();
-    				sciLog.log(Level.INFO, "sendPlan,storePlan,serialized,normal," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-    			}
+    		// STEP 0: Check if missions directory exists, and create it if not
+    		File dirMissions = new File(context.mission_base_dir);
+    		if (! dirMissions.exists()){
+    			dirMissions.mkdir();
+    		}
 
-    			// STEP 2: Store the UNMODIFIED received mission as separate CSV files (one per attribute list in the mission)
-    			tic2 = System.currentTimeMillis();
-    			MissionParser parser = new MissionParser();    	
-    			parser.exportToCSV(requestId, plan);
-    			toc2 = System.currentTimeMillis();
-    			sciLog.log(Level.INFO, "sendPlan,exportToCSV," + tic2 + "," + toc2 + "," + (toc2 - tic2));    	
+    		File dirCurrentMission = new File(context.current_mission_dir);
+    		if (! dirCurrentMission.exists()){
+    			dirCurrentMission.mkdir();
+    		}
 
-    			// STEP 3: Replace NaN values in the mission plan to allow conversion to JSON
-    			tic2 = System.currentTimeMillis();
-    			Mission mission = parser.replaceNaN(plan);
-    			toc2 = System.currentTimeMillis();
-    			sciLog.log(Level.INFO, "sendPlan,replaceNaN," + tic2 + "," + toc2 + "," + (toc2 - tic2));
+    		// STEP 1: Replace NaN values in a private copy of the mission plan to allow conversion to JSON.
+    		// The received plan is left UNMODIFIED, and it is no longer changed from here on.
+    		tic2 = System.currentTimeMillis();
+    		MissionParser parser = new MissionParser();
+    		Mission mission = parser.replaceNaN(new Mission(plan));
+    		Mission normalizedSnapshot = new Mission(mission);
+    		toc2 = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "sendPlan,replaceNaN,{0},{1},{2}", new Object[] { tic2, toc2, toc2 - tic2 });
 
-    			// STEP 4: Store the received mission with the replaced NaN as a JSON file
-    			tic2 = System.currentTimeMillis();
-    			try {    		    		
-    				jsonb.toJson(mission, new FileWriter(filenamebase + ".json"));
-    			}
-    			catch (JsonbException e) {
-    				mmLog.log(Level.WARNING, "Error parsing the mission received from the MMT as JSON");
-    				if (MissionManagerContext.getInstance().debug) {
-    					mmLog.log(Level.SEVERE, e.getMessage(), e);
-    				}
-    				toc2 = System.currentTimeMillis();
-    				sciLog.log(Level.INFO, "sendPlan,storePlan,json,exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-    			}
-    			catch (IOException e) {
-    				mmLog.log(Level.WARNING, "Error saving the mission received from the MMT as JSON.");
-    				if (MissionManagerContext.getInstance().debug) {
-    					mmLog.log(Level.SEVERE, e.getMessage(), e);
-    				}
-    				toc2 = System.currentTimeMillis();
-    				sciLog.log(Level.INFO, "sendPlan,storePlan,json,exception,"  + tic2 + "," + toc2 + "," + (toc2 - tic2));
-    			}
-    			catch (Exception e) {
-    				mmLog.log(Level.WARNING, "Unexpected error parsing the mission as JSON.");
-    				if (MissionManagerContext.getInstance().debug) {
-    					mmLog.log(Level.SEVERE, e.getMessage(), e);
-    				}
-    				toc2 = System.currentTimeMillis();
-    				sciLog.log(Level.INFO, "sendPlan,storePlan,json,exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-    			}
-    			finally {
-    				toc2 = System.currentTimeMillis();
-    				sciLog.log(Level.INFO, "sendPlan,storePlan,json,normal," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-    			}
+    		// STEP 2: Archive the mission concurrently: the received mission as a serialized object and as
+    		// CSV files (one per attribute list in the mission), and the mission with the replaced NaN as JSON
+    		ExecutorManager executors = ExecutorManager.getInstance();
+    		executors.executeIo(() -> storeSerialized(filenamebase, plan));
+    		executors.executeIo(() -> storeCSV(parser, requestId, plan));
+    		executors.executeIo(() -> storeJSON(filenamebase, normalizedSnapshot));
 
-    			// STEP 5: Call the startMission method from the Mission Manager to handle the request
-    			tic2 = System.currentTimeMillis();
-    			try {
-    				MissionManager.getInstance().startMission(requestId, mission);
-    			} 
-    			catch (InterruptedException e) {
-    				mmLog.log(Level.WARNING, "Error passing the plan to the MissionManager.");
-    				if (MissionManagerContext.getInstance().debug) {
-    					mmLog.log(Level.SEVERE, e.getMessage(), e);
-    				}
-    				toc2 = System.currentTimeMillis();
-    				sciLog.log(Level.INFO, "sendPlan,startMission,exception," + tic2 + "," + toc2 + "," + (toc2 - tic2));
+    		// STEP 3: Call the startMission method from the Mission Manager to handle the request
+    		tic2 = System.currentTimeMillis();
+    		try {
+    			MissionManager.getInstance().startMission(requestId, mission, receivedAt);
+    		} 
+    		catch (InterruptedException e) {
+    			mmLog.log(Level.WARNING, "Error passing the plan to the MissionManager.");
+    			if (MissionManagerContext.getInstance().debug) {
+    				mmLog.log(Level.SEVERE, e.getMessage(), e);
     			}
-    			finally {
-    				toc2 = System.currentTimeMillis();
-    				sciLog.log(Level.INFO, "sendPlan,startMission,normal," + tic2 + "," + toc2 + "," + (toc2 - tic2));
-    			}    	
-    			toc1 = System.currentTimeMillis();
-    			sciLog.log(Level.INFO, "sendPlan,full,normal," + tic1 + "," + toc1 + "," + (toc1 - tic1));
-		
+    			toc2 = System.currentTimeMillis();
+    			sciLog.log(Level.INFO, "sendPlan,startMission,exception,{0},{1},{2}",
+    					new Object[] { tic2, toc2, toc2 - tic2 });
+    		}
+    		finally {
+    			toc2 = System.currentTimeMillis();
+    			sciLog.log(Level.INFO, "sendPlan,startMission,normal,{0},{1},{2}",
+    					new Object[] { tic2, toc2, toc2 - tic2 });
+    		}    	
+    		toc1 = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "sendPlan,full,normal,{0},{1},{2}", new Object[] { tic1, toc1, toc1 - tic1 });
+    	});
+    }
+
+    /**
+     * Stores the mission received from the MMT as a serialized object.
+     * 
+     * @param filenamebase	The base name for the archive files of the mission
+     * @param plan			The mission received from the MMT
+     */
+    private void storeSerialized(String filenamebase, Mission plan) {
+    	long tic = System.currentTimeMillis();
+    	long toc;
+    	try {
+    		FileOutputStream fos = new FileOutputStream(filenamebase + ".ser");
+    		ObjectOutputStream oos = new ObjectOutputStream(fos);
+
+    		oos.writeObject(plan);
+    		oos.close();
+    	} 
+    	catch (IOException e) {
+    		mmLog.log(Level.WARNING, "Error saving the mission received from the MMT as serialized data." );
+    		if (MissionManagerContext.getInstance().debug) {
+    			mmLog.log(Level.SEVERE, e.getMessage(), e);
+    		}
+    		toc = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "sendPlan,storePlan,serialized,exception,{0},{1},{2}",
+    				new Object[] { tic, toc, toc - tic });
+    	}
+    	finally {
+    		toc = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "sendPlan,storePlan,serialized,normal,{0},{1},{2}",
+    				new Object[] { tic, toc, toc - tic });
+    	}
+    }
+
+    /**
+     * Stores the mission received from the MMT as separate CSV files (one per attribute list in the mission).
+     * 
+     * @param parser	The mission parser
+     * @param requestId	The request ID
+     * @param plan		The mission received from the MMT
+     */
+    private void storeCSV(MissionParser parser, int requestId, Mission plan) {
+    	long tic = System.currentTimeMillis();
+    	parser.exportToCSV(requestId, plan);
+    	long toc = System.currentTimeMillis();
+    	sciLog.log(Level.INFO, "sendPlan,exportToCSV,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
+    }
+
+    /**
+     * Stores the mission, with the NaN values replaced, as a JSON file.
+     * 
+     * @param filenamebase	The base name for the archive files of the mission
+     * @param mission		The mission with the NaN values replaced
+     */
+    private void storeJSON(String filenamebase, Mission mission) {
+    	long tic = System.currentTimeMillis();
+    	long toc;
+    	try {    		    		
+    		jsonb.toJson(mission, new FileWriter(filenamebase + ".json"));
+    	}
+    	catch (JsonbException e) {
+    		mmLog.log(Level.WARNING, "Error parsing the mission received from the MMT as JSON");
+    		if (MissionManagerContext.getInstance().debug) {
+    			mmLog.log(Level.SEVERE, e.getMessage(), e);
+    		}
+    		toc = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "sendPlan,storePlan,json,exception,{0},{1},{2}",
+    				new Object[] { tic, toc, toc - tic });
+    	}
+    	catch (IOException e) {
+    		mmLog.log(Level.WARNING, "Error saving the mission received from the MMT as JSON.");
+    		if (MissionManagerContext.getInstance().debug) {
+    			mmLog.log(Level.SEVERE, e.getMessage(), e);
+    		}
+    		toc = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "sendPlan,storePlan,json,exception,{0},{1},{2}",
+    				new Object[] { tic, toc, toc - tic });
+    	}
+    	catch (Exception e) {
+    		mmLog.log(Level.WARNING, "Unexpected error parsing the mission as JSON.");
+    		if (MissionManagerContext.getInstance().debug) {
+    			mmLog.log(Level.SEVERE, e.getMessage(), e);
     		}
-    	}).start();
+    		toc = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "sendPlan,storePlan,json,exception,{0},{1},{2}",
+    				new Object[] { tic, toc, toc - tic });
+    	}
+    	finally {
+    		toc = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "sendPlan,storePlan,json,normal,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
+    	}
     }
 
     /**
@@ -208,7 +250,7 @@ public class MissionManagerThriftServiceHandler implements MissionManagerService
      */
     @Override
     public String abortVehiclePlan(int requestId, int vehicleId) {
-        mmLog.log(Level.INFO, "Received ABORT VEHICLE PLAN for vehicleId " + vehicleId);        
+        mmLog.log(Level.INFO, "Received ABORT VEHICLE PLAN for vehicleId {0}", vehicleId);        
     	return MissionManager.getInstance().abortVehiclePlan(vehicleId);
     }
     
@@ -217,7 +259,7 @@ public class MissionManagerThriftServiceHandler implements MissionManagerService
      */
     @Override
     public String abortMissionPlan(int requestId, int missionId) {
-        mmLog.log(Level.INFO, "Received ABORT MISSION PLAN for missionId " + missionId);        
+        mmLog.log(Level.INFO, "Received ABORT MISSION PLAN for missionId {0}", missionId);        
     	return MissionManager.getInstance().abortMissionPlan(missionId);
     }
     
@@ -226,7 +268,7 @@ public class MissionManagerThriftServiceHandler implements MissionManagerService
      */
     @Override
     public String abortVehiclePlanHard(int requestId, int vehicleId) {
-        mmLog.log(Level.INFO, "Received ABORT VEHICLE PLAN (HARD) for vehicleId " + vehicleId);        
+        mmLog.log(Level.INFO, "Received ABORT VEHICLE PLAN (HARD) for vehicleId {0}", vehicleId);        
     	return MissionManager.getInstance().abortVehiclePlanHard(vehicleId);
     }
     
@@ -235,7 +277,7 @@ public class MissionManagerThriftServiceHandler implements MissionManagerService
      */
     @Override
     public String abortMissionPlanHard(int requestId, int missionId) {
-        mmLog.log(Level.INFO, "Received ABORT MISSION PLAN (HARD) for missionId " + missionId);        
+        mmLog.log(Level.INFO, "Received ABORT MISSION PLAN (HARD) for missionId {0}", missionId);        
     	return MissionManager.getInstance().abortMissionPlanHard(missionId);
     }
     
@@ -0,0 +1,51 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.types;
+
+/**
+ * Event to be stored through the Data Query (see {@code SemanticQueryService.storeEvent})
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class DqEvent {
+	public int request_id;
+	public int mission_id;
+	public int vehicle_id;
+	public int subtype;
+	public String description;
+	public long time_reference;
+
+	public DqEvent() { }
+
+	public DqEvent(int requestId, int missionId, int vehicleId, int subtype, String description, long timeReference) {
+		this.request_id = requestId;
+		this.mission_id = missionId;
+		this.vehicle_id = vehicleId;
+		this.subtype = subtype;
+		this.description = description;
+		this.time_reference = timeReference;
+	}
+}
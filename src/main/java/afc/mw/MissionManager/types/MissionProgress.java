@@ -0,0 +1,49 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.types;
+
+import java.util.ArrayList;
+
+/**
+ * Progress of a mission, built from the command statuses received in the mission reports
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class MissionProgress {
+	public int mission_id;
+	public int total_commands;
+	public int not_assigned;
+	public int not_started;
+	public int running;
+	public int finished;
+	public int stopped;
+	public double progress;
+	public int late_commands;
+	public long max_delay;
+	public long reports;
+	public long last_update;
+	public ArrayList<VehicleProgress> vehicles = new ArrayList<VehicleProgress>();
+}
@@ -24,8 +24,6 @@
 
 package afc.mw.MissionManager.types;
 
-import java.util.ArrayList;
-
 /**
  * Parsed command structure
  * 
@@ -35,5 +33,5 @@ import java.util.ArrayList;
 public class ParsedCommand {
 	public int command_id;
 	public int command_type_id;
-	public ArrayList<Double> param_array = new ArrayList<Double>();
+	public double[] param_array = new double[0];
 }
@@ -0,0 +1,148 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.types;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.bind.annotation.JsonbProperty;
+import javax.json.bind.annotation.JsonbTransient;
+
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.Vehicle;
+
+import afc.mw.MissionManager.utils.CommandStatusTable;
+import afc.mw.MissionManager.utils.IntHashMap;
+
+/**
+ * A mission known to the Mission Manager, together with its lifecycle state.
+ * 
+ * The vehicles of the mission are indexed by id when the mission is registered, and the
+ * index is never modified afterwards, so it can be read concurrently without locking.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class RegisteredMission {
+	@JsonbTransient
+	public final Mission mission;
+	public final int mission_id;
+	public final String name;
+	public final long start_time;
+
+	private final AtomicInteger state;
+	private final IntHashMap<VehicleIndexEntry> vehicles;
+	private final CommandStatusTable commands;
+
+	public RegisteredMission(Mission mission, int initialState) {
+		this.mission = mission;
+		this.mission_id = mission.missionId;
+		this.name = mission.isSetName() ? mission.name : "";
+		this.start_time = System.currentTimeMillis();
+		this.state = new AtomicInteger(initialState);
+
+		IntHashMap<VehicleIndexEntry> index = new IntHashMap<VehicleIndexEntry>(
+				mission.vehicles != null ? mission.vehicles.size() : 0);
+		if (mission.vehicles != null) {
+			for (Vehicle vehicle : mission.vehicles) {
+				index.put(vehicle.id, new VehicleIndexEntry(vehicle, this));
+			}
+		}
+		this.vehicles = index;
+		this.commands = new CommandStatusTable(mission);
+	}
+
+	/**
+	 * Gets the current lifecycle state of the mission.
+	 * 
+	 * @return The mission state (see {@code MissionManager.NOT_STARTED}, {@code RUNNING},
+	 *         {@code FINISHED} and {@code STOPPED}).
+	 */
+	public int getState() {
+		return state.get();
+	}
+
+	/**
+	 * Atomically changes the state of the mission if it is in the expected state.
+	 * 
+	 * @param expected	The expected current state
+	 * @param updated	The new state
+	 * @return {@code true} if the state was changed; {@code false} otherwise.
+	 */
+	public boolean compareAndSetState(int expected, int updated) {
+		return state.compareAndSet(expected, updated);
+	}
+
+	/**
+	 * Gets one of the vehicles of the mission.
+	 * 
+	 * @param vehicleId The vehicle id
+	 * @return The vehicle, or {@code null} if the vehicle is not part of the mission.
+	 */
+	public Vehicle getVehicle(int vehicleId) {
+		VehicleIndexEntry entry = vehicles.get(vehicleId);
+		return (entry != null) ? entry.vehicle : null;
+	}
+
+	/**
+	 * Gets the index entry of one of the vehicles of the mission.
+	 * 
+	 * @param vehicleId The vehicle id
+	 * @return The index entry, or {@code null} if the vehicle is not part of the mission.
+	 */
+	public VehicleIndexEntry getVehicleEntry(int vehicleId) {
+		return vehicles.get(vehicleId);
+	}
+
+	/**
+	 * Gets the index entries of all the vehicles of the mission.
+	 * 
+	 * @return The index entries.
+	 */
+	@JsonbTransient
+	public ArrayList<VehicleIndexEntry> getVehicleEntries() {
+		return vehicles.values();
+	}
+
+	/**
+	 * Gets the ids of the vehicles of the mission.
+	 * 
+	 * @return The vehicle ids.
+	 */
+	@JsonbProperty("vehicle_ids")
+	public int[] getVehicleIds() {
+		return vehicles.keys();
+	}
+
+	/**
+	 * Gets the current status of the commands of the mission, as reported by its vehicles.
+	 * 
+	 * @return The command status table of the mission.
+	 */
+	@JsonbTransient
+	public CommandStatusTable getCommandStatus() {
+		return commands;
+	}
+}
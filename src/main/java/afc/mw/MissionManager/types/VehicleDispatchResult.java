@@ -0,0 +1,61 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.types;
+
+/**
+ * Result of dispatching the plan (or prescription map) of one vehicle of a mission
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class VehicleDispatchResult {
+	public static final byte DISPATCHED = 0x00;
+	public static final byte INVALID_PLAN = 0x01;
+	public static final byte PUBLISH_ERROR = 0x02;
+	public static final byte UNKNOWN_VEHICLE_TYPE = 0x03;
+	public static final byte INTERNAL_ERROR = (byte) 0xff;
+
+	public int vehicle_id;
+	public String vehicle_type;
+	public byte status = INTERNAL_ERROR;
+	public long start_time;
+	public long end_time;
+
+	public VehicleDispatchResult() { }
+
+	public VehicleDispatchResult(int vehicleId, String vehicleType) {
+		this.vehicle_id = vehicleId;
+		this.vehicle_type = vehicleType;
+	}
+
+	/**
+	 * Gets the time spent dispatching the vehicle.
+	 * 
+	 * @return The elapsed time, in milliseconds.
+	 */
+	public long getElapsed() {
+		return end_time - start_time;
+	}
+}
@@ -0,0 +1,80 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.types;
+
+import com.afarcloud.thrift.Vehicle;
+import com.afarcloud.thrift.VehicleType;
+
+/**
+ * Entry of the vehicle index of the Mission Manager: a vehicle, the mission it is assigned to and
+ * the class of vehicle (how its plan is dispatched and aborted).
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class VehicleIndexEntry {
+	public static final byte CLASS_UNKNOWN = 0x00;
+	public static final byte CLASS_UNMANNED = 0x01;
+	public static final byte CLASS_PRESCRIPTION_MAP = 0x02;
+
+	public final int vehicle_id;
+	public final Vehicle vehicle;
+	public final RegisteredMission mission;
+	public final byte vehicle_class;
+
+	public VehicleIndexEntry(Vehicle vehicle, RegisteredMission mission) {
+		this.vehicle_id = vehicle.id;
+		this.vehicle = vehicle;
+		this.mission = mission;
+		this.vehicle_class = classOf(vehicle.type);
+	}
+
+	/**
+	 * Gets the class of a vehicle type.
+	 * 
+	 * @param type The vehicle type
+	 * @return {@code CLASS_UNMANNED} for vehicles receiving vehicle plans, {@code CLASS_PRESCRIPTION_MAP}
+	 *         for vehicles receiving prescription maps, and {@code CLASS_UNKNOWN} otherwise.
+	 */
+	public static byte classOf(VehicleType type) {
+		if (type == null) {
+			return CLASS_UNKNOWN;
+		}
+
+		switch (type) {
+		case AUAV:
+		case RUAV:
+		case UAV:
+		case AGV:
+		case UGV:
+			return CLASS_UNMANNED;
+		case RGV:
+		case Tractor:
+			return CLASS_PRESCRIPTION_MAP;
+		default:
+			return CLASS_UNKNOWN;
+		}
+	}
+}
@@ -24,8 +24,6 @@
 
 package afc.mw.MissionManager.types.isobus;
 
-import java.util.ArrayList;
-
 import javax.json.bind.annotation.JsonbProperty;
 
 /**
@@ -54,14 +52,14 @@ public class Grid {
 	 * The grid cells of a grid contain a reference to a TreatmentZone
 	 * or a process data variable value
 	 */
-	public ArrayList<Integer> gridCell;
+	public int[] gridCell;
 	
 	public Grid() {
-		this.gridCell = new ArrayList<Integer>();
+		this.gridCell = new int[0];
 	}
 
 	public Grid(double gridMinimumNorthPosition, double gridMinimumEastPosition, double gridCellNorthSize,
-			double gridCellEastSize, int gridMaximumColumn, int gridMaximumRow, ArrayList<Integer> gridCells) {
+			double gridCellEastSize, int gridMaximumColumn, int gridMaximumRow, int[] gridCells) {
 		this.gridMinimumNorthPosition = gridMinimumNorthPosition;
 		this.gridMinimumEastPosition = gridMinimumEastPosition;
 		this.gridCellNorthSize = gridCellNorthSize;
@@ -144,11 +142,11 @@ public class Grid {
 	}
 
 	@JsonbProperty("GridCell")
-	public ArrayList<Integer> getGridCell() {
+	public int[] getGridCell() {
 		return gridCell;
 	}
 
-	public void setGridCell(ArrayList<Integer> gridCell) {
+	public void setGridCell(int[] gridCell) {
 		this.gridCell = gridCell;
 	}
 }
@@ -0,0 +1,193 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Log handler that hands the records over to a background writer thread, through a bounded ring
+ * buffer, so the logging threads do not wait for formatting or file I/O. The writer blocks until a
+ * record arrives (it does not wake up while the Mission Manager is idle), drains the records pending
+ * by then, publishes them, in order, to the target handlers (e.g. a file and the console), and flushes
+ * them once the buffer is empty, so the targets should not flush every record themselves (e.g. plain
+ * {@code StreamHandler}s rather than {@code FileHandler}s).
+ * 
+ * The source class and method of each record are resolved by the logging thread before queuing.
+ * When the buffer is full, the logging thread waits for room, so no record is lost. Pending records
+ * are written when the handler is closed (e.g. by the {@code LogManager} on shutdown).
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class AsyncLogHandler extends Handler {
+	private static final int MAX_BATCH = 256;
+	private static final long CLOSE_TIMEOUT_MS = 5000;
+	// Wakes up the writer when the handler is closed; never written
+	private static final LogRecord CLOSE_MARKER = new LogRecord(Level.OFF, "");
+
+	private final ArrayBlockingQueue<LogRecord> buffer;
+	private final Handler[] targets;
+	private final Thread writer;
+	private volatile boolean closed = false;
+
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong waits = new AtomicLong();
+
+	/**
+	 * Creates the handler and starts its writer thread.
+	 * 
+	 * @param name		The name of the writer thread
+	 * @param capacity	The number of records the buffer can hold
+	 * @param targets	The handlers that write the records
+	 */
+	public AsyncLogHandler(String name, int capacity, Handler... targets) {
+		this.buffer = new ArrayBlockingQueue<LogRecord>(Math.max(1, capacity));
+		this.targets = targets;
+
+		writer = new Thread(this::run, name);
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (!isLoggable(record)) {
+			return;
+		}
+
+		// The caller is inferred from the stack of the logging thread
+		record.getSourceClassName();
+
+		if (closed) {
+			write(record);
+			return;
+		}
+
+		published.incrementAndGet();
+		if (!buffer.offer(record)) {
+			waits.incrementAndGet();
+			try {
+				buffer.put(record);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				write(record);
+			}
+		}
+	}
+
+	@Override
+	public void flush() {
+		for (Handler target : targets) {
+			target.flush();
+		}
+	}
+
+	/**
+	 * Stops the writer thread once all the pending records are written, and closes the target handlers.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		// If the buffer is full the writer is busy, and will see it is closed once it is drained
+		buffer.offer(CLOSE_MARKER);
+		try {
+			writer.join(CLOSE_TIMEOUT_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (Handler target : targets) {
+			target.close();
+		}
+	}
+
+	/**
+	 * Gets the state of the buffer as a CSV line (pending records, capacity, published records and times a
+	 * logging thread had to wait for room), without a header.
+	 * 
+	 * @return The state of the buffer.
+	 */
+	public String getStatistics() {
+		return buffer.size() + "," + (buffer.size() + buffer.remainingCapacity()) + "," + published.get() + ","
+				+ waits.get() + "\n";
+	}
+
+	/**
+	 * Gets the number of records waiting to be written.
+	 * 
+	 * @return The number of pending records.
+	 */
+	public int getPending() {
+		return buffer.size();
+	}
+
+	/**
+	 * Writer thread: writes the queued records in batches.
+	 */
+	private void run() {
+		ArrayList<LogRecord> batch = new ArrayList<LogRecord>(MAX_BATCH);
+		while (!closed || !buffer.isEmpty()) {
+			// Blocks until a record (or the close marker) arrives. The timeout only bounds a missed close
+			LogRecord first;
+			try {
+				first = buffer.poll(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				closed = true;
+				continue;
+			}
+			if (first == null) {
+				continue;
+			}
+			batch.add(first);
+			buffer.drainTo(batch, MAX_BATCH - 1);
+
+			for (LogRecord record : batch) {
+				if (record != CLOSE_MARKER) {
+					write(record);
+				}
+			}
+			batch.clear();
+			if (buffer.isEmpty()) {
+				flush();
+			}
+		}
+		flush();
+	}
+
+	private void write(LogRecord record) {
+		// Only contended while closing, when the logging threads write their records themselves
+		synchronized (targets) {
+			for (Handler target : targets) {
+				target.publish(record);
+			}
+		}
+	}
+}
@@ -0,0 +1,370 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.afarcloud.thrift.Command;
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.TaskCommandStatus;
+import com.afarcloud.thrift.Vehicle;
+
+import afc.mw.MissionManager.types.CommandProgress;
+import afc.mw.MissionManager.types.CommandStatus;
+import afc.mw.MissionManager.types.MissionProgress;
+import afc.mw.MissionManager.types.MissionReport;
+import afc.mw.MissionManager.types.VehicleProgress;
+
+/**
+ * Current status of the commands of a mission, fed by the mission reports of its vehicles.
+ * 
+ * Commands are laid out in primitive arrays indexed by their position in the mission, and looked
+ * up by id through a sorted index, as are the vehicles. The status counters of the mission and of each vehicle, and the
+ * late commands, are updated incrementally, so applying a report costs O(log n) per reported
+ * command.
+ * 
+ * A command is late when it is reported (not stopped) after its planned end time, or when it was
+ * finished after it. Delays are measured in the time unit of the mission plan.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class CommandStatusTable {
+	private static final int STATUSES = TaskCommandStatus.values().length;
+	private static final int FINISHED = TaskCommandStatus.Finished.getValue();
+	private static final int STOPPED = TaskCommandStatus.Stopped.getValue();
+	private static final int RUNNING = TaskCommandStatus.Running.getValue();
+
+	private final int missionId;
+
+	// Commands, by position in the mission
+	private final int[] commandIds;
+	private final int[] commandVehicles;
+	private final long[] plannedEnds;
+	private final byte[] statuses;
+	private final long[] updates;
+	private final boolean[] late;
+
+	// Index of the commands, sorted by id
+	private final int[] sortedIds;
+	private final int[] sortedPositions;
+
+	// Index of the vehicle slots, sorted by vehicle id
+	private final int[] sortedVehicleIds;
+	private final int[] sortedVehicleSlots;
+
+	// Vehicles, by slot (status counters are flattened as slot * STATUSES + status)
+	private final int[] vehicleIds;
+	private final int[] vehicleStatusCounts;
+	private final int[] vehicleLate;
+	private final int[] vehicleMissionStatus;
+	private final boolean[] vehicleReported;
+	private final long[] vehicleUpdates;
+
+	// Mission
+	private final int[] statusCounts = new int[STATUSES];
+	private int lateCommands = 0;
+	private long maxDelay = 0;
+	private long reports = 0;
+	private long lastUpdate = 0;
+
+	/**
+	 * Creates the status table of a mission, with the initial status of its commands.
+	 * 
+	 * @param mission The mission
+	 */
+	public CommandStatusTable(Mission mission) {
+		this.missionId = mission.missionId;
+		List<Command> commands = (mission.commands != null) ? mission.commands : new ArrayList<Command>();
+		int n = commands.size();
+
+		// Vehicle slots: the vehicles of the mission, then any other vehicle with commands assigned, in
+		// order of first appearance. The candidates are sorted by id (and appearance) in a primitive sort
+		int m = (mission.vehicles != null) ? mission.vehicles.size() : 0;
+		int[] candidates = new int[m + n];
+		for (int k = 0; k < m; k++) {
+			candidates[k] = mission.vehicles.get(k).id;
+		}
+		for (int i = 0; i < n; i++) {
+			Command command = commands.get(i);
+			candidates[m + i] = (command.relatedTask != null) ? command.relatedTask.assignedVehicleId : -1;
+		}
+		long[] idAppearances = new long[candidates.length];
+		for (int k = 0; k < candidates.length; k++) {
+			idAppearances[k] = ((long) candidates[k] << 32) | k;
+		}
+		Arrays.sort(idAppearances);
+
+		// Distinct ids, with their first appearance
+		int vehicles = 0;
+		int[] distinctIds = new int[candidates.length];
+		long[] appearanceIds = new long[candidates.length];
+		for (int k = 0; k < idAppearances.length; k++) {
+			int id = (int) (idAppearances[k] >> 32);
+			if (vehicles == 0 || distinctIds[vehicles - 1] != id) {
+				long appearance = (int) idAppearances[k];
+				distinctIds[vehicles] = id;
+				appearanceIds[vehicles] = (appearance << 32) | vehicles;
+				vehicles++;
+			}
+		}
+
+		// The slot of each vehicle is the rank of its first appearance
+		Arrays.sort(appearanceIds, 0, vehicles);
+		sortedVehicleIds = Arrays.copyOf(distinctIds, vehicles);
+		sortedVehicleSlots = new int[vehicles];
+		vehicleIds = new int[vehicles];
+		for (int slot = 0; slot < vehicles; slot++) {
+			int index = (int) appearanceIds[slot];
+			sortedVehicleSlots[index] = slot;
+			vehicleIds[slot] = sortedVehicleIds[index];
+		}
+
+		commandIds = new int[n];
+		commandVehicles = new int[n];
+		plannedEnds = new long[n];
+		statuses = new byte[n];
+		updates = new long[n];
+		late = new boolean[n];
+		long[] idPositions = new long[n];
+
+		for (int i = 0; i < n; i++) {
+			Command command = commands.get(i);
+			int status = (command.commandStatus != null) ? command.commandStatus.getValue()
+					: TaskCommandStatus.NotStarted.getValue();
+			commandIds[i] = command.id;
+			commandVehicles[i] = vehicleSlot(candidates[m + i]);
+			plannedEnds[i] = command.endTime;
+			statuses[i] = (byte) status;
+			idPositions[i] = ((long) command.id << 32) | i;
+		}
+
+		// Sort by id (and position, for duplicated ids) in a single primitive sort
+		Arrays.sort(idPositions);
+		sortedIds = new int[n];
+		sortedPositions = new int[n];
+		for (int i = 0; i < n; i++) {
+			sortedIds[i] = (int) (idPositions[i] >> 32);
+			sortedPositions[i] = (int) idPositions[i];
+		}
+
+		vehicleStatusCounts = new int[vehicles * STATUSES];
+		vehicleLate = new int[vehicles];
+		vehicleMissionStatus = new int[vehicles];
+		vehicleReported = new boolean[vehicles];
+		vehicleUpdates = new long[vehicles];
+
+		for (int i = 0; i < n; i++) {
+			statusCounts[statuses[i]]++;
+			vehicleStatusCounts[commandVehicles[i] * STATUSES + statuses[i]]++;
+		}
+	}
+
+	/**
+	 * Applies the command statuses of a (valid) mission report. Statuses of commands not assigned
+	 * to the reporting vehicle, unknown commands or statuses, and statuses older than the last one
+	 * applied are ignored, as is a report without command statuses (only its mission status applies).
+	 * 
+	 * @param report The mission report
+	 * @return The number of commands whose status changed.
+	 */
+	public synchronized int update(MissionReport report) {
+		int slot = vehicleSlot(report.vehicle_id);
+		if (slot < 0) {
+			return 0;
+		}
+
+		reports++;
+		vehicleReported[slot] = true;
+		if (report.last_update >= vehicleUpdates[slot]) {
+			vehicleUpdates[slot] = report.last_update;
+			vehicleMissionStatus[slot] = report.mission_status_id;
+		}
+		lastUpdate = Math.max(lastUpdate, report.last_update);
+
+		int changed = 0;
+		if (report.command_report_array == null) {
+			return changed;
+		}
+		for (CommandStatus commandStatus : report.command_report_array) {
+			if (commandStatus == null) {
+				continue;
+			}
+			int status = commandStatus.command_status_id;
+			int position = position(commandStatus.command_id, slot);
+			if (position < 0 || status < 0 || status >= STATUSES || report.last_update < updates[position]) {
+				continue;
+			}
+			updates[position] = report.last_update;
+
+			int previous = statuses[position];
+			if (previous != status) {
+				statuses[position] = (byte) status;
+				statusCounts[previous]--;
+				statusCounts[status]++;
+				vehicleStatusCounts[slot * STATUSES + previous]--;
+				vehicleStatusCounts[slot * STATUSES + status]++;
+				changed++;
+			}
+
+			// A command finished on time stays on time
+			if (previous == FINISHED && status == FINISHED) {
+				continue;
+			}
+			long delay = report.last_update - plannedEnds[position];
+			boolean isLate = plannedEnds[position] > 0 && delay > 0 && status != STOPPED;
+			if (isLate != late[position]) {
+				late[position] = isLate;
+				lateCommands += isLate ? 1 : -1;
+				vehicleLate[slot] += isLate ? 1 : -1;
+			}
+			if (isLate && delay > maxDelay) {
+				maxDelay = delay;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Checks whether the mission is complete. Each vehicle with commands, or which has reported, is
+	 * done when it reports the mission as finished or stopped, or when all its commands are.
+	 * 
+	 * @return {@code true} if every vehicle of the mission is done (and at least one is tracked);
+	 *         {@code false} otherwise.
+	 */
+	public synchronized boolean isComplete() {
+		int tracked = 0;
+		for (int slot = 0; slot < vehicleIds.length; slot++) {
+			int total = 0;
+			for (int status = 0; status < STATUSES; status++) {
+				total += vehicleStatusCounts[slot * STATUSES + status];
+			}
+			if (total == 0 && !vehicleReported[slot]) {
+				continue;
+			}
+			tracked++;
+			boolean reportedDone = vehicleReported[slot]
+					&& (vehicleMissionStatus[slot] == FINISHED || vehicleMissionStatus[slot] == STOPPED);
+			int done = vehicleStatusCounts[slot * STATUSES + FINISHED] + vehicleStatusCounts[slot * STATUSES + STOPPED];
+			if (!reportedDone && (total == 0 || done < total)) {
+				return false;
+			}
+		}
+		return tracked > 0;
+	}
+
+	/**
+	 * Gets the progress of the mission and of each of its vehicles.
+	 * 
+	 * @return A snapshot of the progress of the mission.
+	 */
+	public synchronized MissionProgress getProgress() {
+		MissionProgress progress = new MissionProgress();
+		progress.mission_id = missionId;
+		progress.total_commands = commandIds.length;
+		progress.not_assigned = statusCounts[TaskCommandStatus.NotAssigned.getValue()];
+		progress.not_started = statusCounts[TaskCommandStatus.NotStarted.getValue()];
+		progress.running = statusCounts[RUNNING];
+		progress.finished = statusCounts[FINISHED];
+		progress.stopped = statusCounts[STOPPED];
+		progress.progress = ratio(progress.finished, progress.total_commands);
+		progress.late_commands = lateCommands;
+		progress.max_delay = maxDelay;
+		progress.reports = reports;
+		progress.last_update = lastUpdate;
+
+		for (int slot = 0; slot < vehicleIds.length; slot++) {
+			VehicleProgress vehicle = new VehicleProgress();
+			vehicle.vehicle_id = vehicleIds[slot];
+			for (int status = 0; status < STATUSES; status++) {
+				vehicle.total_commands += vehicleStatusCounts[slot * STATUSES + status];
+			}
+			vehicle.running = vehicleStatusCounts[slot * STATUSES + RUNNING];
+			vehicle.finished = vehicleStatusCounts[slot * STATUSES + FINISHED];
+			vehicle.stopped = vehicleStatusCounts[slot * STATUSES + STOPPED];
+			vehicle.completion = ratio(vehicle.finished, vehicle.total_commands);
+			vehicle.late_commands = vehicleLate[slot];
+			vehicle.mission_status_id = vehicleMissionStatus[slot];
+			vehicle.last_update = vehicleUpdates[slot];
+			progress.vehicles.add(vehicle);
+		}
+		return progress;
+	}
+
+	/**
+	 * Gets the current status of every command of the mission.
+	 * 
+	 * @return A snapshot of the command statuses, in mission order.
+	 */
+	public synchronized ArrayList<CommandProgress> getCommands() {
+		ArrayList<CommandProgress> commands = new ArrayList<CommandProgress>(commandIds.length);
+		for (int i = 0; i < commandIds.length; i++) {
+			CommandProgress command = new CommandProgress();
+			command.command_id = commandIds[i];
+			command.vehicle_id = vehicleIds[commandVehicles[i]];
+			command.command_status_id = statuses[i];
+			command.planned_end = plannedEnds[i];
+			command.last_update = updates[i];
+			command.late = late[i];
+			commands.add(command);
+		}
+		return commands;
+	}
+
+	private int vehicleSlot(int vehicleId) {
+		int i = Arrays.binarySearch(sortedVehicleIds, vehicleId);
+		return (i >= 0) ? sortedVehicleSlots[i] : -1;
+	}
+
+	/**
+	 * Finds the position of a command assigned to a vehicle.
+	 * 
+	 * @param commandId	The command id
+	 * @param slot		The vehicle slot
+	 * @return The position of the command in the mission, or -1 if the vehicle has no such command.
+	 */
+	private int position(int commandId, int slot) {
+		int i = Arrays.binarySearch(sortedIds, commandId);
+		if (i < 0) {
+			return -1;
+		}
+		// Duplicated ids are contiguous: look for the one assigned to the vehicle
+		while (i > 0 && sortedIds[i - 1] == commandId) {
+			i--;
+		}
+		for (; i < sortedIds.length && sortedIds[i] == commandId; i++) {
+			if (commandVehicles[sortedPositions[i]] == slot) {
+				return sortedPositions[i];
+			}
+		}
+		return -1;
+	}
+
+	private static double ratio(int part, int total) {
+		return (total > 0) ? (double) part / total : 0;
+	}
+}
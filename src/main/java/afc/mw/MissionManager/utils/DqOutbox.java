@@ -0,0 +1,864 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.JsonException;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.JsonbException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.SemanticQueryService;
+
+import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.types.DqEvent;
+
+/**
+ * Durable outbox (singleton) for the writes to the Data Query: mission plans (REST) and events
+ * (Thrift {@code SemanticQueryService.storeEvent}).
+ * 
+ * Every record is appended to a journal ({@code <dq.outbox.dir>/dq-outbox.log}), one per line
+ * ({@code <sequence> <type> <compact JSON>}), and delivered in order by a single background thread,
+ * in batches of up to {@code dq.outbox.batch_size} records, every {@code dq.outbox.flush_interval}
+ * milliseconds or as soon as a full batch is pending. When a record cannot be delivered, the flush
+ * stops and is retried with an exponential backoff. Records the Data Query can never accept (a 4xx
+ * response, or a payload that cannot be parsed) are moved to {@code dq-outbox.dead} instead, so they do
+ * not block the records behind them. The sequence number of the last delivered record is kept in
+ * {@code dq-outbox.ack}, so the pending records are sent again after a restart. The journal is
+ * truncated as soon as all its records have been delivered, and compacted (rewritten from the first
+ * pending record) once the delivered records take most of it.
+ * 
+ * Events are sent as Thrift oneway calls, and confirmed by a ping to the Data Query before being
+ * removed from the outbox.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class DqOutbox {
+	public static final byte TYPE_MISSION = 'M';
+	public static final byte TYPE_EVENT = 'E';
+
+	private static final String JOURNAL_FILE = "dq-outbox.log";
+	private static final String ACK_FILE = "dq-outbox.ack";
+	private static final String DEAD_LETTER_FILE = "dq-outbox.dead";
+	/** Minimum size of the delivered records at the head of the journal to compact it. */
+	private static final long COMPACT_MIN_BYTES = 1 << 20;
+	private static final long TICK_MS = 100;
+	private static final long MAX_BACKOFF_MS = 60000;
+	private static final int THRIFT_TIMEOUT_MS = 10000;
+	private static final int READ_BUFFER_SIZE = 8192;
+
+	// Delivery results of a record
+	private static final int SENT = 0;
+	private static final int RETRY = 1;
+	private static final int REJECTED = 2;
+
+	private MissionManagerContext context = MissionManagerContext.getInstance();
+	private Logger mmLog = context.mmLog;
+	private Logger sciLog = context.sciLog;
+
+	private static final Jsonb jsonb = JsonbBuilder.create(new JsonbConfig().withNullValues(false));
+
+	private static DqOutbox instance = null;
+
+	// Guarded by this
+	private final ArrayDeque<Record> pending = new ArrayDeque<Record>();
+	private FileChannel journal = null;
+	private Path journalPath = null;
+	private long nextSequence = 1;
+	private long pendingBytes = 0;
+
+	// Only used by the flush thread (once started)
+	private Path ackPath = null;
+	private long ackedSequence = 0;
+	private TTransport eventTransport = null;
+	private SemanticQueryService.Client eventClient = null;
+	private int consecutiveFailures = 0;
+	private long lastFlush = 0;
+
+	private ScheduledThreadPoolExecutor flusher = null;
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	private volatile long nextAttempt = 0;
+
+	private final AtomicLong enqueued = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+
+	/**
+	 * Record of the journal, located by the start of its line and the offset and length of its JSON payload
+	 */
+	private static final class Record {
+		final long sequence;
+		final byte type;
+		final long start;
+		final long offset;
+		final int length;
+
+		Record(long sequence, byte type, long start, long offset, int length) {
+			this.sequence = sequence;
+			this.type = type;
+			this.start = start;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	private DqOutbox() { }
+
+	/**
+	 * Gets the instance of the Data Query outbox, recovering the records pending from previous runs
+	 * and starting the flush thread on first use.
+	 * 
+	 * @return The singleton instance of the Data Query outbox
+	 */
+	public static synchronized DqOutbox getInstance() {
+		if (instance == null) {
+			instance = new DqOutbox();
+			instance.start();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Stores a mission plan through the Data Query. The plan is written to the journal; it is sent
+	 * by the flush thread. If the journal is not available, the plan is sent right away.
+	 * 
+	 * @param mission The global mission plan to be stored
+	 */
+	public void storeMission(Mission mission) {
+		if (!append(TYPE_MISSION, output -> jsonb.toJson(mission, output))) {
+			mmLog.log(Level.WARNING, "Data Query outbox not available. Storing mission " + mission.getMissionId() + " directly.");
+			RestClient.getInstance().storeMission(mission);
+		}
+	}
+
+	/**
+	 * Stores an event through the Data Query (only if {@code dq.thrift.port} is set).
+	 * 
+	 * @param requestId		The request ID
+	 * @param missionId		The mission ID
+	 * @param vehicleId		The vehicle ID
+	 * @param subtype		The event subtype
+	 * @param description	The event description
+	 * @param timeReference	The time of the event, in milliseconds since the epoch
+	 */
+	public void storeEvent(int requestId, int missionId, int vehicleId, int subtype, String description, long timeReference) {
+		if (context.dqThriftPort <= 0) {
+			return;
+		}
+
+		DqEvent event = new DqEvent(requestId, missionId, vehicleId, subtype, description, timeReference);
+		if (!append(TYPE_EVENT, output -> jsonb.toJson(event, output))) {
+			mmLog.log(Level.WARNING, "Data Query outbox not available. Event for mission " + missionId
+					+ " and vehicle " + vehicleId + " discarded.");
+		}
+	}
+
+	/**
+	 * Gets the state of the outbox as CSV lines with a header.
+	 * 
+	 * @return The state of the outbox.
+	 */
+	public String getStatistics() {
+		int pendingRecords;
+		long bytes;
+		synchronized (this) {
+			pendingRecords = pending.size();
+			bytes = pendingBytes;
+		}
+		long backoff = Math.max(0, nextAttempt - System.currentTimeMillis());
+
+		return "pending,pending_bytes,enqueued,delivered,failures,dropped,rejected,batches,backoff_ms\n"
+				+ pendingRecords + "," + bytes + "," + enqueued.get() + "," + delivered.get() + ","
+				+ failures.get() + "," + dropped.get() + "," + rejected.get() + "," + batches.get() + ","
+				+ backoff + "\n";
+	}
+
+	/**
+	 * Gets the number of records waiting to be delivered.
+	 * 
+	 * @return The number of pending records.
+	 */
+	public synchronized int getPending() {
+		return pending.size();
+	}
+
+	/**
+	 * Opens the journal, recovers the records not delivered yet, and starts the flush thread.
+	 */
+	private synchronized void start() {
+		File dir = new File(context.dqOutboxDir);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			mmLog.log(Level.SEVERE, "Unable to create the Data Query outbox directory " + dir.getAbsolutePath());
+			return;
+		}
+
+		ackPath = Paths.get(dir.getPath(), ACK_FILE);
+		journalPath = Paths.get(dir.getPath(), JOURNAL_FILE);
+		try {
+			journal = FileChannel.open(journalPath,
+					StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			recover();
+		} catch (IOException e) {
+			mmLog.log(Level.SEVERE, "Unable to open the Data Query outbox journal in " + dir.getAbsolutePath());
+			if (context.debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			closeJournal();
+			return;
+		}
+
+		flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "mm-dq-outbox");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+
+		mmLog.log(Level.INFO, "Data Query outbox started in " + dir.getAbsolutePath() + " (" + pending.size()
+				+ " records pending)");
+	}
+
+	/**
+	 * Rebuilds the pending records from the journal and the last acknowledged sequence number. A
+	 * partially written last record (e.g. after a crash) is discarded, and so are the oldest records
+	 * beyond {@code dq.outbox.max_records}.
+	 * 
+	 * @throws IOException If the journal cannot be read
+	 */
+	private void recover() throws IOException {
+		if (Files.exists(ackPath)) {
+			try {
+				ackedSequence = Long.parseLong(new String(Files.readAllBytes(ackPath), StandardCharsets.US_ASCII).trim());
+			} catch (NumberFormatException e) {
+				mmLog.log(Level.WARNING, "Invalid Data Query outbox acknowledgement file. Resending the whole journal.");
+			}
+		}
+		nextSequence = ackedSequence + 1;
+
+		long position = 0;
+		long validEnd = 0;
+		InputStream input = new BufferedInputStream(Channels.newInputStream(journal.position(0)), READ_BUFFER_SIZE);
+		StringBuilder header = new StringBuilder();
+		int c;
+		while (true) {
+			long start = position;
+
+			// Header: <sequence> <type><space>
+			header.setLength(0);
+			while ((c = input.read()) != -1 && c != ' ' && c != '\n') {
+				header.append((char) c);
+				position++;
+			}
+			if (c != ' ') {
+				break;
+			}
+			position++;
+			int type = input.read();
+			int separator = input.read();
+			if (type == -1 || separator != ' ') {
+				break;
+			}
+			position += 2;
+
+			// Payload, up to the end of the line
+			long offset = position;
+			while ((c = input.read()) != -1 && c != '\n') {
+				position++;
+			}
+			if (c != '\n') {
+				break;
+			}
+			position++;
+
+			long sequence;
+			try {
+				sequence = Long.parseLong(header.toString());
+			} catch (NumberFormatException e) {
+				mmLog.log(Level.WARNING, "Corrupted Data Query outbox record at offset " + start + ". Skipped.");
+				validEnd = position;
+				continue;
+			}
+			validEnd = position;
+			nextSequence = Math.max(nextSequence, sequence + 1);
+			if (sequence > ackedSequence) {
+				int length = (int) (position - 1 - offset);
+				pending.add(new Record(sequence, (byte) type, start, offset, length));
+				pendingBytes += length;
+			}
+		}
+
+		if (validEnd < journal.size()) {
+			mmLog.log(Level.WARNING, "Discarding " + (journal.size() - validEnd) + " bytes of an incomplete Data Query outbox record.");
+			journal.truncate(validEnd);
+		}
+		int excess = pending.size() - Math.max(1, context.dqOutboxMaxRecords);
+		if (excess > 0) {
+			for (int i = 0; i < excess; i++) {
+				pendingBytes -= pending.poll().length;
+			}
+			dropped.addAndGet(excess);
+			mmLog.log(Level.WARNING, "Data Query outbox full. " + excess + " recovered records dropped.");
+		}
+		if (pending.isEmpty() && journal.size() > 0) {
+			journal.truncate(0);
+		}
+	}
+
+	/**
+	 * Appends a record to the journal and queues it for delivery.
+	 * 
+	 * @param type		The record type
+	 * @param payload	Writes the JSON payload (without line breaks)
+	 * @return {@code true} if the record was appended; {@code false} if the journal is not available.
+	 */
+	private boolean append(byte type, StreamingOutput payload) {
+		long tic = System.nanoTime();
+		Record record;
+		int pendingRecords;
+
+		synchronized (this) {
+			if (journal == null) {
+				return false;
+			}
+
+			long sequence = nextSequence;
+			long start = 0;
+			try {
+				start = journal.size();
+				journal.position(start);
+
+				byte[] header = (sequence + " " + (char) type + " ").getBytes(StandardCharsets.US_ASCII);
+				OutputStream output = new JournalOutputStream(journal);
+				output.write(header);
+				payload.write(output);
+				output.write('\n');
+				output.flush();
+				journal.force(false);
+
+				long offset = start + header.length;
+				int length = (int) (journal.size() - 1 - offset);
+				record = new Record(sequence, type, start, offset, length);
+			} catch (IOException e) {
+				mmLog.log(Level.SEVERE, "Unable to append a record to the Data Query outbox journal.");
+				if (context.debug) {
+					mmLog.log(Level.SEVERE, e.getMessage(), e);
+				}
+				try {
+					journal.truncate(start);
+				} catch (IOException e1) {
+					if (context.debug) {
+						mmLog.log(Level.SEVERE, e1.getMessage(), e1);
+					}
+				}
+				return false;
+			}
+
+			nextSequence++;
+			pending.add(record);
+			pendingBytes += record.length;
+			enqueued.incrementAndGet();
+
+			int maxRecords = Math.max(1, context.dqOutboxMaxRecords);
+			while (pending.size() > maxRecords) {
+				Record oldest = pending.poll();
+				pendingBytes -= oldest.length;
+				dropped.incrementAndGet();
+				mmLog.log(Level.WARNING, "Data Query outbox full. Record " + oldest.sequence + " (" + (char) oldest.type
+						+ ") dropped.");
+			}
+			pendingRecords = pending.size();
+		}
+
+		if (pendingRecords >= Math.max(1, context.dqOutboxBatchSize)) {
+			flushRequested.set(true);
+		}
+
+		long toc = System.nanoTime() - tic;
+		sciLog.log(Level.INFO, "dq_outbox,append,{0},{1},{2},{3},{4}",
+				new Object[] { (char) type, record.sequence, record.length, pendingRecords,
+					TimeUnit.NANOSECONDS.toMicros(toc) });
+		return true;
+	}
+
+	/**
+	 * Flushes the outbox if a full batch is pending or the flush interval has elapsed, unless the
+	 * last flush failed and the outbox is backing off.
+	 */
+	private void tick() {
+		try {
+			long now = System.currentTimeMillis();
+			if (now < nextAttempt) {
+				return;
+			}
+			boolean requested = flushRequested.getAndSet(false);
+			if (!requested && now - lastFlush < context.dqOutboxFlushInterval) {
+				return;
+			}
+			flush();
+		} catch (RuntimeException e) {
+			mmLog.log(Level.SEVERE, "Unexpected error flushing the Data Query outbox. Retrying in " + backOff() + " ms.");
+			if (context.debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Delays the next flush after a failure, with an exponential backoff.
+	 * 
+	 * @return The backoff, in milliseconds.
+	 */
+	private long backOff() {
+		failures.incrementAndGet();
+		consecutiveFailures++;
+		long backoff = Math.min(MAX_BACKOFF_MS,
+				Math.max(TICK_MS, context.dqOutboxFlushInterval) << Math.min(consecutiveFailures - 1, 16));
+		nextAttempt = System.currentTimeMillis() + backoff;
+		return backoff;
+	}
+
+	/**
+	 * Delivers (in order) the next batch of pending records, stopping at the first failure. The records
+	 * rejected by the Data Query are moved to the dead letter file.
+	 */
+	private void flush() {
+		long tic = System.currentTimeMillis();
+		lastFlush = tic;
+
+		List<Record> batch = new ArrayList<Record>();
+		synchronized (this) {
+			int batchSize = Math.max(1, context.dqOutboxBatchSize);
+			Iterator<Record> it = pending.iterator();
+			while (it.hasNext() && batch.size() < batchSize) {
+				batch.add(it.next());
+			}
+		}
+		if (batch.isEmpty()) {
+			acknowledge();
+			return;
+		}
+
+		int confirmed = 0;
+		int unconfirmedEvents = 0;
+		boolean failed = false;
+		boolean[] rejectedRecords = new boolean[batch.size()];
+		for (int i = 0; i < batch.size() && !failed; i++) {
+			Record record = batch.get(i);
+			if (record.type == TYPE_EVENT) {
+				int result = sendEvent(record);
+				if (result == SENT) {
+					unconfirmedEvents++;
+				} else if (result == REJECTED) {
+					rejectedRecords[i] = true;
+					if (unconfirmedEvents == 0) {
+						confirmed = i + 1;
+					}
+				} else {
+					failed = true;
+				}
+				continue;
+			}
+
+			if (unconfirmedEvents > 0) {
+				if (!confirmEvents()) {
+					failed = true;
+					break;
+				}
+				confirmed = i;
+				unconfirmedEvents = 0;
+			}
+			if (record.type == TYPE_MISSION) {
+				int result = sendMission(record);
+				if (result == RETRY) {
+					failed = true;
+					break;
+				}
+				rejectedRecords[i] = (result == REJECTED);
+			}
+			confirmed = i + 1;
+		}
+		if (!failed && unconfirmedEvents > 0) {
+			if (confirmEvents()) {
+				confirmed = batch.size();
+			} else {
+				failed = true;
+			}
+		}
+		closeEventTransport();
+
+		int remaining;
+		int rejectedCount = 0;
+		synchronized (this) {
+			for (int i = 0; i < confirmed; i++) {
+				// Records dropped meanwhile (outbox full) are no longer at the head
+				if (pending.peek() == batch.get(i)) {
+					if (rejectedRecords[i]) {
+						deadLetter(batch.get(i));
+						rejectedCount++;
+					}
+					pending.poll();
+					pendingBytes -= batch.get(i).length;
+				}
+			}
+			remaining = pending.size();
+		}
+		rejected.addAndGet(rejectedCount);
+		delivered.addAndGet(confirmed - rejectedCount);
+		batches.incrementAndGet();
+		acknowledge();
+
+		if (failed) {
+			long backoff = backOff();
+			mmLog.log(Level.WARNING, "Unable to deliver the Data Query outbox records (" + remaining
+					+ " pending). Retrying in " + backoff + " ms.");
+		} else {
+			consecutiveFailures = 0;
+			nextAttempt = 0;
+			if (remaining > 0 && confirmed == batch.size()) {
+				flushRequested.set(true);
+			}
+		}
+
+		long toc = System.currentTimeMillis() - tic;
+		sciLog.log(Level.INFO, "dq_outbox,flush,{0},{1},{2},{3}",
+				new Object[] { confirmed, (failed ? "nok" : "ok"), remaining, toc });
+	}
+
+	/**
+	 * Persists the sequence number of the last record delivered (or dropped), and truncates the
+	 * journal if all its records have been delivered, or compacts it if the delivered ones take most
+	 * of it.
+	 */
+	private void acknowledge() {
+		long acked;
+		synchronized (this) {
+			acked = pending.isEmpty() ? nextSequence - 1 : pending.peek().sequence - 1;
+		}
+
+		if (acked != ackedSequence) {
+			try {
+				Path tmp = ackPath.resolveSibling(ACK_FILE + ".tmp");
+				Files.write(tmp, Long.toString(acked).getBytes(StandardCharsets.US_ASCII));
+				Files.move(tmp, ackPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				ackedSequence = acked;
+			} catch (IOException e) {
+				mmLog.log(Level.WARNING, "Unable to update the Data Query outbox acknowledgement file.");
+				if (context.debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+				return;
+			}
+		}
+
+		synchronized (this) {
+			if (journal == null) {
+				return;
+			}
+			try {
+				if (pending.isEmpty()) {
+					if (journal.size() > 0) {
+						journal.truncate(0);
+					}
+				} else if (pending.peek().start >= Math.max(COMPACT_MIN_BYTES, journal.size() / 2)) {
+					compact();
+				}
+			} catch (IOException e) {
+				mmLog.log(Level.WARNING, "Unable to truncate or compact the Data Query outbox journal.");
+				if (context.debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rewrites the journal from the first pending record, and moves the pending records accordingly.
+	 * The new journal replaces the old one atomically, so a crash leaves either of them (both valid
+	 * with the acknowledged sequence number).
+	 * 
+	 * @throws IOException If the journal cannot be rewritten
+	 */
+	private void compact() throws IOException {
+		long tic = System.currentTimeMillis();
+		long shift = pending.peek().start;
+		long size = journal.size();
+
+		Path tmp = journalPath.resolveSibling(JOURNAL_FILE + ".tmp");
+		try (FileChannel compacted = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			long position = shift;
+			while (position < size) {
+				position += journal.transferTo(position, size - position, compacted);
+			}
+			compacted.force(false);
+		}
+		Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		closeJournal();
+		journal = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		ArrayDeque<Record> moved = new ArrayDeque<Record>(pending.size());
+		for (Record record : pending) {
+			moved.add(new Record(record.sequence, record.type, record.start - shift, record.offset - shift, record.length));
+		}
+		pending.clear();
+		pending.addAll(moved);
+
+		long toc = System.currentTimeMillis();
+		sciLog.log(Level.INFO, "dq_outbox,compact,{0},{1},{2},{3}",
+				new Object[] { shift, size - shift, pending.size(), toc - tic });
+	}
+
+	/**
+	 * Moves a record rejected by the Data Query to the dead letter file, as it was in the journal.
+	 * 
+	 * @param record The rejected record
+	 */
+	private void deadLetter(Record record) {
+		mmLog.log(Level.WARNING, "Data Query outbox record " + record.sequence + " (" + (char) record.type
+				+ ") rejected. Moved to " + DEAD_LETTER_FILE + ".");
+		try (FileChannel dead = FileChannel.open(journalPath.resolveSibling(DEAD_LETTER_FILE),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			long end = record.offset + record.length + 1;
+			long position = record.start;
+			while (position < end) {
+				position += journal.transferTo(position, end - position, dead);
+			}
+		} catch (IOException e) {
+			mmLog.log(Level.WARNING, "Unable to write the Data Query outbox dead letter file. Record " + record.sequence
+					+ " dropped.");
+			if (context.debug) {
+				mmLog.log(Level.WARNING, e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Sends a mission record to the Data Query, streaming its payload from the journal.
+	 * 
+	 * @param record The mission record
+	 * @return {@code SENT} if the Data Query stored the mission, {@code REJECTED} if it answered with a
+	 *         client error (other than a timeout or too many requests), or {@code RETRY} otherwise.
+	 */
+	private int sendMission(Record record) {
+		int status = RestClient.getInstance().storeMission(output -> {
+			ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+			long position = record.offset;
+			long end = record.offset + record.length;
+			while (position < end) {
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), end - position));
+				int read = journal.read(buffer, position);
+				if (read < 0) {
+					throw new IOException("Truncated Data Query outbox record " + record.sequence);
+				}
+				output.write(buffer.array(), 0, read);
+				position += read;
+			}
+		});
+		if (status >= 200 && status < 300) {
+			return SENT;
+		}
+		return (status >= 400 && status < 500 && status != 408 && status != 429) ? REJECTED : RETRY;
+	}
+
+	/**
+	 * Sends an event record to the Data Query (Thrift oneway call). Events are discarded if the
+	 * Data Query Thrift port is no longer set.
+	 * 
+	 * @param record The event record
+	 * @return {@code SENT} if the event was sent (or discarded), {@code REJECTED} if its payload cannot
+	 *         be parsed, or {@code RETRY} otherwise.
+	 */
+	private int sendEvent(Record record) {
+		if (context.dqThriftPort <= 0) {
+			mmLog.log(Level.INFO, "Data Query Thrift port not set. Event record " + record.sequence + " discarded.");
+			return SENT;
+		}
+
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(record.length);
+			while (buffer.hasRemaining()) {
+				if (journal.read(buffer, record.offset + buffer.position()) < 0) {
+					throw new IOException("Truncated Data Query outbox record " + record.sequence);
+				}
+			}
+			DqEvent event;
+			try {
+				event = jsonb.fromJson(new String(buffer.array(), StandardCharsets.UTF_8), DqEvent.class);
+			} catch (JsonbException | JsonException e) {
+				mmLog.log(Level.WARNING, "Invalid event in Data Query outbox record " + record.sequence + ".");
+				if (context.debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+				return REJECTED;
+			}
+
+			if (eventClient == null) {
+				eventTransport = new TSocket(context.dqServer, context.dqThriftPort, THRIFT_TIMEOUT_MS);
+				eventTransport.open();
+				eventClient = new SemanticQueryService.Client(new TBinaryProtocol(eventTransport));
+			}
+			eventClient.storeEvent(event.request_id, event.mission_id, event.vehicle_id, event.subtype,
+					event.description, event.time_reference);
+			return SENT;
+		} catch (IOException | TException e) {
+			mmLog.log(Level.INFO, "Unable to store event through the DQ. Error processing the request.");
+			if (context.debug) {
+				mmLog.log(Level.WARNING, e.getMessage(), e);
+			}
+			closeEventTransport();
+			return RETRY;
+		}
+	}
+
+	/**
+	 * Confirms that the Data Query received the events sent through the current connection.
+	 * 
+	 * @return {@code true} if the Data Query answered the ping.
+	 */
+	private boolean confirmEvents() {
+		if (eventClient == null) {
+			return true;
+		}
+
+		try {
+			eventClient.ping();
+			return true;
+		} catch (TException e) {
+			mmLog.log(Level.INFO, "Unable to confirm the events stored through the DQ.");
+			if (context.debug) {
+				mmLog.log(Level.WARNING, e.getMessage(), e);
+			}
+			closeEventTransport();
+			return false;
+		}
+	}
+
+	private void closeEventTransport() {
+		if (eventTransport != null) {
+			eventTransport.close();
+		}
+		eventTransport = null;
+		eventClient = null;
+	}
+
+	private void closeJournal() {
+		if (journal != null) {
+			try {
+				journal.close();
+			} catch (IOException e) {
+				if (context.debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+			}
+		}
+		journal = null;
+	}
+
+	/**
+	 * Buffered writer to the journal channel at its current position, which is only flushed (not
+	 * closed) when the payload writer (e.g. JSON-B) closes the stream.
+	 */
+	private static final class JournalOutputStream extends OutputStream {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+		JournalOutputStream(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (!buffer.hasRemaining()) {
+					flush();
+				}
+				int n = Math.min(len, buffer.remaining());
+				buffer.put(b, off, n);
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
@@ -0,0 +1,286 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import afc.mw.MissionManager.MissionManagerContext;
+
+/**
+ * Provides the (singleton) thread pools used by the Mission Manager for its background work:
+ * 
+ * <ul>
+ * <li><b>mission</b>: processing of the mission plans received from the MMT. When it is saturated,
+ * new plans are rejected and the MMT is notified.</li>
+ * <li><b>cpu</b>: CPU-bound work, i.e. the dispatch of the vehicle plans (parsing, serialization and
+ * signing). When it is saturated, the submitting thread runs the task itself.</li>
+ * <li><b>io</b>: I/O-bound work (Data Query, ISOBUS Converter, System Configuration requests). When it
+ * is saturated, the submitting thread runs the task itself.</li>
+ * <li><b>grid</b>: fork-join pool for the data-parallel work on large grids (e.g. the quantization of
+ * the treatment grids), with as many workers as the CPU-bound work pool when it is first used.</li>
+ * <li><b>scheduler</b>: a single thread for timeouts and other short delayed tasks, so no pool thread
+ * has to wait for them.</li>
+ * </ul>
+ * 
+ * All the thread pools are bounded in threads and queued tasks (see the {@code executor.*} properties).
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class ExecutorManager {
+	public static final int MMT_ERROR_SATURATED = 503;
+	public static final String MMT_ERROR_SATURATED_DESCRIPTION = "The Mission Manager is saturated. The mission plan has been discarded.";
+
+	private MissionManagerContext context = MissionManagerContext.getInstance();
+	private Logger mmLog = context.mmLog;
+	private Logger sciLog = context.sciLog;
+
+	// Created on first use; read without locking once created
+	private volatile InstrumentedThreadPoolExecutor missionExecutor = null;
+	private volatile InstrumentedThreadPoolExecutor cpuExecutor = null;
+	private volatile InstrumentedThreadPoolExecutor ioExecutor = null;
+	private ForkJoinPool gridPool = null;
+	private ScheduledThreadPoolExecutor scheduler = null;
+
+	private static ExecutorManager instance = null;
+
+	private ExecutorManager() { }
+
+	/**
+	 * Gets the instance of the executor manager.
+	 * 
+	 * @return The singleton instance of the executor manager
+	 */
+	public static synchronized ExecutorManager getInstance() {
+		if (instance == null) {
+			instance = new ExecutorManager();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Gets the pool for processing mission plans, sized after {@code executor.mission.threads}.
+	 * 
+	 * @return The mission executor
+	 */
+	public InstrumentedThreadPoolExecutor getMissionExecutor() {
+		InstrumentedThreadPoolExecutor executor = missionExecutor;
+		if (executor != null) {
+			return executor;
+		}
+
+		synchronized (this) {
+			if (missionExecutor == null) {
+				missionExecutor = new InstrumentedThreadPoolExecutor("mission", missionThreads(), queueSize(),
+						new ThreadPoolExecutor.AbortPolicy());
+			}
+			return missionExecutor;
+		}
+	}
+
+	/**
+	 * Gets the pool for CPU-bound work, sized after {@code executor.cpu.threads} (one thread per available
+	 * processor if not set).
+	 * 
+	 * @return The CPU-bound work executor
+	 */
+	public InstrumentedThreadPoolExecutor getCpuExecutor() {
+		InstrumentedThreadPoolExecutor executor = cpuExecutor;
+		if (executor != null) {
+			return executor;
+		}
+
+		synchronized (this) {
+			if (cpuExecutor == null) {
+				cpuExecutor = new InstrumentedThreadPoolExecutor("cpu", cpuThreads(), queueSize(),
+						new ThreadPoolExecutor.CallerRunsPolicy());
+			}
+			return cpuExecutor;
+		}
+	}
+
+	/**
+	 * Gets the pool for I/O-bound work, sized after {@code executor.io.threads}.
+	 * 
+	 * @return The I/O-bound work executor
+	 */
+	public InstrumentedThreadPoolExecutor getIoExecutor() {
+		InstrumentedThreadPoolExecutor executor = ioExecutor;
+		if (executor != null) {
+			return executor;
+		}
+
+		synchronized (this) {
+			if (ioExecutor == null) {
+				ioExecutor = new InstrumentedThreadPoolExecutor("io", ioThreads(), queueSize(),
+						new ThreadPoolExecutor.CallerRunsPolicy());
+			}
+			return ioExecutor;
+		}
+	}
+
+	/**
+	 * Resizes the pools already created after the {@code executor.*.threads} properties. To be called
+	 * when any of them changes. The queue size only applies to the pools created afterwards.
+	 */
+	public synchronized void reconfigure() {
+		if (missionExecutor != null) {
+			missionExecutor.resize(missionThreads());
+		}
+		if (cpuExecutor != null) {
+			cpuExecutor.resize(cpuThreads());
+		}
+		if (ioExecutor != null) {
+			ioExecutor.resize(ioThreads());
+		}
+	}
+
+	/**
+	 * Gets the fork-join pool for the data-parallel work on large grids, sized after
+	 * {@code executor.cpu.threads} (one thread per available processor if not set).
+	 * 
+	 * @return The grid work pool
+	 */
+	public synchronized ForkJoinPool getGridPool() {
+		if (gridPool == null) {
+			AtomicInteger threadCount = new AtomicInteger();
+			gridPool = new ForkJoinPool(cpuThreads(), pool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("mm-grid-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}, null, false);
+		}
+
+		return gridPool;
+	}
+
+	/**
+	 * Gets the scheduler for timeouts and other short delayed tasks. The tasks must not block.
+	 * 
+	 * @return The scheduler
+	 */
+	public synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+				Thread thread = new Thread(runnable, "mm-scheduler");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.setRemoveOnCancelPolicy(true);
+		}
+
+		return scheduler;
+	}
+
+	/**
+	 * Submits the processing of a mission plan. If the mission pool is saturated the plan is
+	 * discarded, and the MMT is notified (if notifications are enabled).
+	 * 
+	 * @param requestId	The request ID
+	 * @param missionId	The mission ID
+	 * @param task		The mission processing
+	 * @return {@code true} if the mission was accepted; {@code false} if it was discarded.
+	 */
+	public boolean submitMission(int requestId, int missionId, Runnable task) {
+		try {
+			getMissionExecutor().execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			mmLog.log(Level.SEVERE, "Mission " + missionId + " (request ID: " + requestId
+					+ ") discarded: the Mission Manager is saturated (" + missionExecutor.getStatistics() + ").");
+			if (context.debug) {
+				mmLog.log(Level.SEVERE, e.getMessage(), e);
+			}
+			sciLog.log(Level.INFO, "executor,mission_discarded,{0},{1}", new Object[] { requestId, missionId });
+
+			if (context.mmtEnabled) {
+				MmtClient.getInstance().sendError(MMT_ERROR_SATURATED, MMT_ERROR_SATURATED_DESCRIPTION);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Runs a task in the I/O-bound work pool.
+	 * 
+	 * @param task The task
+	 */
+	public void executeIo(Runnable task) {
+		getIoExecutor().execute(task);
+	}
+
+	/**
+	 * Runs a task with a result in the I/O-bound work pool.
+	 * 
+	 * @param task The task
+	 * @return The pending result of the task.
+	 */
+	public <T> CompletableFuture<T> supplyIo(Supplier<T> task) {
+		return CompletableFuture.supplyAsync(task, getIoExecutor());
+	}
+
+	/**
+	 * Gets the statistics of all the pools, as CSV lines with a header.
+	 * 
+	 * @return The statistics of the pools.
+	 */
+	public String getStatistics() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("name,threads,active,queued,max_queued,submitted,completed,rejected,caller_runs,failed\n");
+		sb.append(getMissionExecutor().getStatistics()).append("\n");
+		sb.append(getCpuExecutor().getStatistics()).append("\n");
+		sb.append(getIoExecutor().getStatistics()).append("\n");
+		return sb.toString();
+	}
+
+	private int missionThreads() {
+		return Math.max(1, context.executorMissionThreads);
+	}
+
+	private int cpuThreads() {
+		return (context.executorCpuThreads > 0) ? context.executorCpuThreads
+				: Runtime.getRuntime().availableProcessors();
+	}
+
+	private int ioThreads() {
+		return Math.max(1, context.executorIoThreads);
+	}
+
+	private int queueSize() {
+		return Math.max(1, context.executorQueueSize);
+	}
+}
@@ -0,0 +1,307 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+
+import com.afarcloud.thrift.Equipment;
+import com.afarcloud.thrift.Vehicle;
+
+import afc.mw.MissionManager.MissionManagerContext;
+
+/**
+ * Resampling of the treatment grids onto the cell size of the implement that applies them.
+ *
+ * Both grids share their south-west corner. Each cell of the target grid takes a weighted mean of
+ * the source cells, depending on the mode:
+ *
+ * <ul>
+ * <li><b>nearest</b>: the source cell under the center of the target cell.</li>
+ * <li><b>bilinear</b>: the four source cells around the center of the target cell, weighted by their
+ * distance.</li>
+ * <li><b>area</b>: the source cells overlapped by the target cell, weighted by the overlapping area.</li>
+ * </ul>
+ *
+ * The weights are separable, so they are computed once per target row and column. Cells without a
+ * finite value do not contribute, and target cells without any source value (beyond the source grid)
+ * get {@code NaN}. The target rows are split into bands across the workers of a fork-join pool.
+ *
+ * The cell size of each vehicle is set with the property {@code isobusconverter.resample}, as a comma
+ * separated list of {@code <type>:<cell size in metres>[:<mode>]}, where the type is either a vehicle
+ * type or an equipment type (the equipment of the vehicle is looked up first), and the mode is
+ * {@code area} if not set.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class GridResampler {
+	/** Number of target cells below which a band of rows is not split any further. */
+	private static final int SPLIT_THRESHOLD = 1 << 15;
+
+	/**
+	 * Resampling modes.
+	 */
+	public enum Mode {
+		NEAREST, BILINEAR, AREA
+	}
+
+	/**
+	 * Resampling of the grids of a vehicle or equipment type.
+	 */
+	public static final class Rule {
+		/** Vehicle or equipment type name. */
+		public final String type;
+		/** Target cell size, in metres. */
+		public final double cellSize;
+		public final Mode mode;
+
+		Rule(String type, double cellSize, Mode mode) {
+			this.type = type;
+			this.cellSize = cellSize;
+			this.mode = mode;
+		}
+	}
+
+	/** The rules and the property value they were parsed from, replaced together. */
+	private static final class Rules {
+		final String value;
+		final List<Rule> rules = new ArrayList<Rule>();
+
+		Rules(String value) {
+			this.value = value;
+			for (String entry : value.split(",")) {
+				if (entry.trim().isEmpty()) {
+					continue;
+				}
+				String[] fields = entry.trim().split(":");
+				try {
+					if (fields.length < 2 || fields.length > 3) {
+						throw new IllegalArgumentException("expected <type>:<cell size>[:<mode>]");
+					}
+					double cellSize = Double.parseDouble(fields[1].trim());
+					if (!(cellSize > 0) || Double.isInfinite(cellSize)) {
+						throw new IllegalArgumentException("the cell size must be positive");
+					}
+					Mode mode = (fields.length == 3) ? Mode.valueOf(fields[2].trim().toUpperCase()) : Mode.AREA;
+					rules.add(new Rule(fields[0].trim(), cellSize, mode));
+				} catch (IllegalArgumentException e) {
+					MissionManagerContext.getInstance().mmLog.log(Level.WARNING,
+							"Ignored grid resampling rule \"" + entry.trim() + "\": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private static volatile Rules rules = new Rules("");
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a new resampler.
+	 *
+	 * @param pool	The fork-join pool large grids are resampled on
+	 */
+	public GridResampler(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Finds the resampling rule of a vehicle: the rule of the first of its equipments with one, or else
+	 * the rule of its type.
+	 *
+	 * @param value		The resampling rules ({@code isobusconverter.resample})
+	 * @param vehicle	The vehicle
+	 * @return The resampling rule, or {@code null} if the grids of the vehicle are not resampled.
+	 */
+	public static Rule findRule(String value, Vehicle vehicle) {
+		Rules current = rules;
+		if (!current.value.equals(value)) {
+			current = new Rules(value);
+			rules = current;
+		}
+		if (current.rules.isEmpty()) {
+			return null;
+		}
+
+		if (vehicle.equipments != null) {
+			for (Equipment equipment : vehicle.equipments) {
+				for (Rule rule : current.rules) {
+					if (equipment.type != null && rule.type.equalsIgnoreCase(equipment.type.name())) {
+						return rule;
+					}
+				}
+			}
+		}
+		for (Rule rule : current.rules) {
+			if (vehicle.type != null && rule.type.equalsIgnoreCase(vehicle.type.name())) {
+				return rule;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Resamples a grid onto another cell size.
+	 *
+	 * @param values			The values of the source grid, row by row
+	 * @param columns			Number of columns of the source grid
+	 * @param rows				Number of rows of the source grid
+	 * @param cellWidth			East size of the source cells
+	 * @param cellHeight		North size of the source cells
+	 * @param targetCellWidth	East size of the target cells (in the same units)
+	 * @param targetCellHeight	North size of the target cells (in the same units)
+	 * @param targetColumns		Number of columns of the target grid
+	 * @param targetRows		Number of rows of the target grid
+	 * @param mode				The resampling mode
+	 * @return The values of the target grid, row by row
+	 */
+	public double[] resample(double[] values, int columns, int rows, double cellWidth, double cellHeight,
+			double targetCellWidth, double targetCellHeight, int targetColumns, int targetRows, Mode mode) {
+		Axis x = new Axis(mode, columns, targetCellWidth / cellWidth, targetColumns);
+		Axis y = new Axis(mode, rows, targetCellHeight / cellHeight, targetRows);
+		double[] target = new double[targetColumns * targetRows];
+		pool.invoke(new BandTask(values, columns, x, y, target, 0, targetRows));
+		return target;
+	}
+
+	/**
+	 * Source cells and weights of each target cell along one axis.
+	 */
+	private static final class Axis {
+		/** First source cell of each target cell. */
+		final int[] first;
+		/** Position of the weights of each target cell (and of the end, after the last one). */
+		final int[] offset;
+		final double[] weight;
+
+		/**
+		 * @param mode		The resampling mode
+		 * @param size		Number of source cells
+		 * @param ratio		Size of the target cells, in source cells
+		 * @param target	Number of target cells
+		 */
+		Axis(Mode mode, int size, double ratio, int target) {
+			first = new int[target];
+			offset = new int[target + 1];
+			double[] weights = new double[Math.max(2, target * ((mode == Mode.AREA) ? (int) Math.ceil(ratio) + 1 : 2))];
+			int count = 0;
+
+			for (int t = 0; t < target; t++) {
+				offset[t] = count;
+				double center = (t + 0.5) * ratio;
+				if (mode == Mode.NEAREST) {
+					if (center < size) {
+						first[t] = (int) center;
+						weights[count++] = 1;
+					}
+				} else if (mode == Mode.BILINEAR) {
+					if (center < size) {
+						// Position relative to the source cell centers, clamped to the first and last ones
+						double position = Math.max(0, Math.min(size - 1, center - 0.5));
+						int low = (int) position;
+						double fraction = position - low;
+						first[t] = low;
+						weights[count++] = 1 - fraction;
+						if (low + 1 < size) {
+							weights[count++] = fraction;
+						}
+					}
+				} else {
+					double from = t * ratio;
+					double to = Math.min(size, (t + 1) * ratio);
+					if (from < size) {
+						int low = (int) from;
+						first[t] = low;
+						for (int s = low; s < to; s++) {
+							if (count == weights.length) {
+								weights = Arrays.copyOf(weights, weights.length * 2);
+							}
+							weights[count++] = Math.min(to, s + 1) - Math.max(from, s);
+						}
+					}
+				}
+			}
+			offset[target] = count;
+			weight = weights;
+		}
+	}
+
+	private static final class BandTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] values;
+		private final int columns;
+		private final Axis x;
+		private final Axis y;
+		private final double[] target;
+		private final int fromRow;
+		private final int toRow;
+
+		BandTask(double[] values, int columns, Axis x, Axis y, double[] target, int fromRow, int toRow) {
+			this.values = values;
+			this.columns = columns;
+			this.x = x;
+			this.y = y;
+			this.target = target;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+		}
+
+		@Override
+		protected void compute() {
+			int targetColumns = x.first.length;
+			if (toRow - fromRow > 1 && (long) (toRow - fromRow) * targetColumns > SPLIT_THRESHOLD) {
+				int middle = (fromRow + toRow) >>> 1;
+				invokeAll(new BandTask(values, columns, x, y, target, fromRow, middle),
+						new BandTask(values, columns, x, y, target, middle, toRow));
+				return;
+			}
+
+			for (int row = fromRow; row < toRow; row++) {
+				for (int column = 0; column < targetColumns; column++) {
+					double sum = 0;
+					double weights = 0;
+					for (int i = y.offset[row], sourceRow = y.first[row]; i < y.offset[row + 1]; i++, sourceRow++) {
+						int rowStart = sourceRow * columns;
+						for (int j = x.offset[column], sourceColumn = x.first[column]; j < x.offset[column + 1]; j++, sourceColumn++) {
+							double value = values[rowStart + sourceColumn];
+							if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+								double weight = y.weight[i] * x.weight[j];
+								sum += weight * value;
+								weights += weight;
+							}
+						}
+					}
+					target[row * targetColumns + column] = (weights > 0) ? sum / weights : Double.NaN;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,213 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import afc.mw.MissionManager.MissionManagerContext;
+
+/**
+ * Bounded thread pool with named daemon threads, which keeps track of the submitted, completed
+ * and rejected tasks and of the maximum queue depth reached.
+ * 
+ * Only the tasks accepted by the pool are counted as submitted. The rejected tasks which are run
+ * by the submitting thread ({@link ThreadPoolExecutor.CallerRunsPolicy}) are counted apart, and
+ * also as completed or failed.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+	private Logger sciLog = MissionManagerContext.getInstance().sciLog;
+
+	private final String name;
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong callerRuns = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+	/**
+	 * Creates a new bounded thread pool.
+	 * 
+	 * @param name		The pool name (threads are named {@code mm-<name>-<n>})
+	 * @param threads	The number of threads
+	 * @param queueSize	The maximum number of tasks waiting to be run
+	 * @param overflow	What to do with the tasks which do not fit in the queue
+	 */
+	public InstrumentedThreadPoolExecutor(String name, int threads, int queueSize, RejectedExecutionHandler overflow) {
+		super(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize));
+		this.name = name;
+
+		AtomicInteger threadCount = new AtomicInteger();
+		setThreadFactory(runnable -> {
+			Thread thread = new Thread(runnable, "mm-" + name + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		setRejectedExecutionHandler((runnable, executor) -> {
+			submitted.decrementAndGet();
+			long count = rejected.incrementAndGet();
+			sciLog.log(Level.INFO, "executor,rejected,{0},{1},{2},{3}",
+					new Object[] { name, executor.getQueue().size(), executor.getActiveCount(), count });
+			if (overflow instanceof ThreadPoolExecutor.CallerRunsPolicy) {
+				if (!executor.isShutdown()) {
+					runInCaller(runnable);
+				}
+			} else {
+				overflow.rejectedExecution(runnable, executor);
+			}
+		});
+		allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		// Counted before handing it over, as it may be completed before execute() returns. The rejection
+		// handler takes it back
+		submitted.incrementAndGet();
+		super.execute(command);
+
+		int depth = getQueue().size();
+		int max = maxQueueDepth.get();
+		while (depth > max && !maxQueueDepth.compareAndSet(max, depth)) {
+			max = maxQueueDepth.get();
+		}
+	}
+
+	@Override
+	protected void afterExecute(Runnable runnable, Throwable throwable) {
+		super.afterExecute(runnable, throwable);
+		completed.incrementAndGet();
+
+		// The tasks added with submit() keep their exception in their Future
+		if (throwable == null && runnable instanceof Future<?> && ((Future<?>) runnable).isDone()) {
+			try {
+				((Future<?>) runnable).get();
+			} catch (CancellationException e) {
+				// A cancelled task has not failed
+			} catch (ExecutionException e) {
+				throwable = e.getCause();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (throwable != null) {
+			failed.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Runs a rejected task in the submitting thread, accounting it as the pool threads do.
+	 * 
+	 * @param runnable The rejected task
+	 */
+	private void runInCaller(Runnable runnable) {
+		callerRuns.incrementAndGet();
+		Throwable throwable = null;
+		try {
+			runnable.run();
+		} catch (RuntimeException | Error e) {
+			throwable = e;
+			throw e;
+		} finally {
+			afterExecute(runnable, throwable);
+		}
+	}
+
+	/**
+	 * Changes the number of threads of the pool.
+	 * 
+	 * @param threads The new number of threads
+	 */
+	public void resize(int threads) {
+		if (threads == getMaximumPoolSize()) {
+			return;
+		}
+
+		if (threads > getMaximumPoolSize()) {
+			setMaximumPoolSize(threads);
+			setCorePoolSize(threads);
+		} else {
+			setCorePoolSize(threads);
+			setMaximumPoolSize(threads);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	public long getCompletedCount() {
+		return completed.get();
+	}
+
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	public long getCallerRunsCount() {
+		return callerRuns.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	public int getQueueDepth() {
+		return getQueue().size();
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	/**
+	 * Gets the statistics of the pool as a CSV fragment:
+	 * {@code name,threads,active,queued,max_queued,submitted,completed,rejected,caller_runs,failed}.
+	 * 
+	 * @return The statistics of the pool.
+	 */
+	public String getStatistics() {
+		return name + "," + getPoolSize() + "," + getActiveCount() + "," + getQueueDepth() + ","
+				+ getMaxQueueDepth() + "," + submitted.get() + "," + completed.get() + "," + rejected.get() + ","
+				+ callerRuns.get() + "," + failed.get();
+	}
+}
@@ -0,0 +1,255 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map with primitive {@code int} keys.
+ * 
+ * Keys are stored unboxed and probed linearly, so a lookup is one hash, a few array reads and no
+ * allocation. The map is not synchronized: it is meant to be built by a single writer and then
+ * published (e.g. through a {@code volatile} field) as a read-only snapshot, which can be read
+ * concurrently by any number of threads.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ * @param <V> The type of the values. {@code null} values are not allowed.
+ */
+public class IntHashMap<V> {
+	private static final int MIN_CAPACITY = 8;
+
+	private int[] keys;
+	private Object[] values;
+	private int size = 0;
+	private int mask;
+
+	public IntHashMap() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Creates a map able to hold the given number of entries without resizing.
+	 * 
+	 * @param expectedSize The expected number of entries
+	 */
+	public IntHashMap(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Creates a copy of another map.
+	 * 
+	 * @param other The map to be copied
+	 */
+	public IntHashMap(IntHashMap<V> other) {
+		keys = Arrays.copyOf(other.keys, other.keys.length);
+		values = Arrays.copyOf(other.values, other.values.length);
+		size = other.size;
+		mask = other.mask;
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Gets the value associated to a key.
+	 * 
+	 * @param key The key
+	 * @return The value, or {@code null} if there is no value for the key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int i = hash(key) & mask;
+		Object value;
+		while ((value = values[i]) != null) {
+			if (keys[i] == key) {
+				return (V) value;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if there is a value associated to a key.
+	 * 
+	 * @param key The key
+	 * @return {@code true} if there is a value for the key; {@code false} otherwise.
+	 */
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Associates a value to a key, replacing any previous value.
+	 * 
+	 * @param key	The key
+	 * @param value	The value (not {@code null})
+	 * @return The previous value, or {@code null} if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if (value == null) {
+			throw new NullPointerException("IntHashMap does not allow null values");
+		}
+
+		int i = hash(key) & mask;
+		Object current;
+		while ((current = values[i]) != null) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return (V) current;
+			}
+			i = (i + 1) & mask;
+		}
+
+		keys[i] = key;
+		values[i] = value;
+		if (++size * 2 > values.length) {
+			resize(values.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the value associated to a key.
+	 * 
+	 * @param key The key
+	 * @return The removed value, or {@code null} if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int i = hash(key) & mask;
+		Object current;
+		while ((current = values[i]) != null) {
+			if (keys[i] == key) {
+				values[i] = null;
+				size--;
+				shiftBack(i);
+				return (V) current;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the number of entries.
+	 * 
+	 * @return The number of entries.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map is empty.
+	 * 
+	 * @return {@code true} if there are no entries; {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the keys of the map, in no particular order.
+	 * 
+	 * @return The keys.
+	 */
+	public int[] keys() {
+		int[] result = new int[size];
+		int n = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				result[n++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the values of the map, in no particular order.
+	 * 
+	 * @return The values.
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayList<V> values() {
+		ArrayList<V> result = new ArrayList<V>(size);
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				result.add((V) values[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Closes the gap left by a removed entry, so later entries of the same probe chain stay reachable.
+	 */
+	private void shiftBack(int gap) {
+		int i = (gap + 1) & mask;
+		while (values[i] != null) {
+			int home = hash(keys[i]) & mask;
+			// Move the entry back if its home slot is not cyclically within (gap, i]
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				values[i] = null;
+				gap = i;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int j = hash(oldKeys[i]) & mask;
+				while (values[j] != null) {
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+}
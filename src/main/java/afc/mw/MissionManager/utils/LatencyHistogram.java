@@ -0,0 +1,222 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with fixed, roughly logarithmic buckets (by default, 1 ms to 20 s), used
+ * to keep track of the response times of the remote services and of the mission processing stages.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class LatencyHistogram {
+	/** Upper bound (inclusive, in milliseconds) of each bucket but the last one, which has no bound. */
+	public static final long[] BUCKET_BOUNDS_MS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000 };
+
+	private final String name;
+	private final long[] boundsNanos;
+	private final AtomicLongArray buckets;
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * Creates a new empty histogram with the default buckets ({@link #BUCKET_BOUNDS_MS}).
+	 * 
+	 * @param name The histogram name (usually the remote endpoint)
+	 */
+	public LatencyHistogram(String name) {
+		this(name, toNanos(BUCKET_BOUNDS_MS));
+	}
+
+	/**
+	 * Creates a new empty histogram.
+	 * 
+	 * @param name			The histogram name
+	 * @param boundsNanos	Upper bound (inclusive, in nanoseconds, in ascending order) of each bucket but
+	 * 						the last one, which has no bound
+	 */
+	public LatencyHistogram(String name, long[] boundsNanos) {
+		this.name = name;
+		this.boundsNanos = boundsNanos.clone();
+		this.buckets = new AtomicLongArray(boundsNanos.length + 1);
+	}
+
+	/**
+	 * Records the latency of a request.
+	 * 
+	 * @param nanos		The latency, in nanoseconds
+	 * @param success	{@code false} if the request failed (no response or an error status)
+	 */
+	public void record(long nanos, boolean success) {
+		int bucket = 0;
+		while (bucket < boundsNanos.length && nanos > boundsNanos[bucket]) {
+			bucket++;
+		}
+		buckets.incrementAndGet(bucket);
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		if (!success) {
+			errors.incrementAndGet();
+		}
+
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	/**
+	 * Gets the histogram name.
+	 * 
+	 * @return The histogram name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the number of recorded requests.
+	 * 
+	 * @return The number of recorded requests
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Gets the number of recorded requests which failed.
+	 * 
+	 * @return The number of failed requests
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 * Gets the sum of all the recorded latencies.
+	 * 
+	 * @return The sum of the latencies, in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	/**
+	 * Gets the maximum recorded latency.
+	 * 
+	 * @return The maximum latency, in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * Gets the upper bound of each bucket but the last one.
+	 * 
+	 * @return The bucket bounds, in nanoseconds
+	 */
+	public long[] getBucketBoundsNanos() {
+		return boundsNanos.clone();
+	}
+
+	/**
+	 * Gets the number of requests recorded in each bucket (see {@link #getBucketBoundsNanos()}).
+	 * 
+	 * @return A snapshot of the bucket counters
+	 */
+	public long[] getBucketCounts() {
+		long[] counts = new long[buckets.length()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets.get(i);
+		}
+		return counts;
+	}
+
+	/**
+	 * Estimates a percentile of the recorded latencies, as the upper bound of the bucket it falls in.
+	 * 
+	 * @param percentile The percentile (0-100)
+	 * @return The estimated latency, in milliseconds (the maximum latency for the unbounded bucket)
+	 */
+	public long getPercentileMillis(double percentile) {
+		return TimeUnit.NANOSECONDS.toMillis(getPercentileNanos(percentile));
+	}
+
+	/**
+	 * Estimates a percentile of the recorded latencies, as the upper bound of the bucket it falls in.
+	 * 
+	 * @param percentile The percentile (0-100)
+	 * @return The estimated latency, in nanoseconds (the maximum latency for the unbounded bucket)
+	 */
+	public long getPercentileNanos(double percentile) {
+		long[] counts = getBucketCounts();
+		long total = 0;
+		for (long c : counts) {
+			total += c;
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(total * percentile / 100.0);
+		long seen = 0;
+		for (int i = 0; i < boundsNanos.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return boundsNanos[i];
+			}
+		}
+		return maxNanos.get();
+	}
+
+	/**
+	 * Gets the histogram summary as a CSV line
+	 * (name,count,errors,mean_ms,p50_ms,p90_ms,p99_ms,max_ms).
+	 * 
+	 * @return The histogram summary
+	 */
+	public String getStatistics() {
+		long n = count.get();
+		double mean = (n > 0) ? totalNanos.get() / 1e6 / n : 0;
+		return name + "," + n + "," + errors.get() + "," + String.format(Locale.ROOT, "%.3f", mean) + ","
+				+ getPercentileMillis(50) + "," + getPercentileMillis(90) + "," + getPercentileMillis(99) + ","
+				+ String.format(Locale.ROOT, "%.3f", maxNanos.get() / 1e6);
+	}
+
+	private static long[] toNanos(long[] millis) {
+		long[] nanos = new long[millis.length];
+		for (int i = 0; i < millis.length; i++) {
+			nanos[i] = TimeUnit.MILLISECONDS.toNanos(millis[i]);
+		}
+		return nanos;
+	}
+}
@@ -0,0 +1,169 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Base for the Mission Manager log formatters. The formatters are meant to be used by a single
+ * writer thread (see {@link AsyncLogHandler}): they are not synchronized, and reuse the same
+ * pre-sized buffer, timestamp and level names for every record.
+ * 
+ * Messages can be parameterized, with {@code {0}} to {@code {9}} placeholders replaced by
+ * {@code String.valueOf} of the record parameters (numbers are not localized, unlike
+ * {@link java.text.MessageFormat}), so the message is only built when the record is written.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public abstract class LogFormatter extends Formatter {
+	protected static final String LINE_SEPARATOR = System.lineSeparator();
+	private static final int BUFFER_SIZE = 512;
+	private static final int MAX_RETAINED_BUFFER_SIZE = 16384;
+
+	private final SimpleDateFormat timestampFormat;
+	private long timestampSecond = Long.MIN_VALUE;
+	private String timestamp = "";
+	private final HashMap<Level, String> levelNames = new HashMap<Level, String>();
+
+	private StringBuilder buffer = new StringBuilder(BUFFER_SIZE);
+
+	/**
+	 * @param timestampPattern The {@link SimpleDateFormat} pattern for the timestamp of the records
+	 */
+	protected LogFormatter(String timestampPattern) {
+		timestampFormat = new SimpleDateFormat(timestampPattern);
+	}
+
+	@Override
+	public String format(LogRecord record) {
+		if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+			buffer = new StringBuilder(BUFFER_SIZE);
+		}
+		buffer.setLength(0);
+		format(record, buffer);
+		return buffer.toString();
+	}
+
+	/**
+	 * Writes a record.
+	 * 
+	 * @param record	The record
+	 * @param sb		The buffer, empty
+	 */
+	protected abstract void format(LogRecord record, StringBuilder sb);
+
+	/**
+	 * Gets the timestamp (with a resolution of one second) of a record.
+	 * 
+	 * @param record	The record
+	 * @return The formatted timestamp
+	 */
+	protected String getTimestamp(LogRecord record) {
+		long second = record.getMillis() / 1000;
+		if (second != timestampSecond) {
+			timestampSecond = second;
+			timestamp = timestampFormat.format(new Date(record.getMillis()));
+		}
+		return timestamp;
+	}
+
+	/**
+	 * Appends the (localized) name of the level of a record, left-aligned on 7 characters.
+	 * 
+	 * @param record	The record
+	 * @param sb		The buffer
+	 */
+	protected void appendLevel(LogRecord record, StringBuilder sb) {
+		String name = levelNames.get(record.getLevel());
+		if (name == null) {
+			name = record.getLevel().getLocalizedName();
+			levelNames.put(record.getLevel(), name);
+		}
+		sb.append(name);
+		for (int i = name.length(); i < 7; i++) {
+			sb.append(' ');
+		}
+	}
+
+	/**
+	 * Appends the simple name of the class that issued a record.
+	 * 
+	 * @param record	The record
+	 * @param sb		The buffer
+	 */
+	protected void appendSourceClass(LogRecord record, StringBuilder sb) {
+		String name = record.getSourceClassName();
+		if (name != null) {
+			sb.append(name, name.lastIndexOf('.') + 1, name.length());
+		}
+	}
+
+	/**
+	 * Appends the message of a record, replacing its placeholders by the record parameters.
+	 * 
+	 * @param record	The record
+	 * @param sb		The buffer
+	 */
+	protected void appendMessage(LogRecord record, StringBuilder sb) {
+		String message = record.getMessage();
+		Object[] parameters = record.getParameters();
+		if (message == null || parameters == null || parameters.length == 0) {
+			sb.append(message);
+			return;
+		}
+
+		int length = message.length();
+		int start = 0;
+		for (int i = 0; i + 2 < length; i++) {
+			char digit = message.charAt(i + 1);
+			if (message.charAt(i) == '{' && digit >= '0' && digit <= '9' && message.charAt(i + 2) == '}'
+					&& digit - '0' < parameters.length) {
+				sb.append(message, start, i);
+				appendParameter(parameters[digit - '0'], sb);
+				i += 2;
+				start = i + 1;
+			}
+		}
+		sb.append(message, start, length);
+	}
+
+	private static void appendParameter(Object parameter, StringBuilder sb) {
+		if (parameter instanceof Long) {
+			sb.append(((Long) parameter).longValue());
+		}
+		else if (parameter instanceof Integer) {
+			sb.append(((Integer) parameter).intValue());
+		}
+		else {
+			sb.append(parameter);
+		}
+	}
+}
@@ -0,0 +1,308 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import afc.mw.MissionManager.MissionManager;
+import afc.mw.MissionManager.MissionManagerContext;
+
+/**
+ * Registry of the latency histograms of the mission processing stages, one per stage and outcome.
+ * Stages are timed with the monotonic clock ({@link System#nanoTime()}) and, if enabled, also written
+ * to the SCI log in its usual CSV format. The histograms, the HTTP client latencies and the state of
+ * the queues and thread pools are exported in the Prometheus text format.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class MetricsRegistry {
+	/** Upper bound (inclusive, in nanoseconds) of each stage bucket but the last one (100 us to 30 s). */
+	public static final long[] STAGE_BUCKET_BOUNDS_NANOS = {
+			100_000L, 250_000L, 500_000L,
+			1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+			100_000_000L, 250_000_000L, 500_000_000L,
+			1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L, 30_000_000_000L };
+
+	/** Outcome of the stages which do not report one. */
+	public static final String SUCCESS = "success";
+
+	private static MetricsRegistry instance = null;
+
+	private MissionManagerContext context = MissionManagerContext.getInstance();
+	private Logger sciLog = context.sciLog;
+
+	/** Histograms by stage and outcome. */
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, LatencyHistogram>> stages =
+			new ConcurrentHashMap<String, ConcurrentHashMap<String, LatencyHistogram>>();
+
+	/** Published vehicle plans and their total size in bytes, by Prometheus labels (vehicle type and encoding). */
+	private final ConcurrentHashMap<String, AtomicLong[]> payloads = new ConcurrentHashMap<String, AtomicLong[]>();
+
+	private MetricsRegistry() { }
+
+	public static synchronized MetricsRegistry getInstance() {
+		if (instance == null) {
+			instance = new MetricsRegistry();
+		}
+		return instance;
+	}
+
+	/**
+	 * Starts timing a stage.
+	 * 
+	 * @return The start time, to be passed to {@link #record}, {@link #recordExit} or {@link #observe}.
+	 */
+	public long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records the duration of a stage in its histogram, without writing it to the SCI log.
+	 * 
+	 * @param stage			The stage name
+	 * @param outcome		The stage outcome ({@code null} for {@value #SUCCESS})
+	 * @param startNanos	The start time, as returned by {@link #start()}
+	 * @return The duration of the stage, in nanoseconds
+	 */
+	public long observe(String stage, String outcome, long startNanos) {
+		long elapsed = System.nanoTime() - startNanos;
+		getHistogram(stage, (outcome != null) ? outcome : SUCCESS).record(elapsed, true);
+		return elapsed;
+	}
+
+	/**
+	 * Records the duration of a stage, and writes it to the SCI log as
+	 * {@code stage,outcome,start_ms,end_ms,elapsed_ms} ({@code stage,start_ms,end_ms,elapsed_ms} if
+	 * there is no outcome).
+	 * 
+	 * @param sourceClass	The class that timed the stage, for the SCI log
+	 * @param sourceMethod	The method that timed the stage, for the SCI log
+	 * @param stage			The stage name
+	 * @param outcome		The stage outcome ({@code null} if the stage does not report one)
+	 * @param startNanos	The start time, as returned by {@link #start()}
+	 * @return The duration of the stage, in nanoseconds
+	 */
+	public long record(String sourceClass, String sourceMethod, String stage, String outcome, long startNanos) {
+		long elapsed = observe(stage, outcome, startNanos);
+
+		if (context.metricsSciLog) {
+			long toc = System.currentTimeMillis();
+			long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+			if (outcome != null) {
+				sciLog.logp(Level.INFO, sourceClass, sourceMethod, "{0},{1},{2},{3},{4}",
+						new Object[] { stage, outcome, toc - millis, toc, millis });
+			} else {
+				sciLog.logp(Level.INFO, sourceClass, sourceMethod, "{0},{1},{2},{3}",
+						new Object[] { stage, toc - millis, toc, millis });
+			}
+		}
+		return elapsed;
+	}
+
+	/**
+	 * Records the duration of a request, and writes it to the SCI log as
+	 * {@code stage_exit,ok,,elapsed_ms} or {@code stage_exit,nok,reason,elapsed_ms}.
+	 * 
+	 * @param sourceClass	The class that served the request, for the SCI log
+	 * @param sourceMethod	The method that served the request, for the SCI log
+	 * @param stage			The stage name
+	 * @param reason		The reason the request failed ({@code null} if it succeeded, recorded as {@code ok})
+	 * @param startNanos	The start time, as returned by {@link #start()}
+	 * @return The duration of the request, in nanoseconds
+	 */
+	public long recordExit(String sourceClass, String sourceMethod, String stage, String reason, long startNanos) {
+		long elapsed = observe(stage, (reason != null) ? reason : "ok", startNanos);
+
+		if (context.metricsSciLog) {
+			sciLog.logp(Level.INFO, sourceClass, sourceMethod, "{0}_exit,{1},{2},{3}",
+					new Object[] { stage, (reason != null) ? "nok" : "ok", (reason != null) ? reason : "",
+						TimeUnit.NANOSECONDS.toMillis(elapsed) });
+		}
+		return elapsed;
+	}
+
+	/**
+	 * Records the size of a published vehicle plan.
+	 * 
+	 * @param vehicleType	The vehicle type
+	 * @param encoding		The encoding of the plan
+	 * @param bytes			The size of the published payload, in bytes
+	 */
+	public void recordPayload(String vehicleType, String encoding, long bytes) {
+		String labels = "vehicle_type=\"" + escape(vehicleType) + "\",encoding=\"" + escape(encoding) + "\"";
+		AtomicLong[] counters = payloads.get(labels);
+		if (counters == null) {
+			payloads.putIfAbsent(labels, new AtomicLong[] { new AtomicLong(), new AtomicLong() });
+			counters = payloads.get(labels);
+		}
+		counters[0].incrementAndGet();
+		counters[1].addAndGet(bytes);
+	}
+
+	/**
+	 * Gets the histogram of a stage outcome, creating it if needed.
+	 * 
+	 * @param stage		The stage name
+	 * @param outcome	The stage outcome
+	 * @return The histogram
+	 */
+	public LatencyHistogram getHistogram(String stage, String outcome) {
+		ConcurrentHashMap<String, LatencyHistogram> outcomes = stages.get(stage);
+		if (outcomes == null) {
+			stages.putIfAbsent(stage, new ConcurrentHashMap<String, LatencyHistogram>());
+			outcomes = stages.get(stage);
+		}
+
+		LatencyHistogram histogram = outcomes.get(outcome);
+		if (histogram == null) {
+			outcomes.putIfAbsent(outcome, new LatencyHistogram(stage, STAGE_BUCKET_BOUNDS_NANOS));
+			histogram = outcomes.get(outcome);
+		}
+		return histogram;
+	}
+
+	/**
+	 * Gets the stage histograms, the HTTP client latencies and the state of the missions, queues, logs and
+	 * thread pools in the Prometheus text format (version 0.0.4).
+	 * 
+	 * @return The metrics of the Mission Manager.
+	 */
+	public String getPrometheus() {
+		StringBuilder sb = new StringBuilder(16384);
+
+		header(sb, "mm_stage_duration_seconds", "histogram", "Duration of the mission processing stages.");
+		for (Map.Entry<String, ConcurrentHashMap<String, LatencyHistogram>> stage : new TreeMap<>(stages).entrySet()) {
+			for (Map.Entry<String, LatencyHistogram> outcome : new TreeMap<>(stage.getValue()).entrySet()) {
+				histogram(sb, "mm_stage_duration_seconds",
+						"stage=\"" + escape(stage.getKey()) + "\",outcome=\"" + escape(outcome.getKey()) + "\"",
+						outcome.getValue());
+			}
+		}
+
+		header(sb, "mm_vehicle_plan_payloads_total", "counter", "Vehicle plans published, by vehicle type and encoding.");
+		for (Map.Entry<String, AtomicLong[]> payload : new TreeMap<>(payloads).entrySet()) {
+			sample(sb, "mm_vehicle_plan_payloads_total", payload.getKey(), payload.getValue()[0].get());
+		}
+		header(sb, "mm_vehicle_plan_payload_bytes_total", "counter", "Size of the vehicle plans published, by vehicle type and encoding.");
+		for (Map.Entry<String, AtomicLong[]> payload : new TreeMap<>(payloads).entrySet()) {
+			sample(sb, "mm_vehicle_plan_payload_bytes_total", payload.getKey(), payload.getValue()[1].get());
+		}
+
+		LatencyHistogram[] endpoints = RestClient.getInstance().getLatencyHistograms();
+		header(sb, "mm_http_client_duration_seconds", "histogram", "Duration of the requests to the remote services.");
+		for (LatencyHistogram endpoint : endpoints) {
+			histogram(sb, "mm_http_client_duration_seconds", "endpoint=\"" + escape(endpoint.getName()) + "\"", endpoint);
+		}
+		header(sb, "mm_http_client_errors_total", "counter", "Failed requests to the remote services.");
+		for (LatencyHistogram endpoint : endpoints) {
+			sample(sb, "mm_http_client_errors_total", "endpoint=\"" + escape(endpoint.getName()) + "\"",
+					endpoint.getErrors());
+		}
+
+		ExecutorManager executors = ExecutorManager.getInstance();
+		InstrumentedThreadPoolExecutor[] pools = { executors.getMissionExecutor(), executors.getCpuExecutor(),
+				executors.getIoExecutor() };
+		header(sb, "mm_executor_threads", "gauge", "Threads of the thread pools.");
+		for (InstrumentedThreadPoolExecutor pool : pools) {
+			sample(sb, "mm_executor_threads", "pool=\"" + pool.getName() + "\"", pool.getPoolSize());
+		}
+		header(sb, "mm_executor_active_threads", "gauge", "Threads running a task.");
+		for (InstrumentedThreadPoolExecutor pool : pools) {
+			sample(sb, "mm_executor_active_threads", "pool=\"" + pool.getName() + "\"", pool.getActiveCount());
+		}
+		header(sb, "mm_executor_queued_tasks", "gauge", "Tasks waiting for a thread.");
+		for (InstrumentedThreadPoolExecutor pool : pools) {
+			sample(sb, "mm_executor_queued_tasks", "pool=\"" + pool.getName() + "\"", pool.getQueueDepth());
+		}
+		header(sb, "mm_executor_tasks_total", "counter", "Tasks submitted to the thread pools, by result.");
+		for (InstrumentedThreadPoolExecutor pool : pools) {
+			String labels = "pool=\"" + pool.getName() + "\",result=\"";
+			sample(sb, "mm_executor_tasks_total", labels + "submitted\"", pool.getSubmittedCount());
+			sample(sb, "mm_executor_tasks_total", labels + "completed\"", pool.getCompletedCount());
+			sample(sb, "mm_executor_tasks_total", labels + "rejected\"", pool.getRejectedCount());
+			sample(sb, "mm_executor_tasks_total", labels + "caller_runs\"", pool.getCallerRunsCount());
+			sample(sb, "mm_executor_tasks_total", labels + "failed\"", pool.getFailedCount());
+		}
+
+		header(sb, "mm_active_missions", "gauge", "Missions not started or running.");
+		sample(sb, "mm_active_missions", null, MissionManager.getInstance().getActiveMissions().size());
+		header(sb, "mm_dq_outbox_pending", "gauge", "Records waiting to be stored through the Data Query.");
+		sample(sb, "mm_dq_outbox_pending", null, DqOutbox.getInstance().getPending());
+		header(sb, "mm_mmt_pending", "gauge", "Notifications waiting to be sent to the MMT.");
+		sample(sb, "mm_mmt_pending", null, MmtClient.getInstance().getPending());
+		header(sb, "mm_log_pending", "gauge", "Log records waiting to be written.");
+		sample(sb, "mm_log_pending", "log=\"MissionManager\"", context.mmLogHandler.getPending());
+		sample(sb, "mm_log_pending", "log=\"SciTrack\"", context.sciLogHandler.getPending());
+
+		return sb.toString();
+	}
+
+	private static void header(StringBuilder sb, String name, String type, String help) {
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder sb, String name, String labels, long value) {
+		sb.append(name);
+		if (labels != null) {
+			sb.append('{').append(labels).append('}');
+		}
+		sb.append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * Appends a histogram with cumulative buckets, as required by Prometheus.
+	 */
+	private static void histogram(StringBuilder sb, String name, String labels, LatencyHistogram histogram) {
+		long[] bounds = histogram.getBucketBoundsNanos();
+		long[] counts = histogram.getBucketCounts();
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			sb.append(name).append("_bucket{").append(labels).append(",le=\"")
+					.append((i < bounds.length) ? seconds(bounds[i]) : "+Inf").append("\"} ").append(cumulative)
+					.append('\n');
+		}
+		sb.append(name).append("_sum{").append(labels).append("} ").append(seconds(histogram.getTotalNanos()))
+				.append('\n');
+		sb.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+	}
+
+	private static String seconds(long nanos) {
+		return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,55 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.logging.LogRecord;
+
+/**
+ * Formatter of the Mission Manager log:
+ * {@code [date time] [level] [class:method (thread)] message [exception]}.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class MissionManagerLogFormatter extends LogFormatter {
+
+	public MissionManagerLogFormatter() {
+		super("yyyy-MM-dd HH:mm:ss");
+	}
+
+	@Override
+	protected void format(LogRecord record, StringBuilder sb) {
+		sb.append('[').append(getTimestamp(record)).append("] [");
+		appendLevel(record, sb);
+		sb.append("] [");
+		appendSourceClass(record, sb);
+		sb.append(':').append(record.getSourceMethodName()).append(" (").append(record.getThreadID()).append(")] ");
+		appendMessage(record, sb);
+		if (record.getThrown() != null) {
+			sb.append(' ').append(record.getThrown());
+		}
+		sb.append(' ').append(LINE_SEPARATOR);
+	}
+}
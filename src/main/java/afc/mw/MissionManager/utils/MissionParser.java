@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,11 +44,13 @@ import com.afarcloud.thrift.Position;
 import com.afarcloud.thrift.Region;
 import com.afarcloud.thrift.Task;
 import com.afarcloud.thrift.TaskType;
+import com.afarcloud.thrift.TreatmentGrid;
 import com.afarcloud.thrift.Vehicle;
 
 import afc.mw.MissionManager.MissionManagerContext;
 import afc.mw.MissionManager.types.ParsedCommand;
 import afc.mw.MissionManager.types.VehiclePlan;
+import afc.mw.MissionManager.types.VehicleIndexEntry;
 import afc.mw.MissionManager.types.VehiclePlanException;
 import afc.mw.MissionManager.types.isobus.CropType;
 import afc.mw.MissionManager.types.isobus.CulturalPractice;
@@ -62,6 +65,7 @@ import afc.mw.MissionManager.types.isobus.PrescriptionMap;
 import afc.mw.MissionManager.types.isobus.ProcessDataVariable;
 import afc.mw.MissionManager.types.isobus.Product;
 import afc.mw.MissionManager.types.isobus.TreatmentZone;
+import afc.mw.MissionManager.utils.TreatmentZoneQuantizer.Quantization;
 import net.sf.geographiclib.Geodesic;
 import net.sf.geographiclib.PolygonArea;
 import net.sf.geographiclib.PolygonResult;
@@ -74,10 +78,10 @@ import net.sf.geographiclib.PolygonResult;
  *
  */
 public class MissionParser {
+	/** Maximum number of cells of a resampled treatment grid. */
+	private static final long MAX_RESAMPLED_CELLS = 1L << 24;
 	    
-    private int parsedSequence = 0;
-    private long tic;
-    private long toc;
+    private AtomicInteger parsedSequence = new AtomicInteger();
     private MissionManagerContext context = MissionManagerContext.getInstance();
     private Logger mmLog = context.mmLog;
     private Logger sciLog = context.sciLog;
@@ -90,7 +94,7 @@ public class MissionParser {
      * @return
      */
     public Mission replaceNaN(Mission mission) {    	
-		tic = System.currentTimeMillis();
+		long tic = System.currentTimeMillis();
 		
 		if (mission.isSetCommands()) {
 			for (Command command : mission.commands) {
@@ -120,7 +124,7 @@ public class MissionParser {
 				}
 			}
 		}
-		toc = System.currentTimeMillis() - tic;
+		long toc = System.currentTimeMillis() - tic;
 		sciLog.log(Level.INFO, this.getClass().getSimpleName() + ",removeNaN," + toc);
     	return mission;
     }
@@ -134,10 +138,8 @@ public class MissionParser {
      * @throws VehiclePlanException		If an error occurs parsing the global mission plan for vehicle
      */
 	public VehiclePlan parseMission(Vehicle vehicle, Mission missionPlan) throws VehiclePlanException {
-		tic = System.currentTimeMillis();
+		long tic = System.currentTimeMillis();
 
-		VehiclePlan vehiclePlan = new VehiclePlan();
-		
 		ArrayList<Command> vehicleCommands = new ArrayList<Command>();
 		
 		for (Command command : missionPlan.commands) {
@@ -148,7 +150,89 @@ public class MissionParser {
 		
 		Collections.sort(vehicleCommands, new CommandStartTimeComparator());
 		
-		vehiclePlan.sequence_number = ++parsedSequence;
+		return buildVehiclePlan(vehicle, missionPlan, vehicleCommands, tic);
+	}
+
+	/**
+	 * Parses the global mission plan to extract the vehicle plans for all its unmanned vehicles at once.
+	 * 
+	 * The commands are grouped by assigned vehicle in a single pass, and each group is sorted once,
+	 * so the cost grows with the number of commands instead of vehicles &times; commands. Each vehicle
+	 * plan is identical to the one returned by {@link #parseMission(Vehicle, Mission)}, and the plans
+	 * are numbered following the order of the vehicles in the mission.
+	 * 
+	 * @param missionPlan				Global mission plan
+	 * @return							The vehicle plans, by vehicle id. Vehicles with bad formed or no
+	 * 									commands are left out (and logged).
+	 * @throws VehiclePlanException		If the mission has no commands at all
+	 */
+	public IntHashMap<VehiclePlan> parseMissionPlans(Mission missionPlan) throws VehiclePlanException {
+		long tic = System.currentTimeMillis();
+		long toc;
+
+		if (!missionPlan.isSetCommands()) {
+			toc = System.currentTimeMillis() - tic;
+			sciLog.log(Level.INFO, "exit,exception,no_commands_mission,{0}", toc);
+			throw new VehiclePlanException("Mission " + missionPlan.missionId + ": has no commands assigned.");
+		}
+
+		// Group the commands by vehicle, keeping their relative order
+		IntHashMap<ArrayList<Command>> buckets = new IntHashMap<ArrayList<Command>>(missionPlan.getVehiclesSize());
+		for (Command command : missionPlan.commands) {
+			int vehicleId = command.relatedTask.assignedVehicleId;
+			ArrayList<Command> bucket = buckets.get(vehicleId);
+			if (bucket == null) {
+				bucket = new ArrayList<Command>();
+				buckets.put(vehicleId, bucket);
+			}
+			bucket.add(command);
+		}
+
+		IntHashMap<VehiclePlan> vehiclePlans = new IntHashMap<VehiclePlan>(missionPlan.getVehiclesSize());
+		CommandStartTimeComparator comparator = new CommandStartTimeComparator();
+		if (missionPlan.isSetVehicles()) {
+			for (Vehicle vehicle : missionPlan.vehicles) {
+				if (VehicleIndexEntry.classOf(vehicle.type) != VehicleIndexEntry.CLASS_UNMANNED) {
+					continue;
+				}
+
+				ArrayList<Command> vehicleCommands = buckets.get(vehicle.id);
+				if (vehicleCommands == null) {
+					vehicleCommands = new ArrayList<Command>();
+				}
+				Collections.sort(vehicleCommands, comparator);
+
+				try {
+					vehiclePlans.put(vehicle.id, buildVehiclePlan(vehicle, missionPlan, vehicleCommands, tic));
+				} catch (VehiclePlanException e) {
+					mmLog.log(Level.WARNING, e.getMessage());
+				}
+			}
+		}
+
+		toc = System.currentTimeMillis();
+		sciLog.log(Level.INFO, "parse_mission_plans,{0},{1},{2},{3},{4},{5}",
+				new Object[] { missionPlan.getVehiclesSize(), missionPlan.getCommandsSize(), vehiclePlans.size(), tic, toc,
+					toc - tic });
+		return vehiclePlans;
+	}
+
+	/**
+	 * Builds the vehicle plan for a vehicle from its commands, already sorted by start time.
+	 * 
+	 * @param vehicle					Vehicle of interest
+	 * @param missionPlan				Global mission plan
+	 * @param vehicleCommands			The commands assigned to the vehicle, sorted by start time
+	 * @param tic						Time the parsing started
+	 * @return							Vehicle plan
+	 * @throws VehiclePlanException		If the mission or the vehicle have no commands, or a command has no params
+	 */
+	private VehiclePlan buildVehiclePlan(Vehicle vehicle, Mission missionPlan, ArrayList<Command> vehicleCommands,
+			long tic) throws VehiclePlanException {
+		long toc;
+		VehiclePlan vehiclePlan = new VehiclePlan();
+
+		vehiclePlan.sequence_number = parsedSequence.incrementAndGet();
 		vehiclePlan.mission_id = missionPlan.missionId;
 		vehiclePlan.vehicle_id = vehicle.id;
 		vehiclePlan.maximum_linear_speed = vehicle.maxSpeed;
@@ -157,12 +241,13 @@ public class MissionParser {
 				ParsedCommand pCommand = new ParsedCommand();
 				pCommand.command_id = command.id;
 				pCommand.command_type_id = command.commandType.getValue();
-				for (Double param : command.params) {
-					pCommand.param_array.add(param);
+				pCommand.param_array = new double[command.params.size()];
+				for (int i = 0; i < pCommand.param_array.length; i++) {
+					pCommand.param_array[i] = command.params.get(i);
 				}
-				if (pCommand.param_array.size() == 0) {
+				if (pCommand.param_array.length == 0) {
 					toc = System.currentTimeMillis() - tic;
-					sciLog.log(Level.INFO, "exit,exception,no_params," + toc);
+					sciLog.log(Level.INFO, "exit,exception,no_params,{0}", toc);
 					throw new VehiclePlanException("Mission " + missionPlan.missionId + ": Vehicle " + vehicle.id + " (" + vehicle.type + ") command " + command.id + " has no params assigned.");
 				}
 				vehiclePlan.command_array.add(pCommand);
@@ -170,18 +255,18 @@ public class MissionParser {
 
 			if (vehiclePlan.command_array.size() == 0) {
 				toc = System.currentTimeMillis() - tic;
-				sciLog.log(Level.INFO, "exit,exception,no_commands_vehicle," + toc);
+				sciLog.log(Level.INFO, "exit,exception,no_commands_vehicle,{0}", toc);
 				throw new VehiclePlanException("Mission " + missionPlan.missionId + ": Vehicle " + vehicle.id + " (" + vehicle.type + ") has no commands assigned.");
 			}
 
 			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,ok,," + toc);
+			sciLog.log(Level.INFO, "exit,ok,,{0}", toc);
 			mmLog.log(Level.INFO, "MissionParser: Parsed plan for vehicle " + vehicle.id + " with " + vehiclePlan.command_array.size() + " commands");
 			return vehiclePlan;
 		}
 		else {
 			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,exception,no_commands_mission" + toc);
+			sciLog.log(Level.INFO, "exit,exception,no_commands_mission{0}", toc);
 			throw new VehiclePlanException("Mission " + missionPlan.missionId + ": has no commands assigned.");
 		}
 	}
@@ -261,14 +346,13 @@ public class MissionParser {
 		prescriptionMap.partfield.polygon.lineString.lineStringType = LineString.POLYGON_EXTERIOR;
 		
 		double minLongitude = Double.MAX_VALUE;
-		double maxLongitude = -Double.MIN_VALUE;
+		double maxLongitude = -Double.MAX_VALUE;
 		double minLatitude = Double.MAX_VALUE;
 		double maxLatitude = -Double.MAX_VALUE;
 		
 		for (Position position : perimeter.area) {
 			prescriptionMap.partfield.polygon.lineString.point.add(new Point(Point.OTHER, position.latitude, position.longitude));
-			// Assuming a rectangular perimeter for Y2.
-			// Complex perimeters would require to search for the closest position to the minimum coords
+			// The grid covers the bounding box of the perimeter, the cells outside it are masked below
 			minLongitude = Double.min(minLongitude, position.longitude);
 			maxLongitude = Double.max(maxLongitude, position.longitude);
 			minLatitude = Double.min(minLatitude, position.latitude);
@@ -276,7 +360,6 @@ public class MissionParser {
 		}
 		
 		// For further use in the task parameter of the prescription map
-		// Again, assuming a rectangular perimeter for Y2
 		Position minimumPosition = new Position(minLongitude, minLatitude, 0);
 		double gridWidth = maxLongitude - minLongitude;
 		double gridHeight = maxLatitude - minLatitude;
@@ -307,38 +390,161 @@ public class MissionParser {
 		task.farmIdRef = "FRM1";
 		task.partfieldIdRef = "PFD1";
 		task.responsibleWorkerIdRef = "WKR1";
-		task.defaultTreatmentZoneCode = 1;
+		task.defaultTreatmentZoneCode = TreatmentZoneQuantizer.DEFAULT_ZONE_CODE;
 		task.taskStatus = 1;
-		task.positionLostTreatmentZoneCode = 2;
-		task.outOfFieldTreatmentZoneCode = 3;
-		
-		TreatmentZone treatmentZone = new TreatmentZone();
-		treatmentZone.treatmentZoneCode = 0;
-		treatmentZone.treatmentZoneDesginator = "SiteSpecific";
-		treatmentZone.processDataVariable.add(new ProcessDataVariable(0, "mm3/m2", "PDT1"));
-		task.treatmentZone.add(treatmentZone);
+		task.positionLostTreatmentZoneCode = TreatmentZoneQuantizer.POSITION_LOST_ZONE_CODE;
+		task.outOfFieldTreatmentZoneCode = TreatmentZoneQuantizer.OUT_OF_FIELD_ZONE_CODE;
 		
 		task.operTechPractice = new OperTechPractice("CPC1");
 		
+		TreatmentGrid treatmentGrid = missionTasks.get(0).treatmentGrids.get(0);
+		if (treatmentGrid.treatmentValue == null
+				|| treatmentGrid.treatmentValue.size() != treatmentGrid.numRows * treatmentGrid.numCols) {
+			mmLog.log(Level.SEVERE, "Vehicle " + vehicle.name + "(" + vehicle.id + ") has a treatment grid of "
+					+ treatmentGrid.numRows + "x" + treatmentGrid.numCols + " cells with "
+					+ (treatmentGrid.treatmentValue == null ? 0 : treatmentGrid.treatmentValue.size()) + " treatment values.");
+			throw new VehiclePlanException("Parsing prescription map with a treatment grid of the wrong size.");
+		}
+		
 		task.grid = new Grid();
 		task.grid.gridMinimumNorthPosition = minimumPosition.latitude;
 		task.grid.gridMinimumEastPosition = minimumPosition.longitude;
-		task.grid.gridCellNorthSize = gridHeight / missionTasks.get(0).treatmentGrids.get(0).numRows;
-		task.grid.gridCellEastSize = gridWidth / missionTasks.get(0).treatmentGrids.get(0).numCols;
-		task.grid.gridMaximumColumn = missionTasks.get(0).treatmentGrids.get(0).numCols;
-		task.grid.gridMaximumRow = missionTasks.get(0).treatmentGrids.get(0).numRows;
-		task.grid.gridType = 2;
-		task.grid.treatmentZoneCode = 0;
-		
-		for (double value : missionTasks.get(0).treatmentGrids.get(0).treatmentValue) {
-			task.grid.gridCell.add(0); // Fixed in Y2 to TreatmentZone 0
+		task.grid.gridCellNorthSize = gridHeight / treatmentGrid.numRows;
+		task.grid.gridCellEastSize = gridWidth / treatmentGrid.numCols;
+		task.grid.gridMaximumColumn = treatmentGrid.numCols;
+		task.grid.gridMaximumRow = treatmentGrid.numRows;
+		task.grid.gridType = 1; // The grid cells are treatment zone codes
+		task.grid.treatmentZoneCode = TreatmentZoneQuantizer.DEFAULT_ZONE_CODE;
+		
+		double[] values = new double[treatmentGrid.treatmentValue.size()];
+		int cell = 0;
+		for (Double value : treatmentGrid.treatmentValue) {
+			values[cell++] = (value == null) ? Double.NaN : value;
+		}
+		
+		// Resampling: the grid is mapped onto the cell size of the vehicle (or its equipment), if set
+		GridResampler.Rule rule = GridResampler.findRule(context.isobusConverterResample, vehicle);
+		if (rule != null) {
+			values = resampleTreatmentGrid(vehicle, rule, task.grid, values);
+		}
+		
+		// In-field mask: the cells whose center is outside the perimeter get the out of field zone
+		long tic = System.currentTimeMillis();
+		boolean[] inside = null;
+		int vertices = perimeter.area.size();
+		if (vertices >= 3) {
+			double[] xs = new double[vertices];
+			double[] ys = new double[vertices];
+			for (int i = 0; i < vertices; i++) {
+				xs[i] = perimeter.area.get(i).longitude;
+				ys[i] = perimeter.area.get(i).latitude;
+			}
+			inside = new PolygonRasterizer(ExecutorManager.getInstance().getGridPool()).rasterize(xs, ys,
+					task.grid.gridMinimumEastPosition, task.grid.gridMinimumNorthPosition, task.grid.gridCellEastSize,
+					task.grid.gridCellNorthSize, task.grid.gridMaximumColumn, task.grid.gridMaximumRow);
 		}
+		long toc = System.currentTimeMillis();
+		sciLog.log(Level.INFO, "rasterize_partfield,{0},{1},{2},{3},{4},{5}",
+				new Object[] { vehicle.id, vertices, task.grid.gridMaximumColumn * task.grid.gridMaximumRow, tic, toc,
+					toc - tic });
+		
+		// Treatment zones: the treatment values are quantized, and each zone gets its own rate
+		tic = System.currentTimeMillis();
+		Quantization quantization = new TreatmentZoneQuantizer(ExecutorManager.getInstance().getGridPool())
+				.quantize(values, inside, context.isobusConverterTreatmentZones);
+		task.grid.gridCell = quantization.cells;
+		
+		// The default, position lost and out of field zones are referenced by the task, so they are always
+		// written, even when no cell belongs to them. No product is applied without position or out of field
+		TreatmentZone defaultZone = new TreatmentZone();
+		defaultZone.treatmentZoneCode = TreatmentZoneQuantizer.DEFAULT_ZONE_CODE;
+		defaultZone.treatmentZoneDesginator = "Default";
+		defaultZone.processDataVariable.add(new ProcessDataVariable(quantization.defaultRate, "mm3/m2", "PDT1"));
+		task.treatmentZone.add(defaultZone);
+		
+		TreatmentZone positionLostZone = new TreatmentZone();
+		positionLostZone.treatmentZoneCode = TreatmentZoneQuantizer.POSITION_LOST_ZONE_CODE;
+		positionLostZone.treatmentZoneDesginator = "PositionLost";
+		positionLostZone.processDataVariable.add(new ProcessDataVariable(0, "mm3/m2", "PDT1"));
+		task.treatmentZone.add(positionLostZone);
+		
+		TreatmentZone outOfFieldZone = new TreatmentZone();
+		outOfFieldZone.treatmentZoneCode = TreatmentZoneQuantizer.OUT_OF_FIELD_ZONE_CODE;
+		outOfFieldZone.treatmentZoneDesginator = "OutOfField";
+		outOfFieldZone.processDataVariable.add(new ProcessDataVariable(0, "mm3/m2", "PDT1"));
+		task.treatmentZone.add(outOfFieldZone);
+		
+		for (int zone = 0; zone < quantization.zones; zone++) {
+			if (quantization.counts[zone] == 0) {
+				continue;
+			}
+			TreatmentZone treatmentZone = new TreatmentZone();
+			treatmentZone.treatmentZoneCode = TreatmentZoneQuantizer.FIRST_ZONE_CODE + zone;
+			treatmentZone.treatmentZoneDesginator = "SiteSpecific #" + (zone + 1);
+			treatmentZone.processDataVariable.add(new ProcessDataVariable(quantization.rates[zone], "mm3/m2", "PDT1"));
+			task.treatmentZone.add(treatmentZone);
+		}
+		toc = System.currentTimeMillis();
+		sciLog.log(Level.INFO, "quantize_treatment_grid,{0},{1},{2},{3},{4},{5},{6},{7},{8}",
+				new Object[] { vehicle.id, values.length, quantization.zones, task.treatmentZone.size(),
+					quantization.nonFinite, quantization.outOfField, tic, toc, toc - tic });
 		
 		prescriptionMap.task.add(task);
 		
 		return prescriptionMap;
 	}
 
+	/**
+	 * Resamples the treatment values of a prescription map grid onto the cell size of a resampling rule.
+	 * The grid keeps its south-west corner, and gets as many cells as needed to cover it.
+	 * 
+	 * @param vehicle	The vehicle of the prescription map
+	 * @param rule		The resampling rule of the vehicle
+	 * @param grid		The grid, updated with the new cell size and number of cells
+	 * @param values	The treatment values of the grid cells
+	 * @return			The resampled treatment values, or the same values if the grid cannot be resampled
+	 */
+	private double[] resampleTreatmentGrid(Vehicle vehicle, GridResampler.Rule rule, Grid grid, double[] values) {
+		long tic = System.currentTimeMillis();
+		double width = grid.gridCellEastSize * grid.gridMaximumColumn;
+		double height = grid.gridCellNorthSize * grid.gridMaximumRow;
+		double middleLatitude = grid.gridMinimumNorthPosition + height / 2;
+		double middleLongitude = grid.gridMinimumEastPosition + width / 2;
+		double widthMetres = Geodesic.WGS84.Inverse(middleLatitude, grid.gridMinimumEastPosition, middleLatitude,
+				grid.gridMinimumEastPosition + width).s12;
+		double heightMetres = Geodesic.WGS84.Inverse(grid.gridMinimumNorthPosition, middleLongitude,
+				grid.gridMinimumNorthPosition + height, middleLongitude).s12;
+		if (!(widthMetres > 0) || !(heightMetres > 0)) {
+			mmLog.log(Level.WARNING, "Vehicle " + vehicle.name + "(" + vehicle.id + ") has an empty treatment grid. It is not resampled.");
+			return values;
+		}
+		
+		// Cell size in degrees, and number of cells (rounding the sizes in metres to micrometres)
+		double cellEastSize = rule.cellSize * width / widthMetres;
+		double cellNorthSize = rule.cellSize * height / heightMetres;
+		long columns = (long) Math.ceil(Math.floor(widthMetres / rule.cellSize * 1e6) / 1e6);
+		long rows = (long) Math.ceil(Math.floor(heightMetres / rule.cellSize * 1e6) / 1e6);
+		if (columns * rows > MAX_RESAMPLED_CELLS) {
+			mmLog.log(Level.WARNING, "Vehicle " + vehicle.name + "(" + vehicle.id + ") treatment grid would have "
+					+ columns + "x" + rows + " cells of " + rule.cellSize + " m. It is not resampled.");
+			return values;
+		}
+		
+		double[] resampled = new GridResampler(ExecutorManager.getInstance().getGridPool()).resample(values,
+				grid.gridMaximumColumn, grid.gridMaximumRow, grid.gridCellEastSize, grid.gridCellNorthSize,
+				cellEastSize, cellNorthSize, (int) columns, (int) rows, rule.mode);
+		long toc = System.currentTimeMillis();
+		sciLog.log(Level.INFO, "resample_treatment_grid,{0},{1},{2},{3},{4},{5},{6},{7},{8},{9}",
+				new Object[] { vehicle.id, rule.cellSize, rule.mode.name().toLowerCase(),
+					grid.gridMaximumColumn, grid.gridMaximumRow, columns, rows, tic, toc, toc - tic });
+		
+		grid.gridCellEastSize = cellEastSize;
+		grid.gridCellNorthSize = cellNorthSize;
+		grid.gridMaximumColumn = (int) columns;
+		grid.gridMaximumRow = (int) rows;
+		return resampled;
+	}
+
 	/**
 	 * Exports the global mission plan as a CSV
 	 * 
@@ -357,6 +563,8 @@ public class MissionParser {
 		
 		PrintWriter pw = null;
 		int i = 0;
+		long tic;
+		long toc;
 		
 		// NAVIGATION AREA
 		tic = System.currentTimeMillis();
@@ -384,7 +592,7 @@ public class MissionParser {
             }
         }
 		toc = System.currentTimeMillis();
-		sciLog.log(Level.INFO, "exportToCSV,navArea,manual," + tic + "," + toc + "," + (toc-tic));
+		sciLog.log(Level.INFO, "exportToCSV,navArea,manual,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
 		
 		// FORBIDDEN AREA
         pw = null;
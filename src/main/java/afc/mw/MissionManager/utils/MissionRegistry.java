@@ -0,0 +1,302 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.afarcloud.thrift.Mission;
+import com.afarcloud.thrift.TaskCommandStatus;
+import com.afarcloud.thrift.Vehicle;
+
+import afc.mw.MissionManager.MissionManager;
+import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.types.MissionReport;
+import afc.mw.MissionManager.types.RegisteredMission;
+import afc.mw.MissionManager.types.VehicleIndexEntry;
+
+/**
+ * Registry of the missions handled by the Mission Manager.
+ * 
+ * Missions are indexed by mission id, and the vehicles of the live missions (not started or
+ * running) are indexed by vehicle id, using primitive int-keyed maps. The vehicles of a mission are
+ * dropped from the index when it is finished or stopped, and a live mission left with no vehicles in
+ * the index (all of them reassigned to newer missions) is stopped, so only live and retained missions
+ * are kept. The maps are copied on
+ * write (missions are registered and terminated rarely) and published as read-only snapshots
+ * through volatile fields, so lookups (e.g. report validation) are lock-free, constant time
+ * and allocation-free. A bounded number of finished or stopped missions is retained, so late
+ * reports can still be told apart from reports for unknown missions.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class MissionRegistry {
+	public static final int MAX_RETAINED_MISSIONS = 64;
+
+	private Logger mmLog = MissionManagerContext.getInstance().mmLog;
+	private Logger sciLog = MissionManagerContext.getInstance().sciLog;
+
+	private volatile IntHashMap<RegisteredMission> missions = new IntHashMap<RegisteredMission>();
+	private volatile IntHashMap<VehicleIndexEntry> vehicles = new IntHashMap<VehicleIndexEntry>();
+	private volatile int liveMissions = 0;
+	private volatile RegisteredMission lastMission = null;
+	private final ArrayDeque<RegisteredMission> retained = new ArrayDeque<RegisteredMission>();
+
+	/**
+	 * Registers a new mission in the {@code NOT_STARTED} state, and indexes its vehicles.
+	 * 
+	 * If there was a live mission with the same id, it is replaced (and considered stopped). Vehicles
+	 * already assigned to another live mission are reassigned to the new one, and the missions left
+	 * with no vehicles are stopped.
+	 * 
+	 * @param mission The mission
+	 * @return The registered mission
+	 */
+	public synchronized RegisteredMission register(Mission mission) {
+		RegisteredMission entry = new RegisteredMission(mission, MissionManager.NOT_STARTED);
+
+		RegisteredMission previous = missions.get(entry.mission_id);
+		if (previous != null) {
+			mmLog.log(Level.WARNING, "Mission " + entry.mission_id + " was already registered. Replacing it.");
+			terminate(previous, MissionManager.STOPPED);
+			retained.remove(previous);
+		}
+
+		IntHashMap<VehicleIndexEntry> updatedVehicles = new IntHashMap<VehicleIndexEntry>(vehicles);
+		ArrayList<RegisteredMission> reassigned = new ArrayList<RegisteredMission>();
+		for (VehicleIndexEntry vehicle : entry.getVehicleEntries()) {
+			VehicleIndexEntry other = updatedVehicles.put(vehicle.vehicle_id, vehicle);
+			if (other != null) {
+				mmLog.log(Level.WARNING, "Vehicle " + vehicle.vehicle_id + " reassigned from mission "
+						+ other.mission.mission_id + " to mission " + entry.mission_id + ".");
+				if (!reassigned.contains(other.mission)) {
+					reassigned.add(other.mission);
+				}
+			}
+		}
+
+		IntHashMap<RegisteredMission> updatedMissions = new IntHashMap<RegisteredMission>(missions);
+		updatedMissions.put(entry.mission_id, entry);
+
+		vehicles = updatedVehicles;
+		missions = updatedMissions;
+		liveMissions++;
+		lastMission = entry;
+		sciLog.log(Level.INFO, "mission_registry,register,{0},{1},{2}",
+				new Object[] { entry.mission_id, liveMissions, updatedVehicles.size() });
+
+		// The missions with no vehicles left can get no more reports
+		for (RegisteredMission other : reassigned) {
+			if (!hasIndexedVehicles(other)) {
+				mmLog.log(Level.WARNING, "Mission " + other.mission_id + " has no vehicles left. Stopping it.");
+				terminate(other, MissionManager.STOPPED);
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Moves a registered mission from {@code NOT_STARTED} to {@code RUNNING}, and notifies the MMT.
+	 * 
+	 * @param entry The registered mission
+	 * @return {@code true} if the mission is now running; {@code false} otherwise.
+	 */
+	public boolean start(RegisteredMission entry) {
+		if (entry.compareAndSetState(MissionManager.NOT_STARTED, MissionManager.RUNNING)) {
+			MmtClient.getInstance().sendMissionStatus(entry.mission_id, TaskCommandStatus.Running);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Moves a live mission to a final state ({@code FINISHED} or {@code STOPPED}), drops its
+	 * vehicles from the vehicle index, and notifies the MMT.
+	 * 
+	 * @param entry		The registered mission
+	 * @param state		The final state
+	 * @return {@code true} if this call terminated the mission; {@code false} if it was already terminated.
+	 */
+	public synchronized boolean terminate(RegisteredMission entry, int state) {
+		int current = entry.getState();
+		while (isLive(current)) {
+			if (entry.compareAndSetState(current, state)) {
+				IntHashMap<VehicleIndexEntry> updatedVehicles = new IntHashMap<VehicleIndexEntry>(vehicles);
+				for (int vehicleId : entry.getVehicleIds()) {
+					VehicleIndexEntry vehicle = updatedVehicles.get(vehicleId);
+					if (vehicle != null && vehicle.mission == entry) {
+						updatedVehicles.remove(vehicleId);
+					}
+				}
+				vehicles = updatedVehicles;
+				liveMissions--;
+				retain(entry);
+				sciLog.log(Level.INFO, "mission_registry,terminate,{0},{1},{2},{3}",
+						new Object[] { entry.mission_id, state, liveMissions, updatedVehicles.size() });
+				MmtClient.getInstance().sendMissionStatus(entry.mission_id,
+						state == MissionManager.FINISHED ? TaskCommandStatus.Finished : TaskCommandStatus.Stopped);
+				return true;
+			}
+			current = entry.getState();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Validates a (mission id, vehicle id) pair, as carried by a mission report.
+	 * 
+	 * In the common case (a running mission reporting for one of its vehicles) this is a single
+	 * lookup in the vehicle index.
+	 * 
+	 * @param missionId	The mission id
+	 * @param vehicleId	The vehicle id
+	 * @return {@code MISSION_REPORT_VALID} if valid, or the {@code MissionReport} error code otherwise.
+	 */
+	public byte validate(int missionId, int vehicleId) {
+		VehicleIndexEntry vehicle = vehicles.get(vehicleId);
+		if (vehicle != null && vehicle.mission.mission_id == missionId) {
+			return (vehicle.mission.getState() == MissionManager.RUNNING) ? MissionReport.MISSION_REPORT_VALID
+					: MissionReport.MISSION_REPORT_INVALID_MISSION_NOT_ACTIVE;
+		}
+
+		RegisteredMission mission = missions.get(missionId);
+		if (mission == null) {
+			return (liveMissions > 0) ? MissionReport.MISSION_REPORT_INVALID_MISSION_ID
+					: MissionReport.MISSION_REPORT_INVALID_MISSION_NO_MISSION;
+		}
+		if (mission.getState() != MissionManager.RUNNING) {
+			return MissionReport.MISSION_REPORT_INVALID_MISSION_NOT_ACTIVE;
+		}
+
+		return (mission.getVehicleEntry(vehicleId) != null) ? MissionReport.MISSION_REPORT_VALID
+				: MissionReport.MISSION_REPORT_INVALID_VEHICLE_ID;
+	}
+
+	/**
+	 * Gets a mission by its id.
+	 * 
+	 * @param missionId The mission id
+	 * @return The registered mission, or {@code null} if it is unknown.
+	 */
+	public RegisteredMission get(int missionId) {
+		return missions.get(missionId);
+	}
+
+	/**
+	 * Gets the live mission a vehicle is assigned to.
+	 * 
+	 * @param vehicleId The vehicle id
+	 * @return The registered mission, or {@code null} if the vehicle is not in any live mission.
+	 */
+	public RegisteredMission getByVehicle(int vehicleId) {
+		VehicleIndexEntry vehicle = vehicles.get(vehicleId);
+		return (vehicle != null) ? vehicle.mission : null;
+	}
+
+	/**
+	 * Gets the vehicle index entry for a vehicle of a live mission.
+	 * 
+	 * @param vehicleId The vehicle id
+	 * @return The index entry, or {@code null} if the vehicle is not in any live mission.
+	 */
+	public VehicleIndexEntry getVehicleEntry(int vehicleId) {
+		return vehicles.get(vehicleId);
+	}
+
+	/**
+	 * Gets the vehicle with the given id from the live mission it is assigned to.
+	 * 
+	 * @param vehicleId The vehicle id
+	 * @return The vehicle, or {@code null} if it is not in any live mission.
+	 */
+	public Vehicle getVehicle(int vehicleId) {
+		VehicleIndexEntry vehicle = vehicles.get(vehicleId);
+		return (vehicle != null) ? vehicle.vehicle : null;
+	}
+
+	/**
+	 * Gets the last registered mission.
+	 * 
+	 * @return The last registered mission, or {@code null} if no mission was ever registered.
+	 */
+	public RegisteredMission getLast() {
+		return lastMission;
+	}
+
+	/**
+	 * Gets the missions which are not started or running.
+	 * 
+	 * @return The live missions.
+	 */
+	public ArrayList<RegisteredMission> getLiveMissions() {
+		ArrayList<RegisteredMission> live = new ArrayList<RegisteredMission>();
+		for (RegisteredMission entry : missions.values()) {
+			if (isLive(entry.getState())) {
+				live.add(entry);
+			}
+		}
+		return live;
+	}
+
+	/**
+	 * Checks if there is any mission not started or running.
+	 * 
+	 * @return {@code true} if there is at least one live mission; {@code false} otherwise.
+	 */
+	public boolean hasLiveMissions() {
+		return liveMissions > 0;
+	}
+
+	private boolean hasIndexedVehicles(RegisteredMission entry) {
+		for (int vehicleId : entry.getVehicleIds()) {
+			VehicleIndexEntry vehicle = vehicles.get(vehicleId);
+			if (vehicle != null && vehicle.mission == entry) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isLive(int state) {
+		return state == MissionManager.NOT_STARTED || state == MissionManager.RUNNING;
+	}
+
+	private void retain(RegisteredMission entry) {
+		retained.add(entry);
+		if (retained.size() > MAX_RETAINED_MISSIONS) {
+			RegisteredMission evicted = retained.poll();
+			if (missions.get(evicted.mission_id) == evicted) {
+				IntHashMap<RegisteredMission> updatedMissions = new IntHashMap<RegisteredMission>(missions);
+				updatedMissions.remove(evicted.mission_id);
+				missions = updatedMissions;
+			}
+		}
+	}
+}
@@ -0,0 +1,350 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParsingException;
+
+import afc.mw.MissionManager.types.CommandStatus;
+import afc.mw.MissionManager.types.MissionReport;
+
+/**
+ * Incremental reader of a stream of mission reports, either a JSON array of reports (a single
+ * report is accepted as well) or NDJSON (one report per line). Reports are parsed one at a time,
+ * so the whole stream is never held in memory.
+ * 
+ * Entries which are not valid mission reports (wrong types, or malformed NDJSON lines) are read
+ * as {@code null}, and the reader moves on to the next one. A malformed JSON array cannot be
+ * recovered, so it stops the reader with a {@link JsonParsingException}.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class MissionReportReader implements Closeable {
+	public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+	private static final int NO_ENTRY = 0;
+	private static final int OBJECT_ENTRY = 1;
+	private static final int INVALID_ENTRY = 2;
+
+	private final boolean ndjson;
+	private final BufferedReader lines;
+	private final JsonParser parser;
+	private String line = null;
+	private int entry = NO_ENTRY;
+	private boolean started = false;
+	private boolean single = false;
+	private boolean finished = false;
+
+	/**
+	 * Creates a new reader of mission reports.
+	 * 
+	 * @param input		The stream of reports (UTF-8)
+	 * @param ndjson	{@code true} if the stream has one report per line; {@code false} if it is a
+	 * 					JSON array of reports
+	 */
+	public MissionReportReader(InputStream input, boolean ndjson) {
+		this.ndjson = ndjson;
+		if (ndjson) {
+			lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+			parser = null;
+		} else {
+			lines = null;
+			parser = Json.createParser(input);
+		}
+	}
+
+	/**
+	 * Moves to the next entry of the stream (if not done yet).
+	 * 
+	 * @return {@code true} if there is another entry; {@code false} at the end of the stream.
+	 * @throws JsonParsingException If a JSON array stream is malformed.
+	 * @throws JsonException If the stream cannot be read.
+	 */
+	public boolean hasNext() {
+		if (finished) {
+			return false;
+		}
+		return ndjson ? nextLine() : nextEntry();
+	}
+
+	/**
+	 * Reads the next entry of the stream.
+	 * 
+	 * @return The next mission report, or {@code null} if the entry is not a valid mission report.
+	 * @throws NoSuchElementException If there are no more entries.
+	 * @throws JsonParsingException If a JSON array stream is malformed.
+	 * @throws JsonException If the stream cannot be read.
+	 */
+	public MissionReport next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		if (ndjson) {
+			String json = line;
+			line = null;
+			try (JsonParser lineParser = Json.createParser(new StringReader(json))) {
+				if (nextEvent(lineParser) != Event.START_OBJECT) {
+					return null;
+				}
+				return readReport(lineParser);
+			} catch (JsonParsingException e) {
+				return null;
+			}
+		}
+
+		int current = entry;
+		entry = NO_ENTRY;
+		if (single) {
+			finished = true;
+		}
+		return (current == OBJECT_ENTRY) ? readReport(parser) : null;
+	}
+
+	/**
+	 * Closes the reader and its stream. The stream is only read, so errors closing it are ignored.
+	 */
+	@Override
+	public void close() {
+		try {
+			if (lines != null) {
+				lines.close();
+			}
+			if (parser != null) {
+				parser.close();
+			}
+		} catch (IOException | JsonException e) {
+			// Nothing to lose
+		}
+	}
+
+	private boolean nextLine() {
+		if (line != null) {
+			return true;
+		}
+		try {
+			while ((line = lines.readLine()) != null) {
+				if (!line.trim().isEmpty()) {
+					return true;
+				}
+			}
+		} catch (IOException e) {
+			throw new JsonException("Unable to read the mission reports", e);
+		}
+		finished = true;
+		return false;
+	}
+
+	private boolean nextEntry() {
+		if (entry != NO_ENTRY) {
+			return true;
+		}
+
+		if (!started) {
+			started = true;
+			if (!parser.hasNext()) {
+				finished = true;
+				return false;
+			}
+			Event event = parser.next();
+			if (event == Event.START_OBJECT) {
+				single = true;
+				entry = OBJECT_ENTRY;
+				return true;
+			}
+			if (event != Event.START_ARRAY) {
+				throw new JsonParsingException("Expected an array of mission reports", parser.getLocation());
+			}
+		}
+
+		Event event = nextEvent(parser);
+		switch (event) {
+		case START_OBJECT:
+			entry = OBJECT_ENTRY;
+			return true;
+		case END_ARRAY:
+			finished = true;
+			return false;
+		default:
+			skipValue(parser, event);
+			entry = INVALID_ENTRY;
+			return true;
+		}
+	}
+
+	/**
+	 * Reads a mission report, right after its START_OBJECT event, up to its END_OBJECT event.
+	 * 
+	 * @param p The parser
+	 * @return The mission report, or {@code null} if any of its fields has a wrong type.
+	 */
+	private static MissionReport readReport(JsonParser p) {
+		MissionReport report = new MissionReport();
+		boolean valid = true;
+
+		Event event;
+		while ((event = nextEvent(p)) != Event.END_OBJECT) {
+			String key = p.getString();
+			Event value = nextEvent(p);
+			if (value == Event.VALUE_NULL) {
+				continue;
+			}
+
+			switch (key) {
+			case "sequence_number":
+				if (isIntegral(p, value)) {
+					report.sequence_number = p.getInt();
+				} else {
+					valid = false;
+				}
+				break;
+			case "mission_id":
+				if (isIntegral(p, value)) {
+					report.mission_id = p.getInt();
+				} else {
+					valid = false;
+				}
+				break;
+			case "vehicle_id":
+				if (isIntegral(p, value)) {
+					report.vehicle_id = p.getInt();
+				} else {
+					valid = false;
+				}
+				break;
+			case "mission_status_id":
+				if (isIntegral(p, value)) {
+					report.mission_status_id = p.getInt();
+				} else {
+					valid = false;
+				}
+				break;
+			case "last_update":
+				if (isIntegral(p, value)) {
+					report.last_update = p.getLong();
+				} else {
+					valid = false;
+				}
+				break;
+			case "command_report_array":
+				if (value == Event.START_ARRAY) {
+					valid &= readCommandStatuses(p, report);
+					continue;
+				}
+				valid = false;
+				break;
+			default:
+				break;
+			}
+			skipValue(p, value);
+		}
+		return valid ? report : null;
+	}
+
+	/**
+	 * Reads the command statuses of a report, right after the START_ARRAY event, up to its
+	 * END_ARRAY event.
+	 * 
+	 * @param p			The parser
+	 * @param report	The report the command statuses are added to
+	 * @return {@code true} if all the command statuses are valid.
+	 */
+	private static boolean readCommandStatuses(JsonParser p, MissionReport report) {
+		boolean valid = true;
+
+		Event event;
+		while ((event = nextEvent(p)) != Event.END_ARRAY) {
+			if (event != Event.START_OBJECT) {
+				skipValue(p, event);
+				valid = false;
+				continue;
+			}
+
+			CommandStatus status = new CommandStatus();
+			while ((event = nextEvent(p)) != Event.END_OBJECT) {
+				String key = p.getString();
+				Event value = nextEvent(p);
+				if (value == Event.VALUE_NULL) {
+					continue;
+				}
+
+				switch (key) {
+				case "command_id":
+					if (isIntegral(p, value)) {
+						status.command_id = p.getInt();
+					} else {
+						valid = false;
+					}
+					break;
+				case "command_status_id":
+					if (isIntegral(p, value)) {
+						status.command_status_id = p.getInt();
+					} else {
+						valid = false;
+					}
+					break;
+				default:
+					break;
+				}
+				skipValue(p, value);
+			}
+			report.command_report_array.add(status);
+		}
+		return valid;
+	}
+
+	// Scalar values are already consumed by their event; structures have to be skipped
+	private static void skipValue(JsonParser p, Event value) {
+		if (value == Event.START_OBJECT) {
+			p.skipObject();
+		} else if (value == Event.START_ARRAY) {
+			p.skipArray();
+		}
+	}
+
+	private static boolean isIntegral(JsonParser p, Event value) {
+		return value == Event.VALUE_NUMBER && p.isIntegralNumber();
+	}
+
+	private static Event nextEvent(JsonParser p) {
+		if (!p.hasNext()) {
+			throw new JsonParsingException("Unexpected end of the mission reports", p.getLocation());
+		}
+		return p.next();
+	}
+}
@@ -42,8 +42,6 @@ public class MissionValidator {
 	
 	private Logger mmLog = MissionManagerContext.getInstance().mmLog;
 	private Logger sciLog = MissionManagerContext.getInstance().sciLog;
-	private long tic;
-	private long toc;
 	private static MissionValidator instance = null;
 	
 	private MissionValidator() {
@@ -55,7 +53,7 @@ public class MissionValidator {
 	 * 
 	 * @return	The singleton instance of the Mission Validator
 	 */
-    public static MissionValidator getInstance() {
+    public static synchronized MissionValidator getInstance() {
         if(instance == null)
             instance = new MissionValidator();
         
@@ -69,47 +67,48 @@ public class MissionValidator {
      * @return		  The validation result
      */
     public ValidationResult validate(Mission mission) {
-		tic = System.currentTimeMillis();
+		long tic = System.currentTimeMillis();
+		long toc;
 
 		// SIMPLE SEVERE VALIDATION ERRORS
 		
     	// Mission unassigned (null)
     	if (mission == null) {
     		mmLog.log(Level.SEVERE, ValidationResult.MISSION_NULL.getDescription());
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,invalid,mission_null," + tic + "," + toc + "," + (toc-tic));
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,invalid,mission_null,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.MISSION_NULL;
     	}
 
     	// Mission ID
     	if (!mission.isSetMissionId()) {
     		mmLog.log(Level.SEVERE, ValidationResult.NO_MISSION_ID.getDescription());
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,invalid,no_mission_id," + tic + "," + toc + "," + (toc-tic));
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,invalid,no_mission_id,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.NO_MISSION_ID;
     	}
     	
     	// Navigation Area
     	if (!mission.isSetNavigationArea()) {
     		mmLog.log(Level.SEVERE, ValidationResult.NO_NAVIGATION.getDescription());
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,invalid,no_navigation_area," + tic + "," + toc + "," + (toc-tic));
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,invalid,no_navigation_area,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.NO_NAVIGATION;
     	}
     	
     	// Vehicles
     	if (!mission.isSetVehicles()) {
     		mmLog.log(Level.SEVERE, ValidationResult.NO_VEHICLES.getDescription());
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,invalid,no_vehicles," + tic + "," + toc + "," + (toc-tic));
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,invalid,no_vehicles,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.NO_VEHICLES;
     	}
     	
     	// Tasks
     	if (!mission.isSetTasks()) {
     		mmLog.log(Level.SEVERE, ValidationResult.NO_TASKS.getDescription());
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,invalid,no_tasks," + tic + "," + toc + "," + (toc-tic));
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,invalid,no_tasks,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.NO_TASKS;    		
     	}
     	
@@ -118,8 +117,8 @@ public class MissionValidator {
     	// Mission name
     	if (!mission.isSetName()) {
     		mmLog.log(Level.WARNING, ValidationResult.NO_MISSION_NAME.getDescription());
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,invalid,no_mission_name," + tic + "," + toc + "," + (toc-tic));
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,invalid,no_mission_name,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.NO_MISSION_NAME;    		
     	}
 
@@ -128,16 +127,16 @@ public class MissionValidator {
     	// Home location
     	if (!mission.isSetHomeLocation()) {
     		mmLog.log(Level.WARNING, ValidationResult.NO_HOME_LOCATION.getDescription());   		
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,invalid,no_home_location," + tic + "," + toc + "," + (toc-tic));
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,invalid,no_home_location,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.NO_HOME_LOCATION; 
     	}
     	
     	// Forbidden area (MANDATORY FIELD FOR Y2)
     	if (!mission.isSetForbiddenArea()) {
     		mmLog.log(Level.WARNING, ValidationResult.NO_FORBIDDEN_AREA.getDescription());   		
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,invalid,no_forbidden_area," + tic + "," + toc + "," + (toc-tic));
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,invalid,no_forbidden_area,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.NO_FORBIDDEN_AREA; 
     	}    	
     	
@@ -167,16 +166,16 @@ public class MissionValidator {
     	// Mission with only UVs and no commands
     	if (hasUVs && !hasTractors && !mission.isSetCommands()) {
     		mmLog.log(Level.WARNING, ValidationResult.NO_COMMANDS.getDescription());   		
-    		toc = System.currentTimeMillis() - tic;
-    		sciLog.log(Level.INFO, "exit,invalid,no_commands," + tic + "," + toc + "," + (toc-tic));
+    		toc = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "exit,invalid,no_commands,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.NO_COMMANDS; 
     	}
 
     	// Mission with only tractors and no prescription maps
     	if (!hasUVs && hasTractors && !mission.tasks.stream().anyMatch(t -> t.isSetTreatmentGrids())) {    		
     		mmLog.log(Level.WARNING, ValidationResult.NO_PRESCRIPTION_MAP.getDescription());   		
-    		toc = System.currentTimeMillis() - tic;
-    		sciLog.log(Level.INFO, "exit,invalid,no_prescription_map," + tic + "," + toc + "," + (toc-tic));
+    		toc = System.currentTimeMillis();
+    		sciLog.log(Level.INFO, "exit,invalid,no_prescription_map,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
     		return ValidationResult.NO_PRESCRIPTION_MAP;    		
     	}
     	
@@ -195,8 +194,9 @@ public class MissionValidator {
         	case UGV:
         		if (!mission.commands.stream().anyMatch(c -> c.relatedTask.assignedVehicleId == vehicle.id)) {
             		mmLog.log(Level.WARNING, ValidationResult.NO_COMMANDS_WARN.getDescription() + " Vehicle ID: " + vehicle.id);   		
-            		toc = System.currentTimeMillis() - tic;
-            		sciLog.log(Level.INFO, "continue,warning,no_commands_warn," + tic + "," + toc + "," + (toc-tic));
+            		toc = System.currentTimeMillis();
+            		sciLog.log(Level.INFO, "continue,warning,no_commands_warn,{0},{1},{2}",
+            				new Object[] { tic, toc, toc - tic });
             		failUV = true;
         		}
         		break;
@@ -204,8 +204,9 @@ public class MissionValidator {
         	case Tractor:  
         		if (!mission.tasks.stream().anyMatch(t -> (t.assignedVehicleId == vehicle.id && t.isSetTreatmentGrids()))) {
             		mmLog.log(Level.WARNING, ValidationResult.NO_PRESCRIPTION_MAP_WARN.getDescription() + " Vehicle ID: " + vehicle.id);   		
-            		toc = System.currentTimeMillis() - tic;
-            		sciLog.log(Level.INFO, "continue,warning,no_prescription_map_warn," + tic + "," + toc + "," + (toc-tic));        			
+            		toc = System.currentTimeMillis();
+            		sciLog.log(Level.INFO, "continue,warning,no_prescription_map_warn,{0},{1},{2}",
+            				new Object[] { tic, toc, toc - tic });        			
             		failTractor = true;
         		}
         		break;
@@ -216,28 +217,30 @@ public class MissionValidator {
     	
     	if (failUV && failTractor) {
     			mmLog.log(Level.WARNING, ValidationResult.NO_COMMANDS_PM_WARN.getDescription());   		
-    			toc = System.currentTimeMillis() - tic;
-    			sciLog.log(Level.INFO, "exit,warning,no_commands_prescription_map_warn," + tic + "," + toc + "," + (toc-tic));        			
+    			toc = System.currentTimeMillis();
+    			sciLog.log(Level.INFO, "exit,warning,no_commands_prescription_map_warn,{0},{1},{2}",
+    					new Object[] { tic, toc, toc - tic });        			
     			return ValidationResult.NO_COMMANDS_PM_WARN;
     	}
 
     	if (failUV && !failTractor) {
 			mmLog.log(Level.WARNING, ValidationResult.NO_COMMANDS_WARN.getDescription());   		
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,warning,no_commands_warn," + tic + "," + toc + "," + (toc-tic));        			
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,warning,no_commands_warn,{0},{1},{2}", new Object[] { tic, toc, toc - tic });        			
 			return ValidationResult.NO_COMMANDS_WARN;
     	}
     	
     	if (!failUV && failTractor) {
 			mmLog.log(Level.WARNING, ValidationResult.NO_PRESCRIPTION_MAP_WARN.getDescription());   		
-			toc = System.currentTimeMillis() - tic;
-			sciLog.log(Level.INFO, "exit,warning,no_prescription_map_warn," + tic + "," + toc + "," + (toc-tic));        			
+			toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "exit,warning,no_prescription_map_warn,{0},{1},{2}",
+					new Object[] { tic, toc, toc - tic });        			
 			return ValidationResult.NO_PRESCRIPTION_MAP_WARN;
     	}
     	  	
 		mmLog.log(Level.WARNING, ValidationResult.VALID.getDescription());   		
-		toc = System.currentTimeMillis() - tic;
-		sciLog.log(Level.INFO, "exit,valid,valid," + tic + "," + toc + "," + (toc-tic));        			
+		toc = System.currentTimeMillis();
+		sciLog.log(Level.INFO, "exit,valid,valid,{0},{1},{2}", new Object[] { tic, toc, toc - tic });        			
     	return ValidationResult.VALID;
     }
 }
@@ -24,40 +24,104 @@
 
 package afc.mw.MissionManager.utils;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
-import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.transport.TSocket;
 import org.apache.thrift.transport.TTransport;
 
 import com.afarcloud.thrift.MmtService;
+import com.afarcloud.thrift.TaskCommandStatus;
 
 import afc.mw.MissionManager.MissionManagerContext;
 
 /**
  * Thrfit client (singleton) to access to the MMT services
  * 
+ * Notifications are queued and sent in order by a single background thread, over one persistent
+ * connection to the MMT. The connection is checked with a ping when it is opened and after being
+ * idle, and it is reopened (with an exponential backoff) when a call fails. As the MMT calls are
+ * oneway, each burst of notifications is confirmed with a ping, and sent again if the ping fails
+ * (so a notification may be received twice, but is not lost with the connection). The queue holds up to
+ * {@code mmt.queue_size} notifications: a notification replaces the pending one with the same key
+ * (e.g. the same error, or the status of the same mission), and the oldest one is dropped when the
+ * queue is full.
+ * 
  * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
  *
  */
 public class MmtClient {
+	private static final long HEALTH_CHECK_MS = 30000;
+	private static final long MIN_BACKOFF_MS = 500;
+	private static final long MAX_BACKOFF_MS = 30000;
+	private static final int MAX_UNCONFIRMED = 16;
+
 	private MissionManagerContext context = MissionManagerContext.getInstance();
 	private Logger mmLog = context.mmLog;
 	
 	private static MmtClient instance = null;
+
+	// Guarded by this
+	private final ArrayDeque<Notification> queue = new ArrayDeque<Notification>();
+	private final HashMap<String, Notification> queued = new HashMap<String, Notification>();
+
+	// Only used by the notifier thread
+	private TTransport transport = null;
+	private MmtService.Client client = null;
+	private String connectedIP = null;
+	private int connectedPort = 0;
+	private long lastUsed = 0;
+	private int consecutiveFailures = 0;
+	private final ArrayList<Notification> unconfirmed = new ArrayList<Notification>();
+
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong connections = new AtomicLong();
+
+	/**
+	 * A call to the MMT service
+	 */
+	private interface Call {
+		void send(MmtService.Client client) throws TException;
+	}
+
+	/**
+	 * Notification waiting to be sent. Notifications with the same key replace each other.
+	 */
+	private static final class Notification {
+		final String key;
+		String description;
+		Call call;
+
+		Notification(String key, String description, Call call) {
+			this.key = key;
+			this.description = description;
+			this.call = call;
+		}
+	}
 	
 	private MmtClient() {}
 	
 	/**
-	 * Gets an instance of the MMT Thrift client
+	 * Gets an instance of the MMT Thrift client, starting the notifier thread on first use.
 	 * 
 	 * @return The singleton instance of the MMT client
 	 */
-	public static MmtClient getInstance() {
+	public static synchronized MmtClient getInstance() {
 		if (instance == null) {
 			instance = new MmtClient();
+
+			Thread notifier = new Thread(instance::run, "mm-mmt-notifier");
+			notifier.setDaemon(true);
+			notifier.start();
 		}
 		
 		return instance;
@@ -72,8 +136,6 @@ public class MmtClient {
 		mmLog.log(Level.INFO, "Sending validation result to MMT: (" + result.getCode() + ") " + result.getDescription());
 
 		if (context.mmtEnabled) {
-			sendPing();
-			
 			switch(result) {
         	// UNSOLVABLE ERRORS
         	case MISSION_NULL:
@@ -105,69 +167,257 @@ public class MmtClient {
 			mmLog.log(Level.INFO, "Notifications to the MMT are disabled.");
 		}
 	}
-	
+	    
 	/**
-	 * Sends a ping to the MMT
+	 * Sends an error notification to the MMT, currently limited to the mission plan validation result.
 	 * 
-	 * @return A salutation message
+	 * @param The validation result to be sent to the MMT
 	 */
-	public String sendPing() {
-		String response = "";
-		try {
-			mmLog.log(Level.INFO, "Connecting to " + context.mmtIP + " on port " + context.mmtPort);
+	public void sendError(ValidationResult result) {
+		sendError(result.getCode(), result.getDescription());
+	}
 
-			TTransport transport = new TSocket(context.mmtIP, context.mmtPort);
-			transport.open();
+	/**
+	 * Sends an error notification to the MMT. Identical pending errors are sent only once.
+	 * 
+	 * @param code			The error code
+	 * @param description	The error description
+	 */
+	public void sendError(int code, String description) {
+		enqueue("error," + code + "," + description, "error " + code + " \"" + description + "\"",
+				client -> client.sendError(context.getNewSequenceNumber(), code, description));
+	}
 
-			TProtocol protocol = new TBinaryProtocol(transport);
+	/**
+	 * Sends the status of a mission to the MMT. Only the last pending status of each mission is sent.
+	 * 
+	 * @param missionId	The mission ID
+	 * @param status	The mission status
+	 */
+	public void sendMissionStatus(int missionId, TaskCommandStatus status) {
+		enqueue("mission_status," + missionId, "status " + status + " of mission " + missionId,
+				client -> client.sendMissionStatusReport(context.getNewSequenceNumber(), missionId, status));
+	}
 
-			MmtService.Client client = new MmtService.Client(protocol);
+	/**
+	 * Gets the state of the notification queue as CSV lines with a header.
+	 * 
+	 * @return The number of pending notifications, and the sent, coalesced, dropped and failed ones.
+	 */
+	public String getStatistics() {
+		return "pending,sent,coalesced,dropped,failures,connections\n"
+				+ getPending() + "," + sent.get() + "," + coalesced.get() + "," + dropped.get() + ","
+				+ failures.get() + "," + connections.get() + "\n";
+	}
 
-			mmLog.log(Level.INFO, "Sending ping to " + context.mmtIP + " on port " + context.mmtPort);
-			client.send_ping();
+	/**
+	 * Gets the number of notifications waiting to be sent.
+	 * 
+	 * @return The number of pending notifications.
+	 */
+	public synchronized int getPending() {
+		return queue.size();
+	}
 
-			mmLog.log(Level.INFO, "Notification of validation error sent to MMT");
-			transport.close();
+	/**
+	 * Queues a notification, replacing the pending one with the same key.
+	 * 
+	 * @param key			The coalescing key
+	 * @param description	The notification description, for the logs
+	 * @param call			The call to the MMT
+	 */
+	private void enqueue(String key, String description, Call call) {
+		if (!context.mmtEnabled) {
+			mmLog.log(Level.INFO, "Notifications to the MMT are disabled. Discarding " + description);
+			return;
 		}
-		catch (Exception e) {
-			mmLog.log(Level.WARNING, "Error trying to communicate with the MMT.");
-			if (context.debug) {
-				mmLog.log(Level.WARNING, e.getMessage(), e);
-			}			
+
+		synchronized (this) {
+			Notification pending = queued.get(key);
+			if (pending != null) {
+				pending.description = description;
+				pending.call = call;
+				coalesced.incrementAndGet();
+				return;
+			}
+
+			if (queue.size() >= Math.max(1, context.mmtQueueSize)) {
+				Notification oldest = queue.pollFirst();
+				queued.remove(oldest.key);
+				dropped.incrementAndGet();
+				mmLog.log(Level.WARNING, "MMT notification queue full. Discarding " + oldest.description);
+			}
+
+			Notification notification = new Notification(key, description, call);
+			queue.addLast(notification);
+			queued.put(key, notification);
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Waits for the next notification.
+	 * 
+	 * @return The oldest pending notification
+	 * @throws InterruptedException
+	 */
+	private synchronized Notification take() throws InterruptedException {
+		while (queue.isEmpty()) {
+			wait();
 		}
 
-		return response;
+		Notification notification = queue.pollFirst();
+		queued.remove(notification.key);
+		return notification;
 	}
-	    
+
 	/**
-	 * Sends an error notification to the MMT, currently limited to the mission plan validation result.
+	 * Puts back the notifications that could not be confirmed, in order, unless they have already
+	 * been replaced.
 	 * 
-	 * @param The validation result to be sent to the MMT
+	 * @param notifications The notifications, oldest first
 	 */
-	public void sendError(ValidationResult result) {		
+	private synchronized void retry(ArrayList<Notification> notifications) {
+		for (int i = notifications.size() - 1; i >= 0; i--) {
+			Notification notification = notifications.get(i);
+			if (queued.containsKey(notification.key)) {
+				coalesced.incrementAndGet();
+			}
+			else if (queue.size() >= Math.max(1, context.mmtQueueSize)) {
+				dropped.incrementAndGet();
+				mmLog.log(Level.WARNING, "MMT notification queue full. Discarding " + notification.description);
+			}
+			else {
+				queue.addFirst(notification);
+				queued.put(notification.key, notification);
+			}
+		}
+	}
+
+	/**
+	 * Notifier thread: sends the queued notifications in order, and confirms them once the queue
+	 * is empty (or every {@value #MAX_UNCONFIRMED} notifications).
+	 */
+	private void run() {
 		try {
-			mmLog.log(Level.INFO, "Connecting to " + context.mmtIP + " on port " + context.mmtPort);
+			while (true) {
+				Notification notification = take();
+				unconfirmed.add(notification);
 
-			TTransport transport = new TSocket(context.mmtIP, context.mmtPort);
-			transport.open();
+				boolean delivered = send(notification);
+				if (delivered && (getPending() == 0 || unconfirmed.size() >= MAX_UNCONFIRMED)) {
+					delivered = confirm();
+				}
 
-			TProtocol protocol = new TBinaryProtocol(transport);
+				if (!delivered) {
+					consecutiveFailures++;
+					failures.incrementAndGet();
+					retry(unconfirmed);
+					unconfirmed.clear();
+					Thread.sleep(Math.min(MAX_BACKOFF_MS, MIN_BACKOFF_MS << Math.min(consecutiveFailures - 1, 10)));
+				}
+			}
+		} catch (InterruptedException e) {
+			mmLog.log(Level.INFO, "MMT notifier stopped");
+		}
+		finally {
+			close();
+		}
+	}
 
-			MmtService.Client client = new MmtService.Client(protocol);
+	/**
+	 * Sends a notification through the persistent connection, opening it if needed.
+	 * 
+	 * @param notification	The notification
+	 * @return {@code true} if the notification was sent.
+	 */
+	private boolean send(Notification notification) {
+		try {
+			connect();
 
-			mmLog.log(Level.INFO, "Sending ping to " + context.mmtIP + " on port " + context.mmtPort);
-			client.send_ping();
-			mmLog.log(Level.INFO, "Sending error " + result.getCode() + " \"" + result.getDescription() + "\" to " + context.mmtIP + " on port " + context.mmtPort);
-			client.sendError(context.getNewSequenceNumber(), result.getCode(), result.getDescription());
+			mmLog.log(Level.INFO, "Sending " + notification.description + " to " + connectedIP + " on port " + connectedPort);
+			notification.call.send(client);
+			lastUsed = System.currentTimeMillis();
 
-			mmLog.log(Level.INFO, "Notification of validation error sent to MMT");
-			transport.close();
+			return true;
 		}
-		catch (Exception e) {
+		catch (TException e) {
 			mmLog.log(Level.WARNING, "Error trying to communicate with the MMT.");
 			if (context.debug) {
 				mmLog.log(Level.WARNING, e.getMessage(), e);
-			}			
+			}
+			close();
+			return false;
 		}
-	}	
+	}
+
+	/**
+	 * Confirms that the MMT received the notifications sent through the current connection.
+	 * 
+	 * @return {@code true} if the MMT answered the ping.
+	 */
+	private boolean confirm() {
+		try {
+			client.ping();
+			lastUsed = System.currentTimeMillis();
+
+			mmLog.log(Level.INFO, unconfirmed.size() + " notifications sent to MMT");
+			sent.addAndGet(unconfirmed.size());
+			unconfirmed.clear();
+			consecutiveFailures = 0;
+			return true;
+		}
+		catch (TException e) {
+			mmLog.log(Level.WARNING, "Unable to confirm the notifications sent to the MMT.");
+			if (context.debug) {
+				mmLog.log(Level.WARNING, e.getMessage(), e);
+			}
+			close();
+			return false;
+		}
+	}
+
+	/**
+	 * Makes sure there is a working connection to the MMT. An idle connection is checked with a ping,
+	 * and reopened if the ping fails or the MMT address has changed.
+	 * 
+	 * @throws TException If it was not possible to connect to the MMT.
+	 */
+	private void connect() throws TException {
+		if (client != null && (!context.mmtIP.equals(connectedIP) || context.mmtPort != connectedPort)) {
+			close();
+		}
+
+		if (client != null && System.currentTimeMillis() - lastUsed > HEALTH_CHECK_MS) {
+			try {
+				client.ping();
+				lastUsed = System.currentTimeMillis();
+			} catch (TException e) {
+				mmLog.log(Level.INFO, "Idle connection to the MMT lost. Reconnecting.");
+				close();
+			}
+		}
+
+		if (client == null) {
+			mmLog.log(Level.INFO, "Connecting to " + context.mmtIP + " on port " + context.mmtPort);
+
+			connectedIP = context.mmtIP;
+			connectedPort = context.mmtPort;
+			transport = new TSocket(connectedIP, connectedPort, Math.max(1, context.mmtTimeout) * 1000);
+			transport.open();
+			client = new MmtService.Client(new TBinaryProtocol(transport));
+			connections.incrementAndGet();
+
+			client.ping();
+			lastUsed = System.currentTimeMillis();
+		}
+	}
+
+	private void close() {
+		if (transport != null) {
+			transport.close();
+		}
+		transport = null;
+		client = null;
+	}
 }
@@ -22,15 +22,25 @@
  * 
  */
 
+
 package afc.mw.MissionManager.utils;
 
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.json.Json;
 
-import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.DisconnectedBufferOptions;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
@@ -44,20 +54,35 @@ import afc.mw.MissionManager.MissionManagerContext;
 /**
  * This class provides a singleton MQTT client for mission dispatching.
  * 
+ * The connection to the broker is opened on first use and kept open afterwards,
+ * reconnecting automatically if it is lost. Vehicle plans are published
+ * asynchronously, with at most {@code mqtt.max_inflight} plans awaiting delivery at
+ * any time. Abort events do not count against that window, and are published
+ * synchronously so the caller knows if they reached the broker.
+ * 
+ * The open connection is published through a volatile field, so publishers never take a
+ * lock. The connection is opened outside the monitor too: concurrent callers share a single
+ * connection attempt, and each waits for it at most {@code mqtt.timeout} seconds. An attempt
+ * dropped because the settings changed while waiting is replaced by the current one.
+ * 
  * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
  *
  */
-public class MqttClientMission {
+public class MqttClientMission implements MqttCallbackExtended {
+	
+	// Extra in-flight slots reserved for abort events, so they never wait for plans
+	private static final int ABORT_INFLIGHT_SLOTS = 10;
 	
 	private MissionManagerContext context = MissionManagerContext.getInstance();
 	private Logger mmLog = context.mmLog;
 	private Logger sciLog = context.sciLog;
 	
-	private long tic;
-	private long toc;
-	
 	private static MqttClientMission instance = null;
 	
+	private volatile Connection connection = null;
+	private Connection connecting = null;
+	private volatile long connectTic;
+	
 	public MqttClientMission() { }
 	
 	/**
@@ -65,7 +90,7 @@ public class MqttClientMission {
 	 * 
 	 * @return
 	 */
-	public static MqttClientMission getInstance() {
+	public static synchronized MqttClientMission getInstance() {
         if(instance == null)
             instance = new MqttClientMission();
         
@@ -75,15 +100,20 @@ public class MqttClientMission {
 	/**
 	 * Publish a vehicle mission to the MQTT proxy
 	 * 
+	 * The method returns as soon as the publication has been handed to the client. Its
+	 * delivery is reported through the returned future, which fails if the broker does not
+	 * acknowledge the plan within {@code mqtt.timeout} seconds.
+	 * 
 	 * @param vehicle			Associated vehicle
 	 * @param missionName		Mission name
-	 * @param jsonMission		Vehicle mission plan
+	 * @param payload			Vehicle mission plan, as serialized for the vehicle (the array is not copied)
+	 * @param subtopic			Level appended to the mission topic to mark the encoding of the plan
+	 * 							({@code null} for JSON plans, published on the mission topic itself)
+	 * @return The time the broker acknowledged the plan, or a {@link MqttException} if it was not delivered
 	 * @throws MqttException	If occurs a MQTT error
 	 */
-	public void publishMission(Vehicle vehicle, String missionName, String jsonMission) throws MqttException {
-		String broker   = context.mqttProtocol + "://" + context.mqttServer + ":" + context.mqttPort;
-		String userName = context.mqttUser;
-		String password = context.mqttPass;
+	public CompletableFuture<Long> publishMission(Vehicle vehicle, String missionName, byte[] payload,
+			String subtopic) throws MqttException {
 		String[] topicLevels = context.mqttTopicMission.split("/");
 
 		String topic = topicLevels[0] + "/" +
@@ -91,46 +121,76 @@ public class MqttClientMission {
 				       missionName + "/" +
 		               vehicle.type + "/" +
 				       vehicle.name + "/" +
-		               topicLevels[5];		               
+		               topicLevels[5] +
+		               (subtopic != null ? "/" + subtopic : "");
 		
-		MemoryPersistence persistence = new MemoryPersistence();
-
-		MqttClient client = new MqttClient(broker, context.mqttClientID, persistence);
-		MqttConnectOptions connOpts = new MqttConnectOptions();
-
-		Properties sslProperties = new Properties();
-		sslProperties.setProperty("com.ibm.ssl.protocol", "TLS");
-		sslProperties.setProperty("com.ibm.ssl.trustStore", "mqttTrustStore.jks");
-		sslProperties.setProperty("com.ibm.ssl.trustStorePassword", "qwerty");
-		connOpts.setSSLProperties(sslProperties);
-
-		connOpts.setUserName(userName);
-		connOpts.setPassword(password.toCharArray());
-
-		mmLog.log(Level.INFO, "Publish new mission - Connecting to MQTT server...");
-		tic = System.currentTimeMillis();
-		client.connect(connOpts);
-		toc = System.currentTimeMillis();
-		sciLog.log(Level.INFO, ",publishMission,connect," + tic + "," + toc + "," + (toc-tic));
-		mmLog.log(Level.INFO, "Publish new mission - Connected!");
+		Connection current = getConnection();
+		MqttAsyncClient client = current.client;
+		Semaphore window = current.window;
 
-        MqttMessage message = new MqttMessage(jsonMission.getBytes());
+        MqttMessage message = new MqttMessage(payload);
         message.setQos(1);
         message.setRetained(context.mqttRetainedMission);
         
+        long tic = System.currentTimeMillis();
+        try {
+        	if (!window.tryAcquire(context.mqttTimeout, TimeUnit.SECONDS)) {
+        		sciLog.log(Level.INFO, "publishMission,window_full,{0},{1},{2}",
+        				new Object[] { topic, tic, System.currentTimeMillis() });
+        		throw new MqttException(MqttException.REASON_CODE_MAX_INFLIGHT);
+        	}
+        } catch (InterruptedException e) {
+        	Thread.currentThread().interrupt();
+        	throw new MqttException(e);
+        }
+        long toc = System.currentTimeMillis();
+        sciLog.log(Level.INFO, "publishMission,window,{0},{1},{2},{3}", new Object[] { topic, tic, toc, toc - tic });
+        
         mmLog.log(Level.INFO, "Publish new mission - Publishing mission to topic " + topic);
-        tic = System.currentTimeMillis();
-        client.publish(topic, message);
-        toc = System.currentTimeMillis();
-        sciLog.log(Level.INFO, "publishMission,publish," + topic + "," + jsonMission.length() + "," + tic + "," + toc + "," + (toc-tic));
-        mmLog.log(Level.INFO, "Publish new mission - New mission published!");
-
-        mmLog.log(Level.INFO, "Publish new mission - Disconnecting from MQTT server...");
-        tic = System.currentTimeMillis();
-        client.disconnect();
-        toc = System.currentTimeMillis();
-        sciLog.log(Level.INFO, "publishMission,disconnect,"  + tic + "," + toc + "," + (toc-tic));
-        mmLog.log(Level.INFO, "Publish new mission - Disconnected!");
+        long published = System.currentTimeMillis();
+        CompletableFuture<Long> delivery = new CompletableFuture<Long>();
+        ScheduledFuture<?> timeout = ExecutorManager.getInstance().getScheduler().schedule(() -> {
+        	if (delivery.completeExceptionally(new MqttException(MqttException.REASON_CODE_CLIENT_TIMEOUT))) {
+        		long failed = System.currentTimeMillis();
+        		sciLog.log(Level.INFO, "publishMission,publish,timeout,{0},{1},{2},{3}",
+        				new Object[] { topic, published, failed, failed - published });
+        		mmLog.log(Level.SEVERE, "Publish new mission - Mission not delivered in time to topic " + topic);
+        	}
+        }, context.mqttTimeout, TimeUnit.SECONDS);
+        try {
+        	client.publish(topic, message, null, new IMqttActionListener() {
+        		@Override
+        		public void onSuccess(IMqttToken token) {
+        			window.release();
+        			timeout.cancel(false);
+        			long delivered = System.currentTimeMillis();
+        			sciLog.log(Level.INFO, "publishMission,publish,{0},{1},{2},{3},{4}",
+        					new Object[] { topic, payload.length, published, delivered, delivered - published });
+        			mmLog.log(Level.INFO, "Publish new mission - New mission delivered to topic " + topic);
+        			delivery.complete(delivered);
+        		}
+
+        		@Override
+        		public void onFailure(IMqttToken token, Throwable exception) {
+        			window.release();
+        			timeout.cancel(false);
+        			long failed = System.currentTimeMillis();
+        			sciLog.log(Level.INFO, "publishMission,publish,mqtt_exception,{0},{1},{2},{3}",
+        					new Object[] { topic, published, failed, failed - published });
+        			mmLog.log(Level.SEVERE, "Publish new mission - Unable to deliver mission to topic " + topic);
+        			if (context.debug) {
+        				mmLog.log(Level.SEVERE, exception.getMessage(), exception);
+        			}
+        			delivery.completeExceptionally(exception);
+        		}
+        	});
+        } catch (MqttException e) {
+        	window.release();
+        	timeout.cancel(false);
+        	throw e;
+        }
+
+        return delivery;
 	}
 
 	/**
@@ -141,9 +201,71 @@ public class MqttClientMission {
 	 * @throws MqttException	If occurs a MQTT error
 	 */
 	public void publishAbort(Vehicle vehicle, String missionName) throws MqttException {
-		String broker   = context.mqttProtocol + "://" + context.mqttServer + ":" + context.mqttPort;
-		String userName = context.mqttUser;
-		String password = context.mqttPass;
+		mmLog.log(Level.INFO, "Publish soft abort vehicle mission for vehicle " + vehicle.id);
+		publishEvent("publishAbort", vehicle, missionName, MissionManager.ABORT_SOFT);
+		mmLog.log(Level.INFO, "Publish soft abort vehicle mission - Published!");
+	}
+
+	/**
+	 * Publish a hard abort plan request for the selected vehicle
+	 * 
+	 * @param vehicle			The vehicle
+	 * @param missionName		The mission name
+	 * @throws MqttException	If occurs a MQTT error
+	 */
+	public void publishAbortHard(Vehicle vehicle, String missionName) throws MqttException {
+		mmLog.log(Level.INFO, "Publish hard abort vehicle mission for vehicle " + vehicle.id);
+		publishEvent("publishAbortHard", vehicle, missionName, MissionManager.ABORT_HARD);
+		mmLog.log(Level.INFO, "Publish hard abort vehicle mission - Published!");
+	}
+
+	/**
+	 * Closes the connection to the MQTT broker, if open.
+	 */
+	public void close() {
+		Connection current;
+		synchronized (this) {
+			current = connection;
+			connection = null;
+		}
+		disconnect(current);
+	}
+
+	@Override
+	public void connectComplete(boolean reconnect, String serverURI) {
+		long toc = System.currentTimeMillis();
+		if (reconnect) {
+			mmLog.log(Level.INFO, "Reconnected to MQTT server " + serverURI);
+			sciLog.log(Level.INFO, "mqttMission,reconnect,{0},{1},{2}",
+					new Object[] { connectTic, toc, toc - connectTic });
+		}
+	}
+
+	@Override
+	public void connectionLost(Throwable cause) {
+		connectTic = System.currentTimeMillis();
+		mmLog.log(Level.WARNING, "Connection to MQTT server lost. Reconnecting...");
+		if (context.debug && cause != null) {
+			mmLog.log(Level.WARNING, cause.getMessage(), cause);
+		}
+	}
+
+	@Override
+	public void messageArrived(String topic, MqttMessage message) { }
+
+	@Override
+	public void deliveryComplete(IMqttDeliveryToken token) { }
+
+	/**
+	 * Publishes an event for the selected vehicle and waits until the broker acknowledges it.
+	 * 
+	 * @param operation			Name of the operation, for the logs
+	 * @param vehicle			The vehicle
+	 * @param missionName		The mission name
+	 * @param eventType			The event type
+	 * @throws MqttException	If occurs a MQTT error
+	 */
+	private void publishEvent(String operation, Vehicle vehicle, String missionName, int eventType) throws MqttException {
 		String[] topicLevels = context.mqttTopicMission.split("/");
 
 		String topic = topicLevels[0] + "/" +
@@ -153,31 +275,12 @@ public class MqttClientMission {
 				       vehicle.name + "/" +
 		               "event";
 		
-		MemoryPersistence persistence = new MemoryPersistence();
-
-		MqttClient client = new MqttClient(broker, context.mqttClientID, persistence);
-		MqttConnectOptions connOpts = new MqttConnectOptions();
-
-		Properties sslProperties = new Properties();
-		sslProperties.setProperty("com.ibm.ssl.protocol", "TLS");
-		sslProperties.setProperty("com.ibm.ssl.trustStore", "mqttTrustStore.jks");
-		sslProperties.setProperty("com.ibm.ssl.trustStorePassword", "qwerty");
-		connOpts.setSSLProperties(sslProperties);
-
-		connOpts.setUserName(userName);
-		connOpts.setPassword(password.toCharArray());
-
-		mmLog.log(Level.INFO, "Publish soft abort vehicle mission for vehicle " + vehicle.id + " - Connecting to MQTT server...");
-		tic = System.currentTimeMillis();
-		client.connect(connOpts);
-		toc = System.currentTimeMillis();
-		sciLog.log(Level.INFO, "publishAbort," + vehicle.id + ",connect," + tic + "," + toc + "," + (toc-tic));
-		mmLog.log(Level.INFO, "Publish soft abort vehicle mission (vehicleID:" + vehicle.id+ ") - Connected!");
+		MqttAsyncClient client = getConnection().client;
 
 		String request = Json.createObjectBuilder()
 			     .add("sequence_number", context.getNewSequenceNumber())
 			     .add("vehicle_id", vehicle.id)
-			     .add("event_type_id", MissionManager.ABORT_SOFT)
+			     .add("event_type_id", eventType)
 			     .add("param_array", Json.createArrayBuilder()
 			    		 .add(0)
 			    		 .add(0)
@@ -185,43 +288,135 @@ public class MqttClientMission {
 			     .build().toString();
 		MqttMessage message = new MqttMessage(request.getBytes());
 		    
-        mmLog.log(Level.INFO, "Publish soft abort vehicle mission - Publishing to topic " + topic);
-        tic = System.currentTimeMillis();
-        client.publish(topic, message);
-        toc = System.currentTimeMillis();
-        sciLog.log(Level.INFO, "publishAbort,publish," + topic + "," + vehicle.id + ","  + tic + "," + toc + "," + (toc-tic));
-        mmLog.log(Level.INFO, "Publish soft abort vehicle mission - Published!");
-
-        mmLog.log(Level.INFO, "Publish soft abort vehicle mission - Disconnecting from MQTT server...");
-        tic = System.currentTimeMillis();
-        client.disconnect();
-        toc = System.currentTimeMillis();
-        sciLog.log(Level.INFO, "publishAbort,disconnect," + tic + "," + toc + "," + (toc-tic));
-        mmLog.log(Level.INFO, "Publish soft abort vehicle mission - Disconnected!");		
+        long tic = System.currentTimeMillis();
+        client.publish(topic, message).waitForCompletion(context.mqttTimeout * 1000L);
+        long toc = System.currentTimeMillis();
+        sciLog.log(Level.INFO, "{0},publish,{1},{2},{3},{4},{5}",
+        		new Object[] { operation, topic, vehicle.id, tic, toc, toc - tic });
 	}
 
 	/**
-	 * Publish a hard abort plan request for the selected vehicle
+	 * Gets the shared connection to the broker, opening it if required. The connection is
+	 * reopened if any of the MQTT settings has changed since it was opened.
 	 * 
-	 * @param vehicle			The vehicle
-	 * @param missionName		The mission name
-	 * @throws MqttException	If occurs a MQTT error
+	 * @return The open connection
+	 * @throws MqttException	If it was not possible to connect to the broker
 	 */
-	public void publishAbortHard(Vehicle vehicle, String missionName) throws MqttException {
-		String broker   = context.mqttProtocol + "://" + context.mqttServer + ":" + context.mqttPort;
-		String userName = context.mqttUser;
-		String password = context.mqttPass;
-		String[] topicLevels = context.mqttTopicMission.split("/");
+	private Connection getConnection() throws MqttException {
+		Connection current;
+		while ((current = awaitConnection()) == null) {
+			// The attempt was dropped while waiting for it. Join the current one
+		}
+		return current;
+	}
 
-		String topic = topicLevels[0] + "/" +
-		               topicLevels[1] + "/" +
-				       missionName + "/" +
-		               vehicle.type + "/" +
-				       vehicle.name + "/" +
-		               "event";
-		MemoryPersistence persistence = new MemoryPersistence();
+	/**
+	 * Gets the shared connection to the broker, opening it or waiting for the attempt in progress.
+	 * 
+	 * @return The open connection, or {@code null} if the attempt was dropped while waiting for it
+	 * @throws MqttException	If it was not possible to connect to the broker
+	 */
+	private Connection awaitConnection() throws MqttException {
+		String broker   = context.mqttProtocol + "://" + context.mqttServer + ":" + context.mqttPort;
+		String settings = broker + "|" + context.mqttUser + "|" + context.mqttPass + "|"
+				+ context.mqttClientID + "|" + context.mqttMaxInflight;
+		
+		Connection current = connection;
+		if (current != null && settings.equals(current.settings)) {
+			return current;
+		}
+		
+		// Start a connection attempt (or join the one in progress). The monitor is only held
+		// while creating the client, never while connecting
+		Connection pending;
+		Connection abandoned = null;
+		synchronized (this) {
+			current = connection;
+			if (current != null && settings.equals(current.settings)) {
+				return current;
+			}
+			if (connecting == null || !settings.equals(connecting.settings)) {
+				if (current != null) {
+					mmLog.log(Level.INFO, "MQTT configuration has changed. Reopening the connection.");
+				}
+				abandoned = connecting;
+				if (abandoned != null) {
+					abandoned.dropped = true;
+				}
+				connecting = connect(broker, settings);
+			}
+			pending = connecting;
+		}
+		
+		// An attempt with outdated settings is dropped
+		if (abandoned != null) {
+			try {
+				abandoned.client.close(true);
+			} catch (MqttException e) {
+				// Nothing else to release
+			}
+		}
+		
+		try {
+			pending.connected.waitForCompletion(context.mqttTimeout * 1000L);
+		} catch (MqttException e) {
+			if (pending.dropped) {
+				// Closed because the settings changed while waiting
+				return null;
+			}
+			boolean owner;
+			synchronized (this) {
+				owner = (connecting == pending);
+				if (owner) {
+					connecting = null;
+				}
+			}
+			if (owner) {
+				long toc = System.currentTimeMillis();
+				sciLog.log(Level.INFO, "mqttMission,connect,mqtt_exception,{0},{1},{2}",
+						new Object[] { pending.tic, toc, toc - pending.tic });
+				try {
+					pending.client.close(true);
+				} catch (MqttException e1) {
+					// Nothing else to release
+				}
+			}
+			throw e;
+		}
+		
+		Connection previous = null;
+		synchronized (this) {
+			if (pending.dropped) {
+				// Closed after connecting, because the settings changed while waiting
+				return null;
+			}
+			if (connecting == pending) {
+				connecting = null;
+				previous = connection;
+				connection = pending;
+				long toc = System.currentTimeMillis();
+				sciLog.log(Level.INFO, "mqttMission,connect,{0},{1},{2}",
+						new Object[] { pending.tic, toc, toc - pending.tic });
+				mmLog.log(Level.INFO, "Connected to MQTT server " + pending.broker);
+			}
+		}
+		disconnect(previous);
+		
+		return pending;
+	}
 
-		MqttClient client = new MqttClient(broker, context.mqttClientID, persistence);
+	/**
+	 * Creates a client and starts its connection to the broker, without waiting for it.
+	 * 
+	 * @param broker	The broker URI
+	 * @param settings	The MQTT settings of the connection
+	 * @return The connection, still connecting
+	 * @throws MqttException	If it was not possible to start the connection
+	 */
+	private Connection connect(String broker, String settings) throws MqttException {
+		MqttAsyncClient newClient = new MqttAsyncClient(broker, context.mqttClientID, new MemoryPersistence());
+		newClient.setCallback(this);
+		
 		MqttConnectOptions connOpts = new MqttConnectOptions();
 
 		Properties sslProperties = new Properties();
@@ -230,39 +425,85 @@ public class MqttClientMission {
 		sslProperties.setProperty("com.ibm.ssl.trustStorePassword", "qwerty");
 		connOpts.setSSLProperties(sslProperties);
 
-		connOpts.setUserName(userName);
-		connOpts.setPassword(password.toCharArray());
+		connOpts.setUserName(context.mqttUser);
+		connOpts.setPassword(context.mqttPass.toCharArray());
+		connOpts.setAutomaticReconnect(true);
+		connOpts.setConnectionTimeout(context.mqttTimeout);
+		connOpts.setMaxInflight(context.mqttMaxInflight + ABORT_INFLIGHT_SLOTS);
+		
+		// Keep publishing while reconnecting, up to the configured window
+		DisconnectedBufferOptions bufferOpts = new DisconnectedBufferOptions();
+		bufferOpts.setBufferEnabled(true);
+		bufferOpts.setBufferSize(context.mqttMaxInflight + ABORT_INFLIGHT_SLOTS);
+		bufferOpts.setPersistBuffer(false);
+		bufferOpts.setDeleteOldestMessages(false);
+		newClient.setBufferOpts(bufferOpts);
 
-		mmLog.log(Level.INFO, "Publish hard abort vehicle mission for vehicle " + vehicle.id + " - Connecting to MQTT server...");
-		tic = System.currentTimeMillis();
-		client.connect(connOpts);
-		toc = System.currentTimeMillis();
-		sciLog.log(Level.INFO, "publishAbortHard," + vehicle.id + ",connect," + tic + "," + toc + "," + (toc-tic));
-		mmLog.log(Level.INFO, "Publish hard abort vehicle mission (vehicleID:" + vehicle.id + ") - Connected!");
+		mmLog.log(Level.INFO, "Connecting to MQTT server " + broker + "...");
+		long tic = System.currentTimeMillis();
+		connectTic = tic;
+		IMqttToken connected;
+		try {
+			connected = newClient.connect(connOpts);
+		} catch (MqttException e) {
+			try {
+				newClient.close(true);
+			} catch (MqttException e1) {
+				// Nothing else to release
+			}
+			throw e;
+		}
+		
+		return new Connection(newClient, broker, settings, new Semaphore(Math.max(1, context.mqttMaxInflight)),
+				connected, tic);
+	}
 
-		String request = Json.createObjectBuilder()
-			     .add("sequence_number", context.getNewSequenceNumber())
-			     .add("vehicle_id", vehicle.id)
-			     .add("event_type_id", MissionManager.ABORT_HARD)
-			     .add("param_array", Json.createArrayBuilder()
-			    		 .add(0)
-			    		 .add(0)
-			    		 .add(0))
-			     .build().toString();
-		MqttMessage message = new MqttMessage(request.getBytes());
-		    
-        mmLog.log(Level.INFO, "Publish hard abort vehicle mission - Publishing to topic " + topic);
-        tic = System.currentTimeMillis();
-        client.publish(topic, message);
-        toc = System.currentTimeMillis();
-        sciLog.log(Level.INFO, "publishAbortHard,publish," + topic + "," + vehicle.id + "," + tic + "," + toc + "," + (toc-tic));
-        mmLog.log(Level.INFO, "Publish hard abort vehicle mission - Published!");
-
-        mmLog.log(Level.INFO, "Publish hard abort vehicle mission - Disconnecting from MQTT server...");
-        tic = System.currentTimeMillis();
-        client.disconnect();
-        toc = System.currentTimeMillis();
-        sciLog.log(Level.INFO, "publishAbortHard,disconnect," + tic + "," + toc + "," + (toc-tic));
-        mmLog.log(Level.INFO, "Publish hard abort vehicle mission - Disconnected!");		
+	/**
+	 * Closes a connection to the broker, if any.
+	 * 
+	 * @param closing The connection to close ({@code null} if none)
+	 */
+	private void disconnect(Connection closing) {
+		if (closing == null) {
+			return;
+		}
+		try {
+			mmLog.log(Level.INFO, "Disconnecting from MQTT server...");
+			long tic = System.currentTimeMillis();
+			closing.client.disconnect().waitForCompletion(context.mqttTimeout * 1000L);
+			closing.client.close();
+			long toc = System.currentTimeMillis();
+			sciLog.log(Level.INFO, "mqttMission,disconnect,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
+		} catch (MqttException e) {
+			mmLog.log(Level.WARNING, "Error disconnecting from the MQTT server.");
+			if (context.debug) {
+				mmLog.log(Level.WARNING, e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * A client connected (or connecting) to the broker, with the settings it was opened with
+	 * and the window of its vehicle plans awaiting delivery.
+	 */
+	private static final class Connection {
+		final MqttAsyncClient client;
+		final String broker;
+		final String settings;
+		final Semaphore window;
+		final IMqttToken connected;
+		final long tic;
+		// Set (with the monitor held) when the attempt is dropped because the settings changed
+		volatile boolean dropped;
+
+		Connection(MqttAsyncClient client, String broker, String settings, Semaphore window, IMqttToken connected,
+				long tic) {
+			this.client = client;
+			this.broker = broker;
+			this.settings = settings;
+			this.window = window;
+			this.connected = connected;
+			this.tic = tic;
+		}
 	}
-}
\ No newline at end of file
+}
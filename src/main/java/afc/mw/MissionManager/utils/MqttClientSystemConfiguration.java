@@ -25,8 +25,11 @@
 package afc.mw.MissionManager.utils;
 
 import java.util.Properties;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,11 +55,6 @@ public class MqttClientSystemConfiguration {
 	private Logger mmLog = context.mmLog;
 	private Logger sciLog = context.sciLog;
 	
-	private long tic;
-	private long toc;
-	
-	private MqttClient client;
-	
 	private static MqttClientSystemConfiguration instance = null;
 	
 	public MqttClientSystemConfiguration() { }
@@ -66,7 +64,7 @@ public class MqttClientSystemConfiguration {
 	 * 
 	 * @return The MQTT client for the AFD System Configuration
 	 */
-	public static MqttClientSystemConfiguration getInstance() {
+	public static synchronized MqttClientSystemConfiguration getInstance() {
         if(instance == null)
             instance = new MqttClientSystemConfiguration();
         
@@ -76,6 +74,10 @@ public class MqttClientSystemConfiguration {
 	/**
 	 * Publish a System Configuration request
 	 * 
+	 * The method returns once the request has been published. The responses are counted by the
+	 * subscription callback, which completes the request when all of them have arrived, and a task
+	 * of the scheduler times it out otherwise. No thread waits for the responses.
+	 * 
 	 * @param requestID			Request ID
 	 * @param maxCount			Max number of available vehicles
 	 * @param timeOut			Timeout for the request
@@ -90,7 +92,8 @@ public class MqttClientSystemConfiguration {
 
 		MemoryPersistence persistence = new MemoryPersistence();
 
-		client = new MqttClient(broker, context.mqttClientID, persistence);
+		// Different client ID from the mission client, whose connection is kept open
+		MqttClient client = new MqttClient(broker, context.mqttClientID + "-sc", persistence);
 		MqttConnectOptions connOpts = new MqttConnectOptions();
 
 		Properties sslProperties = new Properties();
@@ -103,56 +106,78 @@ public class MqttClientSystemConfiguration {
 		connOpts.setPassword(password.toCharArray());
 
 		mmLog.log(Level.INFO, "Requesting vehicle status update - Connecting to MQTT server...");
-		tic = System.currentTimeMillis();
+		long tic = System.currentTimeMillis();
 		client.connect(connOpts);
-		toc = System.currentTimeMillis();
-		sciLog.log(Level.INFO, "publishSCRequest,connect," + tic + "," + toc + "," + (toc-tic));
+		long toc = System.currentTimeMillis();
+		sciLog.log(Level.INFO, "publishSCRequest,connect,{0},{1},{2}", new Object[] { tic, toc, toc - tic });
 		mmLog.log(Level.INFO, "Requesting vehicle status update - Connected!");
 
-		String request = Json.createObjectBuilder()
-			     .add("sequence_number", requestID).build().toString();
-        MqttMessage message = new MqttMessage(request.getBytes());
-        message.setQos(1);
-        message.setRetained(context.mqttRetainedSystemConfiguration);
-        
-        mmLog.log(Level.INFO, "Requesting vehicle status update - Publishing to topic " + pubTopic);
-        tic = System.currentTimeMillis();
-        client.publish(pubTopic, message);
-        toc = System.currentTimeMillis();
-        sciLog.log(Level.INFO, "publishSCRequest,publish," + pubTopic + "," + request.length() + ","  + tic + "," + toc + "," + (toc-tic));
-        mmLog.log(Level.INFO, "Requesting vehicle status update - Published!");
-
-        (new Thread() {
-        	public void run() {
-        		CountDownLatch receivedSignal = new CountDownLatch(maxCount);
-        		try {
-    				mmLog.log(Level.INFO, this.getClass().getSimpleName() + ": Subscribing to " + subTopic);
-        			client.subscribe(subTopic, (receivedTopic, msg) -> {
-        				mmLog.log(Level.INFO, this.getClass().getSimpleName() + ": Received MQTT message for topic " + receivedTopic + ":\n" + new String(msg.getPayload()));
-        				receivedSignal.countDown();
-        			});
-        			receivedSignal.await(timeOut, TimeUnit.SECONDS);
-        			
-        			if (receivedSignal.getCount() > 0) {        				
-        				mmLog.log(Level.INFO, "Timeout awaiting for vehicles resposes.");
-        				SCRequestManager.getInstance().setTimedout();
-        			}
-        			else {
-        				mmLog.log(Level.INFO, "Received responses from all vehicles.");
-        				SCRequestManager.getInstance().setCompleted();
-        			}
-        		} catch (MqttException e) {
-        			mmLog.log(Level.WARNING, "Unhandled MqttException while awaiting for publications.");
-        			if (context.debug) {
-    					mmLog.log(Level.WARNING, e.getMessage(), e);				
-        			}
-        		} catch (InterruptedException e) {
-        			mmLog.log(Level.WARNING, "Unhandled InterruptedException while awaiting for publications.");
-        			if (context.debug) {
-    					mmLog.log(Level.WARNING, e.getMessage(), e);				
-        			}
-        		} 
-        	}
-        }).start();
+		// The request completes on the last expected response, or times out, whichever comes first
+		AtomicInteger pendingResponses = new AtomicInteger(maxCount);
+		AtomicBoolean finished = new AtomicBoolean(false);
+		ScheduledExecutorService scheduler = ExecutorManager.getInstance().getScheduler();
+		ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+			if (finished.compareAndSet(false, true)) {
+				mmLog.log(Level.INFO, "Timeout awaiting for vehicles resposes.");
+				SCRequestManager.getInstance().setTimedout();
+				release(client);
+			}
+		}, timeOut, TimeUnit.SECONDS);
+
+		try {
+			mmLog.log(Level.INFO, this.getClass().getSimpleName() + ": Subscribing to " + subTopic);
+			client.subscribe(subTopic, (receivedTopic, msg) -> {
+				mmLog.log(Level.INFO, this.getClass().getSimpleName() + ": Received MQTT message for topic " + receivedTopic + ":\n" + new String(msg.getPayload()));
+				if (pendingResponses.decrementAndGet() <= 0 && finished.compareAndSet(false, true)) {
+					timeout.cancel(false);
+					// Completed off the callback thread, which cannot disconnect its own client, and which
+					// must not wait for the request manager while the request is still being published
+					scheduler.execute(() -> {
+						mmLog.log(Level.INFO, "Received responses from all vehicles.");
+						SCRequestManager.getInstance().setCompleted();
+						release(client);
+					});
+				}
+			});
+
+			String request = Json.createObjectBuilder()
+				     .add("sequence_number", requestID).build().toString();
+	        MqttMessage message = new MqttMessage(request.getBytes());
+	        message.setQos(1);
+	        message.setRetained(context.mqttRetainedSystemConfiguration);
+	        
+	        mmLog.log(Level.INFO, "Requesting vehicle status update - Publishing to topic " + pubTopic);
+	        tic = System.currentTimeMillis();
+	        client.publish(pubTopic, message);
+	        toc = System.currentTimeMillis();
+	        sciLog.log(Level.INFO, "publishSCRequest,publish,{0},{1},{2},{3},{4}",
+	        		new Object[] { pubTopic, request.length(), tic, toc, toc - tic });
+	        mmLog.log(Level.INFO, "Requesting vehicle status update - Published!");
+		} catch (MqttException e) {
+			if (finished.compareAndSet(false, true)) {
+				timeout.cancel(false);
+				release(client);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Disconnects and closes the client of a finished request.
+	 * 
+	 * @param client The client
+	 */
+	private void release(MqttClient client) {
+		try {
+			if (client.isConnected()) {
+				client.disconnect(0);
+			}
+			client.close();
+		} catch (MqttException e) {
+			mmLog.log(Level.WARNING, "Error disconnecting the System Configuration client from the MQTT server.");
+			if (context.debug) {
+				mmLog.log(Level.WARNING, e.getMessage(), e);
+			}
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rasterization of a polygon into the cells of a grid, e.g. a partfield border into the in-field mask
+ * of its treatment grid.
+ *
+ * A cell is inside the polygon when its center is (even-odd rule). The polygon is scanned row by row
+ * with an edge table: the edges are sorted by their lowest coordinate, each row only intersects the
+ * edges active at its center, and the cells between each pair of intersections are filled. The rows
+ * are split into bands across the workers of a fork-join pool.
+ *
+ * Row 0 is the one at the minimum north (y) coordinate, and column 0 the one at the minimum east (x)
+ * coordinate; the mask is ordered row by row, as the treatment values of the grids.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class PolygonRasterizer {
+	/** Number of cells below which a band of rows is not split any further. */
+	private static final int SPLIT_THRESHOLD = 1 << 15;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a new rasterizer.
+	 *
+	 * @param pool	The fork-join pool large grids are rasterized on
+	 */
+	public PolygonRasterizer(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Computes which cells of a grid are inside a polygon.
+	 *
+	 * @param xs			East (x) coordinates of the polygon vertices
+	 * @param ys			North (y) coordinates of the polygon vertices
+	 * @param minimumX		East coordinate of the west border of the grid
+	 * @param minimumY		North coordinate of the south border of the grid
+	 * @param cellWidth		East size of the cells
+	 * @param cellHeight	North size of the cells
+	 * @param columns		Number of columns of the grid
+	 * @param rows			Number of rows of the grid
+	 * @return Whether each cell is inside the polygon, row by row
+	 */
+	public boolean[] rasterize(double[] xs, double[] ys, double minimumX, double minimumY, double cellWidth,
+			double cellHeight, int columns, int rows) {
+		boolean[] inside = new boolean[columns * rows];
+		EdgeTable edges = new EdgeTable(xs, ys);
+		if (edges.count > 0) {
+			pool.invoke(new BandTask(edges, inside, minimumX, minimumY, cellWidth, cellHeight, columns, 0, rows));
+		}
+		return inside;
+	}
+
+	/**
+	 * Non-horizontal edges of a polygon, sorted by their lowest y coordinate.
+	 */
+	private static final class EdgeTable {
+		final int count;
+		final double[] lowY;
+		final double[] highY;
+		final double[] lowX;
+		final double[] slope;
+
+		EdgeTable(double[] xs, double[] ys) {
+			int vertices = xs.length;
+			double[][] edges = new double[vertices][];
+			int n = 0;
+			for (int i = 0; i < vertices; i++) {
+				int j = (i + 1) % vertices;
+				if (ys[i] == ys[j]) {
+					continue;
+				}
+				int low = (ys[i] < ys[j]) ? i : j;
+				int high = (low == i) ? j : i;
+				edges[n] = new double[] { ys[low], ys[high], xs[low], (xs[high] - xs[low]) / (ys[high] - ys[low]) };
+				n++;
+			}
+			Arrays.sort(edges, 0, n, (a, b) -> Double.compare(a[0], b[0]));
+
+			count = n;
+			lowY = new double[n];
+			highY = new double[n];
+			lowX = new double[n];
+			slope = new double[n];
+			for (int e = 0; e < n; e++) {
+				lowY[e] = edges[e][0];
+				highY[e] = edges[e][1];
+				lowX[e] = edges[e][2];
+				slope[e] = edges[e][3];
+			}
+		}
+	}
+
+	private static final class BandTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final EdgeTable edges;
+		private final boolean[] inside;
+		private final double minimumX;
+		private final double minimumY;
+		private final double cellWidth;
+		private final double cellHeight;
+		private final int columns;
+		private final int fromRow;
+		private final int toRow;
+
+		BandTask(EdgeTable edges, boolean[] inside, double minimumX, double minimumY, double cellWidth,
+				double cellHeight, int columns, int fromRow, int toRow) {
+			this.edges = edges;
+			this.inside = inside;
+			this.minimumX = minimumX;
+			this.minimumY = minimumY;
+			this.cellWidth = cellWidth;
+			this.cellHeight = cellHeight;
+			this.columns = columns;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+		}
+
+		@Override
+		protected void compute() {
+			if (toRow - fromRow > 1 && (long) (toRow - fromRow) * columns > SPLIT_THRESHOLD) {
+				int middle = (fromRow + toRow) >>> 1;
+				invokeAll(new BandTask(edges, inside, minimumX, minimumY, cellWidth, cellHeight, columns, fromRow, middle),
+						new BandTask(edges, inside, minimumX, minimumY, cellWidth, cellHeight, columns, middle, toRow));
+				return;
+			}
+
+			int[] active = new int[edges.count];
+			int activeCount = 0;
+			double[] crossings = new double[edges.count];
+			int next = 0;
+
+			for (int row = fromRow; row < toRow; row++) {
+				double y = minimumY + (row + 0.5) * cellHeight;
+
+				// Edges starting at or below the row center become active, those ending at or below it are dropped
+				while (next < edges.count && edges.lowY[next] <= y) {
+					active[activeCount++] = next++;
+				}
+				int kept = 0;
+				for (int a = 0; a < activeCount; a++) {
+					if (edges.highY[active[a]] > y) {
+						active[kept++] = active[a];
+					}
+				}
+				activeCount = kept;
+
+				for (int a = 0; a < activeCount; a++) {
+					int e = active[a];
+					crossings[a] = edges.lowX[e] + (y - edges.lowY[e]) * edges.slope[e];
+				}
+				Arrays.sort(crossings, 0, activeCount);
+
+				// The cells whose center is between each pair of crossings are inside
+				int offset = row * columns;
+				for (int c = 0; c + 1 < activeCount; c += 2) {
+					int fromColumn = Math.max(0, (int) Math.ceil((crossings[c] - minimumX) / cellWidth - 0.5));
+					int toColumn = Math.min(columns, (int) Math.ceil((crossings[c + 1] - minimumX) / cellWidth - 0.5));
+					if (fromColumn < toColumn) {
+						Arrays.fill(inside, offset + fromColumn, offset + toColumn, true);
+					}
+				}
+			}
+		}
+	}
+}
@@ -24,24 +24,24 @@
 
 package afc.mw.MissionManager.utils;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 import javax.json.bind.JsonbConfig;
-import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
@@ -52,8 +52,21 @@ import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-
-import org.glassfish.grizzly.http.util.Header;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.Variant;
+
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
 
 import com.afarcloud.thrift.Mission;
 
@@ -62,20 +75,36 @@ import afc.mw.MissionManager.types.RegisteredVehicle;
 import afc.mw.MissionManager.types.isobus.PrescriptionMap;
 
 /**
- * This class provides a REST client for accessing multiple REST services in the AFC Platform
+ * This class provides a REST client for accessing multiple REST services in the AFC Platform.
+ * 
+ * All the requests share a single HTTP client, backed by a pool of keep-alive connections (see the
+ * {@code http.pool.*} properties) and a single SSL context, so TLS sessions are reused as well. The
+ * latency of each remote endpoint is recorded in a {@link LatencyHistogram}.
  * 
  * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
  *
  */
 public class RestClient {
+	private static final int CONNECT_TIMEOUT_MS = 10000;
+	private static final int READ_TIMEOUT_MS = 12000;
+	private static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
+	private static final long IDLE_CONNECTION_TIMEOUT_S = 60;
 	
 	private MissionManagerContext context = MissionManagerContext.getInstance();
 	private Logger mmLog = context.mmLog;
 	
     private static final Jsonb jsonb = JsonbBuilder.create(new JsonbConfig().withNullValues(false).withFormatting(true));
+    private static final Jsonb wireJsonb = JsonbBuilder.create(new JsonbConfig().withNullValues(false));
 	
 	private static RestClient instance = null;
 
+	private Client client = null;
+	private PoolingHttpClientConnectionManager connectionManager = null;
+	
+	private final LatencyHistogram dqVehiclesLatency = new LatencyHistogram("dq_get_all_vehicle_types");
+	private final LatencyHistogram dqStoreLatency = new LatencyHistogram("dq_add_mission");
+	private final LatencyHistogram isobusConvertLatency = new LatencyHistogram("isobus_convert");
+
 	public RestClient () { }
 	
 	/**
@@ -83,7 +112,7 @@ public class RestClient {
 	 * 
 	 * @return The singleton instance of the REST client
 	 */
-    public static RestClient getInstance() {
+    public static synchronized RestClient getInstance() {
         if(instance == null)
             instance = new RestClient();
         
@@ -104,38 +133,16 @@ public class RestClient {
 		
 		mmLog.log(Level.INFO, "Request registered vehicles to DQ at " + requesturi);
 
-		TrustManager[] trustManager = new X509TrustManager[] { new X509TrustManager() {
-
-		    @Override
-		    public X509Certificate[] getAcceptedIssuers() {
-		        return null;
-		    }
-
-		    @Override
-		    public void checkClientTrusted(X509Certificate[] certs, String authType)  throws CertificateException {
-
-		    }
-
-		    @Override
-		    public void checkServerTrusted(X509Certificate[] certs, String authType) throws CertificateException {
-		    
-			}
-
-		}};
-				
+		long tic = System.nanoTime();
+		boolean success = false;
+		Response response = null;
 		try {
-			SSLContext sslContext = SSLContext.getInstance("SSL");
-			sslContext.init(null, trustManager, null);		
-		
-			Client client = ClientBuilder.newBuilder()
-					.connectTimeout(10, TimeUnit.SECONDS)
-					.readTimeout(12, TimeUnit.SECONDS)
-					.sslContext(sslContext).build();
-			WebTarget target = client.target(requesturi);
+			WebTarget target = getClient().target(requesturi);
 
-			Response response = target.request().get();
+			response = target.request().get();
 
 			String jsonResponse = response.readEntity(String.class);
+			success = isSuccessful(response);
 			
 			mmLog.log(Level.INFO, "Response from registered vehicles to DQ: " + response.getStatus());
 			mmLog.log(Level.INFO, "Response body from DQ: \n" + jsonResponse);
@@ -162,6 +169,9 @@ public class RestClient {
 			if (context.debug) {
 				mmLog.log(Level.WARNING, e.getMessage(), e);
 			}
+		} finally {
+			close(response);
+			dqVehiclesLatency.record(System.nanoTime() - tic, success);
 		}
 		
 		if (totalVehicles == 0) {
@@ -172,51 +182,59 @@ public class RestClient {
 	}
 	
 	/**
-	 * Sends a global mission plan in JSON format to the DQ
+	 * Sends a global mission plan in JSON format to the DQ. The plan is streamed (compact, and
+	 * gzip-compressed if {@code dq.gzip} is enabled) into the request body.
 	 * 
 	 * @param mission The global mission plan to be sent
+	 * @return {@code true} if the DQ stored the mission; {@code false} otherwise.
 	 */
-	public void storeMission(Mission mission) {
+	public boolean storeMission(Mission mission) {
+		return isSuccessful(storeMission(output -> wireJsonb.toJson(mission, output)));
+	}
+
+	/**
+	 * Sends a global mission plan, already serialized in JSON format, to the DQ. The plan is
+	 * streamed (gzip-compressed if {@code dq.gzip} is enabled) into the request body.
+	 * 
+	 * @param json Writes the JSON document of the global mission plan to be sent
+	 * @return The HTTP status of the DQ response, or 0 if there was no response.
+	 */
+	public int storeMission(StreamingOutput json) {
 		String requesturi = "https://"
                 + context.dqServer + ":" + context.dqPort + "/"
                 + "storage/rest/dq/addMission";
 		
 		mmLog.log(Level.INFO, "Request storing mission to DQ at " + requesturi);
 
-		TrustManager[] trustManager = new X509TrustManager[] { new X509TrustManager() {
-
-		    @Override
-		    public X509Certificate[] getAcceptedIssuers() {
-		        return null;
-		    }
-
-		    @Override
-		    public void checkClientTrusted(X509Certificate[] certs, String authType)  throws CertificateException {
-
-		    }
-
-		    @Override
-		    public void checkServerTrusted(X509Certificate[] certs, String authType) throws CertificateException {
-		    
-			}
-
-		}};
-				
+		long tic = System.nanoTime();
+		boolean success = false;
+		int status = 0;
+		Response response = null;
 		try {
-			SSLContext sslContext = SSLContext.getInstance("SSL");
-			sslContext.init(null, trustManager, null);
+			WebTarget target = getClient().target(requesturi);
 			
-			Client client = ClientBuilder.newBuilder()
-					.connectTimeout(10, TimeUnit.SECONDS)
-					.readTimeout(12, TimeUnit.SECONDS)
-					.sslContext(sslContext).build();
-			WebTarget target = client.target(requesturi);
+			// The mission is written straight into the (chunked) request body, without building
+			// the whole JSON document in memory
+			boolean gzip = context.dqGzip;
+			StreamingOutput body = output -> {
+				if (gzip) {
+					GZIPOutputStream gzipOutput = new GZIPOutputStream(output);
+					json.write(gzipOutput);
+					gzipOutput.finish();
+				} else {
+					json.write(output);
+				}
+			};
 			
-			Response response = target.request()
-					.header(Header.ContentType.toString(), MediaType.APPLICATION_JSON)
-					.post(Entity.json(jsonb.toJson(mission)));
+			Variant variant = new Variant(MediaType.APPLICATION_JSON_TYPE, (String) null, gzip ? "gzip" : null);
+			response = target.request()
+					.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED)
+					.post(Entity.entity(body, variant));
 			
-			mmLog.log(Level.INFO, "DQ Mission storing response: " + response.getStatus() + ": " + response.readEntity(String.class));
+			String responseBody = response.readEntity(String.class);
+			status = response.getStatus();
+			success = isSuccessful(response);
+			mmLog.log(Level.INFO, "DQ Mission storing response: " + response.getStatus() + ": " + responseBody);
 			
 		} catch (NoSuchAlgorithmException e) {
 			mmLog.log(Level.INFO, "Unable to store the mission through the DQ. SSL is not available locally.");
@@ -233,77 +251,60 @@ public class RestClient {
 			if (context.debug) {
 				mmLog.log(Level.WARNING, e.getMessage(), e);
 			}
+		} finally {
+			close(response);
+			dqStoreLatency.record(System.nanoTime() - tic, success);
 		}
+		return status;
 	}
 
 	/**
-	 * Sends the Pre-Prescription Map (JSON) to the ISOBUS Converter)
+	 * Sends the Pre-Prescription Map (JSON) to the ISOBUS Converter). The map is streamed (compact)
+	 * into the request body, so large grids are not built as a whole JSON document in memory, and the
+	 * task data (XML) in a successful response is streamed into the file {@code <basename>.xml}.
 	 * 
 	 * @param missionIdHash		Mission ID hash
 	 * @param prescriptionMap	Pre-Prescription Map to be sent
+	 * @param basename			Base name (path) of the prescription map files, unique for each mission vehicle
+	 * @return {@code true} if the ISOBUS Converter returned the task data; {@code false} otherwise.
 	 */
-	public void sendPrescriptionMap(String missionIdHash, PrescriptionMap prescriptionMap) {
+	public boolean sendPrescriptionMap(String missionIdHash, PrescriptionMap prescriptionMap, String basename) {
 		String requesturi = "https://"
                 + context.isobusConverterServer + ":" + context.isobusConverterPort + "/"
                 + "convert";
 		
-		TrustManager[] trustManager = new X509TrustManager[] { new X509TrustManager() {
-
-		    @Override
-		    public X509Certificate[] getAcceptedIssuers() {
-		        return null;
-		    }
-
-		    @Override
-		    public void checkClientTrusted(X509Certificate[] certs, String authType)  throws CertificateException {
-
-		    }
-
-		    @Override
-		    public void checkServerTrusted(X509Certificate[] certs, String authType) throws CertificateException {
-		    
-			}
-
-		}};
-				
+		long tic = System.nanoTime();
+		boolean success = false;
+		Response response = null;
 		try {
-			SSLContext sslContext = SSLContext.getInstance("SSL");
-			sslContext.init(null, trustManager, null);
+			WebTarget target = getClient().target(requesturi).queryParam("missionID", missionIdHash);
 			
-			Client client = ClientBuilder.newBuilder()
-					.connectTimeout(10, TimeUnit.SECONDS)
-					.readTimeout(12, TimeUnit.SECONDS)
-					.sslContext(sslContext).build();
-			WebTarget target = client.target(requesturi).queryParam("missionID", missionIdHash);
-			
-			// Added exception for self-signed certificate at the ISOBUS Converter
 			mmLog.log(Level.INFO, "Sending prescription map to " + target.getUri());
 			
-			HttpsURLConnection.setDefaultHostnameVerifier ((hostname, session) -> true);
-
-			Response response = target.request()
-					.header(Header.ContentType.toString(), MediaType.APPLICATION_JSON)
-					.post(Entity.json(jsonb.toJson(prescriptionMap)));
+			StreamingOutput body = output -> wireJsonb.toJson(prescriptionMap, output);
+			response = target.request()
+					.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED)
+					.post(Entity.entity(body, MediaType.APPLICATION_JSON_TYPE));
 			
-			String responseBody = response.readEntity(String.class);
-			mmLog.log(Level.INFO, "ISOBUS Converter response: " + response.getStatus() + ":\n" + responseBody);
-
-			String datetime = (new SimpleDateFormat("yyyyMMdd-HHmmss")).format(Calendar.getInstance().getTime());
-        	String basename = "AFC-PM-" + datetime;
-        	String pmResponse = context.current_mission_dir + File.separator + basename + ".xml";
-        	PrintWriter pw = null;
-	        try {        	
-	            pw = new PrintWriter(pmResponse);
-	        	pw.println(responseBody);
-	        }
-	        catch (FileNotFoundException e) {
-	        	mmLog.log(Level.WARNING, "Unable to store " + pmResponse);
-	        }
-	        finally {
-	            if ( pw != null ) {
-	                pw.close();
-	            }
-	        }
+			success = isSuccessful(response);
+			mmLog.log(Level.INFO, "ISOBUS Converter response: " + response.getStatus());
+			if (!success) {
+				mmLog.log(Level.WARNING, "The ISOBUS Converter rejected the prescription map (" + response.getStatus()
+						+ "): " + response.readEntity(String.class));
+				return false;
+			}
+
+			// The task data is streamed to the file, not buffered as a whole
+			String pmResponse = basename + ".xml";
+			try (InputStream responseBody = response.readEntity(InputStream.class)) {
+				Files.copy(responseBody, Paths.get(pmResponse));
+			} catch (IOException e) {
+				mmLog.log(Level.WARNING, "Unable to store " + pmResponse);
+				if (context.debug) {
+					mmLog.log(Level.WARNING, e.getMessage(), e);
+				}
+				return false;
+			}
 		} catch (NoSuchAlgorithmException e) {
 			mmLog.log(Level.INFO, "Unable to send the prescription map to the ISOBUS Converter. SSL is not available locally.");
 			if (context.debug) {
@@ -319,6 +320,143 @@ public class RestClient {
 			if (context.debug) {
 				mmLog.log(Level.WARNING, e.getMessage(), e);
 			}
+		} finally {
+			close(response);
+			isobusConvertLatency.record(System.nanoTime() - tic, success);
+		}
+		return success;
+	}
+
+	/**
+	 * Gets the statistics of the shared HTTP connection pool and the latency of each remote endpoint,
+	 * as two CSV blocks with a header each.
+	 * 
+	 * @return The statistics of the HTTP client.
+	 */
+	public String getStatistics() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("pool,leased,available,pending,max,max_per_route\n");
+		synchronized (this) {
+			if (connectionManager != null) {
+				PoolStats stats = connectionManager.getTotalStats();
+				sb.append("http," + stats.getLeased() + "," + stats.getAvailable() + "," + stats.getPending() + ","
+						+ stats.getMax() + "," + connectionManager.getDefaultMaxPerRoute() + "\n");
+			} else {
+				sb.append("http,0,0,0," + context.httpPoolMaxTotal + "," + context.httpPoolMaxPerRoute + "\n");
+			}
+		}
+		sb.append("endpoint,count,errors,mean_ms,p50_ms,p90_ms,p99_ms,max_ms\n");
+		for (LatencyHistogram histogram : getLatencyHistograms()) {
+			sb.append(histogram.getStatistics()).append("\n");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the latency histograms of the remote endpoints.
+	 * 
+	 * @return The latency histograms (DQ vehicle types, DQ mission storing and ISOBUS conversion).
+	 */
+	public LatencyHistogram[] getLatencyHistograms() {
+		return new LatencyHistogram[] { dqVehiclesLatency, dqStoreLatency, isobusConvertLatency };
+	}
+
+	/**
+	 * Gets the shared HTTP client, creating it on first use. The pool limits are updated from the
+	 * context on every call, so changes through the configuration service apply to the next request.
+	 * 
+	 * @return The shared HTTP client.
+	 * @throws NoSuchAlgorithmException If SSL is not available.
+	 * @throws KeyManagementException If the SSL context cannot be initialized.
+	 */
+	private synchronized Client getClient() throws NoSuchAlgorithmException, KeyManagementException {
+		if (client == null) {
+			TrustManager[] trustManager = new X509TrustManager[] { new X509TrustManager() {
+
+			    @Override
+			    public X509Certificate[] getAcceptedIssuers() {
+			        return null;
+			    }
+
+			    @Override
+			    public void checkClientTrusted(X509Certificate[] certs, String authType)  throws CertificateException {
+
+			    }
+
+			    @Override
+			    public void checkServerTrusted(X509Certificate[] certs, String authType) throws CertificateException {
+			    
+				}
+
+			}};
+
+			SSLContext sslContext = SSLContext.getInstance("SSL");
+			sslContext.init(null, trustManager, null);
+
+			// Added exception for self-signed certificates (e.g. at the ISOBUS Converter)
+			HostnameVerifier hostnameVerifier = (hostname, session) -> true;
+
+			Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+					.register("http", PlainConnectionSocketFactory.getSocketFactory())
+					.register("https", new SSLConnectionSocketFactory(sslContext, hostnameVerifier))
+					.build();
+			connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+			connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+
+			ClientConfig config = new ClientConfig()
+					.connectorProvider(new ApacheConnectorProvider())
+					.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+					.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.BUFFERED)
+					.property(ClientProperties.CONNECT_TIMEOUT, CONNECT_TIMEOUT_MS)
+					.property(ClientProperties.READ_TIMEOUT, READ_TIMEOUT_MS);
+
+			client = ClientBuilder.newBuilder()
+					.withConfig(config)
+					.sslContext(sslContext)
+					.hostnameVerifier(hostnameVerifier)
+					.build();
+			
+			mmLog.log(Level.INFO, "Shared HTTP client created (pool: " + context.httpPoolMaxTotal + " connections, "
+					+ context.httpPoolMaxPerRoute + " per server)");
+		}
+
+		int maxTotal = Math.max(1, context.httpPoolMaxTotal);
+		int maxPerRoute = Math.max(1, Math.min(context.httpPoolMaxPerRoute, maxTotal));
+		if (connectionManager.getMaxTotal() != maxTotal) {
+			connectionManager.setMaxTotal(maxTotal);
+		}
+		if (connectionManager.getDefaultMaxPerRoute() != maxPerRoute) {
+			connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		}
+		connectionManager.closeExpiredConnections();
+		connectionManager.closeIdleConnections(IDLE_CONNECTION_TIMEOUT_S, TimeUnit.SECONDS);
+
+		return client;
+	}
+
+	private static boolean isSuccessful(Response response) {
+		return response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL;
+	}
+
+	private static boolean isSuccessful(int status) {
+		return Response.Status.Family.familyOf(status) == Response.Status.Family.SUCCESSFUL;
+	}
+
+	/**
+	 * Closes a response (if any), so its connection goes back to the pool.
+	 * 
+	 * @param response The response to be closed
+	 */
+	private void close(Response response) {
+		if (response == null) {
+			return;
+		}
+		try {
+			response.close();
+		} catch (ProcessingException e) {
+			if (context.debug) {
+				mmLog.log(Level.WARNING, e.getMessage(), e);
+			}
 		}
 	}
 }
@@ -103,6 +103,8 @@ public class SCRequestManager {
 			mmLog.log(Level.INFO, "Processing new request (requestID:" + requestID + ") for vehicles status update.");
 			currentRequestID = requestID;
 
+			// In progress before publishing, so a response (or timeout) arriving meanwhile is not overwritten
+			status = IN_PROGRESS;
 			try {
 				RestClient.getInstance().getTotalVehiclesFromDB();
 				requestTimestamp = System.currentTimeMillis();
@@ -112,10 +114,9 @@ public class SCRequestManager {
 				if (context.debug) {
 					mmLog.log(Level.WARNING, e.getMessage(), e);				
 				}
+				status = READY;
 				return MQTT_ERROR;
 			}
-			
-			status = IN_PROGRESS;
 
 			return ACCEPTED;
 		}
@@ -0,0 +1,74 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.logging.LogRecord;
+
+/**
+ * Formatter of the technical/scientific tracking log, as CSV:
+ * {@code date,time,level,class,method,thread,max_memory,total_memory,free_memory,message}.
+ * 
+ * The memory figures are sampled at most every {@value #MEMORY_SAMPLE_MS} milliseconds.
+ * 
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class SciLogFormatter extends LogFormatter {
+	private static final long MEMORY_SAMPLE_MS = 100;
+
+	private final Runtime runtime = Runtime.getRuntime();
+	private long memorySampledAt = 0;
+	private long maxMemory;
+	private long totalMemory;
+	private long freeMemory;
+
+	public SciLogFormatter() {
+		super("yyyy-MM-dd,HH:mm:ss");
+	}
+
+	@Override
+	protected void format(LogRecord record, StringBuilder sb) {
+		long now = System.currentTimeMillis();
+		if (now - memorySampledAt >= MEMORY_SAMPLE_MS) {
+			memorySampledAt = now;
+			maxMemory = runtime.maxMemory();
+			totalMemory = runtime.totalMemory();
+			freeMemory = runtime.freeMemory();
+		}
+
+		sb.append(getTimestamp(record)).append(',');
+		appendLevel(record, sb);
+		sb.append(',');
+		appendSourceClass(record, sb);
+		sb.append(',').append(record.getSourceMethodName())
+			.append(',').append(record.getThreadID())
+			.append(',').append(maxMemory)
+			.append(',').append(totalMemory)
+			.append(',').append(freeMemory)
+			.append(',');
+		appendMessage(record, sb);
+		sb.append(' ').append(LINE_SEPARATOR);
+	}
+}
@@ -0,0 +1,466 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import afc.mw.MissionManager.types.isobus.CropType;
+import afc.mw.MissionManager.types.isobus.CropVariety;
+import afc.mw.MissionManager.types.isobus.CulturalPractice;
+import afc.mw.MissionManager.types.isobus.Customer;
+import afc.mw.MissionManager.types.isobus.Farm;
+import afc.mw.MissionManager.types.isobus.Grid;
+import afc.mw.MissionManager.types.isobus.LineString;
+import afc.mw.MissionManager.types.isobus.OperationTechnique;
+import afc.mw.MissionManager.types.isobus.OperationTechniqueReference;
+import afc.mw.MissionManager.types.isobus.Partfield;
+import afc.mw.MissionManager.types.isobus.Point;
+import afc.mw.MissionManager.types.isobus.Polygon;
+import afc.mw.MissionManager.types.isobus.PrescriptionMap;
+import afc.mw.MissionManager.types.isobus.ProcessDataVariable;
+import afc.mw.MissionManager.types.isobus.Product;
+import afc.mw.MissionManager.types.isobus.Task;
+import afc.mw.MissionManager.types.isobus.TreatmentZone;
+import afc.mw.MissionManager.types.isobus.Worker;
+
+/**
+ * Local generator of the ISO 11783-10 task data of the prescription maps, as an alternative to the
+ * remote ISOBUS Converter.
+ *
+ * The prescription map is streamed with StAX into {@value #TASKDATA_FILE}, element by element, and the
+ * cells of each task grid (grid type 1, one treatment zone code per byte) into its own binary file,
+ * GRD00001.BIN and so on. Neither the XML document nor the grids are built in memory. The optional
+ * attributes are only written when set in the prescription map, and the treatment zone codes of a task
+ * only when the task has those zones.
+ *
+ * The conversion mode is set with the property {@code isobusconverter.mode}, as {@value #REMOTE} or
+ * {@value #LOCAL}.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class TaskDataWriter {
+	/** Conversion mode of the ISOBUS Converter service. */
+	public static final String REMOTE = "remote";
+	/** Conversion mode of this writer. */
+	public static final String LOCAL = "local";
+	/** Name of the task data file. */
+	public static final String TASKDATA_FILE = "TASKDATA.XML";
+
+	/** Data transfer origin of the task data: FMIS to MICS. */
+	private static final String DATA_TRANSFER_ORIGIN = "1";
+	/** Grid type with one treatment zone code (0 to 255) in each cell. */
+	private static final int GRID_TYPE_ZONES = 1;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static TaskDataWriter instance = null;
+
+	private final XMLOutputFactory factory = XMLOutputFactory.newFactory();
+
+	private TaskDataWriter() { }
+
+	public static synchronized TaskDataWriter getInstance() {
+		if (instance == null) {
+			instance = new TaskDataWriter();
+		}
+		return instance;
+	}
+
+	/**
+	 * Writes the task data of a prescription map into a directory, created if needed.
+	 *
+	 * @param prescriptionMap	The prescription map
+	 * @param directory			The task data directory
+	 * @return The task data file
+	 * @throws XMLStreamException If the prescription map cannot be written as task data
+	 * @throws IOException If the task data files cannot be written
+	 */
+	public File write(PrescriptionMap prescriptionMap, File directory) throws XMLStreamException, IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create the task data directory " + directory);
+		}
+		File file = new File(directory, TASKDATA_FILE);
+		try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)) {
+			XMLStreamWriter xml = factory.createXMLStreamWriter(output, "UTF-8");
+			try {
+				xml.writeStartDocument("UTF-8", "1.0");
+				xml.writeStartElement("ISO11783_TaskData");
+				xml.writeAttribute("VersionMajor", Integer.toString(prescriptionMap.versionMajor));
+				xml.writeAttribute("VersionMinor", Integer.toString(prescriptionMap.versionMinor));
+				attribute(xml, "ManagementSoftwareManufacturer", prescriptionMap.managementSoftwareManufacturer);
+				attribute(xml, "ManagementSoftwareVersion", prescriptionMap.managementSoftwareVersion);
+				xml.writeAttribute("DataTransferOrigin", DATA_TRANSFER_ORIGIN);
+
+				writeCustomer(xml, prescriptionMap.customer);
+				writeFarm(xml, prescriptionMap.farm);
+				writePartfield(xml, prescriptionMap.partfield);
+				if (prescriptionMap.product != null) {
+					for (Product product : prescriptionMap.product) {
+						xml.writeEmptyElement("PDT");
+						attribute(xml, "A", product.productId);
+						attribute(xml, "B", product.productDesignator);
+						attribute(xml, "C", product.productGroupId);
+					}
+				}
+				if (prescriptionMap.cropType != null) {
+					for (CropType cropType : prescriptionMap.cropType) {
+						writeCropType(xml, cropType);
+					}
+				}
+				if (prescriptionMap.culturalPractice != null) {
+					for (CulturalPractice culturalPractice : prescriptionMap.culturalPractice) {
+						writeCulturalPractice(xml, culturalPractice);
+					}
+				}
+				if (prescriptionMap.operationTechnique != null) {
+					for (OperationTechnique operationTechnique : prescriptionMap.operationTechnique) {
+						xml.writeEmptyElement("OTQ");
+						attribute(xml, "A", operationTechnique.operationTechniqueId);
+						attribute(xml, "B", operationTechnique.operationTechniqueDesignator);
+					}
+				}
+				writeWorker(xml, prescriptionMap.worker);
+				if (prescriptionMap.task != null) {
+					int grids = 0;
+					for (Task task : prescriptionMap.task) {
+						if (task.grid != null) {
+							grids++;
+						}
+						writeTask(xml, task, directory, grids);
+					}
+				}
+
+				xml.writeEndElement();
+				xml.writeEndDocument();
+				xml.flush();
+			} finally {
+				xml.close();
+			}
+		}
+		return file;
+	}
+
+	private void writeCustomer(XMLStreamWriter xml, Customer customer) throws XMLStreamException {
+		if (customer == null) {
+			return;
+		}
+		xml.writeEmptyElement("CTR");
+		attribute(xml, "A", customer.customerId);
+		attribute(xml, "B", customer.customerDesignator);
+		attribute(xml, "D", customer.customerStreet);
+		attribute(xml, "E", customer.customerPOBox);
+		attribute(xml, "F", customer.customerPostalCode);
+		attribute(xml, "G", customer.customerCity);
+		attribute(xml, "H", customer.customerState);
+		attribute(xml, "I", customer.customerCountry);
+		attribute(xml, "J", customer.customerPhone);
+		attribute(xml, "K", customer.customerMobile);
+		attribute(xml, "L", customer.customerFax);
+		attribute(xml, "M", customer.customerEMail);
+	}
+
+	private void writeFarm(XMLStreamWriter xml, Farm farm) throws XMLStreamException {
+		if (farm == null) {
+			return;
+		}
+		xml.writeEmptyElement("FRM");
+		attribute(xml, "A", farm.farmId);
+		attribute(xml, "B", farm.farmDesignator);
+		attribute(xml, "C", farm.farmStreet);
+		attribute(xml, "D", farm.farmPOBox);
+		attribute(xml, "E", farm.farmPostalCode);
+		attribute(xml, "F", farm.farmCity);
+		attribute(xml, "G", farm.farmState);
+		attribute(xml, "H", farm.farmCountry);
+		attribute(xml, "I", farm.customerIdRef);
+	}
+
+	private void writePartfield(XMLStreamWriter xml, Partfield partfield) throws XMLStreamException {
+		if (partfield == null) {
+			return;
+		}
+		xml.writeStartElement("PFD");
+		attribute(xml, "A", partfield.partfieldId);
+		attribute(xml, "C", partfield.partfieldDesignator);
+		xml.writeAttribute("D", Long.toString(partfield.partfieldArea));
+		attribute(xml, "E", partfield.customerIdRef);
+		attribute(xml, "F", partfield.farmIdRef);
+		attribute(xml, "G", partfield.cropTypeIdRef);
+		Polygon polygon = partfield.polygon;
+		if (polygon != null) {
+			xml.writeStartElement("PLN");
+			xml.writeAttribute("A", Integer.toString(polygon.polygonType));
+			attribute(xml, "B", polygon.poligonDesignator);
+			if (polygon.lineString != null) {
+				writeLineString(xml, polygon.lineString);
+			}
+			xml.writeEndElement();
+		}
+		xml.writeEndElement();
+	}
+
+	private void writeLineString(XMLStreamWriter xml, LineString lineString) throws XMLStreamException {
+		xml.writeStartElement("LSG");
+		xml.writeAttribute("A", Integer.toString(lineString.lineStringType));
+		attribute(xml, "B", lineString.lineStringDesignator);
+		attribute(xml, "E", lineString.lineStringColour);
+		attribute(xml, "F", lineString.lineStringIdRef);
+		if (lineString.point != null) {
+			for (Point point : lineString.point) {
+				xml.writeEmptyElement("PNT");
+				xml.writeAttribute("A", Integer.toString(point.pointType));
+				attribute(xml, "B", point.pointDesignator);
+				attribute(xml, "C", point.pointNorth);
+				attribute(xml, "D", point.pointEast);
+				attribute(xml, "F", point.pointColour);
+				attribute(xml, "G", point.pointId);
+			}
+		}
+		xml.writeEndElement();
+	}
+
+	private void writeCropType(XMLStreamWriter xml, CropType cropType) throws XMLStreamException {
+		List<CropVariety> varieties = cropType.cropVariety;
+		if (varieties == null || varieties.isEmpty()) {
+			xml.writeEmptyElement("CTP");
+		} else {
+			xml.writeStartElement("CTP");
+		}
+		attribute(xml, "A", cropType.cropTypeId);
+		attribute(xml, "B", cropType.cropTypeDesignator);
+		if (varieties != null && !varieties.isEmpty()) {
+			for (CropVariety variety : varieties) {
+				xml.writeEmptyElement("CVT");
+				attribute(xml, "A", variety.cropVarietyId);
+				attribute(xml, "B", variety.cropVarietyDesignator);
+			}
+			xml.writeEndElement();
+		}
+	}
+
+	private void writeCulturalPractice(XMLStreamWriter xml, CulturalPractice culturalPractice)
+			throws XMLStreamException {
+		xml.writeStartElement("CPC");
+		attribute(xml, "A", culturalPractice.culturalPracticeId);
+		attribute(xml, "B", culturalPractice.culturalPracticeDesignator);
+		if (culturalPractice.operationTechniqueReference != null) {
+			for (OperationTechniqueReference reference : culturalPractice.operationTechniqueReference) {
+				xml.writeEmptyElement("OTR");
+				attribute(xml, "A", reference.operationTechniqueIdRef);
+			}
+		}
+		xml.writeEndElement();
+	}
+
+	private void writeWorker(XMLStreamWriter xml, Worker worker) throws XMLStreamException {
+		if (worker == null) {
+			return;
+		}
+		xml.writeEmptyElement("WKR");
+		attribute(xml, "A", worker.workerId);
+		attribute(xml, "B", worker.workerDesignator);
+		attribute(xml, "C", worker.workerFirstName);
+		attribute(xml, "D", worker.workerStreet);
+		attribute(xml, "E", worker.workerPOBox);
+		attribute(xml, "F", worker.workerPostalCode);
+		attribute(xml, "G", worker.workerCity);
+		attribute(xml, "H", worker.workerState);
+		attribute(xml, "I", worker.workerCountry);
+		attribute(xml, "J", worker.workerPhone);
+		attribute(xml, "K", worker.workerMobile);
+		attribute(xml, "L", worker.workerLicenseNumber);
+		attribute(xml, "M", worker.workerEMail);
+	}
+
+	private void writeTask(XMLStreamWriter xml, Task task, File directory, int gridNumber)
+			throws XMLStreamException, IOException {
+		xml.writeStartElement("TSK");
+		attribute(xml, "A", task.taskId);
+		attribute(xml, "B", task.taskDesignator);
+		attribute(xml, "C", task.customerIdRef);
+		attribute(xml, "D", task.farmIdRef);
+		attribute(xml, "E", task.partfieldIdRef);
+		attribute(xml, "F", task.responsibleWorkerIdRef);
+		xml.writeAttribute("G", Integer.toString(task.taskStatus));
+
+		// The treatment zone codes of the task are only written when the task has the zone
+		boolean[] zones = new boolean[256];
+		if (task.treatmentZone != null) {
+			for (TreatmentZone treatmentZone : task.treatmentZone) {
+				if (treatmentZone.treatmentZoneCode >= 0 && treatmentZone.treatmentZoneCode < zones.length) {
+					zones[treatmentZone.treatmentZoneCode] = true;
+				}
+			}
+		}
+		zoneAttribute(xml, "H", task.defaultTreatmentZoneCode, zones);
+		zoneAttribute(xml, "I", task.positionLostTreatmentZoneCode, zones);
+		zoneAttribute(xml, "J", task.outOfFieldTreatmentZoneCode, zones);
+
+		if (task.treatmentZone != null) {
+			for (TreatmentZone treatmentZone : task.treatmentZone) {
+				writeTreatmentZone(xml, treatmentZone);
+			}
+		}
+		if (task.operTechPractice != null) {
+			xml.writeEmptyElement("OTP");
+			attribute(xml, "A", task.operTechPractice.culturalPracticeIdRef);
+		}
+		if (task.grid != null) {
+			writeGrid(xml, task.grid, directory, String.format("GRD%05d", gridNumber));
+		}
+		xml.writeEndElement();
+	}
+
+	private void writeTreatmentZone(XMLStreamWriter xml, TreatmentZone treatmentZone) throws XMLStreamException {
+		xml.writeStartElement("TZN");
+		xml.writeAttribute("A", Integer.toString(treatmentZone.treatmentZoneCode));
+		attribute(xml, "B", treatmentZone.treatmentZoneDesginator);
+		attribute(xml, "C", treatmentZone.treatmentZoneColour);
+		if (treatmentZone.processDataVariable != null) {
+			for (ProcessDataVariable variable : treatmentZone.processDataVariable) {
+				if (!Double.isFinite(variable.dataValue)) {
+					throw new XMLStreamException("Treatment zone " + treatmentZone.treatmentZoneCode
+							+ " has a non-finite process data value.");
+				}
+				SetpointRate rate = SetpointRate.of(variable.UoM);
+				long value = Math.round(variable.dataValue * rate.scale);
+				if (value < 0 || value > Integer.MAX_VALUE) {
+					throw new XMLStreamException("Treatment zone " + treatmentZone.treatmentZoneCode
+							+ " has a process data value out of range: " + variable.dataValue + " " + variable.UoM);
+				}
+				xml.writeEmptyElement("PDV");
+				xml.writeAttribute("A", rate.ddi);
+				xml.writeAttribute("B", Long.toString(value));
+				attribute(xml, "C", variable.productId);
+			}
+		}
+		xml.writeEndElement();
+	}
+
+	private void writeGrid(XMLStreamWriter xml, Grid grid, File directory, String name)
+			throws XMLStreamException, IOException {
+		int cells = grid.gridMaximumColumn * grid.gridMaximumRow;
+		if (grid.gridType != GRID_TYPE_ZONES || grid.gridCell == null || grid.gridCell.length != cells) {
+			throw new XMLStreamException("Grid " + name + " is not a grid of " + cells + " treatment zone codes.");
+		}
+		byte[] buffer = new byte[Math.min(cells, BUFFER_SIZE)];
+		try (OutputStream output = new FileOutputStream(new File(directory, name + ".BIN"))) {
+			int count = 0;
+			for (int cell : grid.gridCell) {
+				if (cell < 0 || cell > 255) {
+					throw new XMLStreamException("Grid " + name + " has an invalid treatment zone code " + cell + ".");
+				}
+				buffer[count++] = (byte) cell;
+				if (count == buffer.length) {
+					output.write(buffer, 0, count);
+					count = 0;
+				}
+			}
+			output.write(buffer, 0, count);
+		}
+
+		xml.writeEmptyElement("GRD");
+		attribute(xml, "A", grid.gridMinimumNorthPosition);
+		attribute(xml, "B", grid.gridMinimumEastPosition);
+		attribute(xml, "C", grid.gridCellNorthSize);
+		attribute(xml, "D", grid.gridCellEastSize);
+		xml.writeAttribute("E", Integer.toString(grid.gridMaximumColumn));
+		xml.writeAttribute("F", Integer.toString(grid.gridMaximumRow));
+		xml.writeAttribute("G", name);
+		xml.writeAttribute("H", Integer.toString(cells));
+		xml.writeAttribute("I", Integer.toString(grid.gridType));
+		// The treatment zone code of the grid (J) only applies to grid type 2
+	}
+
+	/**
+	 * Setpoint application rates of the process data variables, with their data dictionary identifier and the
+	 * factor from the unit of measure of the prescription map to the resolution of the identifier.
+	 */
+	private enum SetpointRate {
+		/** Setpoint Volume Per Area Application Rate, 0.01 mm3/m2. */
+		VOLUME("0001", 100),
+		/** Setpoint Mass Per Area Application Rate, 1 mg/m2. */
+		MASS("0006", 1),
+		/** Setpoint Count Per Area Application Rate, 0.001 /m2. */
+		COUNT("0011", 1000);
+
+		final String ddi;
+		final double scale;
+
+		SetpointRate(String ddi, double scale) {
+			this.ddi = ddi;
+			this.scale = scale;
+		}
+
+		/**
+		 * Gets the setpoint application rate in a unit of measure.
+		 *
+		 * @param unit	The unit of measure of the process data value
+		 * @return The setpoint application rate
+		 * @throws XMLStreamException If there is no setpoint application rate in the unit of measure
+		 */
+		static SetpointRate of(String unit) throws XMLStreamException {
+			if (unit == null || unit.equals("mm3/m2")) {
+				return VOLUME;
+			} else if (unit.equals("mg/m2")) {
+				return MASS;
+			} else if (unit.equals("/m2")) {
+				return COUNT;
+			}
+			throw new XMLStreamException("Unsupported unit of measure for the process data: " + unit);
+		}
+	}
+
+	private static void zoneAttribute(XMLStreamWriter xml, String name, int code, boolean[] zones)
+			throws XMLStreamException {
+		if (code >= 0 && code < zones.length && zones[code]) {
+			xml.writeAttribute(name, Integer.toString(code));
+		}
+	}
+
+	private static void attribute(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+		if (value != null) {
+			xml.writeAttribute(name, value);
+		}
+	}
+
+	/** Writes a decimal attribute, without exponent as the ISO 11783-10 decimals have none. */
+	private static void attribute(XMLStreamWriter xml, String name, double value) throws XMLStreamException {
+		if (!Double.isFinite(value)) {
+			throw new XMLStreamException("Attribute " + name + " has a non-finite value.");
+		}
+		xml.writeAttribute(name, BigDecimal.valueOf(value).toPlainString());
+	}
+}
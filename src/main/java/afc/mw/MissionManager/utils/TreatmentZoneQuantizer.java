@@ -0,0 +1,281 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Quantization of the treatment values of a prescription map grid into treatment zones.
+ *
+ * The range of the (finite) treatment values is split into a number of equal intervals, one per
+ * treatment zone, and each grid cell gets the code of the zone of its value. The application rate
+ * of each zone is the mean of the values of its cells. Cells without a finite value get the code of
+ * the default treatment zone, whose rate is the mean of all the finite values. If an in-field mask is
+ * given, the cells outside the field get the code of the out of field treatment zone, and their values
+ * are ignored.
+ *
+ * Both passes over the grid (range and zones) work on primitive arrays, and large grids are split
+ * across the workers of a fork-join pool.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class TreatmentZoneQuantizer {
+	/** Code of the default treatment zone (cells without a finite treatment value). */
+	public static final int DEFAULT_ZONE_CODE = 1;
+	/** Code of the position lost treatment zone (no cell is quantized into it). */
+	public static final int POSITION_LOST_ZONE_CODE = 2;
+	/** Code of the out of field treatment zone (cells outside the partfield). */
+	public static final int OUT_OF_FIELD_ZONE_CODE = 3;
+	/** Code of the first quantized treatment zone, after the default, position lost and out of field ones. */
+	public static final int FIRST_ZONE_CODE = 4;
+	/** Maximum number of quantized treatment zones (ISOBUS treatment zone codes go up to 254). */
+	public static final int MAX_ZONES = 254 - FIRST_ZONE_CODE + 1;
+
+	/** Number of cells below which a part of the grid is not split any further. */
+	private static final int SPLIT_THRESHOLD = 1 << 15;
+
+	/**
+	 * Quantized treatment grid.
+	 */
+	public static final class Quantization {
+		/** Treatment zone code of each grid cell, in the order of the treatment values. */
+		public int[] cells;
+		/** Number of quantized treatment zones (1 if all the values are the same). */
+		public int zones;
+		/** Minimum finite treatment value. */
+		public double minimum;
+		/** Maximum finite treatment value. */
+		public double maximum;
+		/** Application rate (mean treatment value) of each zone, {@code NaN} for the zones with no cells. */
+		public double[] rates;
+		/** Number of cells of each zone. */
+		public int[] counts;
+		/** Number of cells without a finite treatment value, in the default treatment zone. */
+		public int nonFinite;
+		/** Application rate of the default treatment zone. */
+		public double defaultRate;
+		/** Number of cells outside the field, in the out of field treatment zone. */
+		public int outOfField;
+	}
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a new quantizer.
+	 *
+	 * @param pool	The fork-join pool large grids are quantized on
+	 */
+	public TreatmentZoneQuantizer(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Quantizes the treatment values of a grid into treatment zones.
+	 *
+	 * @param values	The treatment values of the grid cells
+	 * @param zones		The number of treatment zones (limited to 1 .. {@value #MAX_ZONES})
+	 * @return The quantized grid
+	 */
+	public Quantization quantize(double[] values, int zones) {
+		return quantize(values, null, zones);
+	}
+
+	/**
+	 * Quantizes the treatment values of the cells of a grid inside a field into treatment zones.
+	 *
+	 * @param values	The treatment values of the grid cells
+	 * @param inside	Whether each cell is inside the field ({@code null} if all of them are)
+	 * @param zones		The number of treatment zones (limited to 1 .. {@value #MAX_ZONES})
+	 * @return The quantized grid
+	 */
+	public Quantization quantize(double[] values, boolean[] inside, int zones) {
+		Quantization quantization = new Quantization();
+		quantization.cells = new int[values.length];
+
+		Range range = pool.invoke(new RangeTask(values, inside, 0, values.length));
+		quantization.nonFinite = range.nonFinite;
+		quantization.outOfField = range.outOfField;
+		int finite = values.length - range.nonFinite - range.outOfField;
+		if (finite == 0) {
+			quantization.zones = 0;
+			quantization.rates = new double[0];
+			quantization.counts = new int[0];
+			quantization.defaultRate = 0;
+			for (int i = 0; i < values.length; i++) {
+				quantization.cells[i] = (inside == null || inside[i]) ? DEFAULT_ZONE_CODE : OUT_OF_FIELD_ZONE_CODE;
+			}
+			return quantization;
+		}
+
+		quantization.minimum = range.minimum;
+		quantization.maximum = range.maximum;
+		quantization.zones = (range.maximum > range.minimum) ? Math.max(1, Math.min(MAX_ZONES, zones)) : 1;
+
+		ZoneTotals totals = pool.invoke(new ZoneTask(values, inside, quantization.cells, 0, values.length, range.minimum,
+				(range.maximum - range.minimum) / quantization.zones, quantization.zones));
+
+		quantization.rates = new double[quantization.zones];
+		quantization.counts = totals.counts;
+		double sum = 0;
+		for (int zone = 0; zone < quantization.zones; zone++) {
+			quantization.rates[zone] = (totals.counts[zone] > 0) ? totals.sums[zone] / totals.counts[zone] : Double.NaN;
+			sum += totals.sums[zone];
+		}
+		quantization.defaultRate = sum / finite;
+		return quantization;
+	}
+
+	/** Range of the finite values of a part of the grid. */
+	private static final class Range {
+		double minimum = Double.POSITIVE_INFINITY;
+		double maximum = Double.NEGATIVE_INFINITY;
+		int nonFinite = 0;
+		int outOfField = 0;
+	}
+
+	private static final class RangeTask extends RecursiveTask<Range> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] values;
+		private final boolean[] inside;
+		private final int from;
+		private final int to;
+
+		RangeTask(double[] values, boolean[] inside, int from, int to) {
+			this.values = values;
+			this.inside = inside;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Range compute() {
+			if (to - from > SPLIT_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				RangeTask left = new RangeTask(values, inside, from, middle);
+				left.fork();
+				Range range = new RangeTask(values, inside, middle, to).compute();
+				Range other = left.join();
+				range.minimum = Math.min(range.minimum, other.minimum);
+				range.maximum = Math.max(range.maximum, other.maximum);
+				range.nonFinite += other.nonFinite;
+				range.outOfField += other.outOfField;
+				return range;
+			}
+
+			Range range = new Range();
+			double minimum = Double.POSITIVE_INFINITY;
+			double maximum = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				double value = values[i];
+				if (inside != null && !inside[i]) {
+					range.outOfField++;
+				} else if (Double.isNaN(value) || Double.isInfinite(value)) {
+					range.nonFinite++;
+				} else {
+					minimum = Math.min(minimum, value);
+					maximum = Math.max(maximum, value);
+				}
+			}
+			range.minimum = minimum;
+			range.maximum = maximum;
+			return range;
+		}
+	}
+
+	/** Sum of the values and number of cells of each zone in a part of the grid. */
+	private static final class ZoneTotals {
+		final double[] sums;
+		final int[] counts;
+
+		ZoneTotals(int zones) {
+			sums = new double[zones];
+			counts = new int[zones];
+		}
+	}
+
+	private static final class ZoneTask extends RecursiveTask<ZoneTotals> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] values;
+		private final boolean[] inside;
+		private final int[] cells;
+		private final int from;
+		private final int to;
+		private final double minimum;
+		private final double width;
+		private final int zones;
+
+		ZoneTask(double[] values, boolean[] inside, int[] cells, int from, int to, double minimum, double width,
+				int zones) {
+			this.values = values;
+			this.inside = inside;
+			this.cells = cells;
+			this.from = from;
+			this.to = to;
+			this.minimum = minimum;
+			this.width = width;
+			this.zones = zones;
+		}
+
+		@Override
+		protected ZoneTotals compute() {
+			if (to - from > SPLIT_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				ZoneTask left = new ZoneTask(values, inside, cells, from, middle, minimum, width, zones);
+				left.fork();
+				ZoneTotals totals = new ZoneTask(values, inside, cells, middle, to, minimum, width, zones).compute();
+				ZoneTotals other = left.join();
+				for (int zone = 0; zone < zones; zone++) {
+					totals.sums[zone] += other.sums[zone];
+					totals.counts[zone] += other.counts[zone];
+				}
+				return totals;
+			}
+
+			ZoneTotals totals = new ZoneTotals(zones);
+			int last = zones - 1;
+			for (int i = from; i < to; i++) {
+				double value = values[i];
+				if (inside != null && !inside[i]) {
+					cells[i] = OUT_OF_FIELD_ZONE_CODE;
+					continue;
+				}
+				if (Double.isNaN(value) || Double.isInfinite(value)) {
+					cells[i] = DEFAULT_ZONE_CODE;
+					continue;
+				}
+				// The maximum value (and rounding above it) falls in the last zone
+				int zone = (width > 0) ? Math.min(last, (int) ((value - minimum) / width)) : 0;
+				cells[i] = FIRST_ZONE_CODE + zone;
+				totals.sums[zone] += value;
+				totals.counts[zone]++;
+			}
+			return totals;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.EnumSet;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolUtil;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TIOStreamTransport;
+
+import com.afarcloud.thrift.VehicleType;
+
+import afc.mw.MissionManager.MissionManagerContext;
+import afc.mw.MissionManager.types.ParsedCommand;
+import afc.mw.MissionManager.types.VehiclePlan;
+
+/**
+ * Compact binary encoding of the vehicle plans, for the vehicles on bandwidth-limited links.
+ *
+ * The plan is encoded with the Thrift compact protocol as the following structs, so the vehicles can
+ * decode it with the code generated for any language:
+ *
+ * <pre>
+ * struct ParsedCommand {
+ *   1: i32 command_id
+ *   2: i32 command_type_id
+ *   3: list&lt;double&gt; param_array
+ * }
+ *
+ * struct VehiclePlan {
+ *   1: i32 sequence_number
+ *   2: i32 mission_id
+ *   3: i32 vehicle_id
+ *   4: double maximum_linear_speed
+ *   5: list&lt;ParsedCommand&gt; command_array
+ * }
+ * </pre>
+ *
+ * The vehicle types that get the compact encoding are set with the property
+ * {@code mqtt.compact_types}. Their plans are published on the mission topic followed by
+ * {@value #COMPACT_SUBTOPIC}, so the consumers of the JSON plans are not affected.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class VehiclePlanEncoder {
+	/** Encoding name of the JSON plans. */
+	public static final String JSON = "json";
+	/** Encoding name of the compact plans, also the subtopic they are published on. */
+	public static final String COMPACT_SUBTOPIC = "compact";
+
+	private static final TStruct PLAN_STRUCT = new TStruct("VehiclePlan");
+	private static final TField SEQUENCE_NUMBER_FIELD = new TField("sequence_number", TType.I32, (short) 1);
+	private static final TField MISSION_ID_FIELD = new TField("mission_id", TType.I32, (short) 2);
+	private static final TField VEHICLE_ID_FIELD = new TField("vehicle_id", TType.I32, (short) 3);
+	private static final TField MAXIMUM_LINEAR_SPEED_FIELD = new TField("maximum_linear_speed", TType.DOUBLE, (short) 4);
+	private static final TField COMMAND_ARRAY_FIELD = new TField("command_array", TType.LIST, (short) 5);
+
+	private static final TStruct COMMAND_STRUCT = new TStruct("ParsedCommand");
+	private static final TField COMMAND_ID_FIELD = new TField("command_id", TType.I32, (short) 1);
+	private static final TField COMMAND_TYPE_ID_FIELD = new TField("command_type_id", TType.I32, (short) 2);
+	private static final TField PARAM_ARRAY_FIELD = new TField("param_array", TType.LIST, (short) 3);
+
+	/** Encoded size of each command, besides its params (for the initial buffer size). */
+	private static final int COMMAND_SIZE_ESTIMATE = 16;
+
+	private static VehiclePlanEncoder instance = null;
+
+	private MissionManagerContext context = MissionManagerContext.getInstance();
+
+	/** The vehicle types and the property value they were parsed from, replaced together. */
+	private static final class CompactTypes {
+		final String value;
+		final EnumSet<VehicleType> types = EnumSet.noneOf(VehicleType.class);
+
+		CompactTypes(String value) {
+			this.value = value;
+			for (String name : value.split(",")) {
+				for (VehicleType type : VehicleType.values()) {
+					if (type.name().equalsIgnoreCase(name.trim())) {
+						types.add(type);
+					}
+				}
+			}
+		}
+	}
+
+	private volatile CompactTypes compactTypes = new CompactTypes("");
+
+	private VehiclePlanEncoder() { }
+
+	public static synchronized VehiclePlanEncoder getInstance() {
+		if (instance == null) {
+			instance = new VehiclePlanEncoder();
+		}
+		return instance;
+	}
+
+	/**
+	 * Checks whether the plans of a vehicle type are sent with the compact encoding.
+	 *
+	 * @param type	The vehicle type
+	 * @return {@code true} if the plans of the vehicle type are sent compact; {@code false} if they are
+	 *         sent as JSON.
+	 */
+	public boolean isCompact(VehicleType type) {
+		String value = (context.mqttCompactTypes != null) ? context.mqttCompactTypes : "";
+		CompactTypes current = compactTypes;
+		if (!current.value.equals(value)) {
+			current = new CompactTypes(value);
+			compactTypes = current;
+		}
+		return current.types.contains(type);
+	}
+
+	/**
+	 * Encodes a vehicle plan with the compact encoding.
+	 *
+	 * @param plan	The vehicle plan
+	 * @return The encoded plan
+	 * @throws TException If the plan cannot be encoded
+	 */
+	public byte[] encodeCompact(VehiclePlan plan) throws TException {
+		int params = plan.command_array.isEmpty() ? 0 : plan.command_array.get(0).param_array.length;
+		ByteArrayOutputStream output = new ByteArrayOutputStream(
+				32 + plan.command_array.size() * (COMMAND_SIZE_ESTIMATE + params * 8));
+		TProtocol protocol = new TCompactProtocol(new TIOStreamTransport(output));
+
+		protocol.writeStructBegin(PLAN_STRUCT);
+		protocol.writeFieldBegin(SEQUENCE_NUMBER_FIELD);
+		protocol.writeI32(plan.sequence_number);
+		protocol.writeFieldEnd();
+		protocol.writeFieldBegin(MISSION_ID_FIELD);
+		protocol.writeI32(plan.mission_id);
+		protocol.writeFieldEnd();
+		protocol.writeFieldBegin(VEHICLE_ID_FIELD);
+		protocol.writeI32(plan.vehicle_id);
+		protocol.writeFieldEnd();
+		protocol.writeFieldBegin(MAXIMUM_LINEAR_SPEED_FIELD);
+		protocol.writeDouble(plan.maximum_linear_speed);
+		protocol.writeFieldEnd();
+
+		protocol.writeFieldBegin(COMMAND_ARRAY_FIELD);
+		protocol.writeListBegin(new TList(TType.STRUCT, plan.command_array.size()));
+		for (ParsedCommand command : plan.command_array) {
+			protocol.writeStructBegin(COMMAND_STRUCT);
+			protocol.writeFieldBegin(COMMAND_ID_FIELD);
+			protocol.writeI32(command.command_id);
+			protocol.writeFieldEnd();
+			protocol.writeFieldBegin(COMMAND_TYPE_ID_FIELD);
+			protocol.writeI32(command.command_type_id);
+			protocol.writeFieldEnd();
+			protocol.writeFieldBegin(PARAM_ARRAY_FIELD);
+			protocol.writeListBegin(new TList(TType.DOUBLE, command.param_array.length));
+			for (double param : command.param_array) {
+				protocol.writeDouble(param);
+			}
+			protocol.writeListEnd();
+			protocol.writeFieldEnd();
+			protocol.writeFieldStop();
+			protocol.writeStructEnd();
+		}
+		protocol.writeListEnd();
+		protocol.writeFieldEnd();
+
+		protocol.writeFieldStop();
+		protocol.writeStructEnd();
+		return output.toByteArray();
+	}
+
+	/**
+	 * Decodes a vehicle plan sent with the compact encoding. Unknown fields are skipped.
+	 *
+	 * @param encoded	The encoded plan
+	 * @return The vehicle plan
+	 * @throws TException If the plan cannot be decoded
+	 */
+	public VehiclePlan decodeCompact(byte[] encoded) throws TException {
+		TProtocol protocol = new TCompactProtocol(new TIOStreamTransport(new ByteArrayInputStream(encoded)));
+		VehiclePlan plan = new VehiclePlan();
+
+		protocol.readStructBegin();
+		for (TField field = protocol.readFieldBegin(); field.type != TType.STOP; field = protocol.readFieldBegin()) {
+			if (field.id == SEQUENCE_NUMBER_FIELD.id && field.type == TType.I32) {
+				plan.sequence_number = protocol.readI32();
+			} else if (field.id == MISSION_ID_FIELD.id && field.type == TType.I32) {
+				plan.mission_id = protocol.readI32();
+			} else if (field.id == VEHICLE_ID_FIELD.id && field.type == TType.I32) {
+				plan.vehicle_id = protocol.readI32();
+			} else if (field.id == MAXIMUM_LINEAR_SPEED_FIELD.id && field.type == TType.DOUBLE) {
+				plan.maximum_linear_speed = protocol.readDouble();
+			} else if (field.id == COMMAND_ARRAY_FIELD.id && field.type == TType.LIST) {
+				TList commands = protocol.readListBegin();
+				for (int i = 0; i < commands.size; i++) {
+					plan.command_array.add(readCommand(protocol));
+				}
+				protocol.readListEnd();
+			} else {
+				TProtocolUtil.skip(protocol, field.type);
+			}
+			protocol.readFieldEnd();
+		}
+		protocol.readStructEnd();
+		return plan;
+	}
+
+	private static ParsedCommand readCommand(TProtocol protocol) throws TException {
+		ParsedCommand command = new ParsedCommand();
+
+		protocol.readStructBegin();
+		for (TField field = protocol.readFieldBegin(); field.type != TType.STOP; field = protocol.readFieldBegin()) {
+			if (field.id == COMMAND_ID_FIELD.id && field.type == TType.I32) {
+				command.command_id = protocol.readI32();
+			} else if (field.id == COMMAND_TYPE_ID_FIELD.id && field.type == TType.I32) {
+				command.command_type_id = protocol.readI32();
+			} else if (field.id == PARAM_ARRAY_FIELD.id && field.type == TType.LIST) {
+				TList params = protocol.readListBegin();
+				command.param_array = new double[params.size];
+				for (int i = 0; i < params.size; i++) {
+					command.param_array[i] = protocol.readDouble();
+				}
+				protocol.readListEnd();
+			} else {
+				TProtocolUtil.skip(protocol, field.type);
+			}
+			protocol.readFieldEnd();
+		}
+		protocol.readStructEnd();
+		return command;
+	}
+}
@@ -0,0 +1,107 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.nio.charset.StandardCharsets;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.KeyLengthException;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.MACSigner;
+
+import afc.mw.MissionManager.MissionManagerContext;
+
+/**
+ * Signs the serialized vehicle plans sent to the DDS Manager as HS256 JWS objects, with the shared
+ * secret of the Mission Manager configuration.
+ *
+ * The signer is prepared once for each value of the shared secret, and rebuilt only when the secret
+ * changes. It is immutable, so the same instance signs the plans of all the vehicles concurrently.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class VehiclePlanSigner {
+	private static final JWSHeader HEADER = new JWSHeader(JWSAlgorithm.HS256);
+
+	private static VehiclePlanSigner instance = null;
+
+	private MissionManagerContext context = MissionManagerContext.getInstance();
+
+	/** The signer and the secret it was built with, replaced together. */
+	private static final class PreparedKey {
+		final String secret;
+		final MACSigner signer;
+
+		PreparedKey(String secret) throws KeyLengthException {
+			this.secret = secret;
+			this.signer = new MACSigner(secret);
+		}
+	}
+
+	private volatile PreparedKey key = null;
+
+	private VehiclePlanSigner() { }
+
+	public static synchronized VehiclePlanSigner getInstance() {
+		if (instance == null) {
+			instance = new VehiclePlanSigner();
+		}
+		return instance;
+	}
+
+	/**
+	 * Signs a serialized vehicle plan.
+	 *
+	 * @param plan	The vehicle plan, as UTF-8 encoded JSON.
+	 * @return The JWS object in its compact serialization, as ASCII bytes.
+	 * @throws KeyLengthException	If the shared secret is shorter than 256 bits.
+	 * @throws JOSEException		If the plan cannot be signed.
+	 */
+	public byte[] sign(byte[] plan) throws JOSEException {
+		JWSObject jwsObject = new JWSObject(HEADER, new Payload(plan));
+		jwsObject.sign(getSigner());
+		return jwsObject.serialize().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Gets the signer for the current shared secret, preparing it if the secret has changed.
+	 *
+	 * @return The signer.
+	 * @throws KeyLengthException	If the shared secret is shorter than 256 bits.
+	 */
+	private MACSigner getSigner() throws KeyLengthException {
+		String secret = context.mm2ddsSecret;
+		PreparedKey prepared = key;
+		if (prepared == null || !prepared.secret.equals(secret)) {
+			prepared = new PreparedKey(secret);
+			key = prepared;
+		}
+		return prepared.signer;
+	}
+}
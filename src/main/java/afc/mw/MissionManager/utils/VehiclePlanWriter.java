@@ -0,0 +1,211 @@
+/* Copyright 2018-2021 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    Néstor Lucas Martínez
+ *    José-Fernán Martínez Ortega
+ *    Vicente Hernández Díaz
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licenses/LICENSE.
+ * 
+ */
+
+package afc.mw.MissionManager.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.json.JsonException;
+
+import afc.mw.MissionManager.types.ParsedCommand;
+import afc.mw.MissionManager.types.VehiclePlan;
+
+/**
+ * Streaming JSON writer of the vehicle plans.
+ *
+ * The output is the same, byte for byte, as the pretty-printed JSON-B serialization used before
+ * (properties in lexicographical order, four spaces of indentation and the numbers formatted as
+ * {@link Integer#toString(int)} and {@link Double#toString(double)}). The plan is written field by
+ * field into a single buffer, without reflection, intermediate characters or boxed params.
+ *
+ * @author Néstor Lucas Martínez <nestor.lucas@upm.es>
+ *
+ */
+public class VehiclePlanWriter {
+	/** Initial size of the buffer of each plan, besides its commands. */
+	private static final int PLAN_SIZE_ESTIMATE = 160;
+	/** Size of each pretty-printed command, besides its params (for the initial buffer size). */
+	private static final int COMMAND_SIZE_ESTIMATE = 128;
+	/** Size of each pretty-printed param (for the initial buffer size). */
+	private static final int PARAM_SIZE_ESTIMATE = 40;
+
+	private static final byte[] INDENT = "                ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] MIN_INT = Integer.toString(Integer.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+	private static VehiclePlanWriter instance = null;
+
+	private VehiclePlanWriter() { }
+
+	public static synchronized VehiclePlanWriter getInstance() {
+		if (instance == null) {
+			instance = new VehiclePlanWriter();
+		}
+		return instance;
+	}
+
+	/**
+	 * Serializes a vehicle plan as UTF-8 encoded JSON.
+	 *
+	 * @param plan	The vehicle plan
+	 * @return The serialized plan
+	 * @throws JsonException If the plan has a non-finite number (NaN or infinite)
+	 */
+	public byte[] toJson(VehiclePlan plan) {
+		int params = plan.command_array.isEmpty() ? 0 : plan.command_array.get(0).param_array.length;
+		Buffer out = new Buffer(
+				PLAN_SIZE_ESTIMATE + plan.command_array.size() * (COMMAND_SIZE_ESTIMATE + params * PARAM_SIZE_ESTIMATE));
+
+		out.write('\n');
+		out.write('{');
+		out.key(1, "command_array");
+		out.write('[');
+		boolean first = true;
+		for (ParsedCommand command : plan.command_array) {
+			if (!first) {
+				out.write(',');
+			}
+			first = false;
+			out.newLine(2);
+			out.write('{');
+			out.key(3, "command_id");
+			out.number(command.command_id);
+			out.write(',');
+			out.key(3, "command_type_id");
+			out.number(command.command_type_id);
+			out.write(',');
+			out.key(3, "param_array");
+			out.write('[');
+			for (int i = 0; i < command.param_array.length; i++) {
+				if (i > 0) {
+					out.write(',');
+				}
+				out.newLine(4);
+				out.number(command.param_array[i], plan);
+			}
+			out.newLine(3);
+			out.write(']');
+			out.newLine(2);
+			out.write('}');
+		}
+		out.newLine(1);
+		out.write(']');
+		out.write(',');
+		out.key(1, "maximum_linear_speed");
+		out.number(plan.maximum_linear_speed, plan);
+		out.write(',');
+		out.key(1, "mission_id");
+		out.number(plan.mission_id);
+		out.write(',');
+		out.key(1, "sequence_number");
+		out.number(plan.sequence_number);
+		out.write(',');
+		out.key(1, "vehicle_id");
+		out.number(plan.vehicle_id);
+		out.newLine(0);
+		out.write('}');
+		return out.toByteArray();
+	}
+
+	/**
+	 * Growable byte buffer with the few JSON tokens of a vehicle plan. Only ASCII text is written.
+	 */
+	private static final class Buffer {
+		private byte[] bytes;
+		private int count = 0;
+
+		Buffer(int size) {
+			bytes = new byte[size];
+		}
+
+		private void ensure(int extra) {
+			if (count + extra > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, count + extra));
+			}
+		}
+
+		void write(char c) {
+			ensure(1);
+			bytes[count++] = (byte) c;
+		}
+
+		void write(String s) {
+			int length = s.length();
+			ensure(length);
+			for (int i = 0; i < length; i++) {
+				bytes[count++] = (byte) s.charAt(i);
+			}
+		}
+
+		void newLine(int level) {
+			ensure(1 + 4 * level);
+			bytes[count++] = '\n';
+			System.arraycopy(INDENT, 0, bytes, count, 4 * level);
+			count += 4 * level;
+		}
+
+		void key(int level, String name) {
+			newLine(level);
+			write('"');
+			write(name);
+			write('"');
+			write(':');
+			write(' ');
+		}
+
+		void number(int value) {
+			if (value == Integer.MIN_VALUE) {
+				ensure(MIN_INT.length);
+				System.arraycopy(MIN_INT, 0, bytes, count, MIN_INT.length);
+				count += MIN_INT.length;
+				return;
+			}
+			ensure(11);
+			if (value < 0) {
+				bytes[count++] = '-';
+				value = -value;
+			}
+			int digits = 1;
+			for (int v = value; v >= 10; v /= 10) {
+				digits++;
+			}
+			for (int i = count + digits - 1; i >= count; i--) {
+				bytes[i] = (byte) ('0' + value % 10);
+				value /= 10;
+			}
+			count += digits;
+		}
+
+		void number(double value, VehiclePlan plan) {
+			if (Double.isNaN(value) || Double.isInfinite(value)) {
+				throw new JsonException("Vehicle plan " + plan.sequence_number + " has a non-finite number.");
+			}
+			write(Double.toString(value));
+		}
+
+		byte[] toByteArray() {
+			return count == bytes.length ? bytes : Arrays.copyOf(bytes, count);
+		}
+	}
+}
@@ -28,10 +28,15 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.thrift.TMultiplexedProcessor;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.server.THsHaServer;
 import org.apache.thrift.server.TServer;
 import org.apache.thrift.server.TServer.Args;
 import org.apache.thrift.server.TSimpleServer;
+import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.server.TThreadedSelectorServer;
 import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TNonblockingServerSocket;
 import org.apache.thrift.transport.TServerSocket;
 import org.apache.thrift.transport.TServerTransport;
 import org.apache.thrift.transport.TTransportException;
@@ -52,12 +57,17 @@ public class ThriftServer {
 	MissionManagerContext context = MissionManagerContext.getInstance();
 	
 	private static final String MISSION_MANAGER_SERVICE_NAME = "MissionManagerService";	
+
+	public static final String SERVER_SIMPLE = "simple";
+	public static final String SERVER_THREADPOOL = "threadpool";
+	public static final String SERVER_HSHA = "hsha";
+	public static final String SERVER_THREADED_SELECTOR = "threadedselector";
 	
     private int thriftPort = context.thriftPort;
     private Logger mmLog = context.mmLog; 
     private boolean debug = context.debug;
 
-    private TSimpleServer server;
+    private TServer server;
     
     public static ThriftServer instance = null;    
         
@@ -106,43 +116,113 @@ public class ThriftServer {
     /**
      * Creates a Thrift server of the desired type.
      * 
-     * @param type			Type of thrift server (simple|multiplex)
+     * The serving model is selected through the {@value MissionManagerContext#PROP_THRIFT_SERVER}
+     * property (simple|threadpool|hsha|threadedselector).
+     * 
+     * @param type			Type of thrift server (simplex|multiplex)
      * @return				The created server.
      * @throws Exception	When it was not possible to create the server.
      */
-    private TSimpleServer getServer(String type) throws Exception {
+    private TServer getServer(String type) throws Exception {
+    	TProcessor processor;
+    	boolean framed;
+    	
     	if (type.equalsIgnoreCase("simplex")) {
 			MissionManagerThriftServiceHandler missionManagerServiceHandler = new MissionManagerThriftServiceHandler();
 			
-			MissionManagerService.Processor processor = new MissionManagerService.Processor(missionManagerServiceHandler);
-			
-			TServerTransport serverTransport = new TServerSocket(thriftPort);
-			TSimpleServer server = new TSimpleServer(new Args(serverTransport).processor(processor));
-			
-			return server;
-    		
+			processor = new MissionManagerService.Processor(missionManagerServiceHandler);
+			framed = false;
     	}
     	else if (type.equalsIgnoreCase("multiplex")) {
-			TMultiplexedProcessor processor = new TMultiplexedProcessor();
+			TMultiplexedProcessor multiplexedProcessor = new TMultiplexedProcessor();
 
 			MissionManagerThriftServiceHandler missionManagerServiceHandler = new MissionManagerThriftServiceHandler();
 
-			processor.registerProcessor(MISSION_MANAGER_SERVICE_NAME,
+			multiplexedProcessor.registerProcessor(MISSION_MANAGER_SERVICE_NAME,
 					new MissionManagerService.Processor(missionManagerServiceHandler));
-
-			TServerTransport serverTransport = new TServerSocket(thriftPort);
-
-			TTransportFactory factory = new TFramedTransport.Factory();
-
-			TServer.Args args = new TServer.Args(serverTransport);
+			
+			processor = multiplexedProcessor;
+			framed = true;
+    	}
+    	else
+    		throw new Exception("Unrecognized server type: " + type);
+    	
+    	return getServer(processor, framed);
+    }
+    
+    /**
+     * Creates the Thrift server selected in the configuration for the given processor.
+     * 
+     * The non-blocking servers (hsha and threadedselector) need framed transport, so
+     * an unframed (simplex) service falls back to the thread pool server.
+     * 
+     * @param processor				The processor that will serve the requests.
+     * @param framed				Whether clients use framed transport.
+     * @return						The created server.
+     * @throws TTransportException	When it was not possible to open the server socket.
+     * @throws Exception			When the server mode is not recognized.
+     */
+    private TServer getServer(TProcessor processor, boolean framed) throws Exception {
+    	String mode = context.thriftServer.toLowerCase();
+    	int workers = Math.max(1, context.thriftWorkerThreads);
+    	int selectors = Math.max(1, context.thriftSelectorThreads);
+    	int maxFrameSize = Math.max(1024, context.thriftMaxFrameSize);
+    	
+    	if (!framed && (mode.equals(SERVER_HSHA) || mode.equals(SERVER_THREADED_SELECTOR))) {
+    		mmLog.log(Level.WARNING, "Thrift server " + mode + " requires framed transport, using " + SERVER_THREADPOOL);
+    		mode = SERVER_THREADPOOL;
+    	}
+    	
+    	TServer server;
+    	
+    	switch (mode) {
+    	case SERVER_SIMPLE: {
+			TServer.Args args = new TServer.Args(new TServerSocket(thriftPort));
 			args.processor(processor);
-			args.transportFactory(factory);
-			TSimpleServer server = new TSimpleServer(args);
-
-			return server;
+			if (framed)
+				args.transportFactory(new TFramedTransport.Factory(maxFrameSize));
+			server = new TSimpleServer(args);
+			break;
     	}
+    	case SERVER_THREADPOOL: {
+    		// One worker serves one connection for its whole life
+    		TThreadPoolServer.Args args = new TThreadPoolServer.Args(new TServerSocket(thriftPort));
+			args.processor(processor);
+			if (framed)
+				args.transportFactory(new TFramedTransport.Factory(maxFrameSize));
+			args.minWorkerThreads(1);
+			args.maxWorkerThreads(workers);
+			server = new TThreadPoolServer(args);
+			break;
+    	}
+    	case SERVER_HSHA: {
+    		// Frames are read by the selector thread and only complete calls reach the workers
+    		THsHaServer.Args args = new THsHaServer.Args(new TNonblockingServerSocket(thriftPort));
+			args.processor(processor);
+			args.outputTransportFactory(new TFramedTransport.Factory(maxFrameSize));
+			args.minWorkerThreads(workers);
+			args.maxWorkerThreads(workers);
+			args.maxReadBufferBytes = (long) maxFrameSize * workers;
+			server = new THsHaServer(args);
+			break;
+    	}
+    	case SERVER_THREADED_SELECTOR: {
+    		TThreadedSelectorServer.Args args = new TThreadedSelectorServer.Args(new TNonblockingServerSocket(thriftPort));
+			args.processor(processor);
+			args.outputTransportFactory(new TFramedTransport.Factory(maxFrameSize));
+			args.selectorThreads(selectors);
+			args.workerThreads(workers);
+			args.maxReadBufferBytes = (long) maxFrameSize * workers;
+			server = new TThreadedSelectorServer(args);
+			break;
+    	}
+    	default:
+    		throw new Exception("Unrecognized server mode: " + context.thriftServer);
+    	}
+    	
+    	mmLog.log(Level.INFO, "Thrift server mode: " + mode + " (selectors: " + selectors + ", workers: " + workers + ", max frame size: " + maxFrameSize + ")");
     	
-    	throw new Exception("Unrecognized server type: " + type);
+    	return server;
     }
     
     /**